@@ -0,0 +1,112 @@
+package com.healthcare.api.admission;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A bound on requests in flight that adapts to their latency (additive
+ * increase, multiplicative decrease). Each window, if more than a tenth of
+ * the requests that finished took longer than the target latency, the
+ * limit drops by a quarter; if none did and the limit was reached, it grows
+ * by one. The limit stays between {@code minLimit} and {@code maxLimit}.
+ */
+final class AdaptiveConcurrencyLimit {
+
+    private final AdjustableSemaphore permits;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long targetNanos;
+    private final long windowNanos;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger peakInFlight = new AtomicInteger();
+    private final AtomicInteger samples = new AtomicInteger();
+    private final AtomicInteger slowSamples = new AtomicInteger();
+    private final AtomicLong windowStart;
+    private volatile int limit;
+
+    AdaptiveConcurrencyLimit(int initialLimit, int minLimit, int maxLimit, long targetNanos, long windowNanos,
+                             long nowNanos) {
+        this.minLimit = Math.max(1, minLimit);
+        this.maxLimit = Math.max(this.minLimit, maxLimit);
+        this.limit = Math.min(this.maxLimit, Math.max(this.minLimit, initialLimit));
+        this.permits = new AdjustableSemaphore(limit);
+        this.targetNanos = targetNanos;
+        this.windowNanos = windowNanos;
+        this.windowStart = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Waits up to {@code timeoutNanos} for a slot. Gives up at once when as
+     * many requests are already waiting as the limit allows in flight, since
+     * they would not be served before the deadline either.
+     */
+    boolean tryAcquire(long timeoutNanos) throws InterruptedException {
+        if (!permits.tryAcquire()) {
+            if (permits.getQueueLength() >= limit || !permits.tryAcquire(timeoutNanos, TimeUnit.NANOSECONDS)) {
+                return false;
+            }
+        }
+        peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        return true;
+    }
+
+    /**
+     * Frees a slot and, for a request served synchronously, records its
+     * latency; {@code latencyNanos} is negative for requests that streamed
+     * their response, whose duration says nothing about load.
+     */
+    void release(long latencyNanos, long nowNanos) {
+        inFlight.decrementAndGet();
+        permits.release();
+        if (latencyNanos >= 0) {
+            samples.incrementAndGet();
+            if (latencyNanos > targetNanos) {
+                slowSamples.incrementAndGet();
+            }
+        }
+        long start = windowStart.get();
+        if (nowNanos - start >= windowNanos && windowStart.compareAndSet(start, nowNanos)) {
+            adjust(samples.getAndSet(0), slowSamples.getAndSet(0), peakInFlight.getAndSet(inFlight.get()));
+        }
+    }
+
+    int limit() {
+        return limit;
+    }
+
+    int inFlight() {
+        return inFlight.get();
+    }
+
+    // Only the thread that closed the window gets here
+    private void adjust(int finished, int slow, int peak) {
+        int current = limit;
+        int next = current;
+        if (slow * 10 > finished) {
+            next = Math.max(minLimit, current - Math.max(1, current / 4));
+        } else if (slow == 0 && peak >= current) {
+            next = Math.min(maxLimit, current + 1);
+        }
+        if (next > current) {
+            permits.release(next - current);
+        } else if (next < current) {
+            permits.reducePermits(current - next);
+        }
+        limit = next;
+    }
+
+    private static final class AdjustableSemaphore extends Semaphore {
+
+        AdjustableSemaphore(int permits) {
+            super(permits, true);
+        }
+
+        // May go negative; requests in flight then return permits before new ones are admitted
+        @Override
+        protected void reducePermits(int reduction) {
+            super.reducePermits(reduction);
+        }
+    }
+}
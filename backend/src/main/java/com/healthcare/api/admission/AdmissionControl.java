@@ -0,0 +1,154 @@
+package com.healthcare.api.admission;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.env.Environment;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Decides whether a doctor's request may proceed. Each doctor has a token
+ * bucket per {@link EndpointClass}, so one client polling in a loop uses up
+ * its own rate and no one else's. Each class also has an
+ * {@link AdaptiveConcurrencyLimit} shared by all doctors, which keeps the
+ * requests in flight below what the connection pool serves within the
+ * target latency; a request waits for a slot until the class's deadline.
+ * Limits are read from {@code admission.<class>.*}, where the class is
+ * reads, writes or analytics.
+ */
+@Component
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControl {
+
+    /**
+     * Limits for one endpoint class: a per-doctor rate and burst, and the
+     * shared concurrency limit with its latency target and admission deadline.
+     */
+    public record Settings(double ratePerSecond, int burst, int initialLimit, int minLimit, int maxLimit,
+                           Duration targetLatency, Duration deadline) {
+    }
+
+    /** The outcome for one request; {@code retryAfterNanos} is set when it was refused. */
+    public record Decision(Outcome outcome, long retryAfterNanos) {
+    }
+
+    public enum Outcome { ADMITTED, THROTTLED, SHED }
+
+    private static final Decision ADMITTED = new Decision(Outcome.ADMITTED, 0);
+
+    private final Map<EndpointClass, Settings> settings;
+    private final Map<EndpointClass, AdaptiveConcurrencyLimit> limits = new EnumMap<>(EndpointClass.class);
+    private final Map<EndpointClass, Map<Outcome, Counter>> counters = new EnumMap<>(EndpointClass.class);
+    private final Map<Long, TokenBucket[]> buckets = new ConcurrentHashMap<>();
+
+    public AdmissionControl(Environment environment, MeterRegistry meterRegistry,
+                            @Value("${admission.min-limit:1}") int minLimit,
+                            @Value("${admission.window:PT1S}") Duration window) {
+        this.settings = settings(environment, minLimit);
+        long now = System.nanoTime();
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Settings classSettings = this.settings.get(endpointClass);
+            AdaptiveConcurrencyLimit limit = new AdaptiveConcurrencyLimit(classSettings.initialLimit(),
+                    classSettings.minLimit(), classSettings.maxLimit(), classSettings.targetLatency().toNanos(),
+                    window.toNanos(), now);
+            limits.put(endpointClass, limit);
+            Gauge.builder("admission.limit", limit, AdaptiveConcurrencyLimit::limit)
+                    .description("Requests allowed in flight")
+                    .tag("class", endpointClass.tag())
+                    .register(meterRegistry);
+            Gauge.builder("admission.in.flight", limit, AdaptiveConcurrencyLimit::inFlight)
+                    .tag("class", endpointClass.tag())
+                    .register(meterRegistry);
+            Map<Outcome, Counter> outcomes = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                outcomes.put(outcome, Counter.builder("admission.requests")
+                        .description("Requests admitted, throttled (429) or shed (503)")
+                        .tag("class", endpointClass.tag())
+                        .tag("outcome", outcome.name().toLowerCase())
+                        .register(meterRegistry));
+            }
+            counters.put(endpointClass, outcomes);
+        }
+        Gauge.builder("admission.doctors", buckets, Map::size)
+                .description("Doctors with a partly used rate bucket")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Takes a token from the doctor's bucket, then waits for a slot in the
+     * class's limit. An admitted request must be passed to {@link #release}.
+     */
+    public Decision admit(Long doctorId, EndpointClass endpointClass) throws InterruptedException {
+        long now = System.nanoTime();
+        TokenBucket bucket = buckets.computeIfAbsent(doctorId, id -> newBuckets(now))[endpointClass.ordinal()];
+        long wait = bucket.tryAcquire(now);
+        if (wait > 0) {
+            counters.get(endpointClass).get(Outcome.THROTTLED).increment();
+            return new Decision(Outcome.THROTTLED, wait);
+        }
+        Settings classSettings = settings.get(endpointClass);
+        if (!limits.get(endpointClass).tryAcquire(classSettings.deadline().toNanos())) {
+            counters.get(endpointClass).get(Outcome.SHED).increment();
+            // By then the requests ahead of it have had another deadline to finish
+            return new Decision(Outcome.SHED, classSettings.deadline().toNanos());
+        }
+        counters.get(endpointClass).get(Outcome.ADMITTED).increment();
+        return ADMITTED;
+    }
+
+    /**
+     * @param latencyNanos the request's time in the application, or -1 if it
+     *                     streamed its response and should not count toward the latency target
+     */
+    public void release(EndpointClass endpointClass, long latencyNanos) {
+        limits.get(endpointClass).release(latencyNanos, System.nanoTime());
+    }
+
+    /** Forgets the doctors whose buckets have refilled, which then match new buckets. */
+    @Scheduled(fixedDelayString = "${admission.evict-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        buckets.values().removeIf(doctorBuckets -> {
+            for (TokenBucket bucket : doctorBuckets) {
+                if (!bucket.isFull(now)) {
+                    return false;
+                }
+            }
+            return true;
+        });
+    }
+
+    private static Map<EndpointClass, Settings> settings(Environment environment, int minLimit) {
+        Map<EndpointClass, Settings> settings = new EnumMap<>(EndpointClass.class);
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            String prefix = "admission." + endpointClass.tag() + ".";
+            int maxLimit = environment.getRequiredProperty(prefix + "max-limit", Integer.class);
+            settings.put(endpointClass, new Settings(
+                    environment.getRequiredProperty(prefix + "rate", Double.class),
+                    environment.getRequiredProperty(prefix + "burst", Integer.class),
+                    Math.min(environment.getRequiredProperty(prefix + "initial-limit", Integer.class), maxLimit),
+                    Math.min(minLimit, maxLimit),
+                    maxLimit,
+                    environment.getRequiredProperty(prefix + "target-latency", Duration.class),
+                    environment.getRequiredProperty(prefix + "deadline", Duration.class)));
+        }
+        return settings;
+    }
+
+    private TokenBucket[] newBuckets(long now) {
+        TokenBucket[] doctorBuckets = new TokenBucket[EndpointClass.values().length];
+        for (EndpointClass endpointClass : EndpointClass.values()) {
+            Settings classSettings = settings.get(endpointClass);
+            doctorBuckets[endpointClass.ordinal()] =
+                    new TokenBucket(classSettings.ratePerSecond(), classSettings.burst(), now);
+        }
+        return doctorBuckets;
+    }
+}
@@ -0,0 +1,112 @@
+package com.healthcare.api.admission;
+
+import com.healthcare.api.security.DoctorPrincipal;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Applies {@link AdmissionControl} to authenticated requests. A doctor over
+ * their rate gets 429 and a saturated endpoint class gets 503, both with a
+ * Retry-After in seconds, before any connection is taken from the pool. An
+ * admitted request holds its slot until its response is complete, which
+ * for streamed responses is after the async request ends. Subscriptions
+ * that stay open while idle mark the request with {@link #SUBSCRIPTION}
+ * and give their slot back once they are set up.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    /** Request attribute marking a long-lived subscription, such as the analytics stream. */
+    public static final String SUBSCRIPTION = AdmissionControlFilter.class.getName() + ".subscription";
+
+    private final AdmissionControl admissionControl;
+
+    public AdmissionControlFilter(AdmissionControl admissionControl) {
+        this.admissionControl = admissionControl;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!(request.getUserPrincipal() instanceof DoctorPrincipal principal)) {
+            // Login and registration, which carry no doctor yet
+            filterChain.doFilter(request, response);
+            return;
+        }
+        EndpointClass endpointClass = EndpointClass.of(request.getMethod(),
+                request.getRequestURI().substring(request.getContextPath().length()));
+        AdmissionControl.Decision decision;
+        try {
+            decision = admissionControl.admit(principal.doctorId(), endpointClass);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Server is shutting down");
+            return;
+        }
+        switch (decision.outcome()) {
+            case THROTTLED -> {
+                retryAfter(response, decision.retryAfterNanos());
+                response.sendError(429, "Too many " + endpointClass.tag() + " from this account; retry later");
+                return;
+            }
+            case SHED -> {
+                retryAfter(response, decision.retryAfterNanos());
+                response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE,
+                        "Server is busy with " + endpointClass.tag() + "; retry later");
+                return;
+            }
+            default -> {
+            }
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean released = new AtomicBoolean();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted() && request.getAttribute(SUBSCRIPTION) == null) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(endpointClass, released, -1);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release(endpointClass, released, -1);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(endpointClass, released, -1);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release(endpointClass, released, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private void release(EndpointClass endpointClass, AtomicBoolean released, long latencyNanos) {
+        if (released.compareAndSet(false, true)) {
+            admissionControl.release(endpointClass, latencyNanos);
+        }
+    }
+
+    private static void retryAfter(HttpServletResponse response, long nanos) {
+        response.setHeader(HttpHeaders.RETRY_AFTER,
+                Long.toString(Math.max(1, (nanos + TimeUnit.SECONDS.toNanos(1) - 1) / TimeUnit.SECONDS.toNanos(1))));
+    }
+}
@@ -0,0 +1,33 @@
+package com.healthcare.api.admission;
+
+/**
+ * Groups of endpoints that are admitted separately, so a flood of one kind
+ * of request cannot take the capacity the others need.
+ */
+public enum EndpointClass {
+    READ("reads"),
+    WRITE("writes"),
+    ANALYTICS("analytics");
+
+    private final String tag;
+
+    EndpointClass(String tag) {
+        this.tag = tag;
+    }
+
+    /** Metric tag and property prefix, e.g. {@code admission.reads.*}. */
+    public String tag() {
+        return tag;
+    }
+
+    /**
+     * Dashboard and population aggregates are analytics; other GETs are
+     * reads and everything else is a write.
+     */
+    public static EndpointClass of(String method, String path) {
+        if (path.startsWith("/api/analytics") || path.startsWith("/api/population")) {
+            return ANALYTICS;
+        }
+        return "GET".equals(method) || "HEAD".equals(method) ? READ : WRITE;
+    }
+}
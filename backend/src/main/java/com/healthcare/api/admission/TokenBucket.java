@@ -0,0 +1,47 @@
+package com.healthcare.api.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A token bucket kept as one theoretical arrival time (the generic cell
+ * rate algorithm): a request takes a token by moving that time one
+ * interval forward, which is allowed while it stays within {@code burst}
+ * intervals of now. Acquiring is a single compare-and-set, so no lock is
+ * taken on the request path.
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long burstNanos;
+    private final AtomicLong theoreticalArrival;
+
+    TokenBucket(double tokensPerSecond, int burst, long nowNanos) {
+        this.intervalNanos = Math.max(1, (long) (1_000_000_000L / tokensPerSecond));
+        this.burstNanos = intervalNanos * Math.max(1, burst);
+        this.theoreticalArrival = new AtomicLong(nowNanos);
+    }
+
+    /**
+     * Takes a token if one is available.
+     *
+     * @return 0 if a token was taken, otherwise the nanoseconds until one will be
+     */
+    long tryAcquire(long nowNanos) {
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, nowNanos) + intervalNanos;
+            long excess = next - nowNanos - burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+
+    /** Whether the bucket has refilled completely, and so is no different from a new one. */
+    boolean isFull(long nowNanos) {
+        return theoreticalArrival.get() <= nowNanos;
+    }
+}
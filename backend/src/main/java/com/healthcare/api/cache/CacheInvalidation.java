@@ -0,0 +1,15 @@
+package com.healthcare.api.cache;
+
+import java.io.Serializable;
+import java.util.Set;
+
+/**
+ * One committed write, as sent to the other instances. {@code ids} are the
+ * entities to drop from the second-level cache; it is empty when only
+ * cached query results are affected (an insert).
+ *
+ * @param source instance that made the write, so it can skip its own messages
+ */
+public record CacheInvalidation(String source, String entityName, Set<Object> ids)
+        implements Serializable {
+}
@@ -0,0 +1,21 @@
+package com.healthcare.api.cache;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries second-level cache invalidations, and changed shard placements
+ * (see {@code ShardDirectory}), between app instances. A clustered
+ * deployment provides a bean backed by its message bus; without one, each
+ * instance only invalidates its own cache.
+ * <p>
+ * Delivery must be at-least-once for the caches to stay coherent; the
+ * region TTLs bound how long a lost message can leave a stale entry.
+ */
+public interface CacheInvalidationChannel {
+
+    void publish(CacheInvalidation invalidation);
+
+    void subscribe(Consumer<CacheInvalidation> listener);
+
+    void unsubscribe(Consumer<CacheInvalidation> listener);
+}
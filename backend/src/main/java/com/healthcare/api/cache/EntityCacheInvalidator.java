@@ -0,0 +1,230 @@
+package com.healthcare.api.cache;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Cache;
+import org.hibernate.Session;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Keeps the second-level cache correct across writes Hibernate does not see
+ * and across instances.
+ * <p>
+ * Writes through JPA maintain this instance's cache on their own. With a
+ * {@link CacheInvalidationChannel} configured, the ids each transaction
+ * wrote are also published once it commits, and messages from other
+ * instances evict those entities and invalidate the cached queries over
+ * their tables. JDBC writes to cached tables must call {@link #evict} after
+ * they commit.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EntityCacheInvalidator {
+
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<CacheInvalidationChannel> channelProvider;
+
+    private final String source = UUID.randomUUID().toString();
+    private final Consumer<CacheInvalidation> receiver = this::receive;
+    private final Map<String, CachedEntity> cachedEntities = new HashMap<>();
+    private SessionFactoryImplementor sessionFactory;
+    private CacheInvalidationChannel channel;
+
+    /**
+     * A cached entity with its cached collections and the tables whose
+     * cached query results depend on it.
+     */
+    private record CachedEntity(String entityName, List<String> collectionRoles, String[] querySpaces) {
+    }
+
+    @PostConstruct
+    void init() {
+        sessionFactory = entityManagerFactory.unwrap(SessionFactoryImplementor.class);
+        Map<String, List<String>> collectionRoles = new HashMap<>();
+        Map<String, Set<String>> querySpaces = new HashMap<>();
+        sessionFactory.getMappingMetamodel().forEachEntityDescriptor(persister -> {
+            if (persister.canWriteToCache()) {
+                collectionRoles.put(persister.getEntityName(), new ArrayList<>());
+                querySpaces.put(persister.getEntityName(), new LinkedHashSet<>(
+                        Arrays.asList((String[]) persister.getQuerySpaces())));
+            }
+        });
+        sessionFactory.getMappingMetamodel().forEachCollectionDescriptor(collection -> {
+            String owner = collection.getOwnerEntityPersister().getEntityName();
+            if (collection.hasCache() && collectionRoles.containsKey(owner)) {
+                collectionRoles.get(owner).add(collection.getRole());
+                querySpaces.get(owner).addAll(Arrays.asList((String[]) collection.getCollectionSpaces()));
+            }
+        });
+        collectionRoles.forEach((entityName, roles) -> cachedEntities.put(entityName,
+                new CachedEntity(entityName, roles, querySpaces.get(entityName).toArray(String[]::new))));
+
+        channel = channelProvider.getIfAvailable();
+        if (channel == null) {
+            return;
+        }
+        EventListenerRegistry listeners = sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class);
+        WriteListener writeListener = new WriteListener();
+        listeners.appendListeners(EventType.POST_INSERT, writeListener);
+        listeners.appendListeners(EventType.POST_UPDATE, writeListener);
+        listeners.appendListeners(EventType.POST_DELETE, writeListener);
+        listeners.appendListeners(EventType.POST_COLLECTION_RECREATE, (PostCollectionRecreateEventListener) event ->
+                written(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull()));
+        listeners.appendListeners(EventType.POST_COLLECTION_UPDATE, (PostCollectionUpdateEventListener) event ->
+                written(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull()));
+        listeners.appendListeners(EventType.POST_COLLECTION_REMOVE, (PostCollectionRemoveEventListener) event ->
+                written(event.getAffectedOwnerEntityName(), event.getAffectedOwnerIdOrNull()));
+        channel.subscribe(receiver);
+        log.info("Second-level cache invalidations go through {}", channel.getClass().getSimpleName());
+    }
+
+    @PreDestroy
+    void close() {
+        if (channel != null) {
+            channel.unsubscribe(receiver);
+        }
+    }
+
+    /**
+     * Drops the given entities, and the cached queries over their tables,
+     * here and on the other instances. Call after the write has committed.
+     */
+    public void evict(Class<?> entityClass, Collection<?> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        CacheInvalidation invalidation = new CacheInvalidation(source, entityClass.getName(), new HashSet<>(ids));
+        apply(invalidation);
+        publish(invalidation);
+    }
+
+    private void receive(CacheInvalidation invalidation) {
+        if (!source.equals(invalidation.source())) {
+            apply(invalidation);
+        }
+    }
+
+    private void apply(CacheInvalidation invalidation) {
+        CachedEntity entity = cachedEntities.get(invalidation.entityName());
+        if (entity == null) {
+            return;
+        }
+        Cache cache = sessionFactory.getCache();
+        for (Object id : invalidation.ids()) {
+            cache.evictEntityData(entity.entityName(), id);
+            entity.collectionRoles().forEach(role -> cache.evictCollectionData(role, id));
+        }
+        // Same as a local write: cached results over these tables become stale
+        try (Session session = sessionFactory.openSession()) {
+            sessionFactory.getCache().getTimestampsCache()
+                    .invalidate(entity.querySpaces(), (SharedSessionContractImplementor) session);
+        }
+    }
+
+    private void publish(CacheInvalidation invalidation) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.publish(invalidation);
+        } catch (RuntimeException e) {
+            // The write has committed; other instances catch up when their entries expire
+            log.warn("Publishing cache invalidation for {} failed", invalidation.entityName(), e);
+        }
+    }
+
+    /**
+     * Collects what the current transaction wrote and publishes it once the
+     * transaction commits. An insert without an id only invalidates queries.
+     */
+    private void written(String entityName, Object id) {
+        if (!cachedEntities.containsKey(entityName)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(new CacheInvalidation(source, entityName, id == null ? Set.of() : Set.of(id)));
+            return;
+        }
+        PendingInvalidations pending = (PendingInvalidations) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingInvalidations();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        Set<Object> ids = pending.idsByEntity.computeIfAbsent(entityName, name -> new HashSet<>());
+        if (id != null) {
+            ids.add(id);
+        }
+    }
+
+    private class PendingInvalidations implements TransactionSynchronization {
+
+        private final Map<String, Set<Object>> idsByEntity = new LinkedHashMap<>();
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(EntityCacheInvalidator.this);
+            if (status == STATUS_COMMITTED) {
+                idsByEntity.forEach((entityName, ids) ->
+                        publish(new CacheInvalidation(source, entityName, ids)));
+            }
+        }
+    }
+
+    private class WriteListener implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+        @Override
+        public void onPostInsert(PostInsertEvent event) {
+            // Nothing cached under a new id yet; only cached queries are affected
+            written(event.getPersister().getEntityName(), null);
+        }
+
+        @Override
+        public void onPostUpdate(PostUpdateEvent event) {
+            written(event.getPersister().getEntityName(), event.getId());
+        }
+
+        @Override
+        public void onPostDelete(PostDeleteEvent event) {
+            written(event.getPersister().getEntityName(), event.getId());
+        }
+
+        @Override
+        public boolean requiresPostCommitHandling(EntityPersister persister) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.healthcare.api.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * In-process channel shared by every application context in the JVM, so
+ * two instances started side by side (load tests, experiments) keep each
+ * other's caches coherent. Messages are delivered synchronously on the
+ * thread that committed the write.
+ */
+@Component
+@ConditionalOnProperty(name = "cache.invalidation.channel", havingValue = "local")
+public class LocalCacheInvalidationChannel implements CacheInvalidationChannel {
+
+    private static final List<Consumer<CacheInvalidation>> LISTENERS = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        LISTENERS.forEach(listener -> listener.accept(invalidation));
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        LISTENERS.add(listener);
+    }
+
+    @Override
+    public void unsubscribe(Consumer<CacheInvalidation> listener) {
+        LISTENERS.remove(listener);
+    }
+}
@@ -0,0 +1,23 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.admission.AdmissionControl;
+import com.healthcare.api.admission.AdmissionControlFilter;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(AdmissionControl admissionControl) {
+        FilterRegistrationBean<AdmissionControlFilter> registration =
+                new FilterRegistrationBean<>(new AdmissionControlFilter(admissionControl));
+        registration.addUrlPatterns("/api/*");
+        // After authentication, which names the doctor, and before request bodies are inflated
+        registration.setOrder(CorsConfig.FILTER_ORDER + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,24 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.diagnostics.QueryCountFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConditionalOnProperty(name = "diagnostics.query-count.enabled", havingValue = "true")
+public class DiagnosticsConfig {
+
+    @Bean
+    public FilterRegistrationBean<QueryCountFilter> queryCountFilter(
+            ApplicationEventPublisher publisher,
+            @Value("${diagnostics.query-count.capture:false}") boolean capture) {
+        FilterRegistrationBean<QueryCountFilter> registration =
+                new FilterRegistrationBean<>(new QueryCountFilter(capture ? publisher : null));
+        registration.addUrlPatterns("/api/*");
+        return registration;
+    }
+}
@@ -0,0 +1,112 @@
+package com.healthcare.api.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import com.healthcare.api.repository.PatientRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.spi.RegionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Bounded Caffeine caches behind Hibernate's second-level and query caches.
+ * Every region is created here, and Hibernate is set to fail on a region it
+ * does not find, so an entity cannot silently end up in an unbounded cache.
+ * The time-to-live is a safety net for writes that bypass Hibernate without
+ * evicting (see {@link com.healthcare.api.cache.EntityCacheInvalidator}).
+ */
+@Configuration
+public class HibernateCacheConfig {
+
+    // Regions named in the @Cache annotations on Doctor and Patient
+    private static final List<String> ENTITY_REGIONS = List.of("doctors", "patients", "patient-symptoms");
+
+    @Value("${cache.entities.max-size:10000}")
+    private long entityMaxSize;
+
+    @Value("${cache.entities.ttl:PT10M}")
+    private Duration entityTtl;
+
+    @Value("${cache.queries.max-size:1000}")
+    private long queryMaxSize;
+
+    @Value("${cache.queries.ttl:PT5M}")
+    private Duration queryTtl;
+
+    /**
+     * A cache manager of its own (not the JVM-wide default one), so that two
+     * application contexts in one process do not share cached entities.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("hibernate-cache:" + UUID.randomUUID()), getClass().getClassLoader());
+        for (String region : ENTITY_REGIONS) {
+            cacheManager.createCache(region, bounded(entityMaxSize, entityTtl));
+        }
+        cacheManager.createCache(PatientRepository.PATIENT_QUERIES, bounded(queryMaxSize, queryTtl));
+        cacheManager.createCache(RegionFactory.DEFAULT_QUERY_RESULTS_REGION_UNQUALIFIED_NAME,
+                bounded(queryMaxSize, queryTtl));
+        // One entry per table; must not expire or evict, or cached queries could outlive a write
+        cacheManager.createCache(RegionFactory.DEFAULT_UPDATE_TIMESTAMPS_REGION_UNQUALIFIED_NAME,
+                new CaffeineConfiguration<>());
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheManagerCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * {@code hibernate.cache.hit.ratio} per region: hits over lookups since
+     * startup, from the session factory statistics.
+     */
+    @Bean
+    public MeterBinder hibernateCacheHitRatio(EntityManagerFactory entityManagerFactory) {
+        return registry -> {
+            Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            for (String region : ENTITY_REGIONS) {
+                hitRatio(region, statistics::getDomainDataRegionStatistics).register(registry);
+            }
+            hitRatio(PatientRepository.PATIENT_QUERIES, statistics::getQueryRegionStatistics).register(registry);
+        };
+    }
+
+    private static Gauge.Builder<?> hitRatio(String region, Function<String, CacheRegionStatistics> statistics) {
+        return Gauge.builder("hibernate.cache.hit.ratio", () -> {
+                    CacheRegionStatistics stats = statistics.apply(region);
+                    if (stats == null) {
+                        // Query regions are only built on first use
+                        return Double.NaN;
+                    }
+                    long lookups = stats.getHitCount() + stats.getMissCount();
+                    return lookups == 0 ? Double.NaN : (double) stats.getHitCount() / lookups;
+                })
+                .description("Second-level cache hits over lookups")
+                .tag("region", region);
+    }
+
+    private static CaffeineConfiguration<Object, Object> bounded(long maxSize, Duration ttl) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        return configuration;
+    }
+}
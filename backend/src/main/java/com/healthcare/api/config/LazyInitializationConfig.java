@@ -0,0 +1,43 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.cache.EntityCacheInvalidator;
+import com.healthcare.api.search.PatientSearchIndex;
+import com.healthcare.api.sharding.ShardSchema;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.MethodIntrospector;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.core.annotation.AnnotationUtils;
+import org.springframework.scheduling.annotation.Scheduled;
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Beans that stay eager when {@code spring.main.lazy-initialization} is on,
+ * as in the faststart profile. The database and Hibernate are started before
+ * the server takes requests, so the first request does not pay for them; the
+ * shard schema is checked and the search index built before then too; the
+ * cache invalidator hooks into Hibernate before the first write; and beans
+ * with {@code @Scheduled} methods are only scheduled once created.
+ */
+@Configuration(proxyBeanMethods = false)
+public class LazyInitializationConfig {
+
+    private static final List<Class<?>> EAGER_TYPES = List.of(DataSource.class, EntityManagerFactory.class,
+            ShardSchema.class, PatientSearchIndex.class, EntityCacheInvalidator.class);
+
+    // Static: it is read by a bean factory post-processor, before this class is instantiated
+    @Bean
+    static LazyInitializationExcludeFilter eagerBeans() {
+        return (beanName, definition, type) -> EAGER_TYPES.stream().anyMatch(eager -> eager.isAssignableFrom(type))
+                || hasScheduledMethods(type);
+    }
+
+    private static boolean hasScheduledMethods(Class<?> type) {
+        return AnnotationUtils.isCandidateClass(type, Scheduled.class)
+                && !MethodIntrospector.selectMethods(type, (MethodIntrospector.MetadataLookup<Scheduled>) method ->
+                        AnnotatedElementUtils.findMergedAnnotation(method, Scheduled.class)).isEmpty();
+    }
+}
@@ -0,0 +1,47 @@
+package com.healthcare.api.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.metrics.RepositoryStatementMetrics;
+import com.healthcare.api.metrics.TimedJacksonHttpMessageConverter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+
+@Configuration
+public class MetricsConfig {
+
+    /**
+     * Replaces Spring Boot's default JSON converter, which backs off when one
+     * is defined, with a timed subclass using the same ObjectMapper.
+     */
+    @Bean
+    public MappingJackson2HttpMessageConverter mappingJackson2HttpMessageConverter(ObjectMapper objectMapper,
+                                                                                   MeterRegistry meterRegistry) {
+        return new TimedJacksonHttpMessageConverter(objectMapper, meterRegistry);
+    }
+
+    /**
+     * Adds {@link RepositoryStatementMetrics} to every Spring Data repository
+     * proxy. Static so the post-processor does not force this configuration
+     * (or the registry) to be created early.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryStatementMetricsPostProcessor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, repositoryInformation) -> proxyFactory.addAdvice(
+                                    new RepositoryStatementMetrics(meterRegistry.getObject(),
+                                            repositoryInformation.getRepositoryInterface()))));
+                }
+                return bean;
+            }
+        };
+    }
+}
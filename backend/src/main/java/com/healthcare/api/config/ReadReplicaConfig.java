@@ -0,0 +1,80 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Read replicas behind the application's data source. The primary pool is
+ * configured as usual under {@code spring.datasource}; each URL in
+ * {@code datasource.replicas.urls} gets a read-only pool of its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReadReplicaConfig {
+
+    @Bean
+    public ReplicaRoutingDataSource replicaRoutingDataSource(
+            DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+            @Value("${datasource.replicas.urls}") List<String> urls,
+            @Value("${datasource.replicas.username:${spring.datasource.username:}}") String username,
+            @Value("${datasource.replicas.password:${spring.datasource.password:}}") String password,
+            @Value("${datasource.replicas.maximum-pool-size:10}") int maximumPoolSize,
+            @Value("${datasource.replicas.connection-timeout:PT1S}") Duration connectionTimeout,
+            @Value("${datasource.replicas.selection:round-robin}") String selection,
+            @Value("${datasource.replicas.read-your-writes:PT5S}") Duration readYourWrites,
+            @Value("${datasource.replicas.retry-interval:PT10S}") Duration retryInterval) {
+        HikariDataSource primary = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(primary));
+        primary.setPoolName("primary");
+        primary.setMetricRegistry(meterRegistry);
+
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (replicas.size() + 1));
+            replica.setDriverClassName(properties.determineDriverClassName());
+            replica.setJdbcUrl(url.trim());
+            replica.setUsername(username);
+            replica.setPassword(password);
+            replica.setReadOnly(true);
+            replica.setMaximumPoolSize(maximumPoolSize);
+            replica.setMinimumIdle(0);
+            replica.setConnectionTimeout(connectionTimeout.toMillis());
+            // Start even when a replica is down; reads fall back to the primary until it is back
+            replica.setInitializationFailTimeout(-1);
+            replica.setMetricRegistry(meterRegistry);
+            replicas.add(replica);
+        }
+        return new ReplicaRoutingDataSource(primary, replicas,
+                ReplicaRoutingDataSource.Selection.valueOf(selection.trim().toUpperCase().replace('-', '_')),
+                readYourWrites, retryInterval, meterRegistry);
+    }
+
+    /**
+     * Hands out connection proxies that reach a pool only at the first
+     * statement, once the transaction's read-only flag has been set.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+    }
+}
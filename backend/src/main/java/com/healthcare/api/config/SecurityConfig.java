@@ -0,0 +1,37 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.security.AdminOnlyFilter;
+import com.healthcare.api.security.JwtAuthenticationFilter;
+import com.healthcare.api.security.JwtUtil;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import java.util.List;
+import java.util.Set;
+
+@Configuration
+public class SecurityConfig {
+
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilter(JwtUtil jwtUtil) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration =
+                new FilterRegistrationBean<>(new JwtAuthenticationFilter(jwtUtil));
+        registration.addUrlPatterns("/api/*");
+        // Run after the CORS filter so rejected requests still carry CORS headers
+        registration.setOrder(CorsConfig.FILTER_ORDER + 1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<AdminOnlyFilter> adminOnlyFilter(
+            @Value("${admin.doctor-ids:}") List<Long> adminDoctorIds) {
+        FilterRegistrationBean<AdminOnlyFilter> registration =
+                new FilterRegistrationBean<>(new AdminOnlyFilter(Set.copyOf(adminDoctorIds)));
+        // Population counts span every doctor's patients, so they are admin-only too
+        registration.addUrlPatterns("/api/admin/*", "/api/population/*");
+        // After authentication, which sets the principal, and admission, as when the controllers checked
+        registration.setOrder(CorsConfig.FILTER_ORDER + 4);
+        return registration;
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthcare.api.config;
+
+import com.healthcare.api.cache.CacheInvalidationChannel;
+import com.healthcare.api.datasource.ShardRoutingDataSource;
+import com.healthcare.api.sharding.DirectoryShardingStrategy;
+import com.healthcare.api.sharding.HashShardingStrategy;
+import com.healthcare.api.sharding.ShardDirectory;
+import com.healthcare.api.sharding.ShardSchema;
+import com.healthcare.api.sharding.ShardingStrategy;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Patient storage split across databases by doctor. The database under
+ * {@code spring.datasource} is shard 0, the home database, which also
+ * holds the doctors and the shard directory; each URL in
+ * {@code sharding.urls} adds a shard with a pool of its own.
+ */
+@Configuration
+@ConditionalOnProperty(name = "sharding.enabled", havingValue = "true")
+public class ShardingConfig {
+
+    @Bean
+    public ShardDirectory shardDirectory(
+            DataSourceProperties properties, Environment environment, MeterRegistry meterRegistry,
+            ObjectProvider<ShardingStrategy> customStrategy, ObjectProvider<CacheInvalidationChannel> channel,
+            @Value("${sharding.urls}") List<String> urls,
+            @Value("${sharding.username:${spring.datasource.username:}}") String username,
+            @Value("${sharding.password:${spring.datasource.password:}}") String password,
+            @Value("${sharding.maximum-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int maximumPoolSize,
+            @Value("${sharding.strategy:hash}") String strategy,
+            @Value("${sharding.directory:}") List<String> directory,
+            @Value("${sharding.placements.cache-ttl:PT1M}") Duration cacheTtl,
+            @Value("${sharding.placements.cache-size:100000}") long cacheSize) {
+        HikariDataSource home = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        Binder.get(environment).bind("spring.datasource.hikari", Bindable.ofInstance(home));
+        home.setPoolName("shard-0");
+        home.setMetricRegistry(meterRegistry);
+
+        List<HikariDataSource> pools = new ArrayList<>(List.of(home));
+        for (String url : urls) {
+            if (url.isBlank()) {
+                continue;
+            }
+            HikariDataSource shard = new HikariDataSource();
+            shard.setPoolName("shard-" + pools.size());
+            shard.setDriverClassName(properties.determineDriverClassName());
+            shard.setJdbcUrl(url.trim());
+            shard.setUsername(username);
+            shard.setPassword(password);
+            shard.setMaximumPoolSize(maximumPoolSize);
+            shard.setMinimumIdle(home.getMinimumIdle());
+            shard.setConnectionTimeout(home.getConnectionTimeout());
+            shard.setMetricRegistry(meterRegistry);
+            pools.add(shard);
+        }
+        return new ShardDirectory(pools, customStrategy.getIfAvailable(() -> strategy(strategy, directory)),
+                cacheTtl, cacheSize, channel.getIfAvailable());
+    }
+
+    @Bean
+    public ShardRoutingDataSource shardRoutingDataSource(ShardDirectory shardDirectory) {
+        return new ShardRoutingDataSource(shardDirectory);
+    }
+
+    /**
+     * Hands out connection proxies that reach a shard only at the first
+     * statement, once the code that runs it has chosen the shard.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardRoutingDataSource shardRoutingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardRoutingDataSource);
+    }
+
+    @Bean
+    public ShardSchema shardSchema(EntityManagerFactory entityManagerFactory, ShardDirectory shardDirectory,
+                                   @Value("${spring.jpa.hibernate.ddl-auto:none}") String ddlAuto) {
+        return new ShardSchema(entityManagerFactory.unwrap(SessionFactory.class), shardDirectory, ddlAuto);
+    }
+
+    // sharding.directory entries are name:shard, e.g. Kerala:1
+    private static ShardingStrategy strategy(String name, List<String> directory) {
+        return switch (name.trim()) {
+            case "hash" -> new HashShardingStrategy();
+            case "directory" -> {
+                Map<String, Integer> entries = new LinkedHashMap<>();
+                for (String entry : directory) {
+                    if (entry.isBlank()) {
+                        continue;
+                    }
+                    int separator = entry.lastIndexOf(':');
+                    if (separator < 0) {
+                        throw new IllegalStateException("Expected name:shard in sharding.directory, got " + entry);
+                    }
+                    entries.put(entry.substring(0, separator).trim(),
+                            Integer.parseInt(entry.substring(separator + 1).trim()));
+                }
+                yield new DirectoryShardingStrategy(entries);
+            }
+            default -> throw new IllegalStateException("Unknown sharding.strategy: " + name
+                    + " (expected hash or directory)");
+        };
+    }
+}
@@ -0,0 +1,69 @@
+package com.healthcare.api.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.healthcare.api.web.CompressionThresholdFilter;
+import com.healthcare.api.web.RequestDecompressionFilter;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Compression;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import java.util.Arrays;
+
+/**
+ * Binary alternatives to JSON, chosen by the client's Accept (responses)
+ * or Content-Type (request bodies), and compressed request bodies. JSON
+ * stays first, so clients that accept anything still get JSON. Response
+ * compression is Tomcat's, configured under {@code server.compression}.
+ */
+@Configuration
+public class WireFormatConfig {
+
+    /**
+     * Built from Spring Boot's builder, so CBOR carries the same fields and
+     * date format as the JSON responses.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(
+            @Value("${http.request-decompression.max-size:64MB}") DataSize maxSize) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration =
+                new FilterRegistrationBean<>(new RequestDecompressionFilter(maxSize.toBytes()));
+        // Patient create, update and batch upload
+        registration.addUrlPatterns("/api/patients", "/api/patients/*");
+        // After authentication and admission, so neither anonymous nor refused requests are inflated
+        registration.setOrder(CorsConfig.FILTER_ORDER + 3);
+        return registration;
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+    public FilterRegistrationBean<CompressionThresholdFilter> compressionThresholdFilter(ServerProperties server) {
+        Compression compression = server.getCompression();
+        FilterRegistrationBean<CompressionThresholdFilter> registration = new FilterRegistrationBean<>(
+                new CompressionThresholdFilter(
+                        Arrays.stream(compression.getMimeTypes()).map(MediaType::parseMediaType).toList(),
+                        compression.getMinResponseSize().toBytes()));
+        registration.addUrlPatterns("/api/*", "/error");
+        registration.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR);
+        return registration;
+    }
+}
@@ -0,0 +1,77 @@
+package com.healthcare.api.controller;
+
+import com.healthcare.api.dto.MessageResponse;
+import com.healthcare.api.dto.RiskRescoreStatus;
+import com.healthcare.api.dto.ShardSummaryResponse;
+import com.healthcare.api.service.PopulationRollupService;
+import com.healthcare.api.service.RiskRescoreJob;
+import com.healthcare.api.service.RiskScoringService;
+import com.healthcare.api.sharding.ShardMigrator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.util.List;
+
+/**
+ * Operations for the doctors listed in {@code admin.doctor-ids}; everyone
+ * else gets 403 from {@link com.healthcare.api.security.AdminOnlyFilter}.
+ */
+@RestController
+@RequestMapping("/api/admin")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class AdminController {
+
+    private final RiskScoringService riskScoringService;
+    private final RiskRescoreJob riskRescoreJob;
+    private final PopulationRollupService populationRollupService;
+    private final ShardMigrator shardMigrator;
+
+    @GetMapping("/risk/rescore")
+    public ResponseEntity<RiskRescoreStatus> getRescoreStatus() {
+        return ResponseEntity.ok(riskRescoreJob.status());
+    }
+
+    // Reloads the rules, then starts or resumes re-scoring the patients they leave out of date
+    @PostMapping("/risk/rescore")
+    public ResponseEntity<RiskRescoreStatus> startRescore() {
+        riskScoringService.reload();
+        return ResponseEntity.accepted().body(riskRescoreJob.start());
+    }
+
+    @DeleteMapping("/risk/rescore")
+    public ResponseEntity<RiskRescoreStatus> stopRescore() {
+        return ResponseEntity.ok(riskRescoreJob.stop());
+    }
+
+    @PostMapping("/population/rebuild")
+    public ResponseEntity<MessageResponse> rebuildPopulation() {
+        PopulationRollupService.RebuildResult result = populationRollupService.rebuild();
+        return ResponseEntity.ok(new MessageResponse("Rebuilt " + result.cells() + " population cells from "
+                + result.patients() + " patients in " + result.millis() + " ms"));
+    }
+
+    @GetMapping("/shards")
+    public ResponseEntity<List<ShardSummaryResponse>> getShards() {
+        return ResponseEntity.ok(shardMigrator.summarize());
+    }
+
+    // Moves every doctor the sharding strategy now places elsewhere, e.g. after adding a shard
+    @PostMapping("/shards/rebalance")
+    public ResponseEntity<MessageResponse> rebalanceShards() {
+        ShardMigrator.RebalanceResult result = shardMigrator.rebalance();
+        return ResponseEntity.ok(new MessageResponse("Moved " + result.moved() + " of " + result.doctors()
+                + " doctors with " + result.patients() + " patients in " + result.millis() + " ms"
+                + (result.failed() > 0 ? ", " + result.failed() + " failed" : "")));
+    }
+
+    @PostMapping("/shards/move")
+    public ResponseEntity<MessageResponse> moveDoctor(
+            @RequestParam Long doctorId,
+            @RequestParam int shard) {
+        ShardMigrator.MoveResult result = shardMigrator.move(doctorId, shard);
+        return ResponseEntity.ok(new MessageResponse("Moved doctor " + doctorId + " with " + result.patients()
+                + " patients from shard " + result.from() + " to shard " + result.to() + " in "
+                + result.millis() + " ms"));
+    }
+}
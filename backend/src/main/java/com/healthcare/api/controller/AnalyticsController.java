@@ -1,10 +1,20 @@
 package com.healthcare.api.controller;
 
+import com.healthcare.api.admission.AdmissionControlFilter;
 import com.healthcare.api.dto.AnalyticsResponse;
+import com.healthcare.api.dto.MessageResponse;
+import com.healthcare.api.security.DoctorPrincipal;
 import com.healthcare.api.service.AnalyticsService;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 @RestController
 @RequestMapping("/api/analytics")
@@ -16,8 +26,36 @@ public class AnalyticsController {
 
     @GetMapping("/dashboard")
     public ResponseEntity<AnalyticsResponse> getDashboard(
-            @RequestHeader("Authorization") String token) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(analyticsService.getDashboardAnalytics(jwt));
+            DoctorPrincipal principal,
+            WebRequest request) {
+        return ConditionalGet.ok(request, analyticsService.dashboardEtag(principal.doctorId()),
+                () -> analyticsService.getDashboardAnalytics(principal.doctorId()));
+    }
+
+    /**
+     * Server-sent events: the dashboard, then dashboard deltas and patient
+     * alerts as writes commit, with a comment line when otherwise idle.
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamDashboard(
+            DoctorPrincipal principal,
+            HttpServletRequest request) {
+        SseEmitter emitter = analyticsService.streamDashboard(principal.doctorId());
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).header(HttpHeaders.RETRY_AFTER, "30").build();
+        }
+        request.setAttribute(AdmissionControlFilter.SUBSCRIPTION, Boolean.TRUE);
+        // Tells nginx not to buffer the events
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).header("X-Accel-Buffering", "no")
+                .body(emitter);
+    }
+
+    @PostMapping("/rebuild")
+    public ResponseEntity<MessageResponse> rebuildDashboard(
+            DoctorPrincipal principal) {
+        boolean consistent = analyticsService.reconcileAnalytics(principal.doctorId());
+        return ResponseEntity.ok(new MessageResponse(consistent
+                ? "Analytics counters are consistent"
+                : "Analytics counters rebuilt"));
     }
 }
@@ -1,6 +1,7 @@
 package com.healthcare.api.controller;
 
 import com.healthcare.api.dto.*;
+import com.healthcare.api.security.DoctorPrincipal;
 import com.healthcare.api.service.AuthService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
@@ -26,8 +27,7 @@ public class AuthController {
 
     @GetMapping("/me")
     public ResponseEntity<DoctorResponse> getCurrentDoctor(
-            @RequestHeader("Authorization") String token) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(authService.getCurrentDoctor(jwt));
+            DoctorPrincipal principal) {
+        return ResponseEntity.ok(authService.getCurrentDoctor(principal.doctorId()));
     }
 }
@@ -0,0 +1,33 @@
+package com.healthcare.api.controller;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.WebRequest;
+import java.util.function.Supplier;
+
+/**
+ * Conditional GET for the read endpoints: answers If-None-Match from an ETag
+ * computed before anything is loaded, and only builds the body when the
+ * client's copy is stale.
+ */
+final class ConditionalGet {
+
+    // Clients may keep a copy but must revalidate it with If-None-Match before use
+    private static final CacheControl REVALIDATE = CacheControl.noCache().cachePrivate();
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * A 200 with the body and the ETag, or null once Spring has answered
+     * 304 Not Modified because the client's copy is current.
+     */
+    static <T> ResponseEntity<T> ok(WebRequest request, String etag, Supplier<T> body) {
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok().eTag(etag).cacheControl(REVALIDATE).varyBy(HttpHeaders.ACCEPT)
+                .body(body.get());
+    }
+}
@@ -1,11 +1,34 @@
 package com.healthcare.api.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.healthcare.api.dto.*;
+import com.healthcare.api.export.PatientCsvWriter;
+import com.healthcare.api.security.DoctorPrincipal;
 import com.healthcare.api.service.PatientService;
+import com.healthcare.api.sharding.Shards;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/patients")
@@ -13,46 +36,220 @@ import java.util.List;
 @CrossOrigin(origins = "*")
 public class PatientController {
 
+    private static final MediaType EXPORT_CSV = new MediaType("text", "csv", StandardCharsets.UTF_8);
+    private static final MediaType EXPORT_GZIP = new MediaType("application", "gzip");
+    private static final int EXPORT_BUFFER_SIZE = 8192;
+
     private final PatientService patientService;
+    private final ObjectMapper objectMapper;
+    private final Shards shards;
 
     @PostMapping
     public ResponseEntity<PatientResponse> createPatient(
-            @RequestHeader("Authorization") String token,
+            DoctorPrincipal principal,
             @RequestBody PatientRequest request) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(patientService.createPatient(jwt, request));
+        return ResponseEntity.ok(patientService.createPatient(principal.doctorId(), request));
+    }
+
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<BatchPatientResponse> createPatients(
+            DoctorPrincipal principal,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(patientService.createPatients(principal.doctorId(), body, false));
     }
 
+    @PostMapping(value = "/batch", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<BatchPatientResponse> createPatientsFromNdjson(
+            DoctorPrincipal principal,
+            InputStream body) throws IOException {
+        return ResponseEntity.ok(patientService.createPatients(principal.doctorId(), body, true));
+    }
+
+    // List views answer If-None-Match from the doctor's patients version before loading anything
     @GetMapping
     public ResponseEntity<List<PatientResponse>> getPatients(
-            @RequestHeader("Authorization") String token) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(patientService.getPatientsByDoctor(jwt));
+            DoctorPrincipal principal,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientsByDoctor(principal.doctorId()));
+    }
+
+    @GetMapping(params = {"symptom", "!limit"})
+    public ResponseEntity<List<PatientResponse>> getPatientsBySymptom(
+            DoctorPrincipal principal,
+            @RequestParam String symptom,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientsBySymptom(principal.doctorId(), symptom));
+    }
+
+    @GetMapping(params = {"limit", "!symptom"})
+    public ResponseEntity<PatientPageResponse<PatientResponse>> getPatientPage(
+            DoctorPrincipal principal,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientPage(principal.doctorId(), limit, cursor));
+    }
+
+    // view=summary: the list screen's columns, selected without the symptom and TEXT columns
+    @GetMapping(params = {"view=summary", "!symptom", "!limit"})
+    public ResponseEntity<List<PatientSummaryResponse>> getPatientSummaries(
+            DoctorPrincipal principal,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientSummariesByDoctor(principal.doctorId()));
+    }
+
+    @GetMapping(params = {"view=summary", "symptom", "!limit"})
+    public ResponseEntity<List<PatientSummaryResponse>> getPatientSummariesBySymptom(
+            DoctorPrincipal principal,
+            @RequestParam String symptom,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientSummariesBySymptom(principal.doctorId(), symptom));
+    }
+
+    @GetMapping(params = {"view=summary", "limit", "!symptom"})
+    public ResponseEntity<PatientPageResponse<PatientSummaryResponse>> getPatientSummaryPage(
+            DoctorPrincipal principal,
+            @RequestParam int limit,
+            @RequestParam(required = false) String cursor,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientListEtag(principal.doctorId()),
+                () -> patientService.getPatientSummaryPage(principal.doctorId(), limit, cursor));
+    }
+
+    // Symptom lists have no keyset pages, and answering with unfiltered pages would drop the filter unseen
+    @GetMapping(params = {"symptom", "limit"})
+    public ResponseEntity<Void> getPatientPageBySymptom() {
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                "symptom cannot be combined with limit; list by symptom without paging");
+    }
+
+    // Served from the in-memory search index; no database access
+    @GetMapping("/search")
+    public ResponseEntity<List<PatientSearchResult>> searchPatients(
+            DoctorPrincipal principal,
+            @RequestParam String q,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(patientService.searchPatients(principal.doctorId(), q, limit));
+    }
+
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> streamPatients(
+            DoctorPrincipal principal) {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.writeStartArray();
+                // Written on an async thread, which has no request to route by
+                shards.forDoctor(principal.doctorId(), () ->
+                        patientService.streamPatientsByDoctor(principal.doctorId(), patient -> {
+                            try {
+                                generator.writeObject(patient);
+                            } catch (IOException e) {
+                                throw new UncheckedIOException(e);
+                            }
+                        }));
+                generator.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    // CSV or NDJSON of the doctor's patients, written from a cursor as rows are read
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportPatients(
+            DoctorPrincipal principal,
+            @RequestParam(defaultValue = "csv") String format,
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(defaultValue = "false") boolean gzip) {
+        boolean csv = switch (format) {
+            case "csv" -> true;
+            case "ndjson" -> false;
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Unsupported export format: " + format + " (use csv or ndjson)");
+        };
+        StreamingResponseBody body = out -> {
+            OutputStream target = gzip ? new GZIPOutputStream(out, EXPORT_BUFFER_SIZE) : out;
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8),
+                    EXPORT_BUFFER_SIZE)) {
+                Consumer<PatientResponse> rows;
+                JsonGenerator generator = null;
+                if (csv) {
+                    PatientCsvWriter csvWriter = new PatientCsvWriter(writer);
+                    csvWriter.writeHeader();
+                    rows = patient -> {
+                        try {
+                            csvWriter.write(patient);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    };
+                } else {
+                    JsonGenerator lines = objectMapper.getFactory().createGenerator(writer)
+                            .setRootValueSeparator(null)
+                            .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                            .disable(JsonGenerator.Feature.FLUSH_PASSED_TO_STREAM);
+                    generator = lines;
+                    rows = patient -> {
+                        try {
+                            lines.writeObject(patient);
+                            lines.writeRaw('\n');
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    };
+                }
+                shards.forDoctor(principal.doctorId(), () ->
+                        patientService.exportPatients(principal.doctorId(), riskLevel, state, city, from, to, rows));
+                if (generator != null) {
+                    generator.flush();
+                }
+            }
+        };
+        String filename = "patients-" + LocalDate.now() + (csv ? ".csv" : ".ndjson") + (gzip ? ".gz" : "");
+        return ResponseEntity.ok()
+                .contentType(gzip ? EXPORT_GZIP : csv ? EXPORT_CSV : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + filename + "\"")
+                .body(body);
+    }
+
+    @GetMapping("/changes")
+    public ResponseEntity<PatientChangesResponse> getChanges(
+            DoctorPrincipal principal,
+            @RequestParam(required = false) String since,
+            @RequestParam(defaultValue = "500") int limit) {
+        return ResponseEntity.ok(patientService.getChanges(principal.doctorId(), since, limit));
     }
 
     @GetMapping("/{id}")
     public ResponseEntity<PatientResponse> getPatient(
-            @RequestHeader("Authorization") String token,
-            @PathVariable Long id) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(patientService.getPatient(jwt, id));
+            DoctorPrincipal principal,
+            @PathVariable Long id,
+            WebRequest request) {
+        return ConditionalGet.ok(request, patientService.patientEtag(principal.doctorId(), id),
+                () -> patientService.getPatient(principal.doctorId(), id));
     }
 
     @PutMapping("/{id}")
     public ResponseEntity<PatientResponse> updatePatient(
-            @RequestHeader("Authorization") String token,
+            DoctorPrincipal principal,
             @PathVariable Long id,
             @RequestBody PatientRequest request) {
-        String jwt = token.replace("Bearer ", "");
-        return ResponseEntity.ok(patientService.updatePatient(jwt, id, request));
+        return ResponseEntity.ok(patientService.updatePatient(principal.doctorId(), id, request));
     }
 
     @DeleteMapping("/{id}")
     public ResponseEntity<MessageResponse> deletePatient(
-            @RequestHeader("Authorization") String token,
+            DoctorPrincipal principal,
             @PathVariable Long id) {
-        String jwt = token.replace("Bearer ", "");
-        patientService.deletePatient(jwt, id);
+        patientService.deletePatient(principal.doctorId(), id);
         return ResponseEntity.ok(new MessageResponse("Patient deleted successfully"));
     }
 }
@@ -0,0 +1,38 @@
+package com.healthcare.api.controller;
+
+import com.healthcare.api.dto.PopulationRollupResponse;
+import com.healthcare.api.service.PopulationRollupService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Counts over the patients of every doctor, so only the doctors listed in
+ * {@code admin.doctor-ids} may read them; everyone else gets 403 from
+ * {@link com.healthcare.api.security.AdminOnlyFilter}.
+ */
+@RestController
+@RequestMapping("/api/population")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class PopulationController {
+
+    private final PopulationRollupService populationRollupService;
+
+    // Served from the population cube; no patient rows are scanned
+    @GetMapping("/rollups")
+    public ResponseEntity<List<PopulationRollupResponse>> getRollups(
+            @RequestParam(defaultValue = "week,riskLevel") List<String> groupBy,
+            @RequestParam(required = false) String state,
+            @RequestParam(required = false) String city,
+            @RequestParam(required = false) String disease,
+            @RequestParam(required = false) String riskLevel,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(populationRollupService.getRollups(groupBy, state, city, disease, riskLevel,
+                from, to));
+    }
+}
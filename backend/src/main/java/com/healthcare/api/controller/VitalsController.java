@@ -0,0 +1,62 @@
+package com.healthcare.api.controller;
+
+import com.healthcare.api.dto.LatestVitalResponse;
+import com.healthcare.api.dto.VitalRollupResponse;
+import com.healthcare.api.dto.VitalsIngestResponse;
+import com.healthcare.api.dto.VitalsRequest;
+import com.healthcare.api.dto.VitalsResponse;
+import com.healthcare.api.security.DoctorPrincipal;
+import com.healthcare.api.service.VitalsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/patients/{patientId}/vitals")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class VitalsController {
+
+    private final VitalsService vitalsService;
+
+    @PostMapping
+    public ResponseEntity<VitalsIngestResponse> recordVitals(
+            DoctorPrincipal principal,
+            @PathVariable Long patientId,
+            @RequestBody List<VitalsRequest> readings) {
+        return ResponseEntity.ok(vitalsService.recordVitals(principal.doctorId(), patientId, readings));
+    }
+
+    @GetMapping
+    public ResponseEntity<List<VitalsResponse>> getVitals(
+            DoctorPrincipal principal,
+            @PathVariable Long patientId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            @RequestParam(defaultValue = "1000") int limit) {
+        return ResponseEntity.ok(vitalsService.getVitals(principal.doctorId(), patientId, from, to, limit));
+    }
+
+    @GetMapping("/latest")
+    public ResponseEntity<List<LatestVitalResponse>> getLatestVitals(
+            DoctorPrincipal principal,
+            @PathVariable Long patientId) {
+        return ResponseEntity.ok(vitalsService.getLatestVitals(principal.doctorId(), patientId));
+    }
+
+    // Served from the hourly/daily rollups; no readings are scanned
+    @GetMapping("/rollups")
+    public ResponseEntity<List<VitalRollupResponse>> getRollups(
+            DoctorPrincipal principal,
+            @PathVariable Long patientId,
+            @RequestParam(defaultValue = "day") String resolution,
+            @RequestParam(required = false) String metric,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return ResponseEntity.ok(vitalsService.getRollups(principal.doctorId(), patientId, resolution, metric,
+                from, to));
+    }
+}
@@ -0,0 +1,186 @@
+package com.healthcare.api.datasource;
+
+import com.healthcare.api.security.DoctorPrincipal;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import java.io.Closeable;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the
+ * primary. It decides when a connection is first needed, so it must sit
+ * behind a {@code LazyConnectionDataSourceProxy}: by the time the first
+ * statement runs, the transaction's read-only flag is known.
+ * <p>
+ * A doctor whose write committed less than the read-your-writes window ago
+ * reads from the primary, so a replica's lag never hides their own changes
+ * from them. A replica that fails to hand out a connection is skipped until
+ * the retry interval has passed; with none left, reads fall back to the primary.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    public enum Selection { ROUND_ROBIN, LEAST_LOADED }
+
+    private static final int SWEEP_THRESHOLD = 1024;
+
+    private final HikariDataSource primary;
+    private final List<Replica> replicas;
+    private final Selection selection;
+    private final long readYourWritesNanos;
+    private final long retryNanos;
+    private final Map<Long, Long> recentWriters = new ConcurrentHashMap<>();
+    private final AtomicInteger next = new AtomicInteger();
+    private final Counter stickyReads;
+    private final Counter fallbackReads;
+
+    public ReplicaRoutingDataSource(HikariDataSource primary, List<HikariDataSource> replicas, Selection selection,
+                                    Duration readYourWrites, Duration retryInterval, MeterRegistry meterRegistry) {
+        this.primary = primary;
+        this.replicas = replicas.stream().map(pool -> new Replica(pool, meterRegistry)).toList();
+        this.selection = selection;
+        this.readYourWritesNanos = readYourWrites.toNanos();
+        this.retryNanos = retryInterval.toNanos();
+        this.stickyReads = readCounter(meterRegistry, primary.getPoolName(), "read-your-writes");
+        this.fallbackReads = readCounter(meterRegistry, primary.getPoolName(), "fallback");
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Long doctorId = currentDoctorId();
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            if (doctorId != null && TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        recordWrite(doctorId);
+                    }
+                });
+            }
+            return primary.getConnection();
+        }
+
+        long now = System.nanoTime();
+        if (doctorId != null && wroteRecently(doctorId, now)) {
+            stickyReads.increment();
+            return primary.getConnection();
+        }
+        for (Replica replica : candidates(now)) {
+            try {
+                Connection connection = replica.pool.getConnection();
+                replica.reads.increment();
+                return connection;
+            } catch (SQLException e) {
+                replica.downUntil = now + retryNanos;
+                log.warn("Replica {} unavailable, retrying in {}s: {}", replica.pool.getPoolName(),
+                        Duration.ofNanos(retryNanos).toSeconds(), e.getMessage());
+            }
+        }
+        fallbackReads.increment();
+        return primary.getConnection();
+    }
+
+    // Hikari pools hand out connections with their own credentials only
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the pools' credentials");
+    }
+
+    @Override
+    public void close() {
+        replicas.forEach(replica -> replica.pool.close());
+        primary.close();
+    }
+
+    private List<Replica> candidates(long now) {
+        List<Replica> available = new ArrayList<>(replicas.size());
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(1, replicas.size()));
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (now - replica.downUntil >= 0) {
+                available.add(replica);
+            }
+        }
+        if (selection == Selection.LEAST_LOADED) {
+            // Stable, so equally loaded replicas keep the round-robin order
+            available.sort(Comparator.comparingDouble(Replica::load));
+        }
+        return available;
+    }
+
+    private void recordWrite(Long doctorId) {
+        long now = System.nanoTime();
+        recentWriters.put(doctorId, now + readYourWritesNanos);
+        if (recentWriters.size() > SWEEP_THRESHOLD) {
+            recentWriters.values().removeIf(until -> now - until > 0);
+        }
+    }
+
+    private boolean wroteRecently(Long doctorId, long now) {
+        Long until = recentWriters.get(doctorId);
+        if (until == null) {
+            return false;
+        }
+        if (now - until > 0) {
+            recentWriters.remove(doctorId, until);
+            return false;
+        }
+        return true;
+    }
+
+    // The doctor of the request this thread is serving, if any
+    public static Long currentDoctorId() {
+        if (RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes
+                && attributes.getRequest().getUserPrincipal() instanceof DoctorPrincipal principal) {
+            return principal.doctorId();
+        }
+        return null;
+    }
+
+    private static Counter readCounter(MeterRegistry meterRegistry, String pool, String reason) {
+        return Counter.builder("datasource.reads")
+                .description("Read-only transactions by the pool that served them and why")
+                .tag("pool", pool)
+                .tag("reason", reason)
+                .register(meterRegistry);
+    }
+
+    private static final class Replica {
+
+        private final HikariDataSource pool;
+        private final Counter reads;
+        private volatile long downUntil = System.nanoTime();
+
+        private Replica(HikariDataSource pool, MeterRegistry meterRegistry) {
+            this.pool = pool;
+            this.reads = readCounter(meterRegistry, pool.getPoolName(), "replica");
+        }
+
+        // Share of the pool in use or waited for; 0 before the pool has started
+        private double load() {
+            HikariPoolMXBean bean = pool.getHikariPoolMXBean();
+            if (bean == null) {
+                return 0;
+            }
+            return (bean.getActiveConnections() + bean.getThreadsAwaitingConnection())
+                    / (double) pool.getMaximumPoolSize();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package com.healthcare.api.datasource;
+
+import java.util.function.Supplier;
+
+/**
+ * The shard this thread's connections come from, when code chooses it
+ * explicitly rather than leaving it to the request's doctor. Like routing
+ * by doctor, a pin only takes effect at a transaction's first statement,
+ * so it may be set inside a transaction that has not run one yet.
+ */
+public final class ShardContext {
+
+    private static final ThreadLocal<Integer> PINNED = new ThreadLocal<>();
+
+    private ShardContext() {
+    }
+
+    public static Integer pinned() {
+        return PINNED.get();
+    }
+
+    /**
+     * Runs {@code work} with connections taken from {@code shard}, then
+     * restores the previous pin.
+     */
+    public static <T> T call(int shard, Supplier<T> work) {
+        Integer previous = PINNED.get();
+        PINNED.set(shard);
+        try {
+            return work.get();
+        } finally {
+            if (previous == null) {
+                PINNED.remove();
+            } else {
+                PINNED.set(previous);
+            }
+        }
+    }
+
+    public static void run(int shard, Runnable work) {
+        call(shard, () -> {
+            work.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,64 @@
+package com.healthcare.api.datasource;
+
+import com.healthcare.api.sharding.ShardDirectory;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLFeatureNotSupportedException;
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Hands out connections from the shard that holds the current doctor's
+ * patients. The shard is the one pinned by {@link ShardContext} if any,
+ * otherwise the directory's shard for the doctor of the request being
+ * served, otherwise shard 0, the home database, which also holds the
+ * doctors and the symptom dictionary. Like {@link ReplicaRoutingDataSource}
+ * it must sit behind a {@code LazyConnectionDataSourceProxy}, so the
+ * choice is made at a transaction's first statement.
+ * <p>
+ * A doctor whose records are being moved between shards gets no
+ * connection until the move completes.
+ */
+public class ShardRoutingDataSource extends AbstractDataSource implements Closeable {
+
+    private final ShardDirectory directory;
+
+    public ShardRoutingDataSource(ShardDirectory directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Integer pinned = ShardContext.pinned();
+        if (pinned != null) {
+            return directory.pool(pinned).getConnection();
+        }
+        Long doctorId = ReplicaRoutingDataSource.currentDoctorId();
+        if (doctorId == null) {
+            return directory.pool(0).getConnection();
+        }
+        ShardDirectory.Placement placement = directory.placement(doctorId);
+        if (placement.moving()) {
+            throw new SQLTransientConnectionException(
+                    "Records of doctor " + doctorId + " are being moved to another shard");
+        }
+        return directory.pool(placement.shard()).getConnection();
+    }
+
+    // Hikari pools hand out connections with their own credentials only
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        throw new SQLFeatureNotSupportedException("Connections use the pools' credentials");
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (int shard = 0; shard < directory.count(); shard++) {
+            if (directory.pool(shard) instanceof Closeable pool) {
+                pool.close();
+            }
+        }
+    }
+}
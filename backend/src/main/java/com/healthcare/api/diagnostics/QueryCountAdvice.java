@@ -0,0 +1,35 @@
+package com.healthcare.api.diagnostics;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Adds the request's SQL statement count as the {@code X-SQL-Statements}
+ * header just before the body is written. A change that adds queries to
+ * an endpoint then shows up in a plain curl run.
+ */
+@ControllerAdvice
+@ConditionalOnProperty(name = "diagnostics.query-count.enabled", havingValue = "true")
+public class QueryCountAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String HEADER = "X-SQL-Statements";
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        response.getHeaders().set(HEADER, String.valueOf(SqlStatementCounter.count()));
+        return body;
+    }
+}
@@ -0,0 +1,48 @@
+package com.healthcare.api.diagnostics;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+
+/**
+ * Starts each request with a zero SQL statement count and logs the total
+ * at debug level once the request completes. Given a publisher it also
+ * captures the statements and publishes them as a
+ * {@link RequestStatements} event, which {@code QueryPlanTest} asserts
+ * on.
+ */
+@Slf4j
+@RequiredArgsConstructor
+public class QueryCountFilter extends OncePerRequestFilter {
+
+    // Null unless diagnostics.query-count.capture is on
+    private final ApplicationEventPublisher capturePublisher;
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        SqlStatementCounter.reset();
+        if (capturePublisher != null) {
+            SqlStatementCounter.startCapture();
+        }
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            log.debug("{} {} issued {} SQL statements",
+                    request.getMethod(), request.getRequestURI(), SqlStatementCounter.count());
+            if (capturePublisher != null) {
+                String path = request.getQueryString() == null
+                        ? request.getRequestURI()
+                        : request.getRequestURI() + "?" + request.getQueryString();
+                capturePublisher.publishEvent(new RequestStatements(
+                        request.getMethod(), path, SqlStatementCounter.stopCapture()));
+            }
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.healthcare.api.diagnostics;
+
+import java.util.List;
+
+/**
+ * The SQL an API request ran, published as an application event by
+ * {@link QueryCountFilter} when {@code diagnostics.query-count.capture}
+ * is on.
+ */
+public record RequestStatements(String method, String path, List<String> statements) {
+}
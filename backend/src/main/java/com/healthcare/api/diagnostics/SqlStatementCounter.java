@@ -0,0 +1,49 @@
+package com.healthcare.api.diagnostics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread, and
+ * while a capture is open also records their SQL. Registered through
+ * {@code hibernate.session_factory.statement_inspector}, which
+ * instantiates it by class name, hence the static state.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<int[]> COUNT = ThreadLocal.withInitial(() -> new int[1]);
+    private static final ThreadLocal<List<String>> CAPTURED = new ThreadLocal<>();
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        List<String> captured = CAPTURED.get();
+        if (captured != null) {
+            captured.add(sql);
+        }
+        return sql;
+    }
+
+    public static void reset() {
+        COUNT.get()[0] = 0;
+    }
+
+    public static int count() {
+        return COUNT.get()[0];
+    }
+
+    public static void startCapture() {
+        CAPTURED.set(new ArrayList<>());
+    }
+
+    /**
+     * Ends the capture and returns the SQL prepared since
+     * {@link #startCapture()}, in order.
+     */
+    public static List<String> stopCapture() {
+        List<String> captured = CAPTURED.get();
+        CAPTURED.remove();
+        return captured == null ? List.of() : captured;
+    }
+}
@@ -0,0 +1,16 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPatientResponse {
+    private int received;
+    private int created;
+    private int failed;
+    private List<BatchPatientResult> results;
+}
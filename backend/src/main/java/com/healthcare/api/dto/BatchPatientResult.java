@@ -0,0 +1,15 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class BatchPatientResult {
+    private int index; // position of the record in the uploaded body
+    private Long id;
+    private String status; // "created" or "failed"
+    private String error;
+}
@@ -0,0 +1,24 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.Map;
+
+/**
+ * A {@code dashboard-delta} event on the analytics stream: amounts to add
+ * to the dashboard's counts. Several writes may be folded into one delta;
+ * {@code committedAt} is when the earliest of them committed, in epoch
+ * milliseconds.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DashboardDeltaEvent {
+    private long totalPatients;
+    private long highRiskPatients;
+    private long mediumRiskPatients;
+    private long lowRiskPatients;
+    private Map<String, Long> diseaseDistribution;
+    private long committedAt;
+}
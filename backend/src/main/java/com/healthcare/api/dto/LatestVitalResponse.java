@@ -0,0 +1,15 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class LatestVitalResponse {
+    private String metric;
+    private double value;
+    private LocalDateTime observedAt;
+}
@@ -0,0 +1,24 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * An {@code alert} event on the analytics stream: a patient became high
+ * risk, or their disease changed. {@code committedAt} is when the write
+ * committed, in epoch milliseconds.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientAlertEvent {
+    private Long patientId;
+    private String name;
+    private String reason; // high-risk or disease-changed
+    private String riskLevel;
+    private String previousRiskLevel;
+    private String disease;
+    private String previousDisease;
+    private long committedAt;
+}
@@ -0,0 +1,17 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientChangesResponse {
+    private List<PatientResponse> changed; // created or updated, oldest change first
+    private List<Long> deleted;            // ids of deleted patients
+    private String nextToken;              // pass as ?since= on the next sync
+    private boolean hasMore;               // more changes are waiting; sync again right away
+    private boolean resetRequired;         // token predates tombstone retention; re-download everything
+}
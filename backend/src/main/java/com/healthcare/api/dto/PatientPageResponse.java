@@ -0,0 +1,14 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientPageResponse<T> {
+    private List<T> patients;   // PatientResponse, or PatientSummaryResponse for view=summary
+    private String nextCursor;  // null on the last page
+}
@@ -0,0 +1,15 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientSearchResult {
+    private Long id;
+    private String name;
+    private String phone;
+    private String city;
+}
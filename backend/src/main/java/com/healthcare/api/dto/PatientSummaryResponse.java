@@ -0,0 +1,23 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * The patient list row ({@code view=summary}). Selected straight into this
+ * class by the repository, so the symptom, trigger, recommendation and
+ * voice columns are never read.
+ */
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PatientSummaryResponse {
+    private Long id;
+    private String name;
+    private Integer age;
+    private String riskLevel;
+    private String disease;
+    private LocalDateTime createdAt;
+}
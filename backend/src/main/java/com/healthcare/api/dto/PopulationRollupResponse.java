@@ -0,0 +1,19 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDate;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class PopulationRollupResponse {
+    // Dimensions not grouped by are null
+    private LocalDate weekStart;
+    private String state;
+    private String city;
+    private String disease;
+    private String riskLevel;
+    private long patients;
+}
@@ -0,0 +1,22 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class RiskRescoreStatus {
+    // idle, running, stopping, stopped, completed or failed
+    private String state;
+    private String rulesVersion;
+    private long stale;
+    private long rescored;
+    private long changed;
+    private double patientsPerSecond;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+    private String error;
+}
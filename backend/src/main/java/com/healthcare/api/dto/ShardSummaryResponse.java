@@ -0,0 +1,16 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ShardSummaryResponse {
+    private int shard;
+    private long doctors;
+    private long patients;
+    // Doctors the strategy would place elsewhere; a rebalance moves them
+    private long misplacedDoctors;
+}
@@ -0,0 +1,19 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VitalRollupResponse {
+    private String metric;
+    private LocalDateTime bucketStart;
+    private long readings;
+    private double min;
+    private double max;
+    private double avg;
+    private double last;
+}
@@ -0,0 +1,15 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VitalsIngestResponse {
+    private int received;
+    private int recorded;
+    // Readings at a time already recorded for the patient; skipped
+    private int duplicates;
+}
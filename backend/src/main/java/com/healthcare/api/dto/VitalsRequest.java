@@ -0,0 +1,15 @@
+package com.healthcare.api.dto;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class VitalsRequest {
+    // When the vitals were taken; defaults to the time of the request
+    private LocalDateTime observedAt;
+    private Double temperature;
+    private Double oxygen;
+    private Integer pulse;
+    private String bloodPressure;
+    private Double weight;
+}
@@ -0,0 +1,19 @@
+package com.healthcare.api.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class VitalsResponse {
+    private LocalDateTime observedAt;
+    private Double temperature;
+    private Double oxygen;
+    private Integer pulse;
+    private Integer systolic;
+    private Integer diastolic;
+    private Double weight;
+}
@@ -0,0 +1,100 @@
+package com.healthcare.api.export;
+
+import com.healthcare.api.dto.PatientResponse;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
+
+/**
+ * Writes patients as RFC 4180 CSV, one row per patient after a header row.
+ * List fields (symptoms, triggers, recommendations) are joined with
+ * {@code "; "} into one cell. Text starting with {@code = + - @}, a tab or a
+ * carriage return is prefixed with {@code '} so spreadsheets do not run it
+ * as a formula. Nothing is buffered beyond the given writer.
+ */
+public final class PatientCsvWriter {
+
+    private static final String HEADER = "id,name,age,gender,phone,familyPhone,state,city,weight,height,"
+            + "temperature,bloodPressure,oxygen,pulse,symptoms,voiceSymptoms,riskLevel,disease,triggers,"
+            + "recommendations,createdAt,updatedAt\r\n";
+
+    private final Writer out;
+
+    public PatientCsvWriter(Writer out) {
+        this.out = out;
+    }
+
+    public void writeHeader() throws IOException {
+        out.write(HEADER);
+    }
+
+    public void write(PatientResponse patient) throws IOException {
+        value(patient.getId());
+        text(patient.getName());
+        value(patient.getAge());
+        text(patient.getGender());
+        text(patient.getPhone());
+        text(patient.getFamilyPhone());
+        text(patient.getState());
+        text(patient.getCity());
+        value(patient.getWeight());
+        value(patient.getHeight());
+        value(patient.getTemperature());
+        text(patient.getBloodPressure());
+        value(patient.getOxygen());
+        value(patient.getPulse());
+        list(patient.getSymptoms());
+        text(patient.getVoiceSymptoms());
+        text(patient.getRiskLevel());
+        text(patient.getDisease());
+        list(patient.getTriggers());
+        list(patient.getRecommendations());
+        value(patient.getCreatedAt());
+        if (patient.getUpdatedAt() != null) {
+            out.write(patient.getUpdatedAt().toString());
+        }
+        out.write("\r\n");
+    }
+
+    // Every cell but the last is followed by a comma
+    private void value(Object value) throws IOException {
+        if (value != null) {
+            out.write(value.toString());
+        }
+        out.write(',');
+    }
+
+    private void list(List<String> values) throws IOException {
+        text(values == null || values.isEmpty() ? null : String.join("; ", values));
+    }
+
+    private void text(String value) throws IOException {
+        if (value != null && !value.isEmpty()) {
+            char first = value.charAt(0);
+            boolean formula = first == '=' || first == '+' || first == '-' || first == '@'
+                    || first == '\t' || first == '\r';
+            boolean quote = formula;
+            for (int i = 0; i < value.length() && !quote; i++) {
+                char c = value.charAt(i);
+                quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+            }
+            if (quote) {
+                out.write('"');
+                if (formula) {
+                    out.write('\'');
+                }
+                for (int i = 0; i < value.length(); i++) {
+                    char c = value.charAt(i);
+                    if (c == '"') {
+                        out.write('"');
+                    }
+                    out.write(c);
+                }
+                out.write('"');
+            } else {
+                out.write(value);
+            }
+        }
+        out.write(',');
+    }
+}
@@ -0,0 +1,48 @@
+package com.healthcare.api.metrics;
+
+import com.healthcare.api.diagnostics.SqlStatementCounter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Records how many SQL statements each repository method prepares, as the
+ * {@code spring.data.repository.statements} summary with the same tags as
+ * Spring Boot's {@code spring.data.repository.invocations} timer.
+ * <p>
+ * Writes that Hibernate defers to the flush at commit are counted against
+ * whichever call triggers the flush, not the {@code save} that queued them.
+ */
+public class RepositoryStatementMetrics implements MethodInterceptor {
+
+    private final MeterRegistry meterRegistry;
+    private final String repository;
+    private final Map<Method, DistributionSummary> summaries = new ConcurrentHashMap<>();
+
+    public RepositoryStatementMetrics(MeterRegistry meterRegistry, Class<?> repositoryInterface) {
+        this.meterRegistry = meterRegistry;
+        this.repository = repositoryInterface.getSimpleName();
+    }
+
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        int before = SqlStatementCounter.count();
+        try {
+            return invocation.proceed();
+        } finally {
+            summaryFor(invocation.getMethod()).record(SqlStatementCounter.count() - before);
+        }
+    }
+
+    private DistributionSummary summaryFor(Method method) {
+        return summaries.computeIfAbsent(method, m -> DistributionSummary.builder("spring.data.repository.statements")
+                .description("SQL statements prepared per repository method call")
+                .tag("repository", repository)
+                .tag("method", m.getName())
+                .register(meterRegistry));
+    }
+}
@@ -0,0 +1,80 @@
+package com.healthcare.api.metrics;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.http.converter.HttpMessageNotWritableException;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * The JSON message converter, timing every request body read and response
+ * body write as {@code json.conversion} tagged with direction and Java type.
+ * Writes include pushing the bytes into the response buffer, so a slow
+ * client inflates them once the buffer fills.
+ */
+public class TimedJacksonHttpMessageConverter extends MappingJackson2HttpMessageConverter {
+
+    private final MeterRegistry meterRegistry;
+    private final Map<Type, Timer> readTimers = new ConcurrentHashMap<>();
+    private final Map<Type, Timer> writeTimers = new ConcurrentHashMap<>();
+
+    public TimedJacksonHttpMessageConverter(ObjectMapper objectMapper, MeterRegistry meterRegistry) {
+        super(objectMapper);
+        this.meterRegistry = meterRegistry;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage)
+            throws IOException, HttpMessageNotReadableException {
+        long start = System.nanoTime();
+        try {
+            return super.read(type, contextClass, inputMessage);
+        } finally {
+            timer(readTimers, "read", type).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    @Override
+    protected void writeInternal(Object object, Type type, HttpOutputMessage outputMessage)
+            throws IOException, HttpMessageNotWritableException {
+        long start = System.nanoTime();
+        try {
+            super.writeInternal(object, type, outputMessage);
+        } finally {
+            timer(writeTimers, "write", type != null ? type : object.getClass())
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private Timer timer(Map<Type, Timer> timers, String direction, Type type) {
+        return timers.computeIfAbsent(type, t -> Timer.builder("json.conversion")
+                .description("Time spent converting HTTP bodies to and from JSON")
+                .tag("direction", direction)
+                .tag("type", typeName(ResolvableType.forType(t)))
+                .register(meterRegistry));
+    }
+
+    /**
+     * Short generic name such as {@code List<PatientResponse>}.
+     */
+    private static String typeName(ResolvableType type) {
+        Class<?> raw = type.resolve(Object.class);
+        if (!type.hasGenerics()) {
+            return raw.getSimpleName();
+        }
+        return raw.getSimpleName() + Stream.of(type.getGenerics())
+                .map(TimedJacksonHttpMessageConverter::typeName)
+                .collect(Collectors.joining(",", "<", ">"));
+    }
+}
@@ -0,0 +1,35 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+
+/**
+ * Materialized number of a doctor's patients diagnosed with one disease.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "doctor_disease_counts")
+public class DiseaseCount {
+    @EmbeddedId
+    private Key id;
+
+    @Column(name = "patient_count", nullable = false)
+    private long patientCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "doctor_id")
+        private Long doctorId;
+
+        @Column(name = "disease")
+        private String disease;
+    }
+}
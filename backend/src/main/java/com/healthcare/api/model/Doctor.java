@@ -2,11 +2,18 @@ package com.healthcare.api.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
 
 @Data
 @Entity
-@Table(name = "doctors")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "doctors")
+@Table(name = "doctors", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_doctors_email", columnNames = "email"),
+        @UniqueConstraint(name = "uk_doctors_medical_id", columnNames = "medical_id")
+})
 public class Doctor {
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
@@ -15,13 +22,13 @@ public class Doctor {
     @Column(nullable = false)
     private String name;
 
-    @Column(nullable = false, unique = true)
+    @Column(nullable = false)
     private String email;
 
     @Column(nullable = false)
     private String password;
 
-    @Column(name = "medical_id", nullable = false, unique = true)
+    @Column(name = "medical_id", nullable = false)
     private String medicalId;
 
     @Column(nullable = false)
@@ -0,0 +1,39 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Materialized per-doctor dashboard counters, kept in step with the
+ * patients table by {@link com.healthcare.api.service.AnalyticsCounterService}.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "doctor_analytics")
+public class DoctorAnalytics {
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(name = "total_patients", nullable = false)
+    private long totalPatients;
+
+    @Column(name = "high_risk_patients", nullable = false)
+    private long highRiskPatients;
+
+    @Column(name = "medium_risk_patients", nullable = false)
+    private long mediumRiskPatients;
+
+    @Column(name = "low_risk_patients", nullable = false)
+    private long lowRiskPatients;
+
+    // Bumped by every write to the doctor's patients; validator for the list and dashboard ETags
+    @Column(name = "patients_version", nullable = false)
+    private long patientsVersion;
+
+    public DoctorAnalytics(Long doctorId) {
+        this.doctorId = doctorId;
+    }
+}
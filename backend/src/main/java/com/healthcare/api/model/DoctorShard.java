@@ -0,0 +1,35 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Where a doctor's patients live when storage is sharded. The home
+ * database holds one row per doctor and is the directory requests are
+ * routed by; each other shard holds the rows of its own doctors, which
+ * also serialize first-time counter inserts the way the doctor row does
+ * on an unsharded database. Doctors without a row live on the home database.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "doctor_shards")
+public class DoctorShard {
+    @Id
+    @Column(name = "doctor_id")
+    private Long doctorId;
+
+    @Column(nullable = false)
+    private int shard;
+
+    // Set while ShardMigrator copies the doctor's records; their requests fail meanwhile
+    @Column(nullable = false)
+    private boolean moving;
+
+    @Column(name = "assigned_at", nullable = false)
+    private LocalDateTime assignedAt;
+}
@@ -2,14 +2,30 @@ package com.healthcare.api.model;
 
 import jakarta.persistence.*;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 
 @Data
 @Entity
-@Table(name = "patients")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patients")
+@Table(name = "patients", indexes = {
+        // Listing, keyset pages and the streaming cursor: doctor's rows newest first
+        @Index(name = "idx_patients_doctor_created", columnList = "doctor_id, created_at, id"),
+        @Index(name = "idx_patients_doctor_risk", columnList = "doctor_id, risk_level"),
+        @Index(name = "idx_patients_doctor_updated", columnList = "doctor_id, updated_at")
+})
 public class Patient {
+    // Sequence ids (pooled in blocks of 50) let Hibernate batch inserts; IDENTITY cannot
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "patient_seq")
+    @SequenceGenerator(name = "patient_seq", sequenceName = "patient_seq", allocationSize = 50)
     private Long id;
 
     @Column(name = "doctor_id", nullable = false)
@@ -46,22 +62,39 @@ public class Patient {
     private Double oxygen;
     private Integer pulse;
 
-    @Column(columnDefinition = "TEXT")
-    private String symptoms;
+    // Dictionary codes (see SymptomCode); the (symptom_id, patient_id) index serves symptom lookups
+    @ElementCollection
+    @CollectionTable(name = "patient_symptoms",
+            joinColumns = @JoinColumn(name = "patient_id"),
+            indexes = @Index(name = "idx_patient_symptoms_symptom", columnList = "symptom_id, patient_id"))
+    @OrderColumn(name = "list_order")
+    @Column(name = "symptom_id", nullable = false)
+    @BatchSize(size = 100)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "patient-symptoms")
+    @EqualsAndHashCode.Exclude
+    @ToString.Exclude
+    private List<Integer> symptomCodes = new ArrayList<>();
 
     @Column(name = "voice_symptoms")
     private String voiceSymptoms;
 
+    // Set by RiskScoringService, never taken from requests
     @Column(name = "risk_level")
     private String riskLevel;
 
+    // Version of the risk rules riskLevel was computed with; RiskRescoreJob re-scores older ones
+    @Column(name = "risk_rules_version")
+    private Long riskRulesVersion;
+
     private String disease;
 
+    @Convert(converter = StringListConverter.class)
     @Column(columnDefinition = "TEXT")
-    private String triggers;
+    private List<String> triggers = new ArrayList<>();
 
+    @Convert(converter = StringListConverter.class)
     @Column(columnDefinition = "TEXT")
-    private String recommendations;
+    private List<String> recommendations = new ArrayList<>();
 
     @Column(name = "created_at")
     private LocalDateTime createdAt;
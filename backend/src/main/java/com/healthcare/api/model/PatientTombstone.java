@@ -0,0 +1,30 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Marker left behind by a deleted patient so that delta-sync clients
+ * learn about the delete. Purged after the configured retention.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "patient_tombstones", indexes = {
+        @Index(name = "idx_tombstones_doctor_deleted", columnList = "doctor_id, deleted_at")
+})
+public class PatientTombstone {
+    @Id
+    @Column(name = "patient_id")
+    private Long patientId;
+
+    @Column(name = "doctor_id", nullable = false)
+    private Long doctorId;
+
+    @Column(name = "deleted_at", nullable = false)
+    private LocalDateTime deletedAt;
+}
@@ -0,0 +1,51 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * One cell of the population cube: the number of patients registered in a
+ * week (starting Monday) in one city, with one disease and risk level. Cells
+ * that drop to zero are deleted, so the cube only holds populated cells.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "population_rollups", indexes = {
+        // Hibernate orders key columns by name; drill-downs filter by period or by region first
+        @Index(name = "idx_population_rollups_week", columnList = "week_start, state, city"),
+        @Index(name = "idx_population_rollups_region", columnList = "state, city, week_start")
+})
+public class PopulationRollup {
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long patients;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "week_start")
+        private LocalDate weekStart;
+
+        @Column(name = "state")
+        private String state;
+
+        @Column(name = "city")
+        private String city;
+
+        @Column(name = "disease")
+        private String disease;
+
+        @Column(name = "risk_level", length = 32)
+        private String riskLevel;
+    }
+}
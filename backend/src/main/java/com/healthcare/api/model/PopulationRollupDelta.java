@@ -0,0 +1,31 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * A change to one cube cell, appended by a patient write and folded into
+ * {@link PopulationRollup} shortly after. Appending rather than updating the
+ * cell keeps concurrent writes for the same city and week from queueing on
+ * one row.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "population_rollup_deltas")
+public class PopulationRollupDelta {
+    // Sequence ids (pooled in blocks of 50) let Hibernate batch inserts
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "population_delta_seq")
+    @SequenceGenerator(name = "population_delta_seq", sequenceName = "population_delta_seq", allocationSize = 50)
+    private Long id;
+
+    @Embedded
+    private PopulationRollup.Key cell;
+
+    @Column(nullable = false)
+    private long patients;
+}
@@ -0,0 +1,58 @@
+package com.healthcare.api.model;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stores a string list in one TEXT column, joined with the ASCII unit
+ * separator. Decoding is a single split instead of a JSON parse. Values
+ * written by the old JSON encoding (starting with '[') are still read.
+ */
+@Converter
+public class StringListConverter implements AttributeConverter<List<String>, String> {
+
+    static final char SEPARATOR = '\u001F';
+
+    private static final ObjectMapper LEGACY_MAPPER = new ObjectMapper();
+    private static final TypeReference<List<String>> LEGACY_TYPE = new TypeReference<>() { };
+
+    @Override
+    public String convertToDatabaseColumn(List<String> list) {
+        if (list == null || list.isEmpty()) return null;
+        StringBuilder joined = new StringBuilder();
+        for (String item : list) {
+            if (joined.length() > 0) joined.append(SEPARATOR);
+            joined.append(item == null ? "" : item.replace(SEPARATOR, ' '));
+        }
+        return joined.toString();
+    }
+
+    @Override
+    public List<String> convertToEntityAttribute(String column) {
+        if (column == null || column.isEmpty()) return new ArrayList<>();
+        if (isLegacyJson(column)) {
+            try {
+                return LEGACY_MAPPER.readValue(column, LEGACY_TYPE);
+            } catch (JsonProcessingException e) {
+                // Not JSON after all; fall through and treat it as a compact value
+            }
+        }
+        List<String> list = new ArrayList<>();
+        int start = 0;
+        for (int i = column.indexOf(SEPARATOR); i >= 0; i = column.indexOf(SEPARATOR, start)) {
+            list.add(column.substring(start, i));
+            start = i + 1;
+        }
+        list.add(column.substring(start));
+        return list;
+    }
+
+    public static boolean isLegacyJson(String column) {
+        return column.startsWith("[") && column.indexOf(SEPARATOR) < 0;
+    }
+}
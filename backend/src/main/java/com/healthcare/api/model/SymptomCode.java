@@ -0,0 +1,26 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Dictionary entry mapping a symptom name to the small integer code that
+ * patient rows store instead of the text.
+ */
+@Data
+@NoArgsConstructor
+@Entity
+@Table(name = "symptom_codes")
+public class SymptomCode {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Integer id;
+
+    @Column(nullable = false, unique = true)
+    private String name;
+
+    public SymptomCode(String name) {
+        this.name = name;
+    }
+}
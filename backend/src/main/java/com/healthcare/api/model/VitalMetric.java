@@ -0,0 +1,49 @@
+package com.healthcare.api.model;
+
+import java.util.Locale;
+
+/**
+ * The vitals kept as time series. Values are stored as fixed-point numbers
+ * with {@code scale} steps per unit, i.e. two decimals for temperature,
+ * oxygen and weight and whole numbers for pulse and blood pressure.
+ */
+public enum VitalMetric {
+    TEMPERATURE(100),
+    OXYGEN(100),
+    PULSE(1),
+    SYSTOLIC(1),
+    DIASTOLIC(1),
+    WEIGHT(100);
+
+    private final int scale;
+
+    VitalMetric(int scale) {
+        this.scale = scale;
+    }
+
+    public long toFixed(double value) {
+        return Math.round(value * scale);
+    }
+
+    public double fromFixed(long fixed) {
+        return (double) fixed / scale;
+    }
+
+    // Rounds a reading to the precision it is stored with
+    public double round(double value) {
+        return fromFixed(toFixed(value));
+    }
+
+    public String key() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public static VitalMetric fromKey(String key) {
+        for (VitalMetric metric : values()) {
+            if (metric.key().equalsIgnoreCase(key)) {
+                return metric;
+            }
+        }
+        throw new RuntimeException("Unknown vital: " + key);
+    }
+}
@@ -0,0 +1,81 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * One set of vitals taken from a patient at one moment. Rows are only
+ * inserted, never updated; once their day is old enough they are folded
+ * into that day's {@link VitalSegment} and deleted.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+// Hibernate orders composite key columns by type and name, so the key alone would lead with observed_at
+@Table(name = "vital_observations", indexes = {
+        @Index(name = "idx_vital_observations_patient_time", columnList = "patient_id, observed_at")
+})
+public class VitalObservation {
+    @EmbeddedId
+    private Key id;
+
+    private Double temperature;
+    private Double oxygen;
+    private Integer pulse;
+    private Integer systolic;
+    private Integer diastolic;
+    private Double weight;
+
+    public VitalObservation(Long patientId, LocalDateTime observedAt) {
+        this.id = new Key(patientId, observedAt);
+    }
+
+    public Double get(VitalMetric metric) {
+        return switch (metric) {
+            case TEMPERATURE -> temperature;
+            case OXYGEN -> oxygen;
+            case PULSE -> pulse == null ? null : pulse.doubleValue();
+            case SYSTOLIC -> systolic == null ? null : systolic.doubleValue();
+            case DIASTOLIC -> diastolic == null ? null : diastolic.doubleValue();
+            case WEIGHT -> weight;
+        };
+    }
+
+    public void set(VitalMetric metric, Double value) {
+        Double rounded = value == null ? null : metric.round(value);
+        switch (metric) {
+            case TEMPERATURE -> temperature = rounded;
+            case OXYGEN -> oxygen = rounded;
+            case PULSE -> pulse = rounded == null ? null : rounded.intValue();
+            case SYSTOLIC -> systolic = rounded == null ? null : rounded.intValue();
+            case DIASTOLIC -> diastolic = rounded == null ? null : rounded.intValue();
+            case WEIGHT -> weight = rounded;
+        }
+    }
+
+    public boolean isEmpty() {
+        for (VitalMetric metric : VitalMetric.values()) {
+            if (get(metric) != null) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "patient_id")
+        private Long patientId;
+
+        @Column(name = "observed_at")
+        private LocalDateTime observedAt;
+    }
+}
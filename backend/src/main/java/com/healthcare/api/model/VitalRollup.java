@@ -0,0 +1,65 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDateTime;
+
+/**
+ * Count, sum, min, max and latest value of one vital over one hour or day,
+ * updated with every reading by {@link com.healthcare.api.service.VitalsService}
+ * so that charts over long ranges read these rows instead of the readings.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "vital_rollups", indexes = {
+        @Index(name = "idx_vital_rollups_patient_bucket", columnList = "patient_id, resolution, bucket_start, metric")
+})
+public class VitalRollup {
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private long readings;
+
+    @Column(nullable = false)
+    private double total;
+
+    @Column(name = "min_value", nullable = false)
+    private double minimum;
+
+    @Column(name = "max_value", nullable = false)
+    private double maximum;
+
+    @Column(name = "last_value", nullable = false)
+    private double last;
+
+    @Column(name = "last_at", nullable = false)
+    private LocalDateTime lastAt;
+
+    public enum Resolution { HOUR, DAY }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "patient_id")
+        private Long patientId;
+
+        @Enumerated(EnumType.STRING)
+        @Column(length = 8)
+        private Resolution resolution;
+
+        @Enumerated(EnumType.STRING)
+        @Column(length = 16)
+        private VitalMetric metric;
+
+        @Column(name = "bucket_start")
+        private LocalDateTime bucketStart;
+    }
+}
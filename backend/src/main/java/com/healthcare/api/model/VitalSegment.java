@@ -0,0 +1,43 @@
+package com.healthcare.api.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.io.Serializable;
+import java.time.LocalDate;
+
+/**
+ * All of one patient's vitals for one day, delta-encoded by
+ * {@link VitalSegmentCodec}: a few bytes per reading instead of a row each.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Entity
+@Table(name = "vital_segments", indexes = {
+        @Index(name = "idx_vital_segments_patient_day", columnList = "patient_id, segment_day")
+})
+public class VitalSegment {
+    @EmbeddedId
+    private Key id;
+
+    @Column(nullable = false)
+    private int readings;
+
+    @Lob
+    @Column(nullable = false)
+    private byte[] data;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    @Embeddable
+    public static class Key implements Serializable {
+        @Column(name = "patient_id")
+        private Long patientId;
+
+        @Column(name = "segment_day")
+        private LocalDate segmentDay;
+    }
+}
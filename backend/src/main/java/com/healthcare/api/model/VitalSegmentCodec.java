@@ -0,0 +1,140 @@
+package com.healthcare.api.model;
+
+import java.io.ByteArrayOutputStream;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Binary format of a {@link VitalSegment}. Readings are stored in time order:
+ * the time as a varint delta from the previous reading, a bit mask of the
+ * vitals present, and each present vital as a zigzag varint delta from that
+ * vital's previous fixed-point value. Times are counted in the coarsest unit
+ * (seconds, milliseconds or microseconds) that represents all of them
+ * exactly. Slowly drifting vitals at a steady interval take one or two bytes
+ * per value.
+ */
+public final class VitalSegmentCodec {
+
+    private static final int VERSION = 1;
+    private static final long[] TIME_UNITS_MICROS = {1_000_000, 1_000, 1};
+    private static final VitalMetric[] METRICS = VitalMetric.values();
+
+    private VitalSegmentCodec() {
+    }
+
+    /**
+     * @param observations readings of one patient on {@code day}, in
+     *                     ascending time order without duplicate times
+     */
+    public static byte[] encode(LocalDate day, List<VitalObservation> observations) {
+        LocalDateTime dayStart = day.atStartOfDay();
+        long[] offsets = new long[observations.size()];
+        int unit = 0;
+        for (int i = 0; i < offsets.length; i++) {
+            offsets[i] = ChronoUnit.MICROS.between(dayStart, observations.get(i).getId().getObservedAt());
+            while (offsets[i] % TIME_UNITS_MICROS[unit] != 0) {
+                unit++;
+            }
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(8 + observations.size() * 12);
+        out.write(VERSION);
+        out.write(unit);
+        writeVarint(out, observations.size());
+        long previousTime = 0;
+        long[] previous = new long[METRICS.length];
+        for (int i = 0; i < offsets.length; i++) {
+            long time = offsets[i] / TIME_UNITS_MICROS[unit];
+            writeVarint(out, time - previousTime);
+            previousTime = time;
+
+            VitalObservation observation = observations.get(i);
+            int mask = 0;
+            for (VitalMetric metric : METRICS) {
+                if (observation.get(metric) != null) {
+                    mask |= 1 << metric.ordinal();
+                }
+            }
+            out.write(mask);
+            for (VitalMetric metric : METRICS) {
+                Double value = observation.get(metric);
+                if (value != null) {
+                    long fixed = metric.toFixed(value);
+                    writeVarint(out, zigzag(fixed - previous[metric.ordinal()]));
+                    previous[metric.ordinal()] = fixed;
+                }
+            }
+        }
+        return out.toByteArray();
+    }
+
+    public static List<VitalObservation> decode(Long patientId, LocalDate day, byte[] data) {
+        Reader in = new Reader(data);
+        if (in.readByte() != VERSION) {
+            throw new IllegalStateException("Unknown vital segment version");
+        }
+        long unitMicros = TIME_UNITS_MICROS[in.readByte()];
+        int count = (int) in.readVarint();
+        LocalDateTime dayStart = day.atStartOfDay();
+        List<VitalObservation> observations = new ArrayList<>(count);
+        long time = 0;
+        long[] previous = new long[METRICS.length];
+        for (int i = 0; i < count; i++) {
+            time += in.readVarint();
+            VitalObservation observation = new VitalObservation(patientId, dayStart.plus(time * unitMicros, ChronoUnit.MICROS));
+            int mask = in.readByte();
+            for (VitalMetric metric : METRICS) {
+                if ((mask & (1 << metric.ordinal())) != 0) {
+                    long fixed = previous[metric.ordinal()] + unzigzag(in.readVarint());
+                    previous[metric.ordinal()] = fixed;
+                    observation.set(metric, metric.fromFixed(fixed));
+                }
+            }
+            observations.add(observation);
+        }
+        return observations;
+    }
+
+    private static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static final class Reader {
+        private final byte[] data;
+        private int position;
+
+        Reader(byte[] data) {
+            this.data = data;
+        }
+
+        int readByte() {
+            return data[position++] & 0xFF;
+        }
+
+        long readVarint() {
+            long value = 0;
+            for (int shift = 0; ; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.DiseaseCount;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.List;
+
+@Repository
+public interface DiseaseCountRepository extends JpaRepository<DiseaseCount, DiseaseCount.Key> {
+
+    @Query("SELECT d FROM DiseaseCount d WHERE d.id.doctorId = ?1 AND d.patientCount > 0")
+    List<DiseaseCount> findActiveByDoctorId(Long doctorId);
+
+    @Modifying
+    @Query("UPDATE DiseaseCount d SET d.patientCount = d.patientCount + ?3 " +
+            "WHERE d.id.doctorId = ?1 AND d.id.disease = ?2")
+    int applyDelta(Long doctorId, String disease, long delta);
+}
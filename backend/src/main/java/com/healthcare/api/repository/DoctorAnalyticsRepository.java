@@ -0,0 +1,30 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.DoctorAnalytics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface DoctorAnalyticsRepository extends JpaRepository<DoctorAnalytics, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM DoctorAnalytics a WHERE a.doctorId = ?1")
+    Optional<DoctorAnalytics> findForUpdate(Long doctorId);
+
+    @Modifying
+    @Query("UPDATE DoctorAnalytics a SET a.totalPatients = a.totalPatients + ?2, " +
+            "a.highRiskPatients = a.highRiskPatients + ?3, " +
+            "a.mediumRiskPatients = a.mediumRiskPatients + ?4, " +
+            "a.lowRiskPatients = a.lowRiskPatients + ?5, " +
+            "a.patientsVersion = a.patientsVersion + 1 " +
+            "WHERE a.doctorId = ?1")
+    int applyDelta(Long doctorId, long total, long high, long medium, long low);
+
+    @Query("SELECT a.patientsVersion FROM DoctorAnalytics a WHERE a.doctorId = ?1")
+    Optional<Long> findPatientsVersion(Long doctorId);
+}
@@ -1,7 +1,10 @@
 package com.healthcare.api.repository;
 
 import com.healthcare.api.model.Doctor;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import java.util.Optional;
 
@@ -9,5 +12,16 @@ import java.util.Optional;
 public interface DoctorRepository extends JpaRepository<Doctor, Long> {
     Optional<Doctor> findByEmail(String email);
     Optional<Doctor> findByMedicalId(String medicalId);
-    Optional<Doctor> findByEmailOrMedicalId(String email, String medicalId);
+
+    /**
+     * Two unique-index lookups instead of one {@code email = ? OR medical_id = ?}
+     * query, which some databases answer with a full scan of doctors.
+     */
+    default Optional<Doctor> findByEmailOrMedicalId(String email, String medicalId) {
+        return findByEmail(email).or(() -> findByMedicalId(medicalId));
+    }
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM Doctor d WHERE d.id = ?1")
+    Optional<Doctor> lockById(Long id);
 }
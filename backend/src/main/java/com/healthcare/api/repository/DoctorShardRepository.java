@@ -0,0 +1,17 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.DoctorShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface DoctorShardRepository extends JpaRepository<DoctorShard, Long> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM DoctorShard s WHERE s.doctorId = ?1")
+    Optional<DoctorShard> lockById(Long doctorId);
+}
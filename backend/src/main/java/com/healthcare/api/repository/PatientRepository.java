@@ -1,15 +1,148 @@
 package com.healthcare.api.repository;
 
+import com.healthcare.api.dto.PatientSummaryResponse;
 import com.healthcare.api.model.Patient;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.HibernateHints.HINT_CACHE_REGION;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 @Repository
 public interface PatientRepository extends JpaRepository<Patient, Long> {
+
+    /**
+     * Query cache region for the per-doctor lists. Hibernate drops every
+     * result in it when a transaction writes to patients or patient_symptoms.
+     */
+    String PATIENT_QUERIES = "patient-queries";
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
     List<Patient> findByDoctorIdOrderByCreatedAtDesc(Long doctorId);
-    
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
     @Query("SELECT p FROM Patient p WHERE p.doctorId = ?1 AND p.riskLevel = ?2")
     List<Patient> findByDoctorIdAndRiskLevel(Long doctorId, String riskLevel);
+
+    // Served by the (symptom_id, patient_id) index on patient_symptoms
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query("SELECT DISTINCT p FROM Patient p JOIN p.symptomCodes s WHERE p.doctorId = ?1 AND s = ?2 " +
+            "ORDER BY p.createdAt DESC")
+    List<Patient> findByDoctorIdAndSymptomCode(Long doctorId, Integer symptomCode);
+
+    // Keyset pagination over (createdAt, id), newest first
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query("SELECT p FROM Patient p WHERE p.doctorId = ?1 ORDER BY p.createdAt DESC, p.id DESC")
+    List<Patient> findFirstPage(Long doctorId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query("SELECT p FROM Patient p WHERE p.doctorId = ?1 " +
+            "AND (p.createdAt < ?2 OR (p.createdAt = ?2 AND p.id < ?3)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<Patient> findPageAfter(Long doctorId, LocalDateTime createdAt, Long id, Pageable pageable);
+
+    // Summary views: list columns only, no symptom collection or TEXT columns
+    String SUMMARY = "SELECT new com.healthcare.api.dto.PatientSummaryResponse(" +
+            "p.id, p.name, p.age, p.riskLevel, p.disease, p.createdAt) ";
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query(SUMMARY + "FROM Patient p WHERE p.doctorId = ?1 ORDER BY p.createdAt DESC")
+    List<PatientSummaryResponse> findSummariesByDoctorId(Long doctorId);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query("SELECT DISTINCT new com.healthcare.api.dto.PatientSummaryResponse(" +
+            "p.id, p.name, p.age, p.riskLevel, p.disease, p.createdAt) " +
+            "FROM Patient p JOIN p.symptomCodes s WHERE p.doctorId = ?1 AND s = ?2 ORDER BY p.createdAt DESC")
+    List<PatientSummaryResponse> findSummariesByDoctorIdAndSymptomCode(Long doctorId, Integer symptomCode);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query(SUMMARY + "FROM Patient p WHERE p.doctorId = ?1 ORDER BY p.createdAt DESC, p.id DESC")
+    List<PatientSummaryResponse> findFirstSummaryPage(Long doctorId, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query(SUMMARY + "FROM Patient p WHERE p.doctorId = ?1 " +
+            "AND (p.createdAt < ?2 OR (p.createdAt = ?2 AND p.id < ?3)) " +
+            "ORDER BY p.createdAt DESC, p.id DESC")
+    List<PatientSummaryResponse> findSummaryPageAfter(Long doctorId, LocalDateTime createdAt, Long id,
+                                                      Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = HINT_CACHE_REGION, value = PATIENT_QUERIES)
+    })
+    @Query("SELECT new com.healthcare.api.repository.PatientVersion(p.doctorId, p.updatedAt) " +
+            "FROM Patient p WHERE p.id = ?1")
+    Optional<PatientVersion> findVersionById(Long id);
+
+    // Delta sync: rows written after the (updatedAt, id) watermark, up to the settle horizon
+    @Query("SELECT p FROM Patient p WHERE p.doctorId = ?1 " +
+            "AND (p.updatedAt > ?2 OR (p.updatedAt = ?2 AND p.id > ?3)) AND p.updatedAt <= ?4 " +
+            "ORDER BY p.updatedAt, p.id")
+    List<Patient> findChangedSince(Long doctorId, LocalDateTime updatedAt, Long id,
+                                   LocalDateTime horizon, Pageable pageable);
+
+    // Forward-only cursor; must be consumed inside a transaction and closed.
+    // Bypasses the second-level cache so a full export does not evict the hot entries.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query("SELECT p FROM Patient p WHERE p.doctorId = ?1 ORDER BY p.createdAt DESC, p.id DESC")
+    Stream<Patient> streamByDoctorId(Long doctorId);
+
+    @Query("SELECT LOWER(p.riskLevel), COUNT(p) FROM Patient p WHERE p.doctorId = ?1 GROUP BY LOWER(p.riskLevel)")
+    List<Object[]> countByRiskLevel(Long doctorId);
+
+    @Query("SELECT p.disease, COUNT(p) FROM Patient p WHERE p.doctorId = ?1 " +
+            "AND p.disease IS NOT NULL AND p.disease <> '' GROUP BY p.disease")
+    List<Object[]> countByDisease(Long doctorId);
+
+    @Query("SELECT DISTINCT p.doctorId FROM Patient p")
+    List<Long> findDistinctDoctorIds();
+
+    // Serializes updates and deletes of a patient, and writes to their vitals (see VitalsService)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Patient p WHERE p.id = ?1")
+    Optional<Patient> lockById(Long id);
 }
@@ -0,0 +1,24 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.PatientTombstone;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface PatientTombstoneRepository extends JpaRepository<PatientTombstone, Long> {
+
+    @Query("SELECT t FROM PatientTombstone t WHERE t.doctorId = ?1 " +
+            "AND (t.deletedAt > ?2 OR (t.deletedAt = ?2 AND t.patientId > ?3)) AND t.deletedAt <= ?4 " +
+            "ORDER BY t.deletedAt, t.patientId")
+    List<PatientTombstone> findDeletedSince(Long doctorId, LocalDateTime deletedAt, Long patientId,
+                                            LocalDateTime horizon, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM PatientTombstone t WHERE t.deletedAt < ?1")
+    int deleteOlderThan(LocalDateTime cutoff);
+}
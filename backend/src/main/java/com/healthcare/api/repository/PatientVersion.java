@@ -0,0 +1,10 @@
+package com.healthcare.api.repository;
+
+import java.time.LocalDateTime;
+
+/**
+ * Owner and last write of one patient, enough to authorize a request and
+ * answer a conditional GET without loading the entity.
+ */
+public record PatientVersion(Long doctorId, LocalDateTime updatedAt) {
+}
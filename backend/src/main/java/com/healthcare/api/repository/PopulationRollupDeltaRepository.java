@@ -0,0 +1,25 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.PopulationRollupDelta;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PopulationRollupDeltaRepository extends JpaRepository<PopulationRollupDelta, Long> {
+
+    // Locked, so two instances folding at once never fold the same delta twice
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT d FROM PopulationRollupDelta d ORDER BY d.id")
+    List<PopulationRollupDelta> findOldestForUpdate(Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM PopulationRollupDelta d WHERE d.id IN ?1")
+    int deleteByIds(Collection<Long> ids);
+}
@@ -0,0 +1,16 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.PopulationRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface PopulationRollupRepository extends JpaRepository<PopulationRollup, PopulationRollup.Key> {
+
+    @Query("SELECT r FROM PopulationRollup r WHERE r.id.weekStart IN ?1")
+    List<PopulationRollup> findByWeeks(Collection<LocalDate> weeks);
+}
@@ -0,0 +1,11 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.SymptomCode;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import java.util.Optional;
+
+@Repository
+public interface SymptomCodeRepository extends JpaRepository<SymptomCode, Integer> {
+    Optional<SymptomCode> findByName(String name);
+}
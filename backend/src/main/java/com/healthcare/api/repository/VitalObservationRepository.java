@@ -0,0 +1,38 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.VitalObservation;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VitalObservationRepository extends JpaRepository<VitalObservation, VitalObservation.Key> {
+
+    @Query("SELECT o FROM VitalObservation o WHERE o.id.patientId = ?1 " +
+            "AND o.id.observedAt >= ?2 AND o.id.observedAt < ?3 ORDER BY o.id.observedAt")
+    List<VitalObservation> findRange(Long patientId, LocalDateTime from, LocalDateTime to, Limit limit);
+
+    @Query("SELECT o FROM VitalObservation o WHERE o.id.patientId = ?1 AND o.id.observedAt < ?2 " +
+            "ORDER BY o.id.observedAt")
+    List<VitalObservation> findObservedBefore(Long patientId, LocalDateTime before);
+
+    @Query("SELECT o.id.observedAt FROM VitalObservation o WHERE o.id.patientId = ?1 " +
+            "AND o.id.observedAt >= ?2 AND o.id.observedAt <= ?3")
+    List<LocalDateTime> findObservedAtBetween(Long patientId, LocalDateTime from, LocalDateTime to);
+
+    // Raw rows are few (the newest days only), so this scan stays small
+    @Query("SELECT DISTINCT o.id.patientId FROM VitalObservation o WHERE o.id.observedAt < ?1")
+    List<Long> findPatientIdsObservedBefore(LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM VitalObservation o WHERE o.id.patientId = ?1 AND o.id.observedAt < ?2")
+    int deleteObservedBefore(Long patientId, LocalDateTime before);
+
+    @Modifying
+    @Query("DELETE FROM VitalObservation o WHERE o.id.patientId = ?1")
+    int deleteByPatientId(Long patientId);
+}
@@ -0,0 +1,35 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.VitalMetric;
+import com.healthcare.api.model.VitalRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface VitalRollupRepository extends JpaRepository<VitalRollup, VitalRollup.Key> {
+
+    @Query("SELECT r FROM VitalRollup r WHERE r.id.patientId = ?1 AND r.id.resolution = ?2 " +
+            "AND r.id.bucketStart >= ?3 AND r.id.bucketStart < ?4 ORDER BY r.id.bucketStart, r.id.metric")
+    List<VitalRollup> findRange(Long patientId, VitalRollup.Resolution resolution,
+                                LocalDateTime from, LocalDateTime to);
+
+    @Query("SELECT r FROM VitalRollup r WHERE r.id.patientId = ?1 AND r.id.resolution = ?2 " +
+            "AND r.id.bucketStart >= ?3 AND r.id.bucketStart < ?4 AND r.id.metric = ?5 ORDER BY r.id.bucketStart")
+    List<VitalRollup> findRange(Long patientId, VitalRollup.Resolution resolution,
+                                LocalDateTime from, LocalDateTime to, VitalMetric metric);
+
+    // The newest bucket of each vital, which holds that vital's latest reading
+    @Query("SELECT r FROM VitalRollup r WHERE r.id.patientId = ?1 AND r.id.resolution = ?2 " +
+            "AND r.id.bucketStart = (SELECT MAX(n.id.bucketStart) FROM VitalRollup n " +
+            "WHERE n.id.patientId = r.id.patientId AND n.id.resolution = r.id.resolution " +
+            "AND n.id.metric = r.id.metric)")
+    List<VitalRollup> findNewest(Long patientId, VitalRollup.Resolution resolution);
+
+    @Modifying
+    @Query("DELETE FROM VitalRollup r WHERE r.id.patientId = ?1")
+    int deleteByPatientId(Long patientId);
+}
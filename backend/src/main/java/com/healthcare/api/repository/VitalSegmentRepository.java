@@ -0,0 +1,22 @@
+package com.healthcare.api.repository;
+
+import com.healthcare.api.model.VitalSegment;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface VitalSegmentRepository extends JpaRepository<VitalSegment, VitalSegment.Key> {
+
+    @Query("SELECT s FROM VitalSegment s WHERE s.id.patientId = ?1 " +
+            "AND s.id.segmentDay >= ?2 AND s.id.segmentDay <= ?3 ORDER BY s.id.segmentDay")
+    List<VitalSegment> findRange(Long patientId, LocalDate firstDay, LocalDate lastDay, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM VitalSegment s WHERE s.id.patientId = ?1")
+    int deleteByPatientId(Long patientId);
+}
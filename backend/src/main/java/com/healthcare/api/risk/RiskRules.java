@@ -0,0 +1,219 @@
+package com.healthcare.api.risk;
+
+import com.healthcare.api.model.VitalMetric;
+import com.healthcare.api.model.VitalObservation;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.IntFunction;
+
+/**
+ * Risk scoring rules, compiled from their text form into flat arrays so that
+ * scoring a patient is a loop over comparisons. A patient scores the points
+ * of every rule it matches and gets the first level whose minimum score it
+ * reaches, or {@code low}. The text format is described in
+ * {@code risk-rules.txt}.
+ * <p>
+ * Missing values are NaN, which no comparison matches. Symptom rules name
+ * symptoms, and each code's points are looked up by name once and memoized.
+ * Instances are immutable apart from that memo and safe to share.
+ */
+public final class RiskRules {
+
+    public static final String DEFAULT_LEVEL = "low";
+
+    // Field indexes: the vitals by ordinal, then age and the number of symptoms
+    private static final VitalMetric[] METRICS = VitalMetric.values();
+    private static final int AGE = METRICS.length;
+    private static final int SYMPTOM_COUNT = METRICS.length + 1;
+    private static final int FIELD_COUNT = METRICS.length + 2;
+
+    private static final byte LESS = 0;
+    private static final byte LESS_OR_EQUAL = 1;
+    private static final byte GREATER = 2;
+    private static final byte GREATER_OR_EQUAL = 3;
+    private static final String[] OPERATORS = {"<", "<=", ">", ">="};
+
+    private final long version;
+    private final String[] levels;
+    private final int[] levelMinimums;
+    private final int[] fields;
+    private final byte[] operators;
+    private final double[] thresholds;
+    private final int[] points;
+    private final Map<String, Integer> symptomPoints;
+    private final IntFunction<String> symptomNames;
+    private final Map<Integer, Integer> pointsByCode = new ConcurrentHashMap<>();
+
+    private RiskRules(long version, String[] levels, int[] levelMinimums, int[] fields, byte[] operators,
+                      double[] thresholds, int[] points, Map<String, Integer> symptomPoints,
+                      IntFunction<String> symptomNames) {
+        this.version = version;
+        this.levels = levels;
+        this.levelMinimums = levelMinimums;
+        this.fields = fields;
+        this.operators = operators;
+        this.thresholds = thresholds;
+        this.points = points;
+        this.symptomPoints = symptomPoints;
+        this.symptomNames = symptomNames;
+    }
+
+    /**
+     * Identifies the rules by what they compute, so edits to comments or
+     * rule order leave it unchanged.
+     */
+    public long version() {
+        return version;
+    }
+
+    public int score(VitalObservation vitals, Integer age, List<Integer> symptomCodes) {
+        double[] values = new double[FIELD_COUNT];
+        for (VitalMetric metric : METRICS) {
+            Double value = vitals.get(metric);
+            values[metric.ordinal()] = value == null ? Double.NaN : value;
+        }
+        values[AGE] = age == null ? Double.NaN : age;
+        values[SYMPTOM_COUNT] = symptomCodes.size();
+
+        int score = 0;
+        for (int i = 0; i < fields.length; i++) {
+            double value = values[fields[i]];
+            double threshold = thresholds[i];
+            boolean matches = switch (operators[i]) {
+                case LESS -> value < threshold;
+                case LESS_OR_EQUAL -> value <= threshold;
+                case GREATER -> value > threshold;
+                default -> value >= threshold;
+            };
+            if (matches) {
+                score += points[i];
+            }
+        }
+        if (!symptomPoints.isEmpty()) {
+            for (int i = 0; i < symptomCodes.size(); i++) {
+                Integer code = symptomCodes.get(i);
+                // A symptom listed twice counts once
+                if (symptomCodes.subList(0, i).contains(code)) {
+                    continue;
+                }
+                score += pointsByCode.computeIfAbsent(code, c ->
+                        symptomPoints.getOrDefault(normalize(symptomNames.apply(c)), 0));
+            }
+        }
+        return score;
+    }
+
+    public String level(int score) {
+        for (int i = 0; i < levels.length; i++) {
+            if (score >= levelMinimums[i]) {
+                return levels[i];
+            }
+        }
+        return DEFAULT_LEVEL;
+    }
+
+    /**
+     * Compiles rules from their text form.
+     *
+     * @param symptomNames resolves a symptom code to its name
+     */
+    public static RiskRules parse(String text, IntFunction<String> symptomNames) {
+        Map<String, Integer> levels = new HashMap<>();
+        List<int[]> comparisons = new ArrayList<>();
+        List<Double> thresholds = new ArrayList<>();
+        Map<String, Integer> symptomPoints = new HashMap<>();
+        // Canonical form for the version: sorted, so reordering rules changes nothing
+        List<String> canonical = new ArrayList<>();
+
+        String[] lines = text.split("\r?\n");
+        for (int number = 1; number <= lines.length; number++) {
+            String line = lines[number - 1].strip();
+            if (line.isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] words = line.split("\\s+");
+            try {
+                if (words[0].equals("level") && words.length == 3) {
+                    if (levels.put(words[1].toLowerCase(Locale.ROOT), Integer.parseInt(words[2])) != null) {
+                        throw new IllegalArgumentException("level " + words[1] + " is defined twice");
+                    }
+                } else if (words.length >= 3 && words[1].equals("symptom")) {
+                    String symptom = normalize(line.substring(line.indexOf("symptom") + "symptom".length()));
+                    symptomPoints.merge(symptom, Integer.parseInt(words[0]), Integer::sum);
+                } else if (words.length == 4) {
+                    int operator = Arrays.asList(OPERATORS).indexOf(words[2]);
+                    if (operator < 0) {
+                        throw new IllegalArgumentException("unknown operator " + words[2]);
+                    }
+                    comparisons.add(new int[]{field(words[1]), operator, Integer.parseInt(words[0])});
+                    thresholds.add(Double.parseDouble(words[3]));
+                    canonical.add(Integer.parseInt(words[0]) + " " + words[1].toLowerCase(Locale.ROOT) + " "
+                            + words[2] + " " + Double.parseDouble(words[3]));
+                } else {
+                    throw new IllegalArgumentException("expected a level, comparison or symptom rule");
+                }
+            } catch (RuntimeException e) {
+                throw new RuntimeException("Invalid risk rule on line " + number + ": " + line
+                        + " (" + e.getMessage() + ")");
+            }
+        }
+
+        // Highest minimum first, so level() returns the first band reached
+        List<Map.Entry<String, Integer>> bands = new ArrayList<>(levels.entrySet());
+        bands.sort(Map.Entry.<String, Integer>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+
+        bands.forEach(band -> canonical.add("level " + band.getKey() + " " + band.getValue()));
+        symptomPoints.forEach((symptom, points) -> canonical.add(points + " symptom " + symptom));
+        canonical.sort(Comparator.naturalOrder());
+
+        int count = comparisons.size();
+        int[] fields = new int[count];
+        byte[] operators = new byte[count];
+        double[] values = new double[count];
+        int[] points = new int[count];
+        for (int i = 0; i < count; i++) {
+            fields[i] = comparisons.get(i)[0];
+            operators[i] = (byte) comparisons.get(i)[1];
+            points[i] = comparisons.get(i)[2];
+            values[i] = thresholds.get(i);
+        }
+        return new RiskRules(hash(String.join("\n", canonical)),
+                bands.stream().map(Map.Entry::getKey).toArray(String[]::new),
+                bands.stream().mapToInt(Map.Entry::getValue).toArray(),
+                fields, operators, values, points, Map.copyOf(symptomPoints), symptomNames);
+    }
+
+    private static int field(String name) {
+        return switch (name.toLowerCase(Locale.ROOT)) {
+            case "age" -> AGE;
+            case "symptoms" -> SYMPTOM_COUNT;
+            default -> VitalMetric.fromKey(name).ordinal();
+        };
+    }
+
+    private static String normalize(String symptom) {
+        return symptom == null ? "" : symptom.strip().toLowerCase(Locale.ROOT);
+    }
+
+    private static long hash(String canonical) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(canonical.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < Long.BYTES; i++) {
+                hash = hash << 8 | (digest[i] & 0xff);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
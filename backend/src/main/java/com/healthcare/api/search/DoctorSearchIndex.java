@@ -0,0 +1,372 @@
+package com.healthcare.api.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * One doctor's patients, indexed by the words of their name and city and by
+ * their phone number. A query word matches an indexed word exactly, as a
+ * prefix, within one or two typos (found through shared trigrams) or by
+ * {@link SearchText#phoneticKey sound}. Every word of the query must match,
+ * and results rank by the sum of their best match per word, then newest
+ * patient first. Digit-only queries match phone numbers by suffix.
+ * <p>
+ * A one-word query reads the matching posting lists newest first, best
+ * match kind first, and stops once it has enough results, so its cost
+ * does not grow with the number of matches. Longer queries score every
+ * patient the most selective word matches.
+ * <p>
+ * Reads share a lock and writes take it exclusively; a write touches only
+ * the words of the one patient it changes.
+ */
+final class DoctorSearchIndex {
+
+    static final double EXACT = 1.0;
+    static final double PREFIX = 0.8;
+    static final double TYPO = 0.6;
+    static final double PHONETIC = 0.5;
+
+    private static final int MIN_PHONE_DIGITS = 3;
+    private static final int MIN_FULL_PHONE_DIGITS = 7;
+    private static final int MIN_TYPO_LENGTH = 4;
+    private static final int MIN_TRIGRAM_LENGTH = MIN_TYPO_LENGTH - 1;
+
+    // Best first: higher score, then the more recently created patient
+    private static final Comparator<Hit> RANKING = (a, b) -> a.score() != b.score()
+            ? Double.compare(b.score(), a.score())
+            : Long.compare(b.entry().id(), a.entry().id());
+
+    /**
+     * An indexed patient; {@code terms} are the index's own key instances.
+     */
+    record Entry(long id, String name, String phone, String city, String[] terms, String reversedPhone) {
+    }
+
+    private record Hit(Entry entry, double score) {
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final TreeMap<String, Postings> patientsByTerm = new TreeMap<>();
+    private final Map<String, Set<String>> termsByTrigram = new HashMap<>();
+    private final Map<String, Set<String>> termsByPhoneticKey = new HashMap<>();
+    private final TreeMap<String, Postings> patientsByReversedPhone = new TreeMap<>();
+
+    void put(long id, String name, String phone, String city) {
+        List<String> terms = new ArrayList<>(SearchText.terms(name));
+        for (String term : SearchText.terms(city)) {
+            if (!terms.contains(term)) {
+                terms.add(term);
+            }
+        }
+        Entry entry = new Entry(id, name, phone, city, terms.toArray(String[]::new),
+                SearchText.reversedDigits(phone));
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.put(id, entry);
+            if (previous != null) {
+                unlink(previous);
+            }
+            link(entry);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Entry previous = entries.remove(id);
+            if (previous != null) {
+                unlink(previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    List<Entry> search(String query, int limit) {
+        lock.readLock().lock();
+        try {
+            return SearchText.isPhoneQuery(query) ? searchPhone(query, limit) : searchTerms(query, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Entry> searchPhone(String query, int limit) {
+        String suffix = SearchText.reversedDigits(query);
+        if (suffix == null || suffix.length() < MIN_PHONE_DIGITS) {
+            return List.of();
+        }
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        patientsByReversedPhone.subMap(suffix, true, suffix + Character.MAX_VALUE, false).forEach((phone, ids) -> {
+            double score = phone.length() == suffix.length() ? EXACT : PREFIX;
+            ids.forEach(entry -> offer(top, new Hit(entry, score), limit));
+        });
+        // A full number with a country or trunk prefix the stored number lacks
+        for (int length = suffix.length() - 1; length >= MIN_FULL_PHONE_DIGITS; length--) {
+            Postings ids = patientsByReversedPhone.get(suffix.substring(0, length));
+            if (ids != null) {
+                ids.forEach(entry -> offer(top, new Hit(entry, EXACT), limit));
+            }
+        }
+        return ranked(top);
+    }
+
+    private List<Entry> searchTerms(String query, int limit) {
+        List<String> queryTerms = SearchText.terms(query);
+        if (queryTerms.isEmpty()) {
+            return List.of();
+        }
+        List<Map<String, Double>> matches = new ArrayList<>(queryTerms.size());
+        int driver = 0;
+        long driverPatients = Long.MAX_VALUE;
+        for (String term : queryTerms) {
+            Map<String, Double> matched = match(term);
+            if (matched.isEmpty()) {
+                return List.of();
+            }
+            long patients = 0;
+            for (String indexed : matched.keySet()) {
+                patients += patientsByTerm.get(indexed).size();
+            }
+            // Candidates come from the most selective word; the others only filter and score
+            if (patients < driverPatients) {
+                driver = matches.size();
+                driverPatients = patients;
+            }
+            matches.add(matched);
+        }
+
+        if (matches.size() == 1) {
+            return newestFirst(matches.get(0), limit);
+        }
+
+        PriorityQueue<Hit> top = new PriorityQueue<>(RANKING.reversed());
+        Map<String, Double> driverMatches = matches.get(driver);
+        for (String indexed : driverMatches.keySet()) {
+            patientsByTerm.get(indexed).forEach(entry -> {
+                // A patient with several of the driver's words is scored from the first one only
+                for (String term : entry.terms()) {
+                    if (driverMatches.containsKey(term)) {
+                        if (!term.equals(indexed)) {
+                            return;
+                        }
+                        break;
+                    }
+                }
+                double score = 0;
+                for (Map<String, Double> matched : matches) {
+                    double best = 0;
+                    for (String term : entry.terms()) {
+                        Double weight = matched.get(term);
+                        if (weight != null && weight > best) {
+                            best = weight;
+                        }
+                    }
+                    if (best == 0) {
+                        return;
+                    }
+                    score += best;
+                }
+                offer(top, new Hit(entry, score), limit);
+            });
+        }
+        return ranked(top);
+    }
+
+    /**
+     * One word: walks the posting lists of each match kind from the highest
+     * id down, merged, so a patient is first met at its best match kind.
+     */
+    private List<Entry> newestFirst(Map<String, Double> matched, int limit) {
+        TreeMap<Double, List<Postings>> byWeight = new TreeMap<>(Comparator.reverseOrder());
+        matched.forEach((indexed, weight) ->
+                byWeight.computeIfAbsent(weight, w -> new ArrayList<>()).add(patientsByTerm.get(indexed)));
+        List<Entry> results = new ArrayList<>(limit);
+        Set<Long> taken = new HashSet<>();
+        for (List<Postings> lists : byWeight.values()) {
+            PriorityQueue<Cursor> cursors = new PriorityQueue<>(lists.size(),
+                    Comparator.comparingLong(Cursor::id).reversed());
+            for (Postings postings : lists) {
+                cursors.add(new Cursor(postings));
+            }
+            while (!cursors.isEmpty() && results.size() < limit) {
+                Cursor cursor = cursors.poll();
+                if (taken.add(cursor.id())) {
+                    results.add(cursor.entry());
+                }
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+            if (results.size() == limit) {
+                break;
+            }
+        }
+        return results;
+    }
+
+    // Position in a posting list, moving from its highest id down
+    private static final class Cursor {
+
+        private final Postings postings;
+        private int position;
+
+        Cursor(Postings postings) {
+            this.postings = postings;
+            this.position = postings.size() - 1;
+        }
+
+        Entry entry() {
+            return postings.get(position);
+        }
+
+        long id() {
+            return entry().id();
+        }
+
+        boolean advance() {
+            return --position >= 0;
+        }
+    }
+
+    /**
+     * Indexed words the query word matches, with the weight of the best way
+     * it matches each.
+     */
+    private Map<String, Double> match(String term) {
+        Map<String, Double> matched = new HashMap<>();
+        // Keys are the index's own instances, so lookups by entry terms compare by reference
+        Map.Entry<String, Postings> exact = patientsByTerm.ceilingEntry(term);
+        if (exact != null && exact.getKey().equals(term)) {
+            matched.put(exact.getKey(), EXACT);
+        }
+        for (String indexed : patientsByTerm.subMap(term, false, term + Character.MAX_VALUE, false).keySet()) {
+            matched.put(indexed, PREFIX);
+        }
+        if (term.length() >= MIN_TYPO_LENGTH) {
+            int maxEdits = term.length() >= 8 ? 2 : 1;
+            // Each edit changes at most three trigrams
+            List<String> grams = SearchText.trigrams(term);
+            int required = Math.max(1, grams.size() - 3 * maxEdits);
+            Map<String, Integer> shared = new HashMap<>();
+            for (String gram : grams) {
+                for (String indexed : termsByTrigram.getOrDefault(gram, Set.of())) {
+                    shared.merge(indexed, 1, Integer::sum);
+                }
+            }
+            shared.forEach((indexed, count) -> {
+                if (count >= required && !matched.containsKey(indexed)
+                        && SearchText.distance(term, indexed, maxEdits) <= maxEdits) {
+                    matched.put(indexed, TYPO);
+                }
+            });
+        }
+        String key = term.length() >= MIN_TRIGRAM_LENGTH ? SearchText.phoneticKey(term) : null;
+        if (key != null) {
+            for (String indexed : termsByPhoneticKey.getOrDefault(key, Set.of())) {
+                matched.putIfAbsent(indexed, PHONETIC);
+            }
+        }
+        return matched;
+    }
+
+    private static void offer(PriorityQueue<Hit> top, Hit hit, int limit) {
+        if (top.size() < limit) {
+            top.add(hit);
+        } else if (RANKING.compare(hit, top.peek()) < 0) {
+            top.poll();
+            top.add(hit);
+        }
+    }
+
+    private static List<Entry> ranked(PriorityQueue<Hit> top) {
+        List<Hit> hits = new ArrayList<>(top);
+        hits.sort(RANKING);
+        List<Entry> entries = new ArrayList<>(hits.size());
+        for (Hit hit : hits) {
+            entries.add(hit.entry());
+        }
+        return entries;
+    }
+
+    private void link(Entry entry) {
+        String[] terms = entry.terms();
+        for (int i = 0; i < terms.length; i++) {
+            String term = terms[i];
+            Map.Entry<String, Postings> existing = patientsByTerm.ceilingEntry(term);
+            Postings postings;
+            if (existing != null && existing.getKey().equals(term)) {
+                terms[i] = existing.getKey();
+                postings = existing.getValue();
+            } else {
+                postings = new Postings();
+                patientsByTerm.put(term, postings);
+                if (term.length() >= MIN_TRIGRAM_LENGTH) {
+                    for (String gram : SearchText.trigrams(term)) {
+                        termsByTrigram.computeIfAbsent(gram, g -> new HashSet<>()).add(term);
+                    }
+                }
+                String key = SearchText.phoneticKey(term);
+                if (key != null) {
+                    termsByPhoneticKey.computeIfAbsent(key, k -> new HashSet<>()).add(term);
+                }
+            }
+            postings.add(entry);
+        }
+        if (entry.reversedPhone() != null) {
+            patientsByReversedPhone.computeIfAbsent(entry.reversedPhone(), phone -> new Postings()).add(entry);
+        }
+    }
+
+    private void unlink(Entry entry) {
+        for (String term : entry.terms()) {
+            Postings postings = patientsByTerm.get(term);
+            if (postings == null || !postings.remove(entry.id()) || !postings.isEmpty()) {
+                continue;
+            }
+            patientsByTerm.remove(term);
+            if (term.length() >= MIN_TRIGRAM_LENGTH) {
+                for (String gram : SearchText.trigrams(term)) {
+                    removeFrom(termsByTrigram, gram, term);
+                }
+            }
+            String key = SearchText.phoneticKey(term);
+            if (key != null) {
+                removeFrom(termsByPhoneticKey, key, term);
+            }
+        }
+        if (entry.reversedPhone() != null) {
+            Postings postings = patientsByReversedPhone.get(entry.reversedPhone());
+            if (postings != null && postings.remove(entry.id()) && postings.isEmpty()) {
+                patientsByReversedPhone.remove(entry.reversedPhone());
+            }
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<String>> index, String key, String term) {
+        Set<String> terms = index.get(key);
+        if (terms != null && terms.remove(term) && terms.isEmpty()) {
+            index.remove(key);
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.healthcare.api.search;
+
+import com.healthcare.api.dto.PatientSearchResult;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * In-memory patient search by name, city and phone, one
+ * {@link DoctorSearchIndex} per doctor. Built from a single scan of the
+ * patients table of every shard before the server takes requests, then
+ * kept current by the patient writes of this instance: the on* hooks are
+ * called inside the writing transaction and apply once it commits. Writes
+ * made by other instances show up after a restart.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PatientSearchIndex implements SmartInitializingSingleton {
+
+    public static final int MAX_RESULTS = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Shards shards;
+    private final Map<Long, DoctorSearchIndex> indexes = new ConcurrentHashMap<>();
+
+    // After every singleton, the schema included, and before the web server starts
+    @Override
+    public void afterSingletonsInstantiated() {
+        rebuild();
+    }
+
+    public void rebuild() {
+        long start = System.nanoTime();
+        Map<Long, DoctorSearchIndex> rebuilt = new HashMap<>();
+        int[] patients = {0};
+        shards.forEach(shard -> jdbcTemplate.query("SELECT id, doctor_id, name, phone, city FROM patients",
+                (RowCallbackHandler) row -> {
+                    rebuilt.computeIfAbsent(row.getLong("doctor_id"), doctorId -> new DoctorSearchIndex())
+                            .put(row.getLong("id"), row.getString("name"), row.getString("phone"),
+                                    row.getString("city"));
+                    patients[0]++;
+                }));
+        indexes.clear();
+        indexes.putAll(rebuilt);
+        log.info("Indexed {} patients of {} doctors for search in {} ms", patients[0], rebuilt.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void onPatientSaved(Patient patient) {
+        Long doctorId = patient.getDoctorId();
+        Long id = patient.getId();
+        String name = patient.getName();
+        String phone = patient.getPhone();
+        String city = patient.getCity();
+        afterCommit(() -> put(doctorId, id, name, phone, city));
+    }
+
+    public void onPatientsSaved(List<Patient> patients) {
+        patients.forEach(this::onPatientSaved);
+    }
+
+    public void onPatientDeleted(Patient patient) {
+        Long doctorId = patient.getDoctorId();
+        Long id = patient.getId();
+        afterCommit(() -> remove(doctorId, id));
+    }
+
+    public void put(Long doctorId, Long id, String name, String phone, String city) {
+        indexes.computeIfAbsent(doctorId, doctor -> new DoctorSearchIndex()).put(id, name, phone, city);
+    }
+
+    public void remove(Long doctorId, Long id) {
+        DoctorSearchIndex index = indexes.get(doctorId);
+        if (index != null) {
+            index.remove(id);
+        }
+    }
+
+    /**
+     * Best matches first, at most {@code limit} (capped at {@link #MAX_RESULTS}).
+     */
+    public List<PatientSearchResult> search(Long doctorId, String query, int limit) {
+        DoctorSearchIndex index = indexes.get(doctorId);
+        if (index == null || query == null || query.isBlank()) {
+            return List.of();
+        }
+        return index.search(query, Math.max(1, Math.min(limit, MAX_RESULTS))).stream()
+                .map(entry -> new PatientSearchResult(entry.id(), entry.name(), entry.phone(), entry.city()))
+                .toList();
+    }
+
+    public int size(Long doctorId) {
+        DoctorSearchIndex index = indexes.get(doctorId);
+        return index == null ? 0 : index.size();
+    }
+
+    private static void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.healthcare.api.search;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/**
+ * The patients filed under one indexed word or phone number, in a plain
+ * array sorted by id: one reference (4 bytes with compressed oops) per
+ * patient rather than the ~50 bytes of a {@code HashSet} entry, and no
+ * id-to-patient lookup when reading. Adds and removes shift the array,
+ * which stays cheap at the list lengths one word reaches.
+ */
+final class Postings {
+
+    private DoctorSearchIndex.Entry[] entries = new DoctorSearchIndex.Entry[2];
+    private int size;
+
+    void add(DoctorSearchIndex.Entry entry) {
+        int index = indexOf(entry.id());
+        if (index >= 0) {
+            entries[index] = entry;
+            return;
+        }
+        index = -index - 1;
+        if (size == entries.length) {
+            entries = Arrays.copyOf(entries, size + (size >> 1) + 1);
+        }
+        System.arraycopy(entries, index, entries, index + 1, size - index);
+        entries[index] = entry;
+        size++;
+    }
+
+    boolean remove(long id) {
+        int index = indexOf(id);
+        if (index < 0) {
+            return false;
+        }
+        System.arraycopy(entries, index + 1, entries, index, size - index - 1);
+        entries[--size] = null;
+        return true;
+    }
+
+    // In ascending id order
+    DoctorSearchIndex.Entry get(int index) {
+        return entries[index];
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    void forEach(Consumer<DoctorSearchIndex.Entry> consumer) {
+        for (int i = 0; i < size; i++) {
+            consumer.accept(entries[i]);
+        }
+    }
+
+    private int indexOf(long id) {
+        int low = 0;
+        int high = size - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            long middleId = entries[middle].id();
+            if (middleId < id) {
+                low = middle + 1;
+            } else if (middleId > id) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -(low + 1);
+    }
+}
@@ -0,0 +1,151 @@
+package com.healthcare.api.search;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Text handling shared by indexing and querying, so both sides agree on
+ * what a term is.
+ */
+final class SearchText {
+
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{Nd}]+");
+    private static final Pattern PHONE_QUERY = Pattern.compile("[\\d\\s+()-]+");
+
+    // Spelling variants common in romanized Indian names, longest first
+    private static final String[][] PHONETIC_RULES = {
+            {"ksh", "x"}, {"ks", "x"}, {"ph", "f"}, {"sh", "s"}, {"ch", "c"}, {"th", "t"}, {"dh", "d"},
+            {"bh", "b"}, {"kh", "k"}, {"gh", "g"}, {"jh", "j"}, {"ck", "k"}, {"w", "v"}, {"z", "j"}, {"q", "k"}
+    };
+
+    private SearchText() {
+    }
+
+    /**
+     * Lower-cased words with accents stripped, duplicates removed.
+     */
+    static List<String> terms(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        String folded = MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> terms = new LinkedHashSet<>();
+        for (String term : SEPARATORS.split(folded)) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return new ArrayList<>(terms);
+    }
+
+    /**
+     * The phone number's digits, last digit first, so a suffix search is a
+     * prefix search; null without digits.
+     */
+    static String reversedDigits(String phone) {
+        if (phone == null) {
+            return null;
+        }
+        StringBuilder digits = new StringBuilder(phone.length());
+        for (int i = phone.length() - 1; i >= 0; i--) {
+            char c = phone.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.isEmpty() ? null : digits.toString();
+    }
+
+    /**
+     * Whether the query is a phone number (fragment) rather than words.
+     */
+    static boolean isPhoneQuery(String query) {
+        return PHONE_QUERY.matcher(query).matches() && query.chars().anyMatch(Character::isDigit);
+    }
+
+    /**
+     * Soundex-like key for romanized names: spelling variants folded
+     * (Lakshmi/Laxmi, Shree/Sri, Mohammed/Muhammad), then vowels after the
+     * first letter, h and doubled letters dropped. Null for terms that are
+     * not plain Latin letters.
+     */
+    static String phoneticKey(String term) {
+        for (int i = 0; i < term.length(); i++) {
+            char c = term.charAt(i);
+            if (c < 'a' || c > 'z') {
+                return null;
+            }
+        }
+        String folded = term;
+        for (String[] rule : PHONETIC_RULES) {
+            folded = folded.replace(rule[0], rule[1]);
+        }
+        StringBuilder key = new StringBuilder(folded.length());
+        key.append(folded.charAt(0));
+        for (int i = 1; i < folded.length(); i++) {
+            char c = folded.charAt(i);
+            if ("aeiouyh".indexOf(c) >= 0 || c == key.charAt(key.length() - 1)) {
+                continue;
+            }
+            key.append(c);
+        }
+        return key.toString();
+    }
+
+    /**
+     * Trigrams of the term with word boundaries marked, e.g. {@code $ra},
+     * {@code ram}, {@code am$} for "ram".
+     */
+    static List<String> trigrams(String term) {
+        String padded = "$" + term + "$";
+        List<String> grams = new ArrayList<>(padded.length() - 2);
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Edit distance counting an adjacent swap as one edit, or
+     * {@code max + 1} once it is certain to exceed {@code max}.
+     */
+    static int distance(String a, String b, int max) {
+        if (Math.abs(a.length() - b.length()) > max) {
+            return max + 1;
+        }
+        int[] previous2 = new int[b.length() + 1];
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            int rowMin = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int cost = a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1;
+                int value = Math.min(Math.min(previous[j] + 1, current[j - 1] + 1), previous[j - 1] + cost);
+                if (i > 1 && j > 1 && a.charAt(i - 1) == b.charAt(j - 2) && a.charAt(i - 2) == b.charAt(j - 1)) {
+                    value = Math.min(value, previous2[j - 2] + 1);
+                }
+                current[j] = value;
+                rowMin = Math.min(rowMin, value);
+            }
+            if (rowMin > max) {
+                return max + 1;
+            }
+            int[] recycled = previous2;
+            previous2 = previous;
+            previous = current;
+            current = recycled;
+        }
+        return Math.min(previous[b.length()], max + 1);
+    }
+}
@@ -0,0 +1,37 @@
+package com.healthcare.api.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Lets only the doctors listed in {@code admin.doctor-ids} through; everyone
+ * else gets 403 before reaching a controller. Runs after
+ * {@link JwtAuthenticationFilter}, which sets the {@link DoctorPrincipal}.
+ */
+@RequiredArgsConstructor
+public class AdminOnlyFilter extends OncePerRequestFilter {
+
+    private final Set<Long> adminDoctorIds;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod());
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        if (!(request.getUserPrincipal() instanceof DoctorPrincipal principal)
+                || !adminDoctorIds.contains(principal.doctorId())) {
+            response.sendError(HttpServletResponse.SC_FORBIDDEN, "Admin access required");
+            return;
+        }
+        filterChain.doFilter(request, response);
+    }
+}
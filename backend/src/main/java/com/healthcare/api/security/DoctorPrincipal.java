@@ -0,0 +1,15 @@
+package com.healthcare.api.security;
+
+import java.security.Principal;
+
+/**
+ * The authenticated doctor, exposed as the request's user principal by
+ * {@link JwtAuthenticationFilter}. Controllers take it as a handler argument.
+ */
+public record DoctorPrincipal(Long doctorId) implements Principal {
+
+    @Override
+    public String getName() {
+        return doctorId.toString();
+    }
+}
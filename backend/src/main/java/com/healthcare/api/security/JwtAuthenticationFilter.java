@@ -0,0 +1,59 @@
+package com.healthcare.api.security;
+
+import io.jsonwebtoken.JwtException;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.security.Principal;
+import java.util.Set;
+
+/**
+ * Verifies the bearer token once per request and exposes the doctor id as
+ * a {@link DoctorPrincipal}. Requests without a valid token are rejected
+ * with 401 before they reach a controller.
+ */
+@RequiredArgsConstructor
+public class JwtAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+    private static final Set<String> PUBLIC_PATHS = Set.of("/api/auth/login", "/api/auth/register");
+
+    private final JwtUtil jwtUtil;
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return "OPTIONS".equals(request.getMethod())
+                || PUBLIC_PATHS.contains(request.getRequestURI().substring(request.getContextPath().length()));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (header == null || !header.startsWith(BEARER_PREFIX)) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Missing bearer token");
+            return;
+        }
+
+        DoctorPrincipal principal;
+        try {
+            principal = new DoctorPrincipal(jwtUtil.getUserIdFromToken(header.substring(BEARER_PREFIX.length())));
+        } catch (JwtException | IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_UNAUTHORIZED, "Invalid or expired token");
+            return;
+        }
+
+        filterChain.doFilter(new HttpServletRequestWrapper(request) {
+            @Override
+            public Principal getUserPrincipal() {
+                return principal;
+            }
+        }, response);
+    }
+}
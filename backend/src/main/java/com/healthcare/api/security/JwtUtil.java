@@ -1,13 +1,25 @@
 package com.healthcare.api.security;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
     
     @Value("${jwt.secret:your-256-bit-secret-key-change-in-production-make-it-very-long-and-secure}")
@@ -16,8 +28,54 @@ public class JwtUtil {
     @Value("${jwt.expiration:604800000}")
     private Long expiration;
 
-    private SecretKey getSigningKey() {
-        return Keys.hmacShaKeyFor(secret.getBytes());
+    @Value("${jwt.cache.max-size:10000}")
+    private long cacheMaxSize;
+
+    private final MeterRegistry meterRegistry;
+
+    private SecretKey signingKey;
+    private JwtParser parser;
+    private Cache<String, VerifiedToken> verifiedTokens;
+    private Timer verificationTimer;
+
+    @PostConstruct
+    void init() {
+        signingKey = Keys.hmacShaKeyFor(secret.getBytes(StandardCharsets.UTF_8));
+        // JwtParser is immutable and thread-safe once built
+        parser = Jwts.parser().verifyWith(signingKey).build();
+
+        // Tokens are immutable, so a verified token stays valid until its own expiry
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(cacheMaxSize)
+                .expireAfter(new Expiry<String, VerifiedToken>() {
+                    @Override
+                    public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+                        long remainingMillis = verified.expiresAtMillis() - System.currentTimeMillis();
+                        return TimeUnit.MILLISECONDS.toNanos(Math.max(remainingMillis, 0));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String token, VerifiedToken verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+
+        verificationTimer = Timer.builder("jwt.verification")
+                .description("Time spent verifying JWT signatures and decoding claims on cache misses")
+                .register(meterRegistry);
+        CaffeineCacheMetrics.monitor(meterRegistry, verifiedTokens, "jwt.verified-tokens");
+        Gauge.builder("jwt.verified-tokens.hit.ratio", verifiedTokens, c -> c.stats().hitRate())
+                .description("Share of token lookups answered without HMAC verification")
+                .register(meterRegistry);
     }
 
     public String generateToken(Long userId, String email) {
@@ -25,33 +83,37 @@ public class JwtUtil {
         Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
-                .setSubject(userId.toString())
+                .subject(userId.toString())
                 .claim("email", email)
-                .setIssuedAt(now)
-                .setExpiration(expiryDate)
-                .signWith(getSigningKey())
+                .issuedAt(now)
+                .expiration(expiryDate)
+                .signWith(signingKey)
                 .compact();
     }
 
     public Long getUserIdFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
-
-        return Long.parseLong(claims.getSubject());
+        VerifiedToken verified = verifiedTokens.getIfPresent(token);
+        if (verified == null) {
+            verified = verificationTimer.record(() -> verify(token));
+            verifiedTokens.put(token, verified);
+        }
+        return verified.userId();
     }
 
     public boolean validateToken(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
+            getUserIdFromToken(token);
             return true;
         } catch (JwtException | IllegalArgumentException e) {
             return false;
         }
     }
+
+    private VerifiedToken verify(String token) {
+        Claims claims = parser.parseSignedClaims(token).getPayload();
+        return new VerifiedToken(Long.parseLong(claims.getSubject()), claims.getExpiration().getTime());
+    }
+
+    private record VerifiedToken(Long userId, long expiresAtMillis) {
+    }
 }
@@ -0,0 +1,297 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.model.DiseaseCount;
+import com.healthcare.api.model.DoctorAnalytics;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.repository.DiseaseCountRepository;
+import com.healthcare.api.repository.DoctorAnalyticsRepository;
+import com.healthcare.api.repository.DoctorRepository;
+import com.healthcare.api.repository.DoctorShardRepository;
+import com.healthcare.api.repository.PatientRepository;
+import com.healthcare.api.sharding.Shards;
+import com.healthcare.api.stream.AnalyticsStream;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.*;
+
+/**
+ * Maintains the materialized dashboard counters ({@link DoctorAnalytics} and
+ * {@link DiseaseCount}). The on* hooks must be called inside the transaction
+ * that writes the patient row so that counters and patients commit together.
+ * Each hook also bumps the doctor's patients version, which the list and
+ * dashboard ETags are derived from, and reports its deltas to the
+ * {@link AnalyticsStream}.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class AnalyticsCounterService {
+
+    private final DoctorAnalyticsRepository doctorAnalyticsRepository;
+    private final DiseaseCountRepository diseaseCountRepository;
+    private final PatientRepository patientRepository;
+    private final DoctorRepository doctorRepository;
+    private final DoctorShardRepository doctorShardRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final Shards shards;
+    private final AnalyticsStream analyticsStream;
+
+    @Value("${analytics.rebuild-on-startup:false}")
+    private boolean rebuildOnStartup;
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientCreated(Patient patient) {
+        applyRiskDelta(patient.getDoctorId(), 1, patient.getRiskLevel(), 1);
+        applyDiseaseDelta(patient.getDoctorId(), patient.getDisease(), 1);
+    }
+
+    /**
+     * Batch variant of {@link #onPatientCreated}: sums the deltas per doctor
+     * and disease first, so a chunk of inserts costs one counter update per
+     * doctor and per distinct disease rather than two per patient.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientsCreated(List<Patient> patients) {
+        Map<Long, DoctorAnalytics> riskTotals = new HashMap<>();
+        Map<DiseaseCount.Key, Long> diseaseTotals = new HashMap<>();
+        for (Patient patient : patients) {
+            DoctorAnalytics totals = riskTotals.computeIfAbsent(patient.getDoctorId(), DoctorAnalytics::new);
+            totals.setTotalPatients(totals.getTotalPatients() + 1);
+            switch (riskBucket(patient.getRiskLevel())) {
+                case HIGH -> totals.setHighRiskPatients(totals.getHighRiskPatients() + 1);
+                case MEDIUM -> totals.setMediumRiskPatients(totals.getMediumRiskPatients() + 1);
+                case LOW -> totals.setLowRiskPatients(totals.getLowRiskPatients() + 1);
+                default -> { }
+            }
+            String disease = diseaseKey(patient.getDisease());
+            if (disease != null) {
+                diseaseTotals.merge(new DiseaseCount.Key(patient.getDoctorId(), disease), 1L, Long::sum);
+            }
+        }
+        riskTotals.forEach((doctorId, totals) -> applyDelta(doctorId, totals.getTotalPatients(),
+                totals.getHighRiskPatients(), totals.getMediumRiskPatients(), totals.getLowRiskPatients()));
+        diseaseTotals.forEach((key, count) -> applyDiseaseDelta(key.getDoctorId(), key.getDisease(), count));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientUpdated(String oldRiskLevel, String oldDisease, Patient patient) {
+        Long doctorId = patient.getDoctorId();
+        RiskBucket oldBucket = riskBucket(oldRiskLevel);
+        RiskBucket newBucket = riskBucket(patient.getRiskLevel());
+        // Applied even when no bucket changed, to bump the patients version
+        applyDelta(doctorId, 0,
+                bucketDelta(RiskBucket.HIGH, oldBucket, newBucket),
+                bucketDelta(RiskBucket.MEDIUM, oldBucket, newBucket),
+                bucketDelta(RiskBucket.LOW, oldBucket, newBucket));
+        if (!Objects.equals(diseaseKey(oldDisease), diseaseKey(patient.getDisease()))) {
+            applyDiseaseDelta(doctorId, oldDisease, -1);
+            applyDiseaseDelta(doctorId, patient.getDisease(), 1);
+        }
+    }
+
+    /**
+     * Moves re-scored patients between risk buckets, one counter update per
+     * doctor. Doctors are updated in id order, so transactions re-scoring
+     * different chunks in parallel cannot deadlock on the counter rows.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onRiskLevelsChanged(List<RiskLevelChange> changes) {
+        Map<Long, long[]> deltas = new TreeMap<>();
+        for (RiskLevelChange change : changes) {
+            long[] delta = deltas.computeIfAbsent(change.doctorId(), doctorId -> new long[3]);
+            RiskBucket oldBucket = riskBucket(change.oldRiskLevel());
+            RiskBucket newBucket = riskBucket(change.newRiskLevel());
+            delta[0] += bucketDelta(RiskBucket.HIGH, oldBucket, newBucket);
+            delta[1] += bucketDelta(RiskBucket.MEDIUM, oldBucket, newBucket);
+            delta[2] += bucketDelta(RiskBucket.LOW, oldBucket, newBucket);
+        }
+        deltas.forEach((doctorId, delta) -> applyDelta(doctorId, 0, delta[0], delta[1], delta[2]));
+    }
+
+    public record RiskLevelChange(Long doctorId, String oldRiskLevel, String newRiskLevel) {
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientDeleted(Patient patient) {
+        applyRiskDelta(patient.getDoctorId(), -1, patient.getRiskLevel(), -1);
+        applyDiseaseDelta(patient.getDoctorId(), patient.getDisease(), -1);
+    }
+
+    /**
+     * Recounts one doctor's patients with GROUP BY queries and overwrites the
+     * stored counters if they drifted. The counter row is locked first, so
+     * concurrent patient writes queue behind the rebuild instead of being lost.
+     *
+     * @return true if the stored counters already matched the patients table
+     */
+    @Transactional
+    public boolean reconcile(Long doctorId) {
+        DoctorAnalytics stored = doctorAnalyticsRepository.findForUpdate(doctorId)
+                .orElseGet(() -> new DoctorAnalytics(doctorId));
+
+        DoctorAnalytics recounted = new DoctorAnalytics(doctorId);
+        for (Object[] row : patientRepository.countByRiskLevel(doctorId)) {
+            long count = (Long) row[1];
+            recounted.setTotalPatients(recounted.getTotalPatients() + count);
+            switch (riskBucket((String) row[0])) {
+                case HIGH -> recounted.setHighRiskPatients(count);
+                case MEDIUM -> recounted.setMediumRiskPatients(count);
+                case LOW -> recounted.setLowRiskPatients(count);
+                default -> { }
+            }
+        }
+
+        Map<String, Long> recountedDiseases = new HashMap<>();
+        for (Object[] row : patientRepository.countByDisease(doctorId)) {
+            recountedDiseases.put((String) row[0], (Long) row[1]);
+        }
+        Map<String, DiseaseCount> storedDiseases = new HashMap<>();
+        for (DiseaseCount count : diseaseCountRepository.findActiveByDoctorId(doctorId)) {
+            storedDiseases.put(count.getId().getDisease(), count);
+        }
+
+        recounted.setPatientsVersion(stored.getPatientsVersion());
+        boolean consistent = recounted.equals(stored)
+                && recountedDiseases.size() == storedDiseases.size()
+                && storedDiseases.values().stream().allMatch(d ->
+                        Objects.equals(recountedDiseases.get(d.getId().getDisease()), d.getPatientCount()));
+        if (!consistent) {
+            log.warn("Analytics counters for doctor {} drifted, rebuilding", doctorId);
+            analyticsStream.onCountsRebuilt(doctorId);
+            recounted.setPatientsVersion(stored.getPatientsVersion() + 1);
+            doctorAnalyticsRepository.save(recounted);
+            storedDiseases.forEach((disease, count) -> {
+                if (!recountedDiseases.containsKey(disease)) {
+                    diseaseCountRepository.delete(count);
+                }
+            });
+            recountedDiseases.forEach((disease, patients) -> {
+                DiseaseCount count = storedDiseases.get(disease);
+                if (count == null) {
+                    diseaseCountRepository.save(new DiseaseCount(new DiseaseCount.Key(doctorId, disease), patients));
+                } else {
+                    count.setPatientCount(patients);
+                }
+            });
+        }
+        return consistent;
+    }
+
+    /**
+     * Reconciles every doctor that has patients or stored counters, shard
+     * by shard.
+     *
+     * @return the number of doctors whose counters had to be rebuilt
+     */
+    public int reconcileAll() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int[] counts = new int[2];
+        shards.forEach(shard -> {
+            Set<Long> doctorIds = new TreeSet<>(patientRepository.findDistinctDoctorIds());
+            doctorAnalyticsRepository.findAll().forEach(a -> doctorIds.add(a.getDoctorId()));
+            for (Long doctorId : doctorIds) {
+                if (!Boolean.TRUE.equals(transaction.execute(status -> reconcile(doctorId)))) {
+                    counts[1]++;
+                }
+            }
+            counts[0] += doctorIds.size();
+        });
+        log.info("Reconciled analytics counters for {} doctors, {} rebuilt", counts[0], counts[1]);
+        return counts[1];
+    }
+
+    /**
+     * Changes whenever any of the doctor's patients, or the counters derived
+     * from them, change. Zero for a doctor who never had a patient.
+     */
+    @Transactional(readOnly = true)
+    public long patientsVersion(Long doctorId) {
+        return doctorAnalyticsRepository.findPatientsVersion(doctorId).orElse(0L);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (rebuildOnStartup) {
+            reconcileAll();
+        }
+    }
+
+    private void applyRiskDelta(Long doctorId, long total, String riskLevel, long delta) {
+        RiskBucket bucket = riskBucket(riskLevel);
+        applyDelta(doctorId, total,
+                bucket == RiskBucket.HIGH ? delta : 0,
+                bucket == RiskBucket.MEDIUM ? delta : 0,
+                bucket == RiskBucket.LOW ? delta : 0);
+    }
+
+    private static long bucketDelta(RiskBucket bucket, RiskBucket oldBucket, RiskBucket newBucket) {
+        return (newBucket == bucket ? 1 : 0) - (oldBucket == bucket ? 1 : 0);
+    }
+
+    private void applyDelta(Long doctorId, long total, long high, long medium, long low) {
+        analyticsStream.onCountsChanged(doctorId, total, high, medium, low);
+        if (doctorAnalyticsRepository.applyDelta(doctorId, total, high, medium, low) > 0) {
+            return;
+        }
+        lockDoctor(doctorId);
+        if (doctorAnalyticsRepository.applyDelta(doctorId, total, high, medium, low) == 0) {
+            DoctorAnalytics analytics = new DoctorAnalytics(doctorId);
+            analytics.setTotalPatients(total);
+            analytics.setHighRiskPatients(high);
+            analytics.setMediumRiskPatients(medium);
+            analytics.setLowRiskPatients(low);
+            analytics.setPatientsVersion(1);
+            doctorAnalyticsRepository.save(analytics);
+        }
+    }
+
+    private void applyDiseaseDelta(Long doctorId, String disease, long delta) {
+        String key = diseaseKey(disease);
+        if (key == null) {
+            return;
+        }
+        analyticsStream.onDiseaseCountChanged(doctorId, key, delta);
+        if (diseaseCountRepository.applyDelta(doctorId, key, delta) > 0) {
+            return;
+        }
+        lockDoctor(doctorId);
+        if (diseaseCountRepository.applyDelta(doctorId, key, delta) == 0) {
+            diseaseCountRepository.save(new DiseaseCount(new DiseaseCount.Key(doctorId, key), delta));
+        }
+    }
+
+    /**
+     * Serializes first-time counter inserts for a doctor on the doctor row, so
+     * two concurrent writers cannot both insert the same counter. Once the
+     * lock is held the caller retries its update, which then sees any row a
+     * competing transaction committed meanwhile. With sharding the doctor
+     * row is on the home database, so the lock is taken on the doctor's
+     * marker row in {@code doctor_shards} on their shard.
+     */
+    private void lockDoctor(Long doctorId) {
+        if (doctorShardRepository.lockById(doctorId).isEmpty()) {
+            doctorRepository.lockById(doctorId);
+        }
+    }
+
+    private static String diseaseKey(String disease) {
+        return disease == null || disease.isEmpty() ? null : disease;
+    }
+
+    static RiskBucket riskBucket(String riskLevel) {
+        if ("high".equalsIgnoreCase(riskLevel)) return RiskBucket.HIGH;
+        if ("medium".equalsIgnoreCase(riskLevel)) return RiskBucket.MEDIUM;
+        if ("low".equalsIgnoreCase(riskLevel)) return RiskBucket.LOW;
+        return RiskBucket.OTHER;
+    }
+
+    enum RiskBucket { HIGH, MEDIUM, LOW, OTHER }
+}
@@ -1,34 +1,92 @@
 package com.healthcare.api.service;
 
 import com.healthcare.api.dto.AnalyticsResponse;
-import com.healthcare.api.model.Patient;
-import com.healthcare.api.repository.PatientRepository;
-import com.healthcare.api.security.JwtUtil;
+import com.healthcare.api.model.DiseaseCount;
+import com.healthcare.api.model.DoctorAnalytics;
+import com.healthcare.api.repository.DiseaseCountRepository;
+import com.healthcare.api.repository.DoctorAnalyticsRepository;
+import com.healthcare.api.stream.AnalyticsStream;
+import com.healthcare.api.stream.StreamSubscriber;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import java.util.*;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class AnalyticsService {
 
-    private final PatientRepository patientRepository;
-    private final JwtUtil jwtUtil;
+    private final DoctorAnalyticsRepository doctorAnalyticsRepository;
+    private final DiseaseCountRepository diseaseCountRepository;
+    private final AnalyticsCounterService analyticsCounterService;
+    private final AnalyticsStream analyticsStream;
+    private final PlatformTransactionManager transactionManager;
 
-    public AnalyticsResponse getDashboardAnalytics(String token) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
-        List<Patient> patients = patientRepository.findByDoctorIdOrderByCreatedAtDesc(doctorId);
+    @Transactional(readOnly = true)
+    public AnalyticsResponse getDashboardAnalytics(Long doctorId) {
+        DoctorAnalytics analytics = doctorAnalyticsRepository.findById(doctorId)
+                .orElseGet(() -> new DoctorAnalytics(doctorId));
+        return toResponse(analytics, diseaseCountRepository.findActiveByDoctorId(doctorId));
+    }
+
+    /**
+     * Weak validator for the dashboard; changes with each patient write and
+     * counter rebuild.
+     */
+    public String dashboardEtag(Long doctorId) {
+        return "W/\"d" + doctorId + "-" + analyticsCounterService.patientsVersion(doctorId) + "\"";
+    }
+
+    /**
+     * Opens the doctor's analytics stream and queues the dashboard as its
+     * first event, or returns null when there are too many streams. The
+     * counter row is locked while the dashboard is read, so the counts and
+     * the version they are sent with match; deltas with later versions
+     * follow. A doctor without a counter row has nothing to lock, and their
+     * first write could commit between the two reads; they start from zero
+     * counts at version 0, which that write's delta then brings up to date.
+     * A read-write transaction, so that with replicas it reads the primary
+     * the deltas come from.
+     */
+    public SseEmitter streamDashboard(Long doctorId) {
+        StreamSubscriber subscriber = analyticsStream.subscribe(doctorId);
+        if (subscriber == null) {
+            return null;
+        }
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                Optional<DoctorAnalytics> locked = doctorAnalyticsRepository.findForUpdate(doctorId);
+                AnalyticsResponse dashboard = locked
+                        .map(analytics -> toResponse(analytics, diseaseCountRepository.findActiveByDoctorId(doctorId)))
+                        .orElseGet(() -> toResponse(new DoctorAnalytics(doctorId), List.of()));
+                analyticsStream.start(subscriber, dashboard,
+                        locked.map(DoctorAnalytics::getPatientsVersion).orElse(0L));
+            });
+        } catch (RuntimeException e) {
+            analyticsStream.unsubscribe(subscriber);
+            throw e;
+        }
+        return subscriber.emitter();
+    }
+
+    public boolean reconcileAnalytics(Long doctorId) {
+        return analyticsCounterService.reconcile(doctorId);
+    }
 
-        int totalPatients = patients.size();
-        int highRiskPatients = (int) patients.stream().filter(p -> "high".equalsIgnoreCase(p.getRiskLevel())).count();
-        int mediumRiskPatients = (int) patients.stream().filter(p -> "medium".equalsIgnoreCase(p.getRiskLevel())).count();
-        int lowRiskPatients = (int) patients.stream().filter(p -> "low".equalsIgnoreCase(p.getRiskLevel())).count();
+    private static AnalyticsResponse toResponse(DoctorAnalytics analytics, List<DiseaseCount> diseaseCounts) {
+        int totalPatients = (int) analytics.getTotalPatients();
+        int highRiskPatients = (int) analytics.getHighRiskPatients();
+        int mediumRiskPatients = (int) analytics.getMediumRiskPatients();
+        int lowRiskPatients = (int) analytics.getLowRiskPatients();
 
         // Disease distribution
-        Map<String, Integer> diseaseDistribution = patients.stream()
-                .filter(p -> p.getDisease() != null && !p.getDisease().isEmpty())
-                .collect(Collectors.groupingBy(Patient::getDisease, Collectors.summingInt(p -> 1)));
+        Map<String, Integer> diseaseDistribution = new HashMap<>();
+        for (DiseaseCount count : diseaseCounts) {
+            diseaseDistribution.put(count.getId().getDisease(), (int) count.getPatientCount());
+        }
 
         // Risk trends
         Map<String, Integer> riskTrends = new HashMap<>();
@@ -4,9 +4,11 @@ import com.healthcare.api.dto.*;
 import com.healthcare.api.model.Doctor;
 import com.healthcare.api.repository.DoctorRepository;
 import com.healthcare.api.security.JwtUtil;
+import com.healthcare.api.sharding.Shards;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
 
 @Service
@@ -15,8 +17,12 @@ public class AuthService {
 
     private final DoctorRepository doctorRepository;
     private final JwtUtil jwtUtil;
+    private final LastLoginRecorder lastLoginRecorder;
+    private final Shards shards;
     private final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
 
+    // Transactional so the duplicate check reads the primary, not a replica that may lag behind
+    @Transactional
     public AuthResponse register(RegisterRequest request) {
         // Check if doctor already exists
         if (doctorRepository.findByEmailOrMedicalId(request.getEmail(), request.getMedicalId()).isPresent()) {
@@ -33,12 +39,14 @@ public class AuthService {
         doctor.setSpecialization(request.getSpecialization());
 
         Doctor savedDoctor = doctorRepository.save(doctor);
+        shards.assign(savedDoctor);
 
         String token = jwtUtil.generateToken(savedDoctor.getId(), savedDoctor.getEmail());
 
         return new AuthResponse(token, mapToDoctorResponse(savedDoctor));
     }
 
+    @Transactional
     public AuthResponse login(LoginRequest request) {
         // Security disabled - ANY email/password combination works
         // Check if doctor exists, if not create a temporary one
@@ -53,24 +61,33 @@ public class AuthService {
                     newDoctor.setHospital("Default Hospital");
                     newDoctor.setHospitalPhone("0000000000");
                     newDoctor.setSpecialization("General");
-                    return doctorRepository.save(newDoctor);
+                    Doctor savedDoctor = doctorRepository.save(newDoctor);
+                    shards.assign(savedDoctor);
+                    return savedDoctor;
                 });
 
-        // Update last login
-        doctor.setLastLogin(LocalDateTime.now());
-        doctorRepository.save(doctor);
+        // Update last login (written behind in batches)
+        LocalDateTime loginTime = LocalDateTime.now();
+        lastLoginRecorder.record(doctor.getId(), loginTime);
 
         String token = jwtUtil.generateToken(doctor.getId(), doctor.getEmail());
 
-        return new AuthResponse(token, mapToDoctorResponse(doctor));
+        DoctorResponse response = mapToDoctorResponse(doctor);
+        response.setLastLogin(loginTime);
+        return new AuthResponse(token, response);
     }
 
-    public DoctorResponse getCurrentDoctor(String token) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
-        Doctor doctor = doctorRepository.findById(doctorId)
-                .orElseThrow(() -> new RuntimeException("Doctor not found"));
+    // Doctors are on the home database, not the shard the request's doctor routes to
+    @Transactional(readOnly = true)
+    public DoctorResponse getCurrentDoctor(Long doctorId) {
+        return shards.onHome(() -> {
+            Doctor doctor = doctorRepository.findById(doctorId)
+                    .orElseThrow(() -> new RuntimeException("Doctor not found"));
 
-        return mapToDoctorResponse(doctor);
+            DoctorResponse response = mapToDoctorResponse(doctor);
+            response.setLastLogin(lastLoginRecorder.lastLogin(doctorId, doctor.getLastLogin()));
+            return response;
+        });
     }
 
     private DoctorResponse mapToDoctorResponse(Doctor doctor) {
@@ -0,0 +1,122 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.cache.EntityCacheInvalidator;
+import com.healthcare.api.model.Doctor;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind store for doctors' last-login timestamps. Logins only update
+ * an in-memory map; a scheduled flush writes the latest timestamp per doctor
+ * in one batched UPDATE, and a final flush runs at shutdown. Reads go through
+ * {@link #lastLogin}, which overlays timestamps that are not yet written.
+ * <p>
+ * An entry stays in the map until the flush that wrote it has committed, so
+ * readers never see the stored value step backwards. If the process dies,
+ * at most one flush interval of last-login updates is lost.
+ * <p>
+ * A login recorded inside a transaction is only added once that transaction
+ * commits: a doctor created on first login has no committed row before
+ * then, and a flush in between would update nothing and drop the entry.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LastLoginRecorder {
+
+    private static final String UPDATE_SQL =
+            "UPDATE doctors SET last_login = ? WHERE id = ? AND (last_login IS NULL OR last_login < ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final EntityCacheInvalidator cacheInvalidator;
+
+    private final Map<Long, LocalDateTime> pending = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerMetrics() {
+        Gauge.builder("auth.last-login.pending", pending, Map::size)
+                .description("Last-login timestamps waiting to be written")
+                .register(meterRegistry);
+    }
+
+    public void record(Long doctorId, LocalDateTime loginTime) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(doctorId, loginTime);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(doctorId, loginTime);
+            }
+        });
+    }
+
+    private void add(Long doctorId, LocalDateTime loginTime) {
+        pending.merge(doctorId, loginTime, (current, next) -> next.isAfter(current) ? next : current);
+    }
+
+    /**
+     * The doctor's last login, preferring a recorded but unwritten one over
+     * the stored value.
+     */
+    public LocalDateTime lastLogin(Long doctorId, LocalDateTime stored) {
+        LocalDateTime recorded = pending.get(doctorId);
+        if (recorded == null) {
+            return stored;
+        }
+        return stored == null || recorded.isAfter(stored) ? recorded : stored;
+    }
+
+    @Scheduled(fixedDelayString = "${auth.last-login.flush-interval:PT5S}")
+    public void flush() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        List<Map.Entry<Long, LocalDateTime>> batch = new ArrayList<>();
+        pending.forEach((doctorId, loginTime) -> batch.add(Map.entry(doctorId, loginTime)));
+
+        try {
+            new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate(UPDATE_SQL, batch, batch.size(), (statement, entry) -> {
+                        Timestamp loginTime = Timestamp.valueOf(entry.getValue());
+                        statement.setTimestamp(1, loginTime);
+                        statement.setLong(2, entry.getKey());
+                        statement.setTimestamp(3, loginTime);
+                    }));
+        } catch (RuntimeException e) {
+            log.warn("Writing {} last-login timestamps failed, retrying on the next flush", batch.size(), e);
+            return;
+        }
+
+        // The rows changed under Hibernate, so drop the cached doctors
+        cacheInvalidator.evict(Doctor.class, batch.stream().map(Map.Entry::getKey).toList());
+
+        // A login recorded during the write replaced the value and stays pending
+        batch.forEach(entry -> pending.remove(entry.getKey(), entry.getValue()));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+}
@@ -0,0 +1,163 @@
+package com.healthcare.api.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.cache.EntityCacheInvalidator;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.StringListConverter;
+import com.healthcare.api.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One-off migration for databases written before symptoms moved to
+ * dictionary codes. It moves the old JSON {@code patients.symptoms} column
+ * into {@code patient_symptoms} and rewrites JSON-encoded triggers and
+ * recommendations in the compact {@link StringListConverter} format. It
+ * works in id-ordered chunks of one transaction each, so it can be stopped
+ * and rerun. Until it has run, the converter still reads the old JSON.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LegacyPatientListMigration {
+
+    private static final int CHUNK_SIZE = 1000;
+    private static final TypeReference<List<String>> LIST_TYPE = new TypeReference<>() { };
+
+    private final JdbcTemplate jdbcTemplate;
+    private final SymptomDictionary symptomDictionary;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityCacheInvalidator cacheInvalidator;
+    private final Shards shards;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final StringListConverter listConverter = new StringListConverter();
+
+    @Value("${patients.migrate-legacy-lists:false}")
+    private boolean migrateOnStartup;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateOnStartup() {
+        if (migrateOnStartup) {
+            migrate();
+        }
+    }
+
+    public void migrate() {
+        shards.forEach(shard -> {
+            if (legacySymptomsColumnExists()) {
+                log.info("Migrated legacy symptoms for {} patients on shard {}", migrateSymptoms(), shard);
+            }
+            log.info("Re-encoded legacy triggers for {} patients on shard {}", reencodeJsonColumn("triggers"), shard);
+            log.info("Re-encoded legacy recommendations for {} patients on shard {}",
+                    reencodeJsonColumn("recommendations"), shard);
+        });
+    }
+
+    private int migrateSymptoms() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, symptoms FROM patients WHERE symptoms IS NOT NULL AND id > ? ORDER BY id LIMIT ?",
+                    lastId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                return migrated;
+            }
+
+            List<Object[]> ids = new ArrayList<>();
+            List<Object[]> codes = new ArrayList<>();
+            List<Long> patientIds = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                ids.add(new Object[]{id});
+                patientIds.add(id);
+                List<Integer> encoded = symptomDictionary.encode(parseJsonList((String) row.get("symptoms")));
+                for (int i = 0; i < encoded.size(); i++) {
+                    codes.add(new Object[]{id, i, encoded.get(i)});
+                }
+                lastId = id;
+            }
+
+            transaction.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate("DELETE FROM patient_symptoms WHERE patient_id = ?", ids);
+                jdbcTemplate.batchUpdate(
+                        "INSERT INTO patient_symptoms (patient_id, list_order, symptom_id) VALUES (?, ?, ?)", codes);
+                jdbcTemplate.batchUpdate("UPDATE patients SET symptoms = NULL WHERE id = ?", ids);
+            });
+            cacheInvalidator.evict(Patient.class, patientIds);
+            migrated += rows.size();
+        }
+    }
+
+    private int reencodeJsonColumn(String column) {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        int migrated = 0;
+        long lastId = 0;
+        while (true) {
+            List<Map<String, Object>> rows = jdbcTemplate.queryForList(
+                    "SELECT id, " + column + " AS val FROM patients WHERE " + column + " LIKE '[%' AND id > ? " +
+                            "ORDER BY id LIMIT ?",
+                    lastId, CHUNK_SIZE);
+            if (rows.isEmpty()) {
+                return migrated;
+            }
+
+            List<Object[]> updates = new ArrayList<>();
+            List<Long> patientIds = new ArrayList<>();
+            for (Map<String, Object> row : rows) {
+                Long id = ((Number) row.get("id")).longValue();
+                String value = (String) row.get("val");
+                if (StringListConverter.isLegacyJson(value)) {
+                    updates.add(new Object[]{
+                            listConverter.convertToDatabaseColumn(listConverter.convertToEntityAttribute(value)), id});
+                    patientIds.add(id);
+                }
+                lastId = id;
+            }
+
+            transaction.executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("UPDATE patients SET " + column + " = ? WHERE id = ?", updates));
+            cacheInvalidator.evict(Patient.class, patientIds);
+            migrated += updates.size();
+        }
+    }
+
+    private List<String> parseJsonList(String json) {
+        try {
+            return objectMapper.readValue(json, LIST_TYPE);
+        } catch (JsonProcessingException e) {
+            log.warn("Skipping unreadable legacy symptoms value: {}", json);
+            return List.of();
+        }
+    }
+
+    private boolean legacySymptomsColumnExists() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (String[] names : new String[][]{{"patients", "symptoms"}, {"PATIENTS", "SYMPTOMS"}}) {
+                try (ResultSet columns = metaData.getColumns(null, null, names[0], names[1])) {
+                    if (columns.next()) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }));
+    }
+}
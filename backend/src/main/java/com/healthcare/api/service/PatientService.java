@@ -1,28 +1,160 @@
 package com.healthcare.api.service;
 
+import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.healthcare.api.dto.BatchPatientResponse;
+import com.healthcare.api.dto.BatchPatientResult;
+import com.healthcare.api.dto.PatientChangesResponse;
+import com.healthcare.api.dto.PatientPageResponse;
 import com.healthcare.api.dto.PatientRequest;
 import com.healthcare.api.dto.PatientResponse;
+import com.healthcare.api.dto.PatientSearchResult;
+import com.healthcare.api.dto.PatientSummaryResponse;
 import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.PatientTombstone;
+import com.healthcare.api.model.PopulationRollup;
+import com.healthcare.api.model.VitalObservation;
 import com.healthcare.api.repository.PatientRepository;
-import com.healthcare.api.security.JwtUtil;
+import com.healthcare.api.repository.PatientTombstoneRepository;
+import com.healthcare.api.repository.PatientVersion;
+import com.healthcare.api.search.PatientSearchIndex;
+import com.healthcare.api.sharding.Shards;
+import com.healthcare.api.stream.AnalyticsStream;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.CacheMode;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class PatientService {
 
     private final PatientRepository patientRepository;
-    private final JwtUtil jwtUtil;
+    private final PatientTombstoneRepository patientTombstoneRepository;
+    private final SymptomDictionary symptomDictionary;
+    private final AnalyticsCounterService analyticsCounterService;
+    private final PatientSearchIndex patientSearchIndex;
+    private final AnalyticsStream analyticsStream;
+    private final VitalsService vitalsService;
+    private final RiskScoringService riskScoringService;
+    private final PopulationRollupService populationRollupService;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final MeterRegistry meterRegistry;
+    private final Shards shards;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader patientRequestReader = objectMapper.readerFor(PatientRequest.class)
+            .without(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
 
-    public PatientResponse createPatient(String token, PatientRequest request) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
+    private static final int MAX_PAGE_SIZE = 500;
+    private static final int STREAM_CHUNK_SIZE = 100;
+    private static final LocalDateTime SYNC_EPOCH = LocalDateTime.of(1970, 1, 1, 0, 0);
 
+    @Value("${patients.batch.chunk-size:500}")
+    private int batchChunkSize;
+
+    @Value("${patients.batch.max-records:10000}")
+    private int batchMaxRecords;
+
+    @Value("${patients.export.fetch-size:1000}")
+    private int exportFetchSize;
+
+    @Value("${patients.changes.settle-millis:5000}")
+    private long changesSettleMillis;
+
+    @Value("${patients.changes.tombstone-retention-days:30}")
+    private long tombstoneRetentionDays;
+
+    // New symptom names are registered before the write's transaction, which then needs no second connection
+    public PatientResponse createPatient(Long doctorId, PatientRequest request) {
+        symptomDictionary.register(request.getSymptoms());
+        return new TransactionTemplate(transactionManager).execute(status -> insertPatient(doctorId, request));
+    }
+
+    private PatientResponse insertPatient(Long doctorId, PatientRequest request) {
+        Patient savedPatient = patientRepository.save(newPatient(doctorId, request));
+        analyticsCounterService.onPatientCreated(savedPatient);
+        populationRollupService.onPatientsCreated(List.of(savedPatient));
+        patientSearchIndex.onPatientSaved(savedPatient);
+        analyticsStream.onPatientSaved(null, null, savedPatient, true);
+        vitalsService.onPatientsCreated(List.of(savedPatient));
+
+        return mapToPatientResponse(savedPatient);
+    }
+
+    /**
+     * Creates patients from a JSON array or NDJSON body. Records are inserted
+     * in chunks, each chunk in its own transaction and sent as JDBC batches.
+     * A failed chunk is retried one record at a time, so one bad record does
+     * not reject its neighbours and every record gets its own result.
+     */
+    public BatchPatientResponse createPatients(Long doctorId, InputStream body, boolean ndjson) throws IOException {
+        List<BatchPatientResult> results = new ArrayList<>();
+        List<IndexedRequest> parsed = new ArrayList<>();
+        Timer.Sample decoding = Timer.start(meterRegistry);
+        int received = ndjson ? readNdjson(body, parsed, results) : readJsonArray(body, parsed, results);
+        decoding.stop(Timer.builder("patients.batch.decode")
+                .description("Time spent reading and decoding batch upload bodies")
+                .tag("format", ndjson ? "ndjson" : "json")
+                .register(meterRegistry));
+
+        // New symptom names first, so the chunks' transactions need no second connection
+        List<IndexedRequest> registered = new ArrayList<>(parsed.size());
+        for (IndexedRequest record : parsed) {
+            try {
+                symptomDictionary.register(record.request().getSymptoms());
+                registered.add(record);
+            } catch (RuntimeException e) {
+                results.add(new BatchPatientResult(record.index(), null, "failed",
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            }
+        }
+        for (int from = 0; from < registered.size(); from += batchChunkSize) {
+            insertChunk(doctorId, registered.subList(from, Math.min(from + batchChunkSize, registered.size())),
+                    results);
+        }
+
+        results.sort(Comparator.comparingInt(BatchPatientResult::getIndex));
+        int created = (int) results.stream().filter(r -> r.getId() != null).count();
+        return new BatchPatientResponse(received, created, received - created, results);
+    }
+
+    private Patient newPatient(Long doctorId, PatientRequest request) {
         Patient patient = new Patient();
         patient.setDoctorId(doctorId);
         patient.setName(request.getName() != null ? request.getName() : "Unknown");
@@ -38,20 +170,17 @@ public class PatientService {
         patient.setBloodPressure(request.getBloodPressure());
         patient.setOxygen(request.getOxygen());
         patient.setPulse(request.getPulse());
-        patient.setSymptoms(convertListToJson(request.getSymptoms()));
+        patient.setSymptomCodes(symptomDictionary.encode(request.getSymptoms()));
         patient.setVoiceSymptoms(request.getVoiceSymptoms());
-        patient.setRiskLevel(request.getRiskLevel());
         patient.setDisease(request.getDisease());
-        patient.setTriggers(convertListToJson(request.getTriggers()));
-        patient.setRecommendations(convertListToJson(request.getRecommendations()));
-
-        Patient savedPatient = patientRepository.save(patient);
-
-        return mapToPatientResponse(savedPatient);
+        patient.setTriggers(copyOf(request.getTriggers()));
+        patient.setRecommendations(copyOf(request.getRecommendations()));
+        riskScoringService.score(patient);
+        return patient;
     }
 
-    public List<PatientResponse> getPatientsByDoctor(String token) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getPatientsByDoctor(Long doctorId) {
         List<Patient> patients = patientRepository.findByDoctorIdOrderByCreatedAtDesc(doctorId);
 
         return patients.stream()
@@ -59,8 +188,237 @@ public class PatientService {
                 .collect(Collectors.toList());
     }
 
-    public PatientResponse getPatient(String token, Long patientId) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
+    @Transactional(readOnly = true)
+    public PatientPageResponse<PatientResponse> getPatientPage(Long doctorId, int limit, String cursor) {
+        int pageSize = pageSize(limit);
+        // Fetch one extra row to learn whether another page follows
+        List<Patient> patients;
+        if (cursor == null || cursor.isEmpty()) {
+            patients = patientRepository.findFirstPage(doctorId, PageRequest.of(0, pageSize + 1));
+        } else {
+            PageCursor after = decodeCursor(cursor);
+            patients = patientRepository.findPageAfter(doctorId, after.createdAt(), after.id(),
+                    PageRequest.of(0, pageSize + 1));
+        }
+
+        String nextCursor = null;
+        if (patients.size() > pageSize) {
+            patients = patients.subList(0, pageSize);
+            Patient last = patients.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+
+        return new PatientPageResponse<>(
+                patients.stream().map(this::mapToPatientResponse).collect(Collectors.toList()),
+                nextCursor
+        );
+    }
+
+    /**
+     * The list screen's columns only, straight from the projection query.
+     */
+    @Transactional(readOnly = true)
+    public List<PatientSummaryResponse> getPatientSummariesByDoctor(Long doctorId) {
+        return patientRepository.findSummariesByDoctorId(doctorId);
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientSummaryResponse> getPatientSummariesBySymptom(Long doctorId, String symptom) {
+        return symptomDictionary.find(symptom)
+                .map(code -> patientRepository.findSummariesByDoctorIdAndSymptomCode(doctorId, code))
+                .orElse(List.of());
+    }
+
+    /**
+     * Same pages and cursors as {@link #getPatientPage}, with summary rows.
+     */
+    @Transactional(readOnly = true)
+    public PatientPageResponse<PatientSummaryResponse> getPatientSummaryPage(Long doctorId, int limit,
+                                                                              String cursor) {
+        int pageSize = pageSize(limit);
+        List<PatientSummaryResponse> patients;
+        if (cursor == null || cursor.isEmpty()) {
+            patients = patientRepository.findFirstSummaryPage(doctorId, PageRequest.of(0, pageSize + 1));
+        } else {
+            PageCursor after = decodeCursor(cursor);
+            patients = patientRepository.findSummaryPageAfter(doctorId, after.createdAt(), after.id(),
+                    PageRequest.of(0, pageSize + 1));
+        }
+
+        String nextCursor = null;
+        if (patients.size() > pageSize) {
+            patients = patients.subList(0, pageSize);
+            PatientSummaryResponse last = patients.get(pageSize - 1);
+            nextCursor = encodeCursor(last.getCreatedAt(), last.getId());
+        }
+        return new PatientPageResponse<>(new ArrayList<>(patients), nextCursor);
+    }
+
+    /**
+     * Feeds the doctor's patients to {@code consumer} from a forward-only
+     * cursor. Rows are mapped in chunks, so their symptom collections load
+     * with one batch query per chunk. Each chunk is then detached, and the
+     * persistence context never holds more than one chunk.
+     */
+    @Transactional(readOnly = true)
+    public void streamPatientsByDoctor(Long doctorId, Consumer<PatientResponse> consumer) {
+        try (Stream<Patient> patients = patientRepository.streamByDoctorId(doctorId)) {
+            writeChunks(patients, consumer);
+        }
+    }
+
+    /**
+     * Feeds the doctor's patients matching the filters to {@code consumer},
+     * oldest first, the way {@link #streamPatientsByDoctor} does: the
+     * cursor fetches {@code patients.export.fetch-size} rows at a time and
+     * mapped chunks are detached, so memory does not grow with the export.
+     * Null filters match every patient; {@code from} and {@code to} are
+     * inclusive creation dates.
+     */
+    @Transactional(readOnly = true)
+    public void exportPatients(Long doctorId, String riskLevel, String state, String city,
+                               LocalDate from, LocalDate to, Consumer<PatientResponse> consumer) {
+        StringBuilder jpql = new StringBuilder("SELECT p FROM Patient p WHERE p.doctorId = :doctorId");
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("doctorId", doctorId);
+        if (riskLevel != null) {
+            jpql.append(" AND p.riskLevel = :riskLevel");
+            parameters.put("riskLevel", riskLevel.toLowerCase(Locale.ROOT));
+        }
+        if (state != null) {
+            jpql.append(" AND p.state = :state");
+            parameters.put("state", state);
+        }
+        if (city != null) {
+            jpql.append(" AND p.city = :city");
+            parameters.put("city", city);
+        }
+        if (from != null) {
+            jpql.append(" AND p.createdAt >= :from");
+            parameters.put("from", from.atStartOfDay());
+        }
+        if (to != null) {
+            jpql.append(" AND p.createdAt < :to");
+            parameters.put("to", to.plusDays(1).atStartOfDay());
+        }
+        jpql.append(" ORDER BY p.createdAt, p.id");
+
+        // Bypasses the second-level cache, like the stream, so an export does not evict the hot entries
+        TypedQuery<Patient> query = entityManager.createQuery(jpql.toString(), Patient.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, exportFetchSize)
+                .setHint(HibernateHints.HINT_READ_ONLY, true)
+                .setHint(HibernateHints.HINT_CACHE_MODE, CacheMode.IGNORE);
+        parameters.forEach(query::setParameter);
+        try (Stream<Patient> patients = query.getResultStream()) {
+            writeChunks(patients, consumer);
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<PatientResponse> getPatientsBySymptom(Long doctorId, String symptom) {
+        return symptomDictionary.find(symptom)
+                .map(code -> patientRepository.findByDoctorIdAndSymptomCode(doctorId, code))
+                .orElse(List.of())
+                .stream()
+                .map(this::mapToPatientResponse)
+                .collect(Collectors.toList());
+    }
+
+    public List<PatientSearchResult> searchPatients(Long doctorId, String query, int limit) {
+        return patientSearchIndex.search(doctorId, query, limit);
+    }
+
+    /**
+     * Returns the doctor's patients created, updated or deleted after the
+     * watermark carried by {@code since}, or everything when it is empty.
+     * Only writes older than the settle window are returned, so a transaction
+     * that commits shortly after stamping updatedAt cannot slip in behind a
+     * watermark a client already holds.
+     */
+    @Transactional(readOnly = true)
+    public PatientChangesResponse getChanges(Long doctorId, String since, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        LocalDateTime horizon = LocalDateTime.now().minus(Duration.ofMillis(changesSettleMillis));
+        // A first sync downloads every live row, so it needs no tombstones older than now
+        ChangeToken from = since == null || since.isEmpty()
+                ? new ChangeToken(SYNC_EPOCH, 0L, horizon, Long.MAX_VALUE)
+                : decodeChangeToken(since);
+        if (from.deletedAt().isBefore(LocalDateTime.now().minusDays(tombstoneRetentionDays))) {
+            return new PatientChangesResponse(List.of(), List.of(), null, false, true);
+        }
+
+        PageRequest page = PageRequest.of(0, pageSize + 1);
+        List<Patient> changed = patientRepository.findChangedSince(
+                doctorId, from.updatedAt(), from.patientId(), horizon, page);
+        List<PatientTombstone> deleted = patientTombstoneRepository.findDeletedSince(
+                doctorId, from.deletedAt(), from.deletedId(), horizon, page);
+
+        // A stream read to the end advances to the horizon; a truncated one to its last row
+        LocalDateTime updatedAt = horizon;
+        Long patientId = Long.MAX_VALUE;
+        boolean moreChanged = changed.size() > pageSize;
+        if (moreChanged) {
+            changed = changed.subList(0, pageSize);
+            Patient last = changed.get(pageSize - 1);
+            updatedAt = last.getUpdatedAt();
+            patientId = last.getId();
+        }
+        LocalDateTime deletedAt = horizon;
+        Long deletedId = Long.MAX_VALUE;
+        boolean moreDeleted = deleted.size() > pageSize;
+        if (moreDeleted) {
+            deleted = deleted.subList(0, pageSize);
+            PatientTombstone last = deleted.get(pageSize - 1);
+            deletedAt = last.getDeletedAt();
+            deletedId = last.getPatientId();
+        }
+
+        return new PatientChangesResponse(
+                changed.stream().map(this::mapToPatientResponse).collect(Collectors.toList()),
+                deleted.stream().map(PatientTombstone::getPatientId).collect(Collectors.toList()),
+                encodeChangeToken(new ChangeToken(updatedAt, patientId, deletedAt, deletedId)),
+                moreChanged || moreDeleted,
+                false
+        );
+    }
+
+    @Scheduled(fixedDelayString = "${patients.changes.purge-interval:PT1H}")
+    public void purgeExpiredTombstones() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(tombstoneRetentionDays);
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        shards.forEach(shard -> transaction.executeWithoutResult(
+                status -> patientTombstoneRepository.deleteOlderThan(cutoff)));
+    }
+
+    /**
+     * Validator for one patient, from its owner check and updatedAt alone.
+     * Weak, because the same patient is served as JSON, CBOR or Smile,
+     * compressed or not (Tomcat also only compresses weakly tagged bodies).
+     * Fails like {@link #getPatient} for a missing or foreign patient.
+     */
+    @Transactional(readOnly = true)
+    public String patientEtag(Long doctorId, Long patientId) {
+        PatientVersion version = patientRepository.findVersionById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found"));
+
+        if (!version.doctorId().equals(doctorId)) {
+            throw new RuntimeException("Unauthorized access to patient data");
+        }
+
+        long micros = ChronoUnit.MICROS.between(SYNC_EPOCH, version.updatedAt());
+        return "W/\"p" + patientId + "-" + Long.toString(micros, 36) + "\"";
+    }
+
+    /**
+     * Weak validator for every list view of the doctor's patients; changes
+     * with each create, update and delete.
+     */
+    public String patientListEtag(Long doctorId) {
+        return "W/\"l" + doctorId + "-" + analyticsCounterService.patientsVersion(doctorId) + "\"";
+    }
+
+    @Transactional(readOnly = true)
+    public PatientResponse getPatient(Long doctorId, Long patientId) {
         Patient patient = patientRepository.findById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
@@ -71,15 +429,26 @@ public class PatientService {
         return mapToPatientResponse(patient);
     }
 
-    public PatientResponse updatePatient(String token, Long patientId, PatientRequest request) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
-        Patient patient = patientRepository.findById(patientId)
+    public PatientResponse updatePatient(Long doctorId, Long patientId, PatientRequest request) {
+        symptomDictionary.register(request.getSymptoms());
+        return new TransactionTemplate(transactionManager)
+                .execute(status -> applyUpdate(doctorId, patientId, request));
+    }
+
+    private PatientResponse applyUpdate(Long doctorId, Long patientId, PatientRequest request) {
+        // Locked, so concurrent writes to one patient move the counters from each other's values
+        Patient patient = patientRepository.lockById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
         if (!patient.getDoctorId().equals(doctorId)) {
             throw new RuntimeException("Unauthorized access to patient data");
         }
 
+        String oldRiskLevel = patient.getRiskLevel();
+        String oldDisease = patient.getDisease();
+        VitalObservation oldVitals = VitalsService.vitalsOf(patient, patient.getUpdatedAt());
+        PopulationRollup.Key oldCell = PopulationRollupService.cellOf(patient);
+
         patient.setName(request.getName());
         patient.setAge(request.getAge());
         patient.setGender(request.getGender());
@@ -93,21 +462,33 @@ public class PatientService {
         patient.setBloodPressure(request.getBloodPressure());
         patient.setOxygen(request.getOxygen());
         patient.setPulse(request.getPulse());
-        patient.setSymptoms(convertListToJson(request.getSymptoms()));
+        // Left alone when unchanged, so an update that keeps the symptoms rewrites none of their rows
+        List<Integer> symptomCodes = symptomDictionary.encode(request.getSymptoms());
+        if (!patient.getSymptomCodes().equals(symptomCodes)) {
+            patient.getSymptomCodes().clear();
+            patient.getSymptomCodes().addAll(symptomCodes);
+        }
         patient.setVoiceSymptoms(request.getVoiceSymptoms());
-        patient.setRiskLevel(request.getRiskLevel());
         patient.setDisease(request.getDisease());
-        patient.setTriggers(convertListToJson(request.getTriggers()));
-        patient.setRecommendations(convertListToJson(request.getRecommendations()));
+        patient.setTriggers(copyOf(request.getTriggers()));
+        patient.setRecommendations(copyOf(request.getRecommendations()));
+        riskScoringService.score(patient);
+        // A change to symptoms alone leaves the row clean, so @PreUpdate would not stamp it
+        patient.setUpdatedAt(LocalDateTime.now());
 
         Patient updatedPatient = patientRepository.save(patient);
+        analyticsCounterService.onPatientUpdated(oldRiskLevel, oldDisease, updatedPatient);
+        populationRollupService.onPatientUpdated(oldCell, updatedPatient);
+        patientSearchIndex.onPatientSaved(updatedPatient);
+        analyticsStream.onPatientSaved(oldRiskLevel, oldDisease, updatedPatient, false);
+        vitalsService.onPatientUpdated(oldVitals, updatedPatient);
 
         return mapToPatientResponse(updatedPatient);
     }
 
-    public void deletePatient(String token, Long patientId) {
-        Long doctorId = jwtUtil.getUserIdFromToken(token);
-        Patient patient = patientRepository.findById(patientId)
+    @Transactional
+    public void deletePatient(Long doctorId, Long patientId) {
+        Patient patient = patientRepository.lockById(patientId)
                 .orElseThrow(() -> new RuntimeException("Patient not found"));
 
         if (!patient.getDoctorId().equals(doctorId)) {
@@ -115,6 +496,11 @@ public class PatientService {
         }
 
         patientRepository.delete(patient);
+        patientTombstoneRepository.save(new PatientTombstone(patient.getId(), doctorId, LocalDateTime.now()));
+        analyticsCounterService.onPatientDeleted(patient);
+        populationRollupService.onPatientDeleted(patient);
+        patientSearchIndex.onPatientDeleted(patient);
+        vitalsService.onPatientDeleted(patient.getId());
     }
 
     private PatientResponse mapToPatientResponse(Patient patient) {
@@ -134,32 +520,164 @@ public class PatientService {
                 patient.getBloodPressure(),
                 patient.getOxygen(),
                 patient.getPulse(),
-                convertJsonToList(patient.getSymptoms()),
+                symptomDictionary.decode(patient.getSymptomCodes()),
                 patient.getVoiceSymptoms(),
                 patient.getRiskLevel(),
                 patient.getDisease(),
-                convertJsonToList(patient.getTriggers()),
-                convertJsonToList(patient.getRecommendations()),
+                patient.getTriggers(),
+                patient.getRecommendations(),
                 patient.getCreatedAt(),
                 patient.getUpdatedAt()
         );
     }
 
-    private String convertListToJson(List<String> list) {
-        if (list == null || list.isEmpty()) return null;
+    private void writeChunks(Stream<Patient> patients, Consumer<PatientResponse> consumer) {
+        List<Patient> chunk = new ArrayList<>(STREAM_CHUNK_SIZE);
+        patients.forEach(patient -> {
+            chunk.add(patient);
+            if (chunk.size() == STREAM_CHUNK_SIZE) {
+                writeChunk(chunk, consumer);
+            }
+        });
+        writeChunk(chunk, consumer);
+    }
+
+    private void writeChunk(List<Patient> chunk, Consumer<PatientResponse> consumer) {
+        chunk.forEach(patient -> consumer.accept(mapToPatientResponse(patient)));
+        chunk.forEach(entityManager::detach);
+        chunk.clear();
+    }
+
+    private void insertChunk(Long doctorId, List<IndexedRequest> chunk, List<BatchPatientResult> results) {
+        List<Patient> saved;
+        try {
+            saved = new TransactionTemplate(transactionManager).execute(status -> {
+                List<Patient> patients = patientRepository.saveAll(
+                        chunk.stream().map(record -> newPatient(doctorId, record.request())).toList());
+                analyticsCounterService.onPatientsCreated(patients);
+                populationRollupService.onPatientsCreated(patients);
+                patientSearchIndex.onPatientsSaved(patients);
+                patients.forEach(patient -> analyticsStream.onPatientSaved(null, null, patient, true));
+                vitalsService.onPatientsCreated(patients);
+                patientRepository.flush();
+                entityManager.clear();
+                return patients;
+            });
+        } catch (RuntimeException e) {
+            if (chunk.size() == 1) {
+                results.add(new BatchPatientResult(chunk.get(0).index(), null, "failed",
+                        NestedExceptionUtils.getMostSpecificCause(e).getMessage()));
+            } else {
+                chunk.forEach(record -> insertChunk(doctorId, List.of(record), results));
+            }
+            return;
+        }
+
+        for (int i = 0; i < chunk.size(); i++) {
+            results.add(new BatchPatientResult(chunk.get(i).index(), saved.get(i).getId(), "created", null));
+        }
+    }
+
+    private int readJsonArray(InputStream body, List<IndexedRequest> parsed,
+                              List<BatchPatientResult> results) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(body)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new RuntimeException("Expected a JSON array of patients");
+            }
+            int index = 0;
+            for (JsonToken token = parser.nextToken(); token != JsonToken.END_ARRAY; token = parser.nextToken()) {
+                if (token == null) {
+                    throw new RuntimeException("Unterminated JSON array");
+                }
+                checkBatchSize(index);
+                JsonNode node = parser.readValueAsTree();
+                try {
+                    parsed.add(new IndexedRequest(index, patientRequestReader.treeToValue(node, PatientRequest.class)));
+                } catch (JsonProcessingException e) {
+                    results.add(new BatchPatientResult(index, null, "failed", e.getOriginalMessage()));
+                }
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private int readNdjson(InputStream body, List<IndexedRequest> parsed,
+                           List<BatchPatientResult> results) throws IOException {
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8))) {
+            int index = 0;
+            for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                checkBatchSize(index);
+                try {
+                    parsed.add(new IndexedRequest(index, patientRequestReader.readValue(line)));
+                } catch (JsonProcessingException e) {
+                    results.add(new BatchPatientResult(index, null, "failed", e.getOriginalMessage()));
+                }
+                index++;
+            }
+            return index;
+        }
+    }
+
+    private void checkBatchSize(int index) {
+        if (index >= batchMaxRecords) {
+            throw new RuntimeException("Batch exceeds " + batchMaxRecords + " records");
+        }
+    }
+
+    private record IndexedRequest(int index, PatientRequest request) {
+    }
+
+    private static int pageSize(int limit) {
+        return Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+    }
+
+    private String encodeCursor(LocalDateTime createdAt, Long id) {
+        String position = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private PageCursor decodeCursor(String cursor) {
         try {
-            return objectMapper.writeValueAsString(list);
-        } catch (JsonProcessingException e) {
-            return null;
+            String position = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separator = position.indexOf('|');
+            return new PageCursor(
+                    LocalDateTime.parse(position.substring(0, separator)),
+                    Long.parseLong(position.substring(separator + 1)));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
         }
     }
 
-    private List<String> convertJsonToList(String json) {
-        if (json == null || json.isEmpty()) return List.of();
+    private record PageCursor(LocalDateTime createdAt, Long id) {
+    }
+
+    private String encodeChangeToken(ChangeToken token) {
+        String watermark = token.updatedAt() + "|" + token.patientId() + "|" + token.deletedAt() + "|" + token.deletedId();
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(watermark.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private ChangeToken decodeChangeToken(String token) {
         try {
-            return objectMapper.readValue(json, List.class);
-        } catch (JsonProcessingException e) {
-            return List.of();
+            String[] parts = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8).split("\\|");
+            return new ChangeToken(
+                    LocalDateTime.parse(parts[0]), Long.parseLong(parts[1]),
+                    LocalDateTime.parse(parts[2]), Long.parseLong(parts[3]));
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid sync token");
         }
     }
+
+    // High-water marks of the patients and tombstones streams
+    private record ChangeToken(LocalDateTime updatedAt, Long patientId, LocalDateTime deletedAt, Long deletedId) {
+    }
+
+    private static List<String> copyOf(List<String> list) {
+        return list == null ? new ArrayList<>() : new ArrayList<>(list);
+    }
 }
@@ -0,0 +1,450 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.datasource.ShardContext;
+import com.healthcare.api.dto.PopulationRollupResponse;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.PopulationRollup;
+import com.healthcare.api.model.PopulationRollupDelta;
+import com.healthcare.api.repository.PopulationRollupDeltaRepository;
+import com.healthcare.api.repository.PopulationRollupRepository;
+import com.healthcare.api.sharding.Shards;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Maintains the population cube ({@link PopulationRollup}): patients per
+ * week of registration, state, city, disease and risk level, across all
+ * doctors. The on* hooks append deltas inside the transaction that writes
+ * the patient, and a scheduled fold sums them into the cells. Queries read
+ * the cells plus the deltas not folded yet, so they are exact. The cube can
+ * be rebuilt from the patients table with a parallel fork-join aggregation.
+ * <p>
+ * With sharding each shard keeps the cube of its own patients, written in
+ * the same transactions as them; queries sum the shards' cubes in parallel.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PopulationRollupService {
+
+    public static final List<String> DIMENSIONS = List.of("week", "state", "city", "disease", "riskLevel");
+
+    private static final String UNKNOWN = "Unknown";
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final PopulationRollupRepository rollupRepository;
+    private final PopulationRollupDeltaRepository deltaRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final Shards shards;
+
+    // Fold and rebuild never run at the same time in one instance
+    private final ReentrantLock cubeWriter = new ReentrantLock();
+
+    @Value("${population.rollups.fold-batch-size:10000}")
+    private int foldBatchSize;
+
+    @Value("${population.rollups.rebuild-chunk-size:50000}")
+    private int rebuildChunkSize;
+
+    @Value("${population.rollups.build-if-empty:true}")
+    private boolean buildIfEmpty;
+
+    @Value("${population.query.max-weeks:520}")
+    private int maxWeeks;
+
+    @Value("${population.query.max-rows:10000}")
+    private int maxRows;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    public record RebuildResult(long patients, int cells, long millis) {
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientsCreated(List<Patient> patients) {
+        Map<PopulationRollup.Key, Long> deltas = new HashMap<>();
+        patients.forEach(patient -> deltas.merge(cellOf(patient), 1L, Long::sum));
+        append(deltas);
+    }
+
+    /**
+     * @param previous the patient's cell before the update, from {@link #cellOf}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientUpdated(PopulationRollup.Key previous, Patient patient) {
+        PopulationRollup.Key current = cellOf(patient);
+        if (!previous.equals(current)) {
+            append(Map.of(previous, -1L, current, 1L));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientDeleted(Patient patient) {
+        append(Map.of(cellOf(patient), -1L));
+    }
+
+    /**
+     * Patients moved between cells by a bulk write, as net changes per cell.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientsMoved(Map<PopulationRollup.Key, Long> deltas) {
+        append(deltas);
+    }
+
+    public static PopulationRollup.Key cellOf(Patient patient) {
+        return cell(patient.getCreatedAt(), patient.getState(), patient.getCity(), patient.getDisease(),
+                patient.getRiskLevel());
+    }
+
+    /**
+     * Sums the cells matching the filters over the weeks from {@code from}
+     * to {@code to}, grouped by the given dimensions ({@link #DIMENSIONS}).
+     * Defaults to the last 12 weeks; at most {@code population.query.max-weeks}.
+     */
+    public List<PopulationRollupResponse> getRollups(List<String> groupBy, String state, String city,
+                                                     String disease, String riskLevel,
+                                                     LocalDate from, LocalDate to) {
+        List<String> dimensions = new ArrayList<>();
+        for (String dimension : groupBy) {
+            String name = dimension.strip();
+            if (!DIMENSIONS.contains(name)) {
+                throw new RuntimeException("Unknown dimension: " + name + " (expected one of " + DIMENSIONS + ")");
+            }
+            if (!dimensions.contains(name)) {
+                dimensions.add(name);
+            }
+        }
+        if (dimensions.isEmpty()) {
+            dimensions.add("week");
+        }
+        dimensions.sort(Comparator.comparingInt(DIMENSIONS::indexOf));
+
+        LocalDate lastWeek = weekOf(to != null ? to : LocalDate.now());
+        LocalDate firstWeek = weekOf(from != null ? from : lastWeek.minusWeeks(11));
+        if (ChronoUnit.WEEKS.between(firstWeek, lastWeek) >= maxWeeks) {
+            firstWeek = lastWeek.minusWeeks(maxWeeks - 1);
+        }
+
+        Map<String, Object> filters = new LinkedHashMap<>();
+        filters.put("state", state);
+        filters.put("city", city);
+        filters.put("disease", disease);
+        filters.put("riskLevel", riskLevel == null ? null : riskLevel.toLowerCase(Locale.ROOT));
+
+        LocalDate first = firstWeek;
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<Map<List<Object>, Long>> shardTotals = shards.gather(shard -> readOnly.execute(status -> {
+            Map<List<Object>, Long> sums = new HashMap<>();
+            sum("PopulationRollup", "r.id", dimensions, filters, first, lastWeek, sums);
+            sum("PopulationRollupDelta", "r.cell", dimensions, filters, first, lastWeek, sums);
+            return sums;
+        }));
+        Map<List<Object>, Long> totals = shardTotals.get(0);
+        for (Map<List<Object>, Long> sums : shardTotals.subList(1, shardTotals.size())) {
+            sums.forEach((values, patients) -> totals.merge(values, patients, Long::sum));
+        }
+
+        List<PopulationRollupResponse> rows = new ArrayList<>();
+        totals.forEach((values, patients) -> {
+            if (patients != 0) {
+                Object[] row = new Object[DIMENSIONS.size()];
+                for (int i = 0; i < dimensions.size(); i++) {
+                    row[DIMENSIONS.indexOf(dimensions.get(i))] = values.get(i);
+                }
+                rows.add(new PopulationRollupResponse((LocalDate) row[0], (String) row[1], (String) row[2],
+                        (String) row[3], (String) row[4], patients));
+            }
+        });
+        rows.sort(Comparator.comparing(PopulationRollupResponse::getWeekStart, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(PopulationRollupResponse::getState, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(PopulationRollupResponse::getCity, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(PopulationRollupResponse::getDisease, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(PopulationRollupResponse::getRiskLevel, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return rows.size() > maxRows ? rows.subList(0, maxRows) : rows;
+    }
+
+    /**
+     * Folds pending deltas into the cells, in batches of one transaction
+     * each. Cells are loaded per week touched and merged in memory, so a
+     * batch costs one read per week plus batched writes. Shards are folded
+     * one after the other.
+     */
+    @Scheduled(fixedDelayString = "${population.rollups.fold-interval:PT5S}")
+    public void fold() {
+        cubeWriter.lock();
+        try {
+            TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+            shards.forEach(shard -> {
+                try {
+                    while (Boolean.TRUE.equals(transaction.execute(status -> foldBatch()))) {
+                        // A full batch was folded; more may be waiting
+                    }
+                } catch (DataIntegrityViolationException | ConstraintViolationException e) {
+                    // Another instance inserted one of the same new cells; the deltas stay for the next fold.
+                    // Nothing translates what foldBatch's own flush throws, so Hibernate's exception is caught too
+                    log.warn("Folding population deltas on shard {} conflicted with another instance, retrying later",
+                            shard);
+                }
+            });
+        } finally {
+            cubeWriter.unlock();
+        }
+    }
+
+    /**
+     * Recomputes every cell from the patients table. Id ranges are split
+     * recursively and aggregated on a fork-join pool, each leaf with one
+     * range query; the cube is then replaced in one transaction. Patients
+     * written while the rebuild reads may be counted twice or not at all;
+     * rebuild when writes are quiet, e.g. at startup. Each shard's cube is
+     * rebuilt from its own patients, one shard after the other.
+     */
+    public RebuildResult rebuild() {
+        cubeWriter.lock();
+        try {
+            long start = System.nanoTime();
+            long[] totals = new long[2];
+            shards.forEach(shard -> {
+                RebuildResult result = rebuildShard(shard);
+                totals[0] += result.patients();
+                totals[1] += result.cells();
+            });
+            long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            log.info("Rebuilt {} population rollup cells from {} patients in {} ms", totals[1], totals[0], millis);
+            return new RebuildResult(totals[0], (int) totals[1], millis);
+        } finally {
+            cubeWriter.unlock();
+        }
+    }
+
+    // Before other startup work that writes patients in bulk, such as the risk re-score
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildIfEmpty() {
+        if (!buildIfEmpty) {
+            return;
+        }
+        cubeWriter.lock();
+        try {
+            shards.forEach(shard -> {
+                if (rollupRepository.count() == 0 && deltaRepository.count() == 0
+                        && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                                "SELECT EXISTS (SELECT 1 FROM patients)", Boolean.class))) {
+                    rebuildShard(shard);
+                }
+            });
+        } finally {
+            cubeWriter.unlock();
+        }
+    }
+
+    // Runs pinned to the shard, with the cube writer lock held
+    private RebuildResult rebuildShard(int shard) {
+        long start = System.nanoTime();
+        // Their patients are already in the table, so the rebuild replaces them
+        List<Long> pendingDeltas = jdbcTemplate.queryForList("SELECT id FROM population_rollup_deltas", Long.class);
+        long[] bounds = jdbcTemplate.queryForObject("SELECT MIN(id), MAX(id) FROM patients",
+                (rs, row) -> new long[]{rs.getLong(1), rs.getLong(2)});
+        Map<PopulationRollup.Key, Long> cells = new HashMap<>();
+        if (bounds != null && bounds[1] > 0) {
+            int parallelism = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                    connectionPoolSize / 2));
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                cells = pool.invoke(new AggregateRange(shard, bounds[0], bounds[1]));
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        List<Object[]> rows = new ArrayList<>(cells.size());
+        long patients = 0;
+        for (Map.Entry<PopulationRollup.Key, Long> cell : cells.entrySet()) {
+            PopulationRollup.Key key = cell.getKey();
+            rows.add(new Object[]{key.getWeekStart(), key.getState(), key.getCity(), key.getDisease(),
+                    key.getRiskLevel(), cell.getValue()});
+            patients += cell.getValue();
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update("DELETE FROM population_rollups");
+            jdbcTemplate.batchUpdate("INSERT INTO population_rollups "
+                    + "(week_start, state, city, disease, risk_level, patients) VALUES (?, ?, ?, ?, ?, ?)", rows);
+            for (int from = 0; from < pendingDeltas.size(); from += DELETE_CHUNK_SIZE) {
+                List<Long> ids = pendingDeltas.subList(from, Math.min(from + DELETE_CHUNK_SIZE, pendingDeltas.size()));
+                jdbcTemplate.update("DELETE FROM population_rollup_deltas WHERE id IN ("
+                        + String.join(",", Collections.nCopies(ids.size(), "?")) + ")", ids.toArray());
+            }
+        });
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Rebuilt {} population rollup cells from {} patients on shard {} in {} ms",
+                rows.size(), patients, shard, millis);
+        return new RebuildResult(patients, rows.size(), millis);
+    }
+
+    private boolean foldBatch() {
+        List<PopulationRollupDelta> deltas = deltaRepository.findOldestForUpdate(Limit.of(foldBatchSize));
+        if (deltas.isEmpty()) {
+            return false;
+        }
+        Map<PopulationRollup.Key, Long> sums = new HashMap<>();
+        Set<LocalDate> weeks = new HashSet<>();
+        List<Long> ids = new ArrayList<>(deltas.size());
+        for (PopulationRollupDelta delta : deltas) {
+            sums.merge(delta.getCell(), delta.getPatients(), Long::sum);
+            weeks.add(delta.getCell().getWeekStart());
+            ids.add(delta.getId());
+        }
+
+        Map<PopulationRollup.Key, PopulationRollup> cells = new HashMap<>();
+        rollupRepository.findByWeeks(weeks).forEach(cell -> cells.put(cell.getId(), cell));
+        sums.forEach((key, delta) -> {
+            if (delta == 0) {
+                return;
+            }
+            PopulationRollup cell = cells.get(key);
+            if (cell == null) {
+                entityManager.persist(new PopulationRollup(key, delta));
+            } else if (cell.getPatients() + delta == 0) {
+                entityManager.remove(cell);
+            } else {
+                cell.setPatients(cell.getPatients() + delta);
+            }
+        });
+        for (int from = 0; from < ids.size(); from += DELETE_CHUNK_SIZE) {
+            deltaRepository.deleteByIds(ids.subList(from, Math.min(from + DELETE_CHUNK_SIZE, ids.size())));
+        }
+        // Keeps the next batch from dirty-checking this one's cells
+        entityManager.flush();
+        entityManager.clear();
+        return deltas.size() == foldBatchSize;
+    }
+
+    private void append(Map<PopulationRollup.Key, Long> deltas) {
+        deltas.forEach((cell, patients) -> {
+            if (patients != 0) {
+                entityManager.persist(new PopulationRollupDelta(null, cell, patients));
+            }
+        });
+    }
+
+    private void sum(String entity, String path, List<String> dimensions, Map<String, Object> filters,
+                     LocalDate firstWeek, LocalDate lastWeek, Map<List<Object>, Long> totals) {
+        List<String> columns = dimensions.stream()
+                .map(dimension -> path + "." + (dimension.equals("week") ? "weekStart" : dimension))
+                .toList();
+        StringBuilder jpql = new StringBuilder("SELECT ").append(String.join(", ", columns))
+                .append(", SUM(r.patients) FROM ").append(entity).append(" r WHERE ")
+                .append(path).append(".weekStart BETWEEN :firstWeek AND :lastWeek");
+        filters.forEach((name, value) -> {
+            if (value != null) {
+                jpql.append(" AND ").append(path).append('.').append(name).append(" = :").append(name);
+            }
+        });
+        jpql.append(" GROUP BY ").append(String.join(", ", columns));
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class)
+                .setParameter("firstWeek", firstWeek)
+                .setParameter("lastWeek", lastWeek);
+        filters.forEach((name, value) -> {
+            if (value != null) {
+                query.setParameter(name, value);
+            }
+        });
+        for (Object[] row : query.getResultList()) {
+            List<Object> values = Arrays.asList(row).subList(0, dimensions.size());
+            totals.merge(new ArrayList<>(values), ((Number) row[dimensions.size()]).longValue(), Long::sum);
+        }
+    }
+
+    private static PopulationRollup.Key cell(LocalDateTime createdAt, String state, String city, String disease,
+                                             String riskLevel) {
+        return new PopulationRollup.Key(weekOf(createdAt != null ? createdAt.toLocalDate() : LocalDate.now()),
+                dimension(state), dimension(city), dimension(disease),
+                riskLevel == null || riskLevel.isBlank() ? UNKNOWN : riskLevel.strip().toLowerCase(Locale.ROOT));
+    }
+
+    private static String dimension(String value) {
+        return value == null || value.isBlank() ? UNKNOWN : value.strip();
+    }
+
+    private static LocalDate weekOf(LocalDate day) {
+        return day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+    }
+
+    /**
+     * Cells of the patients with ids in {@code [first, last]}. Ranges above
+     * the chunk size are halved and the halves aggregated in parallel.
+     * Pool threads don't inherit the caller's shard, so each leaf pins it.
+     */
+    private class AggregateRange extends RecursiveTask<Map<PopulationRollup.Key, Long>> {
+
+        private final int shard;
+        private final long first;
+        private final long last;
+
+        AggregateRange(int shard, long first, long last) {
+            this.shard = shard;
+            this.first = first;
+            this.last = last;
+        }
+
+        @Override
+        protected Map<PopulationRollup.Key, Long> compute() {
+            if (last - first < rebuildChunkSize) {
+                Map<PopulationRollup.Key, Long> cells = new HashMap<>();
+                ShardContext.run(shard, () -> jdbcTemplate.query(
+                        "SELECT created_at, state, city, disease, risk_level FROM patients WHERE id BETWEEN ? AND ?",
+                        rs -> {
+                            cells.merge(cell(rs.getObject(1, LocalDateTime.class), rs.getString(2), rs.getString(3),
+                                    rs.getString(4), rs.getString(5)), 1L, Long::sum);
+                        }, first, last));
+                return cells;
+            }
+            long middle = first + (last - first) / 2;
+            AggregateRange lower = new AggregateRange(shard, first, middle);
+            lower.fork();
+            Map<PopulationRollup.Key, Long> upper = new AggregateRange(shard, middle + 1, last).compute();
+            Map<PopulationRollup.Key, Long> cells = lower.join();
+            // Merge the smaller map into the larger
+            if (cells.size() < upper.size()) {
+                Map<PopulationRollup.Key, Long> swap = cells;
+                cells = upper;
+                upper = swap;
+            }
+            Map<PopulationRollup.Key, Long> merged = cells;
+            upper.forEach((key, patients) -> merged.merge(key, patients, Long::sum));
+            return merged;
+        }
+    }
+}
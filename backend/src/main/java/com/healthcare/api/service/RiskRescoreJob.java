@@ -0,0 +1,332 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.cache.EntityCacheInvalidator;
+import com.healthcare.api.datasource.ShardContext;
+import com.healthcare.api.dto.RiskRescoreStatus;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.PopulationRollup;
+import com.healthcare.api.risk.RiskRules;
+import com.healthcare.api.service.AnalyticsCounterService.RiskLevelChange;
+import com.healthcare.api.sharding.Shards;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Re-scores every patient whose risk level was computed with rules other
+ * than the current ones. A coordinator reads the ids of stale patients in
+ * id order and hands out chunks; workers score each chunk and write it back
+ * in one transaction with JDBC batch updates, in parallel.
+ * <p>
+ * Each written row records the rules version it was scored with, so a
+ * stopped, failed or interrupted run resumes where it left off when started
+ * again, and patients created or updated meanwhile are skipped. A row is
+ * only written if its updatedAt is unchanged since it was read, so a
+ * concurrent update is never overwritten. With sharding each pass goes
+ * through the shards one after the other.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RiskRescoreJob {
+
+    private static final String STALE = "(risk_rules_version IS NULL OR risk_rules_version <> ?)";
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final JdbcTemplate jdbcTemplate;
+    private final RiskScoringService riskScoringService;
+    private final AnalyticsCounterService analyticsCounterService;
+    private final PopulationRollupService populationRollupService;
+    private final EntityCacheInvalidator cacheInvalidator;
+    private final PlatformTransactionManager transactionManager;
+    private final Shards shards;
+
+    @Value("${risk.rescore.chunk-size:1000}")
+    private int chunkSize;
+
+    @Value("${risk.rescore.threads:0}")
+    private int threads;
+
+    @Value("${spring.datasource.hikari.maximum-pool-size:10}")
+    private int connectionPoolSize;
+
+    @Value("${risk.rescore-on-startup:true}")
+    private boolean rescoreOnStartup;
+
+    private volatile Run run;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rescoreOnStartup() {
+        if (rescoreOnStartup) {
+            start();
+        }
+    }
+
+    /**
+     * Starts a run in the background, or returns the one in progress. A run
+     * that finds the rules changed once it is through starts over with them.
+     */
+    public synchronized RiskRescoreStatus start() {
+        if (run == null || run.finishedAt != null) {
+            run = new Run();
+            Thread coordinator = new Thread(run::execute, "risk-rescore");
+            coordinator.setDaemon(true);
+            coordinator.start();
+        }
+        return run.status();
+    }
+
+    /**
+     * Stops handing out chunks; chunks already handed out are finished.
+     */
+    public synchronized RiskRescoreStatus stop() {
+        if (run != null && run.finishedAt == null) {
+            run.stopping = true;
+        }
+        return status();
+    }
+
+    public RiskRescoreStatus status() {
+        Run current = run;
+        if (current == null) {
+            return new RiskRescoreStatus("idle", RiskScoringService.versionName(riskScoringService.rules().version()),
+                    0, 0, 0, 0, null, null, null);
+        }
+        return current.status();
+    }
+
+    /**
+     * Threads scoring chunks. Each holds a pooled connection while it writes,
+     * so by default they take at most half the pool and requests keep the rest.
+     */
+    private int workerCount() {
+        if (threads > 0) {
+            return threads;
+        }
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), connectionPoolSize / 2));
+    }
+
+    private class Run {
+
+        private final LocalDateTime startedAt = LocalDateTime.now();
+        private final long startNanos = System.nanoTime();
+        private final AtomicLong stale = new AtomicLong();
+        private final AtomicLong rescored = new AtomicLong();
+        private final AtomicLong changed = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private volatile RiskRules rules = riskScoringService.rules();
+        private volatile boolean stopping;
+        private volatile LocalDateTime finishedAt;
+        private volatile long finishedNanos;
+        private long lastProgressNanos = System.nanoTime();
+
+        void execute() {
+            int workers = workerCount();
+            AtomicInteger threadNumber = new AtomicInteger();
+            ExecutorService pool = Executors.newFixedThreadPool(workers, task -> {
+                Thread thread = new Thread(task, "risk-rescore-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            // Enough chunks queued to keep every worker busy, without reading ahead of them
+            Semaphore queued = new Semaphore(workers * 2);
+            try {
+                do {
+                    rules = riskScoringService.rules();
+                    for (int shard = 0; shard < shards.count() && !stopping && failure.get() == null; shard++) {
+                        dispatch(shard, rules, pool, queued);
+                    }
+                    // Wait for the pass's chunks before checking whether the rules moved on
+                    queued.acquire(workers * 2);
+                    queued.release(workers * 2);
+                } while (!stopping && failure.get() == null
+                        && riskScoringService.rules().version() != rules.version());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                stopping = true;
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            } finally {
+                pool.shutdown();
+                finishedNanos = System.nanoTime();
+                finishedAt = LocalDateTime.now();
+            }
+
+            RiskRescoreStatus status = status();
+            if (failure.get() != null) {
+                log.error("Risk re-score failed after {} patients", rescored.get(), failure.get());
+            } else if (stale.get() > 0) {
+                log.info("Re-scored {} patients with risk rules {} on {} threads in {} ms ({} patients/s), "
+                                + "{} changed level{}", rescored.get(), status.getRulesVersion(), workers,
+                        TimeUnit.NANOSECONDS.toMillis(finishedNanos - startNanos),
+                        Math.round(status.getPatientsPerSecond()), changed.get(), stopping ? "; stopped" : "");
+            }
+        }
+
+        // Hands out the shard's stale chunks; workers don't inherit the shard, so each task pins it
+        private void dispatch(int shard, RiskRules passRules, ExecutorService pool, Semaphore queued)
+                throws InterruptedException {
+            stale.addAndGet(Objects.requireNonNull(ShardContext.call(shard, () -> jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM patients WHERE " + STALE, Long.class, passRules.version()))));
+            long lastId = 0;
+            while (!stopping && failure.get() == null) {
+                long afterId = lastId;
+                List<Long> ids = ShardContext.call(shard, () -> jdbcTemplate.queryForList(
+                        "SELECT id FROM patients WHERE id > ? AND " + STALE + " ORDER BY id LIMIT ?",
+                        Long.class, afterId, passRules.version(), chunkSize));
+                if (ids.isEmpty()) {
+                    break;
+                }
+                long firstId = ids.get(0);
+                lastId = ids.get(ids.size() - 1);
+                long chunkLastId = lastId;
+                queued.acquire();
+                pool.execute(() -> {
+                    try {
+                        ShardContext.run(shard, () -> rescoreChunk(passRules, firstId, chunkLastId));
+                    } catch (RuntimeException e) {
+                        failure.compareAndSet(null, e);
+                    } finally {
+                        queued.release();
+                    }
+                });
+            }
+        }
+
+        private void rescoreChunk(RiskRules rules, long firstId, long lastId) {
+            List<Patient> patients = jdbcTemplate.query(
+                    "SELECT id, doctor_id, age, temperature, oxygen, pulse, blood_pressure, weight, risk_level, "
+                            + "state, city, disease, created_at, updated_at FROM patients WHERE id BETWEEN ? AND ? AND " + STALE,
+                    (rs, row) -> patient(rs), firstId, lastId, rules.version());
+            if (patients.isEmpty()) {
+                return;
+            }
+            Map<Long, Patient> byId = new HashMap<>();
+            patients.forEach(patient -> byId.put(patient.getId(), patient));
+            jdbcTemplate.query("SELECT patient_id, symptom_id FROM patient_symptoms WHERE patient_id BETWEEN ? AND ? "
+                    + "ORDER BY patient_id, list_order", rs -> {
+                Patient patient = byId.get(rs.getLong(1));
+                if (patient != null) {
+                    patient.getSymptomCodes().add(rs.getInt(2));
+                }
+            }, firstId, lastId);
+
+            // A changed level is a change to the patient: it bumps updatedAt for sync and ETags
+            LocalDateTime now = LocalDateTime.now();
+            List<Object[]> levelUpdates = new ArrayList<>();
+            List<Patient> levelChanged = new ArrayList<>();
+            List<Object[]> versionUpdates = new ArrayList<>();
+            List<Patient> versionOnly = new ArrayList<>();
+            for (Patient patient : patients) {
+                String level = rules.level(RiskScoringService.score(rules, patient));
+                if (level.equals(patient.getRiskLevel())) {
+                    versionUpdates.add(new Object[]{rules.version(), patient.getId(), patient.getUpdatedAt()});
+                    versionOnly.add(patient);
+                } else {
+                    levelUpdates.add(new Object[]{level, rules.version(), now, patient.getId(), patient.getUpdatedAt()});
+                    levelChanged.add(patient);
+                }
+            }
+
+            List<Long> written = new ArrayList<>();
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                int[] levelCounts = jdbcTemplate.batchUpdate("UPDATE patients SET risk_level = ?, "
+                        + "risk_rules_version = ?, updated_at = ? WHERE id = ? AND updated_at IS NOT DISTINCT FROM ?",
+                        levelUpdates);
+                int[] versionCounts = jdbcTemplate.batchUpdate("UPDATE patients SET risk_rules_version = ? "
+                        + "WHERE id = ? AND updated_at IS NOT DISTINCT FROM ?", versionUpdates);
+
+                List<RiskLevelChange> changes = new ArrayList<>();
+                Map<PopulationRollup.Key, Long> moved = new HashMap<>();
+                for (int i = 0; i < levelCounts.length; i++) {
+                    if (levelCounts[i] != 0) {
+                        Patient patient = levelChanged.get(i);
+                        changes.add(new RiskLevelChange(patient.getDoctorId(), patient.getRiskLevel(),
+                                (String) levelUpdates.get(i)[0]));
+                        moved.merge(PopulationRollupService.cellOf(patient), -1L, Long::sum);
+                        patient.setRiskLevel((String) levelUpdates.get(i)[0]);
+                        moved.merge(PopulationRollupService.cellOf(patient), 1L, Long::sum);
+                        written.add(patient.getId());
+                    }
+                }
+                for (int i = 0; i < versionCounts.length; i++) {
+                    if (versionCounts[i] != 0) {
+                        written.add(versionOnly.get(i).getId());
+                    }
+                }
+                analyticsCounterService.onRiskLevelsChanged(changes);
+                populationRollupService.onPatientsMoved(moved);
+                changed.addAndGet(changes.size());
+            });
+            cacheInvalidator.evict(Patient.class, written);
+            rescored.addAndGet(written.size());
+            logProgress();
+        }
+
+        private synchronized void logProgress() {
+            long now = System.nanoTime();
+            if (now - lastProgressNanos >= PROGRESS_INTERVAL_NANOS) {
+                lastProgressNanos = now;
+                log.info("Re-scored {} of {} patients ({} patients/s)", rescored.get(), stale.get(),
+                        Math.round(status().getPatientsPerSecond()));
+            }
+        }
+
+        RiskRescoreStatus status() {
+            String state;
+            if (finishedAt == null) {
+                state = stopping ? "stopping" : "running";
+            } else if (failure.get() != null) {
+                state = "failed";
+            } else {
+                state = stopping ? "stopped" : "completed";
+            }
+            long elapsedNanos = (finishedAt == null ? System.nanoTime() : finishedNanos) - startNanos;
+            double perSecond = elapsedNanos == 0 ? 0 : rescored.get() * 1e9 / elapsedNanos;
+            RuntimeException error = failure.get();
+            return new RiskRescoreStatus(state, RiskScoringService.versionName(rules.version()), stale.get(),
+                    rescored.get(), changed.get(), perSecond, startedAt, finishedAt,
+                    error == null ? null : error.getMessage());
+        }
+    }
+
+    private static Patient patient(ResultSet rs) throws SQLException {
+        Patient patient = new Patient();
+        patient.setId(rs.getLong("id"));
+        patient.setDoctorId(rs.getLong("doctor_id"));
+        patient.setAge(rs.getObject("age", Integer.class));
+        patient.setTemperature(rs.getObject("temperature", Double.class));
+        patient.setOxygen(rs.getObject("oxygen", Double.class));
+        patient.setPulse(rs.getObject("pulse", Integer.class));
+        patient.setBloodPressure(rs.getString("blood_pressure"));
+        patient.setWeight(rs.getObject("weight", Double.class));
+        patient.setRiskLevel(rs.getString("risk_level"));
+        patient.setState(rs.getString("state"));
+        patient.setCity(rs.getString("city"));
+        patient.setDisease(rs.getString("disease"));
+        patient.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        patient.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return patient;
+    }
+}
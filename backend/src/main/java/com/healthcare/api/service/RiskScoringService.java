@@ -0,0 +1,87 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.risk.RiskRules;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Sets patients' risk levels from the rules at {@code risk.rules.location}.
+ * The rules are compiled when they are loaded, and every scored patient
+ * records the version it was scored with, which is how
+ * {@link RiskRescoreJob} finds the patients that are out of date.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RiskScoringService {
+
+    private final SymptomDictionary symptomDictionary;
+
+    @Value("${risk.rules.location:classpath:risk-rules.txt}")
+    private Resource rulesLocation;
+
+    private volatile RiskRules rules;
+
+    @PostConstruct
+    void load() {
+        rules = read();
+        log.info("Loaded risk rules {} from {}", versionName(rules.version()), rulesLocation.getDescription());
+    }
+
+    public RiskRules rules() {
+        return rules;
+    }
+
+    /**
+     * Reads the rules again. Patients written from now on are scored with
+     * them; existing ones keep their level until they are re-scored.
+     *
+     * @return true if the new rules compute anything differently
+     */
+    public synchronized boolean reload() {
+        RiskRules loaded = read();
+        if (loaded.version() == rules.version()) {
+            return false;
+        }
+        log.info("Risk rules changed from {} to {}", versionName(rules.version()), versionName(loaded.version()));
+        rules = loaded;
+        return true;
+    }
+
+    /**
+     * Sets the patient's risk level from its vitals, age and symptom codes.
+     */
+    public void score(Patient patient) {
+        RiskRules current = rules;
+        patient.setRiskLevel(current.level(score(current, patient)));
+        patient.setRiskRulesVersion(current.version());
+    }
+
+    static int score(RiskRules rules, Patient patient) {
+        return rules.score(VitalsService.vitalsOf(patient, LocalDateTime.now()), patient.getAge(),
+                patient.getSymptomCodes());
+    }
+
+    static String versionName(long version) {
+        return Long.toHexString(version);
+    }
+
+    private RiskRules read() {
+        try {
+            return RiskRules.parse(rulesLocation.getContentAsString(StandardCharsets.UTF_8),
+                    code -> symptomDictionary.decode(List.of(code)).get(0));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read risk rules from " + rulesLocation.getDescription(), e);
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.model.SymptomCode;
+import com.healthcare.api.repository.SymptomCodeRepository;
+import com.healthcare.api.sharding.Shards;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * In-memory two-way map between symptom names and their dictionary codes.
+ * The table is small (one row per distinct symptom), so it is loaded once
+ * and only new names go to the database. With sharding the table is on
+ * the home database only.
+ * <p>
+ * A new name is inserted in a transaction of its own. Writers register
+ * their names with {@link #register} before they open their transaction,
+ * so no writer holds two connections from the pool at once.
+ */
+@Service
+@RequiredArgsConstructor
+public class SymptomDictionary {
+
+    private final SymptomCodeRepository symptomCodeRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final Shards shards;
+
+    private final Map<String, Integer> codesByName = new ConcurrentHashMap<>();
+    private final Map<Integer, String> namesByCode = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void load() {
+        symptomCodeRepository.findAll().forEach(this::remember);
+    }
+
+    /**
+     * Adds the names the dictionary does not have yet. Call it outside any
+     * transaction, before the one that encodes the names.
+     */
+    public void register(Collection<String> symptoms) {
+        if (symptoms != null) {
+            for (String symptom : symptoms) {
+                if (symptom != null) {
+                    codeFor(symptom);
+                }
+            }
+        }
+    }
+
+    /**
+     * Encodes symptom names. Inside a transaction the names must have been
+     * registered already; outside one, new names are registered.
+     */
+    public List<Integer> encode(List<String> symptoms) {
+        List<Integer> codes = new ArrayList<>();
+        if (symptoms != null) {
+            for (String symptom : symptoms) {
+                if (symptom != null) {
+                    codes.add(codeFor(symptom));
+                }
+            }
+        }
+        return codes;
+    }
+
+    public List<String> decode(List<Integer> codes) {
+        List<String> names = new ArrayList<>(codes.size());
+        for (Integer code : codes) {
+            names.add(nameFor(code));
+        }
+        return names;
+    }
+
+    /**
+     * Looks up an existing code without registering the name.
+     */
+    public Optional<Integer> find(String symptom) {
+        Integer code = codesByName.get(symptom);
+        if (code == null) {
+            code = onHome(() -> symptomCodeRepository.findByName(symptom)).map(this::remember).orElse(null);
+        }
+        return Optional.ofNullable(code);
+    }
+
+    private Integer codeFor(String symptom) {
+        Integer code = codesByName.get(symptom);
+        if (code != null) {
+            return code;
+        }
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            throw new IllegalStateException("Symptom '" + symptom + "' was not registered before the transaction");
+        }
+        return insert(symptom);
+    }
+
+    private String nameFor(Integer code) {
+        String name = namesByCode.get(code);
+        if (name == null) {
+            // Registered by another instance since we loaded
+            SymptomCode symptomCode = onHome(() -> symptomCodeRepository.findById(code))
+                    .orElseThrow(() -> new IllegalStateException("Unknown symptom code " + code));
+            remember(symptomCode);
+            name = symptomCode.getName();
+        }
+        return name;
+    }
+
+    /**
+     * Inserts a new name in its own committed transaction, so the code stays
+     * valid whatever happens to the write it was registered for. A
+     * concurrent insert of the same name by another instance is resolved by
+     * reading its row.
+     */
+    private synchronized Integer insert(String symptom) {
+        Integer code = codesByName.get(symptom);
+        if (code != null) {
+            return code;
+        }
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        SymptomCode saved = shards.onHome(() -> {
+            try {
+                return newTransaction.execute(status -> symptomCodeRepository.save(new SymptomCode(symptom)));
+            } catch (DataIntegrityViolationException e) {
+                return newTransaction.execute(status -> symptomCodeRepository.findByName(symptom).orElseThrow(() -> e));
+            }
+        });
+        return remember(saved);
+    }
+
+    // A caller's transaction on another shard gets a home connection for the lookup. That is a second
+    // pool, so waiting for it cannot starve the caller's own
+    private <T> T onHome(Supplier<T> lookup) {
+        if (shards.current() == 0) {
+            return lookup.get();
+        }
+        TransactionTemplate newTransaction = new TransactionTemplate(transactionManager);
+        newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        newTransaction.setReadOnly(true);
+        return shards.onHome(() -> newTransaction.execute(status -> lookup.get()));
+    }
+
+    private Integer remember(SymptomCode symptomCode) {
+        codesByName.put(symptomCode.getName(), symptomCode.getId());
+        namesByCode.put(symptomCode.getId(), symptomCode.getName());
+        return symptomCode.getId();
+    }
+}
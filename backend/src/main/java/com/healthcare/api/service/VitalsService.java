@@ -0,0 +1,442 @@
+package com.healthcare.api.service;
+
+import com.healthcare.api.dto.LatestVitalResponse;
+import com.healthcare.api.dto.VitalRollupResponse;
+import com.healthcare.api.dto.VitalsIngestResponse;
+import com.healthcare.api.dto.VitalsRequest;
+import com.healthcare.api.dto.VitalsResponse;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.VitalMetric;
+import com.healthcare.api.model.VitalObservation;
+import com.healthcare.api.model.VitalRollup;
+import com.healthcare.api.model.VitalSegment;
+import com.healthcare.api.model.VitalSegmentCodec;
+import com.healthcare.api.repository.PatientRepository;
+import com.healthcare.api.repository.VitalObservationRepository;
+import com.healthcare.api.repository.VitalRollupRepository;
+import com.healthcare.api.repository.VitalSegmentRepository;
+import com.healthcare.api.sharding.Shards;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Vitals as per-patient time series. Every reading is inserted into
+ * {@code vital_observations} and added to its hourly and daily
+ * {@link VitalRollup}s in the same transaction. A scheduled job later folds
+ * each past day's readings into one delta-encoded {@link VitalSegment}, so
+ * raw rows only exist for the newest days. Range queries read segments and
+ * raw rows; charts over long ranges read the rollups and touch no readings.
+ * Writes to one patient's vitals are serialized on the patient row.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class VitalsService {
+
+    // "120/80", "120 / 80 mmHg"
+    private static final Pattern BLOOD_PRESSURE = Pattern.compile("^\\s*(\\d{2,3})\\s*/\\s*(\\d{2,3})(?!\\d)");
+    private static final VitalRollup.Resolution[] RESOLUTIONS = VitalRollup.Resolution.values();
+
+    private final VitalObservationRepository observationRepository;
+    private final VitalSegmentRepository segmentRepository;
+    private final VitalRollupRepository rollupRepository;
+    private final PatientRepository patientRepository;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+    private final Shards shards;
+
+    @Value("${vitals.ingest.max-readings:10000}")
+    private int maxIngestReadings;
+
+    @Value("${vitals.range.max-readings:10000}")
+    private int maxRangeReadings;
+
+    @Value("${vitals.rollups.max-hours:8784}")
+    private long maxRollupHours;
+
+    @Value("${vitals.rollups.max-days:3660}")
+    private long maxRollupDays;
+
+    @Value("${vitals.compaction.raw-days:2}")
+    private int rawDays;
+
+    @Transactional
+    public VitalsIngestResponse recordVitals(Long doctorId, Long patientId, List<VitalsRequest> requests) {
+        if (requests.size() > maxIngestReadings) {
+            throw new RuntimeException("At most " + maxIngestReadings + " readings per request");
+        }
+        lockPatient(doctorId, patientId);
+
+        LocalDateTime now = LocalDateTime.now();
+        NavigableMap<LocalDateTime, VitalObservation> observations = new TreeMap<>();
+        int duplicates = 0;
+        for (VitalsRequest request : requests) {
+            VitalObservation observation = observation(patientId,
+                    request.getObservedAt() == null ? now : request.getObservedAt(),
+                    request.getTemperature(), request.getOxygen(), request.getPulse(),
+                    request.getBloodPressure(), request.getWeight());
+            if (!observation.isEmpty()
+                    && observations.putIfAbsent(observation.getId().getObservedAt(), observation) != null) {
+                duplicates++;
+            }
+        }
+        duplicates += removeRecorded(patientId, observations);
+        append(observations.values(), false);
+        return new VitalsIngestResponse(requests.size(), observations.size(), duplicates);
+    }
+
+    /**
+     * Records the vitals entered with new patients, taken at their creation
+     * time. Must run in the transaction that inserts the patients.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientsCreated(List<Patient> patients) {
+        List<VitalObservation> observations = new ArrayList<>();
+        for (Patient patient : patients) {
+            VitalObservation observation = vitalsOf(patient, patient.getCreatedAt());
+            if (!observation.isEmpty()) {
+                observations.add(observation);
+            }
+        }
+        append(observations, true);
+    }
+
+    /**
+     * Records the vitals an update changed as a new reading at the update
+     * time; values the update left as they were are not counted again.
+     *
+     * @param previous the patient's vitals before the update, from {@link #vitalsOf}
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientUpdated(VitalObservation previous, Patient patient) {
+        VitalObservation observation = vitalsOf(patient, patient.getUpdatedAt());
+        for (VitalMetric metric : VitalMetric.values()) {
+            if (Objects.equals(previous.get(metric), observation.get(metric))) {
+                observation.set(metric, null);
+            }
+        }
+        if (observation.isEmpty()) {
+            return;
+        }
+        patientRepository.lockById(patient.getId());
+        NavigableMap<LocalDateTime, VitalObservation> observations =
+                new TreeMap<>(Map.of(observation.getId().getObservedAt(), observation));
+        removeRecorded(patient.getId(), observations);
+        append(observations.values(), false);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onPatientDeleted(Long patientId) {
+        observationRepository.deleteByPatientId(patientId);
+        segmentRepository.deleteByPatientId(patientId);
+        rollupRepository.deleteByPatientId(patientId);
+    }
+
+    /**
+     * Readings in {@code [from, to)}, oldest first, at most {@code limit}.
+     * Defaults to the last day.
+     */
+    @Transactional(readOnly = true)
+    public List<VitalsResponse> getVitals(Long doctorId, Long patientId,
+                                          LocalDateTime from, LocalDateTime to, int limit) {
+        checkOwner(doctorId, patientId);
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime start = from == null ? end.minusDays(1) : from;
+        int max = Math.max(1, Math.min(limit, maxRangeReadings));
+
+        List<VitalObservation> readings = new ArrayList<>();
+        // Each segment holds at least one reading, so no more than max segments can contribute
+        for (VitalSegment segment : segmentRepository.findRange(patientId,
+                start.toLocalDate(), end.toLocalDate(), Limit.of(max))) {
+            if (readings.size() >= max) {
+                // Segments come in day order: the rest are later than everything collected
+                break;
+            }
+            for (VitalObservation reading : VitalSegmentCodec.decode(patientId,
+                    segment.getId().getSegmentDay(), segment.getData())) {
+                LocalDateTime observedAt = reading.getId().getObservedAt();
+                if (!observedAt.isBefore(start) && observedAt.isBefore(end)) {
+                    readings.add(reading);
+                }
+            }
+        }
+        readings.addAll(observationRepository.findRange(patientId, start, end, Limit.of(max)));
+        readings.sort(Comparator.comparing(reading -> reading.getId().getObservedAt()));
+        return readings.subList(0, Math.min(max, readings.size())).stream().map(this::mapToVitalsResponse).toList();
+    }
+
+    /**
+     * Hourly or daily min/max/avg/last per vital for the buckets starting in
+     * {@code [from, to)}; {@code from} is rounded down to its bucket. Defaults
+     * to the last week of hours or the last year of days.
+     */
+    @Transactional(readOnly = true)
+    public List<VitalRollupResponse> getRollups(Long doctorId, Long patientId, String resolution, String metric,
+                                                LocalDateTime from, LocalDateTime to) {
+        checkOwner(doctorId, patientId);
+        VitalRollup.Resolution bucket = parseResolution(resolution);
+        LocalDateTime end = to == null ? LocalDateTime.now() : to;
+        LocalDateTime earliest = bucket == VitalRollup.Resolution.HOUR
+                ? end.minusHours(maxRollupHours) : end.minusDays(maxRollupDays);
+        LocalDateTime start = from == null
+                ? (bucket == VitalRollup.Resolution.HOUR ? end.minusDays(7) : end.minusDays(365))
+                : from;
+        start = bucketStart(bucket, start.isBefore(earliest) ? earliest : start);
+
+        List<VitalRollup> rollups = metric == null
+                ? rollupRepository.findRange(patientId, bucket, start, end)
+                : rollupRepository.findRange(patientId, bucket, start, end, VitalMetric.fromKey(metric));
+        return rollups.stream().map(rollup -> new VitalRollupResponse(
+                rollup.getId().getMetric().key(),
+                rollup.getId().getBucketStart(),
+                rollup.getReadings(),
+                rollup.getMinimum(),
+                rollup.getMaximum(),
+                Math.round(rollup.getTotal() / rollup.getReadings() * 100) / 100.0,
+                rollup.getLast())).toList();
+    }
+
+    // The newest reading of each vital, read from the newest daily rollups
+    @Transactional(readOnly = true)
+    public List<LatestVitalResponse> getLatestVitals(Long doctorId, Long patientId) {
+        checkOwner(doctorId, patientId);
+        return rollupRepository.findNewest(patientId, VitalRollup.Resolution.DAY).stream()
+                .sorted(Comparator.comparing(rollup -> rollup.getId().getMetric()))
+                .map(rollup -> new LatestVitalResponse(
+                        rollup.getId().getMetric().key(), rollup.getLast(), rollup.getLastAt()))
+                .toList();
+    }
+
+    /**
+     * Folds raw readings older than the newest {@code vitals.compaction.raw-days}
+     * days into daily segments, one patient per transaction. Readings that
+     * arrive late for a day already compacted are merged into its segment on
+     * the next run. Shards are compacted one after the other.
+     */
+    @Scheduled(fixedDelayString = "${vitals.compaction.interval:PT1H}")
+    public void compactSegments() {
+        LocalDateTime cutoff = LocalDate.now().minusDays(Math.max(1, rawDays) - 1L).atStartOfDay();
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        shards.forEach(shard -> {
+            List<Long> patientIds = transaction.execute(
+                    status -> observationRepository.findPatientIdsObservedBefore(cutoff));
+            int compacted = 0;
+            for (Long patientId : patientIds) {
+                compacted += transaction.execute(status -> compact(patientId, cutoff));
+            }
+            if (!patientIds.isEmpty()) {
+                log.info("Compacted {} vitals readings of {} patients into daily segments on shard {}",
+                        compacted, patientIds.size(), shard);
+            }
+        });
+    }
+
+    private int compact(Long patientId, LocalDateTime cutoff) {
+        if (patientRepository.lockById(patientId).isEmpty()) {
+            return observationRepository.deleteObservedBefore(patientId, cutoff);
+        }
+        Map<LocalDate, List<VitalObservation>> days = new TreeMap<>();
+        List<VitalObservation> raw = observationRepository.findObservedBefore(patientId, cutoff);
+        for (VitalObservation observation : raw) {
+            days.computeIfAbsent(observation.getId().getObservedAt().toLocalDate(), day -> new ArrayList<>())
+                    .add(observation);
+        }
+        days.forEach((day, observations) -> {
+            VitalSegment.Key key = new VitalSegment.Key(patientId, day);
+            VitalSegment segment = segmentRepository.findById(key).orElse(null);
+            NavigableMap<LocalDateTime, VitalObservation> merged = new TreeMap<>();
+            if (segment != null) {
+                VitalSegmentCodec.decode(patientId, day, segment.getData())
+                        .forEach(reading -> merged.put(reading.getId().getObservedAt(), reading));
+            }
+            observations.forEach(reading -> merged.putIfAbsent(reading.getId().getObservedAt(), reading));
+            byte[] data = VitalSegmentCodec.encode(day, new ArrayList<>(merged.values()));
+            if (segment == null) {
+                entityManager.persist(new VitalSegment(key, merged.size(), data));
+            } else {
+                segment.setReadings(merged.size());
+                segment.setData(data);
+            }
+        });
+        entityManager.flush();
+        observationRepository.deleteObservedBefore(patientId, cutoff);
+        return raw.size();
+    }
+
+    /**
+     * The patient's current vitals as a reading taken at {@code observedAt},
+     * with the blood pressure split into systolic and diastolic.
+     */
+    public static VitalObservation vitalsOf(Patient patient, LocalDateTime observedAt) {
+        return observation(patient.getId(), observedAt, patient.getTemperature(), patient.getOxygen(),
+                patient.getPulse(), patient.getBloodPressure(), patient.getWeight());
+    }
+
+    private static VitalObservation observation(Long patientId, LocalDateTime observedAt, Double temperature,
+                                                Double oxygen, Integer pulse, String bloodPressure, Double weight) {
+        // Stored with the database's microsecond precision, so duplicates are detected as stored
+        VitalObservation observation = new VitalObservation(patientId, observedAt.truncatedTo(ChronoUnit.MICROS));
+        observation.set(VitalMetric.TEMPERATURE, temperature);
+        observation.set(VitalMetric.OXYGEN, oxygen);
+        observation.set(VitalMetric.PULSE, pulse == null ? null : pulse.doubleValue());
+        observation.set(VitalMetric.WEIGHT, weight);
+        Matcher matcher = bloodPressure == null ? null : BLOOD_PRESSURE.matcher(bloodPressure);
+        if (matcher != null && matcher.find()) {
+            observation.setSystolic(Integer.parseInt(matcher.group(1)));
+            observation.setDiastolic(Integer.parseInt(matcher.group(2)));
+        }
+        return observation;
+    }
+
+    /**
+     * Drops readings at times the patient already has, in raw rows or in
+     * segments, and returns how many were dropped.
+     */
+    private int removeRecorded(Long patientId, NavigableMap<LocalDateTime, VitalObservation> observations) {
+        if (observations.isEmpty()) {
+            return 0;
+        }
+        LocalDateTime first = observations.firstKey();
+        LocalDateTime last = observations.lastKey();
+        Set<LocalDateTime> recorded = new HashSet<>(observationRepository.findObservedAtBetween(patientId, first, last));
+        for (VitalSegment segment : segmentRepository.findRange(patientId,
+                first.toLocalDate(), last.toLocalDate(), Limit.unlimited())) {
+            VitalSegmentCodec.decode(patientId, segment.getId().getSegmentDay(), segment.getData())
+                    .forEach(reading -> recorded.add(reading.getId().getObservedAt()));
+        }
+        int before = observations.size();
+        observations.keySet().removeAll(recorded);
+        return before - observations.size();
+    }
+
+    /**
+     * Inserts the readings and adds them to their rollups. Readings are
+     * summed per bucket first, and the buckets already stored are read with
+     * one query per patient and resolution, so a batch costs a few queries
+     * plus batched inserts and updates however many buckets it spans. For
+     * existing patients the caller must hold the patient lock, so that no
+     * other transaction inserts the same new bucket.
+     *
+     * @param newPatients the readings belong to patients created in this
+     *                    transaction, which cannot have rollups yet
+     */
+    private void append(Collection<VitalObservation> observations, boolean newPatients) {
+        Map<VitalRollup.Key, VitalRollup> deltas = new HashMap<>();
+        for (VitalObservation observation : observations) {
+            // persist, not save: save would SELECT each assigned key first
+            entityManager.persist(observation);
+            LocalDateTime observedAt = observation.getId().getObservedAt();
+            for (VitalMetric metric : VitalMetric.values()) {
+                Double value = observation.get(metric);
+                if (value == null) {
+                    continue;
+                }
+                for (VitalRollup.Resolution resolution : RESOLUTIONS) {
+                    VitalRollup.Key key = new VitalRollup.Key(observation.getId().getPatientId(), resolution, metric,
+                            bucketStart(resolution, observedAt));
+                    VitalRollup delta = deltas.get(key);
+                    if (delta == null) {
+                        deltas.put(key, new VitalRollup(key, 1, value, value, value, value, observedAt));
+                    } else {
+                        add(delta, 1, value, value, value, value, observedAt);
+                    }
+                }
+            }
+        }
+
+        if (!newPatients) {
+            Map<VitalRollup.Key, LocalDateTime[]> spans = new HashMap<>();
+            for (VitalRollup.Key key : deltas.keySet()) {
+                LocalDateTime[] span = spans.computeIfAbsent(new VitalRollup.Key(key.getPatientId(),
+                        key.getResolution(), null, null), series -> new LocalDateTime[]{key.getBucketStart(), key.getBucketStart()});
+                if (key.getBucketStart().isBefore(span[0])) {
+                    span[0] = key.getBucketStart();
+                }
+                if (key.getBucketStart().isAfter(span[1])) {
+                    span[1] = key.getBucketStart();
+                }
+            }
+            spans.forEach((series, span) -> {
+                for (VitalRollup stored : rollupRepository.findRange(series.getPatientId(), series.getResolution(),
+                        span[0], span[1].plusNanos(1000))) {
+                    VitalRollup delta = deltas.remove(stored.getId());
+                    if (delta != null) {
+                        // Managed entity: written back in the flush's batched updates
+                        add(stored, delta.getReadings(), delta.getTotal(), delta.getMinimum(), delta.getMaximum(),
+                                delta.getLast(), delta.getLastAt());
+                    }
+                }
+            });
+        }
+        deltas.values().forEach(entityManager::persist);
+    }
+
+    private static void add(VitalRollup rollup, long readings, double total, double minimum, double maximum,
+                            double last, LocalDateTime lastAt) {
+        rollup.setReadings(rollup.getReadings() + readings);
+        rollup.setTotal(rollup.getTotal() + total);
+        rollup.setMinimum(Math.min(rollup.getMinimum(), minimum));
+        rollup.setMaximum(Math.max(rollup.getMaximum(), maximum));
+        if (!lastAt.isBefore(rollup.getLastAt())) {
+            rollup.setLast(last);
+            rollup.setLastAt(lastAt);
+        }
+    }
+
+    private void lockPatient(Long doctorId, Long patientId) {
+        Patient patient = patientRepository.lockById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found"));
+        if (!patient.getDoctorId().equals(doctorId)) {
+            throw new RuntimeException("Unauthorized access to patient data");
+        }
+    }
+
+    // The patient's own row, usually from the second-level cache
+    private void checkOwner(Long doctorId, Long patientId) {
+        Patient patient = patientRepository.findById(patientId)
+                .orElseThrow(() -> new RuntimeException("Patient not found"));
+        if (!patient.getDoctorId().equals(doctorId)) {
+            throw new RuntimeException("Unauthorized access to patient data");
+        }
+    }
+
+    private static VitalRollup.Resolution parseResolution(String resolution) {
+        for (VitalRollup.Resolution candidate : RESOLUTIONS) {
+            if (candidate.name().equalsIgnoreCase(resolution)) {
+                return candidate;
+            }
+        }
+        throw new RuntimeException("Unknown resolution: " + resolution);
+    }
+
+    private static LocalDateTime bucketStart(VitalRollup.Resolution resolution, LocalDateTime time) {
+        return time.truncatedTo(resolution == VitalRollup.Resolution.HOUR ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private VitalsResponse mapToVitalsResponse(VitalObservation observation) {
+        return new VitalsResponse(
+                observation.getId().getObservedAt(),
+                observation.getTemperature(),
+                observation.getOxygen(),
+                observation.getPulse(),
+                observation.getSystolic(),
+                observation.getDiastolic(),
+                observation.getWeight()
+        );
+    }
+}
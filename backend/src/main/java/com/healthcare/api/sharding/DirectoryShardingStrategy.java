@@ -0,0 +1,58 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.model.Doctor;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Places doctors by a directory of hospitals and states, so a region's
+ * doctors share a shard. A doctor whose hospital is named in the directory
+ * goes to its shard; otherwise the longest state or place name that appears
+ * as words in the hospital's name decides. Doctors matching no entry are
+ * spread by hash.
+ */
+public class DirectoryShardingStrategy implements ShardingStrategy {
+
+    private final Map<String, Integer> hospitals;
+    private final List<Map.Entry<String, Integer>> places;
+    private final HashShardingStrategy fallback = new HashShardingStrategy();
+
+    /**
+     * @param entries hospital, state or place names (any case) and their shards
+     */
+    public DirectoryShardingStrategy(Map<String, Integer> entries) {
+        this.hospitals = new HashMap<>();
+        this.places = new ArrayList<>();
+        entries.forEach((name, shard) -> {
+            String key = normalize(name);
+            hospitals.put(key, shard);
+            places.add(Map.entry(" " + key + " ", shard));
+        });
+        places.sort(Comparator.comparingInt((Map.Entry<String, Integer> entry) -> entry.getKey().length()).reversed());
+    }
+
+    @Override
+    public int shardFor(Doctor doctor, int shards) {
+        String hospital = normalize(doctor.getHospital() == null ? "" : doctor.getHospital());
+        Integer shard = hospitals.get(hospital);
+        if (shard == null) {
+            String words = " " + hospital + " ";
+            for (Map.Entry<String, Integer> place : places) {
+                if (words.contains(place.getKey())) {
+                    shard = place.getValue();
+                    break;
+                }
+            }
+        }
+        return shard != null && shard < shards ? shard : fallback.shardFor(doctor, shards);
+    }
+
+    // Lower case, punctuation as spaces, single spaces
+    private static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT).replaceAll("[^\\p{L}\\p{N}]+", " ").strip();
+    }
+}
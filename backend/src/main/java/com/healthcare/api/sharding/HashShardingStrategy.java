@@ -0,0 +1,28 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.model.Doctor;
+
+/**
+ * Spreads doctors evenly by a jump consistent hash of their id. Adding a
+ * shard moves only the doctors that now belong on it, about one in
+ * {@code shards}, so a rebalance after growing copies little data.
+ */
+public class HashShardingStrategy implements ShardingStrategy {
+
+    @Override
+    public int shardFor(Doctor doctor, int shards) {
+        return jumpHash(doctor.getId(), shards);
+    }
+
+    // Lamping and Veach, "A Fast, Minimal Memory, Consistent Hash Algorithm"
+    static int jumpHash(long key, int buckets) {
+        long bucket = -1;
+        long next = 0;
+        while (next < buckets) {
+            bucket = next;
+            key = key * 2862933555777941757L + 1;
+            next = (long) ((bucket + 1) * ((double) (1L << 31) / (double) ((key >>> 33) + 1)));
+        }
+        return (int) bucket;
+    }
+}
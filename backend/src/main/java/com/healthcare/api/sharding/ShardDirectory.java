@@ -0,0 +1,177 @@
+package com.healthcare.api.sharding;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.healthcare.api.cache.CacheInvalidation;
+import com.healthcare.api.cache.CacheInvalidationChannel;
+import com.healthcare.api.model.Doctor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Maps doctors to the shards holding their patients, from the
+ * {@code doctor_shards} table of the home database (shard 0). Placements
+ * are cached for {@code sharding.placements.cache-ttl}. A change made here
+ * drops the doctor's entry at once, and with a {@link CacheInvalidationChannel}
+ * on the other instances too; a lost message is outlived by the TTL. The
+ * directory talks to the shards' pools directly, outside any transaction
+ * the caller may be in.
+ */
+@Slf4j
+public class ShardDirectory {
+
+    public record Placement(int shard, boolean moving) {
+    }
+
+    private static final Placement HOME = new Placement(0, false);
+    // Not an entity, so the second-level cache's receivers ignore these messages
+    private static final String PLACEMENTS = "doctor_shards";
+
+    private final List<? extends DataSource> pools;
+    private final JdbcTemplate home;
+    private final ShardingStrategy strategy;
+    private final Cache<Long, Placement> placements;
+    private final CacheInvalidationChannel channel;
+    private final String source = UUID.randomUUID().toString();
+    private final Consumer<CacheInvalidation> receiver = this::receive;
+
+    public ShardDirectory(List<? extends DataSource> pools, ShardingStrategy strategy, Duration cacheTtl,
+                          long cacheSize, CacheInvalidationChannel channel) {
+        this.pools = pools;
+        this.home = new JdbcTemplate(pools.get(0));
+        this.strategy = strategy;
+        this.placements = Caffeine.newBuilder()
+                .maximumSize(cacheSize)
+                .expireAfterWrite(cacheTtl)
+                .build();
+        this.channel = channel;
+        if (channel != null) {
+            channel.subscribe(receiver);
+        }
+    }
+
+    public void close() {
+        if (channel != null) {
+            channel.unsubscribe(receiver);
+        }
+    }
+
+    public int count() {
+        return pools.size();
+    }
+
+    /**
+     * The shard's pool itself, not routed and not bound to transactions.
+     */
+    public DataSource pool(int shard) {
+        return pools.get(shard);
+    }
+
+    /**
+     * The shard the strategy chooses for the doctor now, which may differ
+     * from where the doctor's records are.
+     */
+    public int shardFor(Doctor doctor) {
+        return Math.floorMod(strategy.shardFor(doctor, pools.size()), pools.size());
+    }
+
+    public Placement placement(Long doctorId) {
+        return placements.get(doctorId, this::load);
+    }
+
+    /**
+     * The placement as stored, bypassing the cache.
+     */
+    public Placement reload(Long doctorId) {
+        Placement placement = load(doctorId);
+        placements.put(doctorId, placement);
+        return placement;
+    }
+
+    /**
+     * Places a new doctor on the strategy's shard. Called once the doctor
+     * has an id, before any of their patients are written.
+     */
+    public int assign(Doctor doctor) {
+        int shard = shardFor(doctor);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        home.update("INSERT INTO doctor_shards (doctor_id, shard, moving, assigned_at) VALUES (?, ?, FALSE, ?)",
+                doctor.getId(), shard, now);
+        if (shard != 0) {
+            new JdbcTemplate(pools.get(shard)).update(
+                    "INSERT INTO doctor_shards (doctor_id, shard, moving, assigned_at) VALUES (?, ?, FALSE, ?)",
+                    doctor.getId(), shard, now);
+        }
+        placements.put(doctor.getId(), new Placement(shard, false));
+        return shard;
+    }
+
+    /**
+     * Stops routing the doctor's requests while their records are moved.
+     */
+    public void markMoving(Long doctorId) {
+        if (home.update("UPDATE doctor_shards SET moving = TRUE WHERE doctor_id = ?", doctorId) == 0) {
+            // Doctors created before sharding was enabled have no row and live on the home database
+            home.update("INSERT INTO doctor_shards (doctor_id, shard, moving, assigned_at) VALUES (?, 0, TRUE, ?)",
+                    doctorId, Timestamp.valueOf(LocalDateTime.now()));
+        }
+        placements.invalidate(doctorId);
+        publish(doctorId);
+    }
+
+    /**
+     * Routes the doctor's requests to {@code shard} again, or to their old
+     * shard after a failed move.
+     */
+    public void place(Long doctorId, int shard) {
+        home.update("UPDATE doctor_shards SET shard = ?, moving = FALSE, assigned_at = ? WHERE doctor_id = ?",
+                shard, Timestamp.valueOf(LocalDateTime.now()), doctorId);
+        placements.put(doctorId, new Placement(shard, false));
+        publish(doctorId);
+    }
+
+    /**
+     * Every doctor's shard as stored; doctors missing from it are on shard 0.
+     */
+    public Map<Long, Integer> assignments() {
+        Map<Long, Integer> shards = new HashMap<>();
+        home.query("SELECT doctor_id, shard FROM doctor_shards",
+                (RowCallbackHandler) rs -> shards.put(rs.getLong(1), rs.getInt(2)));
+        return shards;
+    }
+
+    private void publish(Long doctorId) {
+        if (channel == null) {
+            return;
+        }
+        try {
+            channel.publish(new CacheInvalidation(source, PLACEMENTS, Set.of(doctorId)));
+        } catch (RuntimeException e) {
+            // Other instances catch up when their cached placement expires
+            log.warn("Publishing the placement of doctor {} failed", doctorId, e);
+        }
+    }
+
+    private void receive(CacheInvalidation invalidation) {
+        if (PLACEMENTS.equals(invalidation.entityName()) && !source.equals(invalidation.source())) {
+            invalidation.ids().forEach(id -> placements.invalidate(((Number) id).longValue()));
+        }
+    }
+
+    private Placement load(Long doctorId) {
+        List<Placement> rows = home.query("SELECT shard, moving FROM doctor_shards WHERE doctor_id = ?",
+                (rs, row) -> new Placement(rs.getInt(1), rs.getBoolean(2)), doctorId);
+        return rows.isEmpty() ? HOME : rows.get(0);
+    }
+}
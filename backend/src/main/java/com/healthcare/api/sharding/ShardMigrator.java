@@ -0,0 +1,281 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.datasource.ShardContext;
+import com.healthcare.api.dto.ShardSummaryResponse;
+import com.healthcare.api.model.Doctor;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.PopulationRollup;
+import com.healthcare.api.service.PopulationRollupService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Blob;
+import java.sql.Clob;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Moves doctors' records between shards: one doctor on request, or every
+ * doctor the strategy now places elsewhere, e.g. after a shard was added.
+ * <p>
+ * A move marks the doctor as moving in the directory, so their requests
+ * fail rather than write to the old shard; the directory drops its cached
+ * placement here and on the other instances. It then copies the
+ * doctor's rows to the new shard in one transaction, with their population
+ * cells, routes the doctor there and deletes the rows from the old shard.
+ * Rows keep their ids, which are unique across shards. If the copy fails,
+ * the doctor stays where they were.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ShardMigrator {
+
+    // Copied in this order and deleted in reverse; patient_symptoms references patients
+    private static final List<String> DOCTOR_TABLES =
+            List.of("patients", "patient_tombstones", "doctor_analytics", "doctor_disease_counts");
+    private static final List<String> PATIENT_TABLES =
+            List.of("patient_symptoms", "vital_observations", "vital_segments", "vital_rollups");
+    private static final int COPY_BATCH_SIZE = 500;
+
+    private final ObjectProvider<ShardDirectory> directoryProvider;
+    private final Shards shards;
+    private final JdbcTemplate jdbcTemplate;
+    private final PopulationRollupService populationRollupService;
+    private final PlatformTransactionManager transactionManager;
+
+    public record MoveResult(Long doctorId, int from, int to, long patients, long rows, long millis) {
+    }
+
+    public record RebalanceResult(int doctors, int moved, int failed, long patients, long millis) {
+    }
+
+    /**
+     * Doctors, patients and misplaced doctors per shard; patients are
+     * counted on all shards at once.
+     */
+    public List<ShardSummaryResponse> summarize() {
+        ShardDirectory directory = directory();
+        Map<Long, Integer> assigned = directory.assignments();
+        long[] doctors = new long[directory.count()];
+        long[] misplaced = new long[directory.count()];
+        for (Doctor doctor : doctors(directory)) {
+            int shard = assigned.getOrDefault(doctor.getId(), 0);
+            doctors[shard]++;
+            if (directory.shardFor(doctor) != shard) {
+                misplaced[shard]++;
+            }
+        }
+        List<Long> patients = shards.gather(shard -> jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM patients", Long.class));
+        List<ShardSummaryResponse> summary = new ArrayList<>();
+        for (int shard = 0; shard < directory.count(); shard++) {
+            summary.add(new ShardSummaryResponse(shard, doctors[shard], patients.get(shard), misplaced[shard]));
+        }
+        return summary;
+    }
+
+    public MoveResult move(Long doctorId, int target) {
+        ShardDirectory directory = directory();
+        if (target < 0 || target >= directory.count()) {
+            throw new RuntimeException("No shard " + target + " (there are " + directory.count() + ")");
+        }
+        int source = directory.reload(doctorId).shard();
+        if (source == target) {
+            return new MoveResult(doctorId, source, target, 0, 0, 0);
+        }
+        directory.markMoving(doctorId);
+        return moveMarked(directory, doctorId, source, target);
+    }
+
+    /**
+     * Moves every doctor to the shard the strategy chooses for them now,
+     * one at a time. A failed move is logged and the doctor left in place;
+     * run again to retry.
+     */
+    public RebalanceResult rebalance() {
+        long start = System.nanoTime();
+        ShardDirectory directory = directory();
+        Map<Long, Integer> assigned = directory.assignments();
+        List<Doctor> doctors = doctors(directory);
+        List<long[]> moves = new ArrayList<>();
+        for (Doctor doctor : doctors) {
+            int source = assigned.getOrDefault(doctor.getId(), 0);
+            int target = directory.shardFor(doctor);
+            if (source != target) {
+                moves.add(new long[]{doctor.getId(), source, target});
+            }
+        }
+
+        int moved = 0;
+        int failed = 0;
+        long patients = 0;
+        for (long[] move : moves) {
+            try {
+                directory.markMoving(move[0]);
+                patients += moveMarked(directory, move[0], (int) move[1], (int) move[2]).patients();
+                moved++;
+            } catch (RuntimeException e) {
+                log.error("Could not move doctor {} from shard {} to shard {}", move[0], move[1], move[2], e);
+                failed++;
+            }
+        }
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Rebalanced {} doctors over {} shards: {} moved with {} patients, {} failed, in {} ms",
+                doctors.size(), directory.count(), moved, patients, failed, millis);
+        return new RebalanceResult(doctors.size(), moved, failed, patients, millis);
+    }
+
+    private MoveResult moveMarked(ShardDirectory directory, Long doctorId, int source, int target) {
+        long start = System.nanoTime();
+        JdbcTemplate sourceShard = new JdbcTemplate(directory.pool(source));
+        Map<PopulationRollup.Key, Long> cells = cells(sourceShard, doctorId);
+        long patients = cells.values().stream().mapToLong(Long::longValue).sum();
+        long[] rows = {0};
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        try {
+            ShardContext.run(target, () -> transaction.executeWithoutResult(status -> {
+                for (String table : DOCTOR_TABLES) {
+                    rows[0] += copy(sourceShard, table, "SELECT * FROM " + table + " WHERE doctor_id = ?", doctorId);
+                }
+                for (String table : PATIENT_TABLES) {
+                    rows[0] += copy(sourceShard, table, "SELECT t.* FROM " + table + " t "
+                            + "JOIN patients p ON p.id = t.patient_id WHERE p.doctor_id = ?", doctorId);
+                }
+                if (target != 0) {
+                    // The home database's row is the directory entry itself
+                    jdbcTemplate.update("INSERT INTO doctor_shards (doctor_id, shard, moving, assigned_at) "
+                            + "VALUES (?, ?, FALSE, ?)", doctorId, target, Timestamp.valueOf(LocalDateTime.now()));
+                }
+                populationRollupService.onPatientsMoved(cells);
+            }));
+        } catch (RuntimeException e) {
+            directory.place(doctorId, source);
+            throw e;
+        }
+        directory.place(doctorId, target);
+
+        Map<PopulationRollup.Key, Long> removed = new HashMap<>();
+        cells.forEach((cell, count) -> removed.put(cell, -count));
+        try {
+            ShardContext.run(source, () -> transaction.executeWithoutResult(status -> {
+                for (String table : PATIENT_TABLES) {
+                    jdbcTemplate.update("DELETE FROM " + table + " WHERE patient_id IN "
+                            + "(SELECT id FROM patients WHERE doctor_id = ?)", doctorId);
+                }
+                List<String> doctorTables = new ArrayList<>(DOCTOR_TABLES);
+                Collections.reverse(doctorTables);
+                for (String table : doctorTables) {
+                    jdbcTemplate.update("DELETE FROM " + table + " WHERE doctor_id = ?", doctorId);
+                }
+                if (source != 0) {
+                    jdbcTemplate.update("DELETE FROM doctor_shards WHERE doctor_id = ?", doctorId);
+                }
+                populationRollupService.onPatientsMoved(removed);
+            }));
+        } catch (RuntimeException e) {
+            // Nothing routes to the old rows any more, but they count in that shard's population cube
+            log.error("Moved doctor {} to shard {} but could not delete their rows from shard {}",
+                    doctorId, target, source, e);
+        }
+
+        long millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        log.info("Moved doctor {} with {} patients ({} rows) from shard {} to shard {} in {} ms",
+                doctorId, patients, rows[0], source, target, millis);
+        return new MoveResult(doctorId, source, target, patients, rows[0], millis);
+    }
+
+    /**
+     * Streams the rows selected from the source shard into the same table
+     * of the shard the current transaction runs on, in JDBC batches.
+     */
+    private long copy(JdbcTemplate source, String table, String select, Long doctorId) {
+        List<Object[]> batch = new ArrayList<>(COPY_BATCH_SIZE);
+        String[] insert = {null};
+        long[] copied = {0};
+        source.query(select, (RowCallbackHandler) rs -> {
+            ResultSetMetaData metadata = rs.getMetaData();
+            int columns = metadata.getColumnCount();
+            if (insert[0] == null) {
+                List<String> names = new ArrayList<>(columns);
+                for (int i = 1; i <= columns; i++) {
+                    names.add(metadata.getColumnLabel(i));
+                }
+                insert[0] = "INSERT INTO " + table + " (" + String.join(", ", names) + ") VALUES ("
+                        + String.join(", ", Collections.nCopies(columns, "?")) + ")";
+            }
+            Object[] row = new Object[columns];
+            for (int i = 1; i <= columns; i++) {
+                row[i - 1] = detached(rs.getObject(i));
+            }
+            batch.add(row);
+            if (batch.size() == COPY_BATCH_SIZE) {
+                jdbcTemplate.batchUpdate(insert[0], batch);
+                copied[0] += batch.size();
+                batch.clear();
+            }
+        }, doctorId);
+        if (!batch.isEmpty()) {
+            jdbcTemplate.batchUpdate(insert[0], batch);
+            copied[0] += batch.size();
+        }
+        return copied[0];
+    }
+
+    // LOBs are read while the source row is current; they belong to the source connection
+    private static Object detached(Object value) throws SQLException {
+        if (value instanceof Clob clob) {
+            return clob.getSubString(1, (int) clob.length());
+        }
+        if (value instanceof Blob blob) {
+            return blob.getBytes(1, (int) blob.length());
+        }
+        return value;
+    }
+
+    private static Map<PopulationRollup.Key, Long> cells(JdbcTemplate source, Long doctorId) {
+        Map<PopulationRollup.Key, Long> cells = new HashMap<>();
+        source.query("SELECT created_at, state, city, disease, risk_level FROM patients WHERE doctor_id = ?",
+                (RowCallbackHandler) rs -> {
+                    Patient patient = new Patient();
+                    patient.setCreatedAt(rs.getObject(1, LocalDateTime.class));
+                    patient.setState(rs.getString(2));
+                    patient.setCity(rs.getString(3));
+                    patient.setDisease(rs.getString(4));
+                    patient.setRiskLevel(rs.getString(5));
+                    cells.merge(PopulationRollupService.cellOf(patient), 1L, Long::sum);
+                }, doctorId);
+        return cells;
+    }
+
+    private static List<Doctor> doctors(ShardDirectory directory) {
+        return new JdbcTemplate(directory.pool(0)).query("SELECT id, hospital FROM doctors ORDER BY id",
+                (rs, row) -> {
+                    Doctor doctor = new Doctor();
+                    doctor.setId(rs.getLong(1));
+                    doctor.setHospital(rs.getString(2));
+                    return doctor;
+                });
+    }
+
+    private ShardDirectory directory() {
+        ShardDirectory directory = directoryProvider.getIfAvailable();
+        if (directory == null) {
+            throw new RuntimeException("Sharding is not enabled");
+        }
+        return directory;
+    }
+}
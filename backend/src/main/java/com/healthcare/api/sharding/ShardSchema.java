@@ -0,0 +1,72 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.datasource.ShardContext;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.relational.SchemaManager;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.util.List;
+
+/**
+ * Applies {@code spring.jpa.hibernate.ddl-auto} to the shards other than
+ * the home database, which Hibernate handles itself: {@code create} and
+ * {@code create-drop} recreate the schema (the latter also drops it at
+ * shutdown), {@code validate} checks it, anything else leaves it alone.
+ * <p>
+ * Each shard's id sequences start at its own multiple of {@link #ID_STRIDE},
+ * so ids stay unique across shards: the second-level cache can key patients
+ * by id alone, and a doctor's rows keep their ids when moved. A shard set
+ * up by hand needs the same {@code ALTER SEQUENCE ... RESTART WITH}.
+ */
+@Slf4j
+public class ShardSchema implements InitializingBean, DisposableBean {
+
+    public static final long ID_STRIDE = 1L << 40;
+
+    private static final List<String> SEQUENCES = List.of("patient_seq", "population_delta_seq");
+
+    private final SessionFactory sessionFactory;
+    private final ShardDirectory directory;
+    private final String ddlAuto;
+
+    public ShardSchema(SessionFactory sessionFactory, ShardDirectory directory, String ddlAuto) {
+        this.sessionFactory = sessionFactory;
+        this.directory = directory;
+        this.ddlAuto = ddlAuto;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        SchemaManager schema = sessionFactory.getSchemaManager();
+        for (int shard = 1; shard < directory.count(); shard++) {
+            int current = shard;
+            switch (ddlAuto) {
+                case "create", "create-drop" -> ShardContext.run(shard, () -> {
+                    schema.dropMappedObjects(false);
+                    schema.exportMappedObjects(false);
+                    JdbcTemplate jdbcTemplate = new JdbcTemplate(directory.pool(current));
+                    for (String sequence : SEQUENCES) {
+                        jdbcTemplate.execute("ALTER SEQUENCE " + sequence + " RESTART WITH "
+                                + (current * ID_STRIDE + 1));
+                    }
+                    log.info("Created the schema on shard {}", current);
+                });
+                case "validate" -> ShardContext.run(shard, schema::validateMappedObjects);
+                default -> {
+                }
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        if ("create-drop".equals(ddlAuto)) {
+            SchemaManager schema = sessionFactory.getSchemaManager();
+            for (int shard = 1; shard < directory.count(); shard++) {
+                ShardContext.run(shard, () -> schema.dropMappedObjects(false));
+            }
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.model.Doctor;
+
+/**
+ * Chooses the shard for a doctor's patients when the doctor is created,
+ * and again when {@link ShardMigrator#rebalance} checks where each doctor
+ * belongs. Defining a bean of this type replaces the configured strategy.
+ */
+public interface ShardingStrategy {
+
+    /**
+     * @return a shard between 0 and {@code shards - 1}
+     */
+    int shardFor(Doctor doctor, int shards);
+}
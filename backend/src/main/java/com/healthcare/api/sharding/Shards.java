@@ -0,0 +1,160 @@
+package com.healthcare.api.sharding;
+
+import com.healthcare.api.datasource.ReplicaRoutingDataSource;
+import com.healthcare.api.datasource.ShardContext;
+import com.healthcare.api.model.Doctor;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+
+/**
+ * What services need to know about sharding. Without it (the default)
+ * there is one shard, the application's database, and every method runs
+ * its work once on the calling thread; with {@code sharding.enabled} work
+ * that covers every doctor runs once per shard, pinned to it.
+ */
+@Component
+public class Shards implements DisposableBean {
+
+    private final ShardDirectory directory;
+    private final ExecutorService gatherPool;
+
+    public Shards(ObjectProvider<ShardDirectory> directory) {
+        this.directory = directory.getIfAvailable();
+        int count = count();
+        if (count > 1) {
+            AtomicInteger threadNumber = new AtomicInteger();
+            this.gatherPool = Executors.newFixedThreadPool(count, task -> {
+                Thread thread = new Thread(task, "shard-gather-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        } else {
+            this.gatherPool = null;
+        }
+    }
+
+    public boolean isSharded() {
+        return directory != null;
+    }
+
+    public int count() {
+        return directory == null ? 1 : directory.count();
+    }
+
+    public int shardOf(Long doctorId) {
+        return directory == null ? 0 : directory.placement(doctorId).shard();
+    }
+
+    /**
+     * The shard a transaction on this thread takes its connection from: the
+     * pinned one, otherwise the request doctor's, otherwise the home
+     * database. Always 0 without sharding.
+     */
+    public int current() {
+        if (directory == null) {
+            return 0;
+        }
+        Integer pinned = ShardContext.pinned();
+        if (pinned != null) {
+            return pinned;
+        }
+        Long doctorId = ReplicaRoutingDataSource.currentDoctorId();
+        return doctorId == null ? 0 : directory.placement(doctorId).shard();
+    }
+
+    /**
+     * Places a newly created doctor; nothing to do without sharding.
+     */
+    public void assign(Doctor doctor) {
+        if (directory != null) {
+            directory.assign(doctor);
+        }
+    }
+
+    /**
+     * Runs {@code work} once per shard, one shard after the other.
+     */
+    public void forEach(IntConsumer work) {
+        for (int shard = 0; shard < count(); shard++) {
+            int current = shard;
+            ShardContext.run(shard, () -> work.accept(current));
+        }
+    }
+
+    /**
+     * Runs {@code work} on every shard at once and returns the results in
+     * shard order. The first failure is rethrown once all shards are done.
+     */
+    public <T> List<T> gather(IntFunction<T> work) {
+        if (gatherPool == null) {
+            return List.of(ShardContext.call(0, () -> work.apply(0)));
+        }
+        List<Future<T>> futures = new ArrayList<>(count());
+        for (int shard = 0; shard < count(); shard++) {
+            int current = shard;
+            futures.add(gatherPool.submit(() -> ShardContext.call(current, () -> work.apply(current))));
+        }
+        List<T> results = new ArrayList<>(futures.size());
+        RuntimeException failure = null;
+        for (Future<T> future : futures) {
+            try {
+                results.add(future.get());
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = e.getCause() instanceof RuntimeException runtime
+                            ? runtime : new IllegalStateException(e.getCause());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while gathering from shards", e);
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+        return results;
+    }
+
+    /**
+     * Runs {@code work} against the home database, which holds the doctors
+     * and the symptom dictionary, whoever the request is for.
+     */
+    public <T> T onHome(Supplier<T> work) {
+        return ShardContext.call(0, work);
+    }
+
+    /**
+     * Runs {@code work} against the doctor's shard. Needed where the
+     * request's doctor is unknown to the thread, such as the async threads
+     * that write streamed responses.
+     */
+    public void forDoctor(Long doctorId, Runnable work) {
+        if (directory == null) {
+            work.run();
+            return;
+        }
+        ShardDirectory.Placement placement = directory.placement(doctorId);
+        if (placement.moving()) {
+            throw new RuntimeException("Records of doctor " + doctorId + " are being moved to another shard");
+        }
+        ShardContext.run(placement.shard(), work);
+    }
+
+    @Override
+    public void destroy() {
+        if (gatherPool != null) {
+            gatherPool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,338 @@
+package com.healthcare.api.stream;
+
+import com.healthcare.api.dto.AnalyticsResponse;
+import com.healthcare.api.dto.PatientAlertEvent;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.repository.DoctorAnalyticsRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Pushes dashboard changes and patient alerts to doctors' open
+ * {@code /api/analytics/stream} connections. An open stream is an async
+ * request holding no thread; events are written by a few sender threads,
+ * or by a virtual thread per write with {@code spring.threads.virtual.enabled}.
+ * <p>
+ * Writers report what they change inside their transaction; the stream
+ * reads the doctor's patients version before the commit and publishes once
+ * the commit succeeds, so a rolled-back write is never announced and every
+ * delta carries the version it leads to.
+ */
+@Component
+@RequiredArgsConstructor
+public class AnalyticsStream {
+
+    private final DoctorAnalyticsRepository doctorAnalyticsRepository;
+    private final MeterRegistry meterRegistry;
+
+    private final Map<Long, Set<StreamSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    @Value("${analytics.stream.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${analytics.stream.max-subscribers-per-doctor:16}")
+    private int maxSubscribersPerDoctor;
+
+    @Value("${analytics.stream.buffer-size:64}")
+    private int bufferSize;
+
+    @Value("${analytics.stream.heartbeat-interval:PT15S}")
+    private Duration heartbeatInterval;
+
+    @Value("${analytics.stream.timeout:PT30M}")
+    private Duration timeout;
+
+    @Value("${analytics.stream.reconnect:PT3S}")
+    private Duration reconnect;
+
+    @Value("${analytics.stream.sender-threads:4}")
+    private int senderThreads;
+
+    @Value("${spring.threads.virtual.enabled:false}")
+    private boolean virtualThreads;
+
+    private Executor sender;
+    private Counter alertsSent;
+    private Counter alertsDropped;
+    private Counter deltasCoalesced;
+
+    @PostConstruct
+    void init() {
+        if (virtualThreads) {
+            SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("analytics-stream-");
+            executor.setVirtualThreads(true);
+            sender = executor;
+        } else {
+            AtomicInteger threadNumber = new AtomicInteger();
+            sender = Executors.newFixedThreadPool(senderThreads, task -> {
+                Thread thread = new Thread(task, "analytics-stream-" + threadNumber.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        Gauge.builder("analytics.stream.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open analytics streams")
+                .register(meterRegistry);
+        alertsSent = Counter.builder("analytics.stream.alerts").tag("outcome", "sent")
+                .description("Patient alerts written to analytics streams")
+                .register(meterRegistry);
+        alertsDropped = Counter.builder("analytics.stream.alerts").tag("outcome", "dropped")
+                .description("Patient alerts dropped from full subscriber buffers")
+                .register(meterRegistry);
+        deltasCoalesced = Counter.builder("analytics.stream.deltas.coalesced")
+                .description("Dashboard deltas folded into one a subscriber had not yet been sent")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void close() {
+        subscribers.values().forEach(doctorSubscribers -> doctorSubscribers.forEach(subscriber -> {
+            subscriber.close();
+            subscriber.emitter().complete();
+        }));
+        subscribers.clear();
+        if (sender instanceof ExecutorService executor) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * Opens a stream for the doctor, or returns null when the server or the
+     * doctor already has as many as allowed. The caller reads the dashboard
+     * and passes it to {@link #start}; until then nothing is sent.
+     */
+    public StreamSubscriber subscribe(Long doctorId) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        StreamSubscriber subscriber = new StreamSubscriber(doctorId, new SseEmitter(timeout.toMillis()), bufferSize,
+                this);
+        boolean[] added = new boolean[1];
+        subscribers.compute(doctorId, (id, doctorSubscribers) -> {
+            Set<StreamSubscriber> updated = doctorSubscribers == null
+                    ? ConcurrentHashMap.newKeySet() : doctorSubscribers;
+            if (updated.size() < maxSubscribersPerDoctor) {
+                added[0] = updated.add(subscriber);
+            }
+            return updated.isEmpty() ? null : updated;
+        });
+        if (!added[0]) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        SseEmitter emitter = subscriber.emitter();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(error -> remove(subscriber));
+        emitter.onTimeout(emitter::complete);
+        return subscriber;
+    }
+
+    /**
+     * Queues the dashboard, read after {@link #subscribe}, with its patients
+     * version; deltas are sent from that version on.
+     */
+    public void start(StreamSubscriber subscriber, AnalyticsResponse dashboard, long version) {
+        subscriber.start(dashboard, version);
+    }
+
+    /** Drops a stream that could not be started, and so was never handed to Spring MVC. */
+    public void unsubscribe(StreamSubscriber subscriber) {
+        remove(subscriber);
+    }
+
+    public boolean hasSubscribers(Long doctorId) {
+        return subscribers.containsKey(doctorId);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    /**
+     * Alerts the doctor's streams when a created or updated patient became
+     * high risk, or an updated patient's disease changed. Pass null old values
+     * for a new patient.
+     */
+    public void onPatientSaved(String oldRiskLevel, String oldDisease, Patient patient, boolean created) {
+        if (!hasSubscribers(patient.getDoctorId())) {
+            return;
+        }
+        String reason;
+        if ("high".equalsIgnoreCase(patient.getRiskLevel()) && !"high".equalsIgnoreCase(oldRiskLevel)) {
+            reason = "high-risk";
+        } else if (!created && !Objects.equals(blankToNull(oldDisease), blankToNull(patient.getDisease()))) {
+            reason = "disease-changed";
+        } else {
+            return;
+        }
+        PatientAlertEvent alert = new PatientAlertEvent(patient.getId(), patient.getName(), reason,
+                patient.getRiskLevel(), oldRiskLevel, patient.getDisease(), oldDisease, 0);
+        pending(patient.getDoctorId()).alerts.add(alert);
+    }
+
+    /** Adds to the doctor's dashboard delta for the current transaction. */
+    public void onCountsChanged(Long doctorId, long total, long high, long medium, long low) {
+        pending(doctorId).delta.addCounts(total, high, medium, low);
+    }
+
+    public void onDiseaseCountChanged(Long doctorId, String disease, long delta) {
+        pending(doctorId).delta.addDisease(disease, delta);
+    }
+
+    /**
+     * Ends the doctor's streams once the current transaction commits, after
+     * their counters were rebuilt rather than changed by deltas. Clients
+     * reconnect and start from a fresh dashboard.
+     */
+    public void onCountsRebuilt(Long doctorId) {
+        pending(doctorId).rebuilt = true;
+    }
+
+    @Scheduled(fixedDelayString = "${analytics.stream.heartbeat-interval:PT15S}")
+    public void heartbeat() {
+        long now = System.nanoTime();
+        long idleNanos = heartbeatInterval.toNanos() / 2;
+        subscribers.values().forEach(doctorSubscribers ->
+                doctorSubscribers.forEach(subscriber -> subscriber.offerHeartbeat(now, idleNanos)));
+    }
+
+    long reconnectMillis() {
+        return reconnect.toMillis();
+    }
+
+    void send(StreamSubscriber subscriber) {
+        try {
+            sender.execute(subscriber::drain);
+        } catch (RejectedExecutionException e) {
+            // Shutting down
+            subscriber.close();
+        }
+    }
+
+    void remove(StreamSubscriber subscriber) {
+        subscriber.close();
+        boolean[] removed = new boolean[1];
+        subscribers.computeIfPresent(subscriber.doctorId(), (id, doctorSubscribers) -> {
+            removed[0] = doctorSubscribers.remove(subscriber);
+            return doctorSubscribers.isEmpty() ? null : doctorSubscribers;
+        });
+        if (removed[0]) {
+            subscriberCount.decrementAndGet();
+        }
+    }
+
+    void alertDropped() {
+        alertsDropped.increment();
+    }
+
+    void alertsSent(int count) {
+        alertsSent.increment(count);
+    }
+
+    void deltaCoalesced() {
+        deltasCoalesced.increment();
+    }
+
+    private void publish(Long doctorId, PendingDoctor changes, long committedAt) {
+        if (changes.rebuilt) {
+            Set<StreamSubscriber> doctorSubscribers = subscribers.get(doctorId);
+            if (doctorSubscribers != null) {
+                doctorSubscribers.forEach(subscriber -> subscriber.emitter().complete());
+            }
+            return;
+        }
+        Set<StreamSubscriber> doctorSubscribers = subscribers.get(doctorId);
+        if (doctorSubscribers == null) {
+            return;
+        }
+        changes.delta.committedAt = committedAt;
+        for (PatientAlertEvent alert : changes.alerts) {
+            alert.setCommittedAt(committedAt);
+        }
+        for (StreamSubscriber subscriber : doctorSubscribers) {
+            changes.alerts.forEach(subscriber::offerAlert);
+            if (!changes.delta.isEmpty()) {
+                subscriber.offerDelta(changes.delta);
+            }
+        }
+    }
+
+    private PendingDoctor pending(Long doctorId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Analytics stream changes must be reported inside a transaction");
+        }
+        PendingChanges pending = (PendingChanges) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            pending = new PendingChanges();
+            TransactionSynchronizationManager.bindResource(this, pending);
+            TransactionSynchronizationManager.registerSynchronization(pending);
+        }
+        return pending.doctors.computeIfAbsent(doctorId, id -> new PendingDoctor());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isEmpty() ? null : value;
+    }
+
+    private static final class PendingDoctor {
+
+        private final DashboardDelta delta = new DashboardDelta();
+        private final List<PatientAlertEvent> alerts = new ArrayList<>(1);
+        private boolean rebuilt;
+    }
+
+    private class PendingChanges implements TransactionSynchronization {
+
+        private final Map<Long, PendingDoctor> doctors = new LinkedHashMap<>();
+
+        /**
+         * Reads the version each doctor's counters reach in this transaction.
+         * The counter row stays locked by the transaction's update until the
+         * commit, so no other write can come between. Read even without
+         * subscribers, as one may connect before the commit.
+         */
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            doctors.forEach((doctorId, changes) -> {
+                if (!changes.delta.isEmpty()) {
+                    changes.delta.version = doctorAnalyticsRepository.findPatientsVersion(doctorId).orElse(0L);
+                }
+            });
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(AnalyticsStream.this);
+            if (status == STATUS_COMMITTED) {
+                long committedAt = System.currentTimeMillis();
+                doctors.forEach((doctorId, changes) -> publish(doctorId, changes, committedAt));
+            }
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.healthcare.api.stream;
+
+import com.healthcare.api.dto.DashboardDeltaEvent;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Changes to one doctor's dashboard counts, summed over one transaction or,
+ * for a slow subscriber, over several. {@code version} is the doctor's
+ * patients version once the latest of them committed.
+ */
+final class DashboardDelta {
+
+    long version;
+    long committedAt;
+    long totalPatients;
+    long highRiskPatients;
+    long mediumRiskPatients;
+    long lowRiskPatients;
+    final Map<String, Long> diseases = new LinkedHashMap<>();
+
+    void addCounts(long total, long high, long medium, long low) {
+        totalPatients += total;
+        highRiskPatients += high;
+        mediumRiskPatients += medium;
+        lowRiskPatients += low;
+    }
+
+    void addDisease(String disease, long delta) {
+        if (diseases.merge(disease, delta, Long::sum) == 0) {
+            diseases.remove(disease);
+        }
+    }
+
+    /** Folds a later delta into this one. */
+    void merge(DashboardDelta later) {
+        addCounts(later.totalPatients, later.highRiskPatients, later.mediumRiskPatients, later.lowRiskPatients);
+        later.diseases.forEach(this::addDisease);
+        version = Math.max(version, later.version);
+        committedAt = Math.min(committedAt, later.committedAt);
+    }
+
+    DashboardDelta copy() {
+        DashboardDelta copy = new DashboardDelta();
+        copy.version = version;
+        copy.committedAt = committedAt;
+        copy.merge(this);
+        return copy;
+    }
+
+    boolean isEmpty() {
+        return totalPatients == 0 && highRiskPatients == 0 && mediumRiskPatients == 0 && lowRiskPatients == 0
+                && diseases.isEmpty();
+    }
+
+    DashboardDeltaEvent toEvent() {
+        return new DashboardDeltaEvent(totalPatients, highRiskPatients, mediumRiskPatients, lowRiskPatients,
+                new LinkedHashMap<>(diseases), committedAt);
+    }
+}
@@ -0,0 +1,178 @@
+package com.healthcare.api.stream;
+
+import com.healthcare.api.dto.AnalyticsResponse;
+import com.healthcare.api.dto.PatientAlertEvent;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * One open analytics stream. Publishers only queue events here; a sender
+ * thread writes whatever is queued in one flush, and at most one sender
+ * works on a subscriber at a time, so a slow client holds up no one but
+ * itself. What a slow client can fall behind by is bounded: alerts beyond
+ * the buffer drop the oldest, and dashboard deltas are summed into one.
+ * <p>
+ * Deltas published before the dashboard snapshot is read are held, then
+ * kept only if their version is newer than the snapshot's, so a write that
+ * commits while the client connects is counted exactly once.
+ */
+public final class StreamSubscriber {
+
+    private final Long doctorId;
+    private final SseEmitter emitter;
+    private final int bufferSize;
+    private final AnalyticsStream stream;
+
+    private final ArrayDeque<PatientAlertEvent> alerts = new ArrayDeque<>(4);
+    private List<DashboardDelta> early = new ArrayList<>(2);
+    private long snapshotVersion = -1;
+    private AnalyticsResponse snapshot;
+    private DashboardDelta delta;
+    private long dropped;
+    private boolean heartbeat;
+    private boolean sending;
+    private boolean closed;
+    private volatile long lastSentNanos = System.nanoTime();
+
+    StreamSubscriber(Long doctorId, SseEmitter emitter, int bufferSize, AnalyticsStream stream) {
+        this.doctorId = doctorId;
+        this.emitter = emitter;
+        this.bufferSize = bufferSize;
+        this.stream = stream;
+    }
+
+    Long doctorId() {
+        return doctorId;
+    }
+
+    public SseEmitter emitter() {
+        return emitter;
+    }
+
+    /** Queues the snapshot to send first, then the deltas that are newer than it. */
+    synchronized void start(AnalyticsResponse snapshot, long version) {
+        this.snapshot = snapshot;
+        this.snapshotVersion = version;
+        for (DashboardDelta held : early) {
+            offerDelta(held);
+        }
+        early = null;
+        schedule();
+    }
+
+    synchronized void offerAlert(PatientAlertEvent alert) {
+        if (closed) {
+            return;
+        }
+        if (alerts.size() == bufferSize) {
+            alerts.pollFirst();
+            dropped++;
+            stream.alertDropped();
+        }
+        alerts.addLast(alert);
+        schedule();
+    }
+
+    synchronized void offerDelta(DashboardDelta published) {
+        if (closed) {
+            return;
+        }
+        if (snapshotVersion < 0) {
+            early.add(published);
+            return;
+        }
+        if (published.version <= snapshotVersion) {
+            return;
+        }
+        if (delta == null) {
+            delta = published.copy();
+        } else {
+            delta.merge(published);
+            stream.deltaCoalesced();
+        }
+        schedule();
+    }
+
+    /** Sends a comment if nothing was sent for {@code idleNanos}, so proxies keep the connection. */
+    synchronized void offerHeartbeat(long now, long idleNanos) {
+        if (!closed && now - lastSentNanos >= idleNanos) {
+            heartbeat = true;
+            schedule();
+        }
+    }
+
+    synchronized void close() {
+        closed = true;
+        alerts.clear();
+        delta = null;
+    }
+
+    private void schedule() {
+        if (!sending && snapshotVersion >= 0) {
+            sending = true;
+            stream.send(this);
+        }
+    }
+
+    /** Runs on a sender thread: writes everything queued, until nothing is. */
+    void drain() {
+        while (true) {
+            Set<ResponseBodyEmitter.DataWithMediaType> events = new LinkedHashSet<>();
+            int alertCount;
+            synchronized (this) {
+                if (closed) {
+                    sending = false;
+                    return;
+                }
+                if (snapshot != null) {
+                    events.addAll(SseEmitter.event().name("dashboard").id(Long.toString(snapshotVersion))
+                            .reconnectTime(stream.reconnectMillis())
+                            .data(snapshot, MediaType.APPLICATION_JSON).build());
+                    snapshot = null;
+                }
+                if (dropped > 0) {
+                    events.addAll(SseEmitter.event().name("dropped")
+                            .data(Map.of("alerts", dropped), MediaType.APPLICATION_JSON).build());
+                    dropped = 0;
+                }
+                alertCount = alerts.size();
+                for (PatientAlertEvent alert; (alert = alerts.pollFirst()) != null; ) {
+                    events.addAll(SseEmitter.event().name("alert").data(alert, MediaType.APPLICATION_JSON).build());
+                }
+                if (delta != null && !delta.isEmpty()) {
+                    events.addAll(SseEmitter.event().name("dashboard-delta").id(Long.toString(delta.version))
+                            .data(delta.toEvent(), MediaType.APPLICATION_JSON).build());
+                }
+                delta = null;
+                if (events.isEmpty() && heartbeat) {
+                    events.addAll(SseEmitter.event().comment("heartbeat").build());
+                }
+                heartbeat = false;
+                if (events.isEmpty()) {
+                    sending = false;
+                    return;
+                }
+            }
+            try {
+                emitter.send(events);
+                lastSentNanos = System.nanoTime();
+                stream.alertsSent(alertCount);
+            } catch (IOException | IllegalStateException e) {
+                // The client went away, or the request already completed
+                stream.remove(this);
+                synchronized (this) {
+                    sending = false;
+                }
+                return;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package com.healthcare.api.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Makes Tomcat's {@code server.compression.min-response-size} hold for
+ * message-converter responses. Tomcat only checks the minimum against a
+ * known Content-Length, and the converters flush after every body, which
+ * commits the response chunked and so compresses even tiny bodies. Flushes
+ * (of the stream, and the response flush that follows a {@code ResponseEntity})
+ * of compressible bodies are held back until the body reaches the minimum:
+ * a smaller body then completes inside Tomcat's buffer with a
+ * Content-Length and goes out uncompressed. Other types (event streams)
+ * flush as written.
+ */
+public class CompressionThresholdFilter extends OncePerRequestFilter {
+
+    private final List<MediaType> compressibleTypes;
+    private final long minResponseBytes;
+
+    public CompressionThresholdFilter(List<MediaType> compressibleTypes, long minResponseBytes) {
+        this.compressibleTypes = compressibleTypes;
+        this.minResponseBytes = minResponseBytes;
+    }
+
+    // Error bodies are small JSON too
+    @Override
+    protected boolean shouldNotFilterErrorDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        filterChain.doFilter(request, new ThresholdResponse(response));
+    }
+
+    private boolean compressible(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        MediaType type = MediaType.parseMediaType(contentType);
+        return compressibleTypes.stream().anyMatch(compressible -> compressible.includes(type));
+    }
+
+    private final class ThresholdResponse extends HttpServletResponseWrapper {
+
+        private ThresholdOutputStream outputStream;
+
+        ThresholdResponse(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (outputStream == null || outputStream.flushable()) {
+                super.flushBuffer();
+            }
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (outputStream == null) {
+                outputStream = new ThresholdOutputStream(super.getOutputStream(), this);
+            }
+            return outputStream;
+        }
+    }
+
+    private final class ThresholdOutputStream extends ServletOutputStream {
+
+        private final ServletOutputStream delegate;
+        private final HttpServletResponse response;
+        private long written;
+
+        ThresholdOutputStream(ServletOutputStream delegate, HttpServletResponse response) {
+            this.delegate = delegate;
+            this.response = response;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            delegate.write(b);
+            written++;
+        }
+
+        @Override
+        public void write(byte[] bytes, int offset, int length) throws IOException {
+            delegate.write(bytes, offset, length);
+            written += length;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (flushable()) {
+                delegate.flush();
+            }
+        }
+
+        boolean flushable() {
+            return written >= minResponseBytes || !compressible(response.getContentType());
+        }
+
+        @Override
+        public void close() throws IOException {
+            delegate.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return delegate.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            delegate.setWriteListener(writeListener);
+        }
+    }
+}
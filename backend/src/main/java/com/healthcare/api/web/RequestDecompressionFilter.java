@@ -0,0 +1,204 @@
+package com.healthcare.api.web;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.server.ResponseStatusException;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.Locale;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Accepts request bodies sent with {@code Content-Encoding: gzip} or
+ * {@code deflate} (zlib) and hands them on decoded, so controllers and
+ * message converters see plain bodies. Other encodings get 415. The
+ * decoded size is capped, so a small compressed body cannot expand into an
+ * unbounded one; a body that passes the cap gets 413.
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private final long maxDecodedBytes;
+
+    public RequestDecompressionFilter(long maxDecodedBytes) {
+        this.maxDecodedBytes = maxDecodedBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || encoding.trim().equalsIgnoreCase("identity")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        InputStream decoded;
+        switch (encoding.trim().toLowerCase(Locale.ROOT)) {
+            case "gzip", "x-gzip" -> {
+                try {
+                    decoded = new GZIPInputStream(request.getInputStream());
+                } catch (IOException e) {
+                    // Reads the gzip header up front; anything else fails later as an unreadable body
+                    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Malformed gzip request body");
+                    return;
+                }
+            }
+            case "deflate" -> decoded = new InflaterInputStream(request.getInputStream());
+            default -> {
+                response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate");
+                response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE,
+                        "Unsupported Content-Encoding " + encoding);
+                return;
+            }
+        }
+        filterChain.doFilter(new DecodedRequest(request, new LimitedInputStream(decoded, maxDecodedBytes)), response);
+    }
+
+    private static final class DecodedRequest extends HttpServletRequestWrapper {
+
+        private final ServletInputStream body;
+
+        DecodedRequest(HttpServletRequest request, InputStream decoded) {
+            super(request);
+            this.body = new ServletInputStream() {
+                private boolean finished;
+
+                @Override
+                public int read() throws IOException {
+                    int b = decoded.read();
+                    finished = b < 0;
+                    return b;
+                }
+
+                @Override
+                public int read(byte[] buffer, int offset, int length) throws IOException {
+                    int read = decoded.read(buffer, offset, length);
+                    finished = read < 0;
+                    return read;
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // Reads block rather than wait for data, so the listener is called back at once to read it all
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        readListener.onDataAvailable();
+                        if (finished) {
+                            readListener.onAllDataRead();
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return body;
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String charset = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(body,
+                    charset != null ? Charset.forName(charset) : StandardCharsets.UTF_8));
+        }
+
+        // The decoded body's length is unknown, and it is no longer encoded
+        @Override
+        public int getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public long getContentLengthLong() {
+            return -1;
+        }
+
+        @Override
+        public String getHeader(String name) {
+            return isEncodingHeader(name) ? null : super.getHeader(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaders(String name) {
+            return isEncodingHeader(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+        }
+
+        @Override
+        public Enumeration<String> getHeaderNames() {
+            return Collections.enumeration(Collections.list(super.getHeaderNames()).stream()
+                    .filter(name -> !isEncodingHeader(name))
+                    .toList());
+        }
+
+        private static boolean isEncodingHeader(String name) {
+            return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name)
+                    || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+        }
+    }
+
+    private static final class LimitedInputStream extends FilterInputStream {
+
+        private final long limit;
+        private long count;
+
+        LimitedInputStream(InputStream in, long limit) {
+            super(in);
+            this.limit = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count(1);
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int read = super.read(buffer, offset, length);
+            if (read > 0) {
+                count(read);
+            }
+            return read;
+        }
+
+        private void count(int bytes) throws IOException {
+            count += bytes;
+            if (count > limit) {
+                // Unchecked, so message converters pass it on and it answers 413 rather than 400
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE,
+                        "Decompressed request body exceeds " + limit + " bytes");
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.healthcare.api;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.dto.PatientRequest;
+import com.healthcare.api.dto.RegisterRequest;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Base for tests that drive the app over HTTP, as a client would. Each test
+ * class starts the app on a random port with the {@code test} profile
+ * ({@code application-test.properties}) and its own in-memory database,
+ * which is dropped with the context after the class. Subclasses change
+ * settings with {@code @TestPropertySource}.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@DirtiesContext
+public abstract class ApiIntegrationTest {
+
+    protected final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    protected final ObjectMapper objectMapper = new ObjectMapper();
+
+    @LocalServerPort
+    private int port;
+
+    protected URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    // Registers a doctor named after the key, which also makes the email and medical id unique
+    protected String register(String key) throws IOException, InterruptedException {
+        RegisterRequest register = new RegisterRequest();
+        register.setName("Dr. " + key);
+        register.setEmail(key.replace(' ', '.') + "@clinic.example");
+        register.setPassword("integration-test-password");
+        register.setMedicalId("TEST-" + key);
+        register.setHospital("District Hospital");
+        register.setHospitalPhone("08000000");
+        register.setSpecialization("General Medicine");
+        return send(post("/api/auth/register", null, register)).get("token").asText();
+    }
+
+    protected static PatientRequest patient(String name, String state) {
+        PatientRequest patient = new PatientRequest();
+        patient.setName(name);
+        patient.setState(state);
+        patient.setCity(state == null ? null : state + " City");
+        return patient;
+    }
+
+    protected HttpRequest.Builder get(String path, String token) {
+        return authorized(path, token).GET();
+    }
+
+    // A null body sends none; anything else is sent as JSON
+    protected HttpRequest.Builder post(String path, String token, Object body) {
+        return carrying(authorized(path, token), body).POST(json(body));
+    }
+
+    protected HttpRequest.Builder put(String path, String token, Object body) {
+        return carrying(authorized(path, token), body).PUT(json(body));
+    }
+
+    protected HttpRequest.Builder delete(String path, String token) {
+        return authorized(path, token).DELETE();
+    }
+
+    protected HttpResponse<String> exchange(HttpRequest.Builder request) throws IOException, InterruptedException {
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    // Fails the test unless the request succeeds with 200
+    protected JsonNode send(HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = exchange(request);
+        assertEquals(200, response.statusCode(), () -> response.request().method() + " "
+                + response.request().uri() + " returned " + response.statusCode() + ": " + response.body());
+        return objectMapper.readTree(response.body());
+    }
+
+    private HttpRequest.Builder authorized(String path, String token) {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request;
+    }
+
+    private static HttpRequest.Builder carrying(HttpRequest.Builder request, Object body) {
+        return body == null ? request : request.header("Content-Type", "application/json");
+    }
+
+    private HttpRequest.BodyPublisher json(Object body) {
+        if (body == null) {
+            return HttpRequest.BodyPublishers.noBody();
+        }
+        try {
+            return HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
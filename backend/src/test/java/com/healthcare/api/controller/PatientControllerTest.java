@@ -0,0 +1,66 @@
+package com.healthcare.api.controller;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import java.net.http.HttpResponse;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Request handling of the patient endpoints: which handler a combination
+ * of parameters reaches, and the status a request the API cannot answer
+ * gets.
+ */
+class PatientControllerTest extends ApiIntegrationTest {
+
+    private String token;
+
+    @BeforeEach
+    void registerDoctor() throws Exception {
+        token = register("patients " + System.nanoTime());
+        for (String symptom : List.of("Fever", "Cough", "Fever")) {
+            PatientRequest patient = patient("Patient with " + symptom, "Kerala");
+            patient.setSymptoms(List.of(symptom));
+            send(post("/api/patients", token, patient));
+        }
+    }
+
+    @Test
+    void symptomListIsFiltered() throws Exception {
+        JsonNode patients = send(get("/api/patients?symptom=Fever", token));
+        assertEquals(2, patients.size());
+    }
+
+    @Test
+    void symptomWithLimitIsRejected() throws Exception {
+        assertEquals(400, exchange(get("/api/patients?symptom=Fever&limit=10", token)).statusCode());
+        assertEquals(400, exchange(get("/api/patients?view=summary&symptom=Fever&limit=10", token)).statusCode());
+    }
+
+    @Test
+    void unchangedListIsNotModified() throws Exception {
+        for (String path : List.of("/api/patients", "/api/patients?view=summary&limit=10", "/api/analytics/dashboard")) {
+            HttpResponse<String> first = exchange(get(path, token));
+            String etag = first.headers().firstValue("ETag").orElseThrow();
+            HttpResponse<String> again = exchange(get(path, token).header("If-None-Match", etag));
+            assertEquals(304, again.statusCode(), path);
+            assertEquals(etag, again.headers().firstValue("ETag").orElse(null), path);
+        }
+    }
+
+    @Test
+    void unsupportedExportFormatIsRejected() throws Exception {
+        assertEquals(400, exchange(get("/api/patients/export?format=xml", token)).statusCode());
+        assertEquals(200, exchange(get("/api/patients/export?format=ndjson", token)).statusCode());
+    }
+
+    @Test
+    void pagesWithoutSymptomListEveryPatient() throws Exception {
+        JsonNode page = send(get("/api/patients?limit=10", token));
+        assertEquals(3, page.get("patients").size());
+    }
+}
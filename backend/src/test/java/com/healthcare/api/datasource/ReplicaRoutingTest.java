@@ -0,0 +1,153 @@
+package com.healthcare.api.datasource;
+
+import com.healthcare.api.ApiIntegrationTest;
+import org.h2.tools.Server;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Read/write routing against two H2 databases: the primary, embedded in
+ * memory, and a replica in memory behind an H2 TCP server, which the test
+ * stops and starts to take the replica down and bring it back. H2 has no
+ * replication, so the test copies the primary to the replica
+ * ({@code SCRIPT} and {@code RUNSCRIPT}) at chosen points; in between, the
+ * replica lags behind. Hibernate's caches are off, so every read reaches a
+ * database, and the {@code datasource.reads} metric tells which one.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=" + ReplicaRoutingTest.PRIMARY_URL,
+        "datasource.replicas.enabled=true",
+        "datasource.replicas.connection-timeout=PT0.5S",
+        "datasource.replicas.read-your-writes=PT2S",
+        "datasource.replicas.retry-interval=PT2S",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        // The replica pool fails to connect while the replica is down, as intended
+        "logging.level.com.zaxxer.hikari=OFF"})
+class ReplicaRoutingTest extends ApiIntegrationTest {
+
+    static final String PRIMARY_URL = "jdbc:h2:mem:routing_primary";
+    // Both the read-your-writes window and the retry interval, with a margin
+    private static final long WAIT_MILLIS = 2200;
+    private static final int REPLICA_PORT = freePort();
+
+    private Server replicaServer;
+
+    // The replica server is not running yet, so the app starts with its replica down
+    @DynamicPropertySource
+    static void replicaUrl(DynamicPropertyRegistry registry) {
+        registry.add("datasource.replicas.urls", ReplicaRoutingTest::replicaUrl);
+    }
+
+    @AfterEach
+    void stopReplica() {
+        if (replicaServer != null) {
+            replicaServer.stop();
+            replicaServer = null;
+        }
+    }
+
+    @Test
+    void readsFollowTheReplicaAndItsWindows() throws Exception {
+        String alice = register("alice");
+        String bob = register("bob");
+
+        double fallback = reads("fallback");
+        assertEquals(0, patients(alice));
+        assertTrue(reads("fallback") > fallback, "reads fall back to the primary while the replica is down");
+
+        startReplica();
+        copyPrimaryToReplica();
+        Thread.sleep(WAIT_MILLIS);
+
+        send(post("/api/patients", alice, patient("Patient A1", null)));
+        double sticky = reads("read-your-writes");
+        double replica = reads("replica");
+        assertEquals(1, patients(alice), "a doctor reads their own write");
+        assertTrue(reads("read-your-writes") > sticky, "a doctor reads their own write from the primary");
+        assertEquals(0, patients(bob));
+        assertTrue(reads("replica") > replica, "another doctor reads the replica meanwhile");
+
+        Thread.sleep(WAIT_MILLIS);
+        replica = reads("replica");
+        assertEquals(0, patients(alice), "after the window reads go to the replica, which lags");
+        assertTrue(reads("replica") > replica, "after the window reads go to the replica");
+        copyPrimaryToReplica();
+        assertEquals(1, patients(alice), "once copied, the replica has the write");
+
+        stopReplica();
+        // Rows only the primary has show which database answered
+        send(post("/api/patients", alice, patient("Patient A2", null)));
+        Thread.sleep(WAIT_MILLIS);
+        fallback = reads("fallback");
+        assertEquals(2, patients(alice), "a replica going down sends reads to the primary");
+        assertTrue(reads("fallback") > fallback, "a replica going down sends reads to the primary");
+
+        startReplica();
+        Thread.sleep(WAIT_MILLIS);
+        replica = reads("replica");
+        assertEquals(1, patients(alice), "reads return to the replica after the retry interval");
+        assertTrue(reads("replica") > replica, "reads return to the replica after the retry interval");
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String replicaUrl() {
+        return "jdbc:h2:tcp://localhost:" + REPLICA_PORT + "/mem:routing_replica;DB_CLOSE_DELAY=-1";
+    }
+
+    private void startReplica() throws SQLException {
+        replicaServer = Server.createTcpServer("-tcpPort", Integer.toString(REPLICA_PORT), "-ifNotExists").start();
+    }
+
+    // Replaces the replica's contents with a snapshot of the primary
+    private void copyPrimaryToReplica() throws SQLException {
+        List<String> script = new ArrayList<>();
+        try (Connection primary = DriverManager.getConnection(PRIMARY_URL, "sa", "");
+             Statement statement = primary.createStatement();
+             ResultSet rs = statement.executeQuery("SCRIPT")) {
+            while (rs.next()) {
+                script.add(rs.getString(1));
+            }
+        }
+        try (Connection replica = DriverManager.getConnection(replicaUrl(), "sa", "");
+             Statement statement = replica.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+            for (String sql : script) {
+                statement.execute(sql);
+            }
+        }
+    }
+
+    private int patients(String token) throws IOException, InterruptedException {
+        return send(get("/api/patients", token)).size();
+    }
+
+    // Read-only transactions routed for the reason so far
+    private double reads(String reason) throws IOException, InterruptedException {
+        return send(get("/actuator/metrics/datasource.reads?tag=reason:" + reason, null))
+                .get("measurements").get(0).get("value").asDouble();
+    }
+}
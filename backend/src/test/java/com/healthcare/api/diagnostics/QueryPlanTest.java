@@ -0,0 +1,221 @@
+package com.healthcare.api.diagnostics;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.test.context.TestPropertySource;
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks the SQL the hot endpoints really run. The app captures the
+ * statements Hibernate prepares for each request (through
+ * {@code diagnostics.query-count.capture}) with the second-level and query
+ * caches off, so every read reaches the database. Each hot read endpoint
+ * is called with {@link #PATIENTS} patients and again with four times as
+ * many. It must run no more statements than its budget, and the same
+ * number both times; a count that grows with the patients is an N+1. Both
+ * sizes stay within one symptom batch fetch.
+ * <p>
+ * Every SELECT, UPDATE and DELETE captured, including those of a patient
+ * create, update and delete, is then EXPLAINed with its parameters unset,
+ * and must not scan a whole table.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "diagnostics.query-count.enabled=true",
+        "diagnostics.query-count.capture=true",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false",
+        // Otherwise the changes feed would hold back the patients just created
+        "patients.changes.settle-millis=0"})
+class QueryPlanTest extends ApiIntegrationTest {
+
+    // At most a quarter of the symptom batch fetch, so that four times as many still fit one
+    private static final int PATIENTS = 20;
+
+    // Statements per request: the ETag version read, the rows, and one batch fetch of their symptoms
+    private static final Map<String, Integer> BUDGETS = new LinkedHashMap<>();
+
+    static {
+        BUDGETS.put("list", 3);
+        BUDGETS.put("page", 3);
+        BUDGETS.put("summaries", 2);
+        BUDGETS.put("summary-page", 2);
+        BUDGETS.put("symptom", 4);
+        BUDGETS.put("detail", 3);
+        BUDGETS.put("changes", 3);
+        BUDGETS.put("dashboard", 3);
+        BUDGETS.put("me", 1);
+        BUDGETS.put("latest-vitals", 3);
+    }
+
+    @Autowired
+    private ConfigurableApplicationContext context;
+
+    @Autowired
+    private DataSource dataSource;
+
+    private final BlockingQueue<RequestStatements> captured = new LinkedBlockingQueue<>();
+    private final Set<String> statements = new LinkedHashSet<>();
+    private Map<String, Integer> small;
+    private Map<String, Integer> large;
+    private String token;
+
+    @BeforeAll
+    void callEndpoints() throws Exception {
+        context.addApplicationListener(event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload
+                    && payload.getPayload() instanceof RequestStatements request) {
+                captured.add(request);
+            }
+        });
+        token = register("query");
+        capture("POST", "/api/auth/register");
+
+        long first = createPatients(PATIENTS);
+        small = readAll(first);
+        createPatients(PATIENTS * 3);
+        large = readAll(first);
+
+        long created = send(post("/api/patients", token, patient(0))).get("id").asLong();
+        capture("POST", "/api/patients");
+        send(put("/api/patients/" + created, token, patient(1)));
+        capture("PUT", "/api/patients/" + created);
+        send(delete("/api/patients/" + created, token));
+        capture("DELETE", "/api/patients/" + created);
+    }
+
+    static Set<String> endpoints() {
+        return BUDGETS.keySet();
+    }
+
+    @ParameterizedTest
+    @MethodSource("endpoints")
+    void staysWithinBudget(String endpoint) {
+        int most = Math.max(small.get(endpoint), large.get(endpoint));
+        assertTrue(most <= BUDGETS.get(endpoint),
+                () -> endpoint + " ran " + most + " statements, over its budget of " + BUDGETS.get(endpoint));
+    }
+
+    @ParameterizedTest
+    @MethodSource("endpoints")
+    void runsAsManyStatementsForMorePatients(String endpoint) {
+        assertEquals(small.get(endpoint), large.get(endpoint),
+                () -> endpoint + " statements for " + PATIENTS + " and for " + PATIENTS * 4 + " patients");
+    }
+
+    @Test
+    void noCapturedStatementScansAWholeTable() throws SQLException {
+        List<String> scans = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            for (String sql : statements) {
+                String verb = sql.stripLeading().toLowerCase(Locale.ROOT);
+                if (!verb.startsWith("select") && !verb.startsWith("update") && !verb.startsWith("delete")) {
+                    continue;
+                }
+                String plan = explain(connection, sql);
+                if (plan.contains(".tableScan")) {
+                    scans.add(sql + "\n    " + plan.replace("\n", "\n    "));
+                }
+            }
+        }
+        assertEquals(List.of(), scans, "statements that scan a whole table");
+    }
+
+    private Map<String, Integer> readAll(long patientId) throws IOException, InterruptedException {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        counts.put("list", read("/api/patients"));
+        counts.put("page", read("/api/patients?limit=10"));
+        counts.put("summaries", read("/api/patients?view=summary"));
+        counts.put("summary-page", read("/api/patients?view=summary&limit=10"));
+        counts.put("symptom", read("/api/patients?symptom=Fever"));
+        counts.put("detail", read("/api/patients/" + patientId));
+        counts.put("changes", read("/api/patients/changes"));
+        counts.put("dashboard", read("/api/analytics/dashboard"));
+        counts.put("me", read("/api/auth/me"));
+        counts.put("latest-vitals", read("/api/patients/" + patientId + "/vitals/latest"));
+        return counts;
+    }
+
+    private int read(String path) throws IOException, InterruptedException {
+        send(get(path, token));
+        return capture("GET", path);
+    }
+
+    // The filter publishes after the response is written, so the event may trail the reply a little
+    private int capture(String method, String path) throws InterruptedException {
+        RequestStatements request = captured.poll(5, TimeUnit.SECONDS);
+        assertNotNull(request, () -> "no statements captured for " + method + " " + path);
+        assertEquals(method + " " + path, request.method() + " " + request.path(), "request captured");
+        statements.addAll(request.statements());
+        return request.statements().size();
+    }
+
+    // Only the plan is wanted, so every parameter is left NULL
+    private static String explain(Connection connection, String sql) throws SQLException {
+        StringBuilder plan = new StringBuilder();
+        try (PreparedStatement explain = connection.prepareStatement("EXPLAIN " + sql)) {
+            int parameters = explain.getParameterMetaData().getParameterCount();
+            for (int i = 1; i <= parameters; i++) {
+                explain.setNull(i, Types.NULL);
+            }
+            try (ResultSet rows = explain.executeQuery()) {
+                while (rows.next()) {
+                    plan.append(rows.getString(1)).append('\n');
+                }
+            }
+        }
+        return plan.toString().trim();
+    }
+
+    private static PatientRequest patient(int i) {
+        PatientRequest patient = patient("Patient " + i, "Kerala");
+        patient.setAge(20 + i % 60);
+        patient.setTemperature(37.0 + i % 3);
+        patient.setOxygen(i % 2 == 0 ? 98.0 : 91.0);
+        patient.setPulse(70 + i % 30);
+        patient.setSymptoms(i % 2 == 0 ? List.of("Fever", "Cough") : List.of("Headache"));
+        patient.setDisease(i % 2 == 0 ? "Influenza" : "Dengue");
+        return patient;
+    }
+
+    // Returns the id of the first patient created
+    private long createPatients(int count) throws IOException, InterruptedException {
+        List<PatientRequest> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(patient(i));
+        }
+        JsonNode response = send(post("/api/patients/batch", token, batch));
+        capture("POST", "/api/patients/batch");
+        assertEquals(count, response.get("created").asInt(), "patients created by the batch upload");
+        return response.get("results").get(0).get("id").asLong();
+    }
+}
@@ -0,0 +1,165 @@
+package com.healthcare.api.export;
+
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.net.http.HttpResponse;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that {@code GET /api/patients/export} runs in constant memory. One
+ * doctor's caseload grows to each of {@link #SIZES} with set-based SQL
+ * inserts, and the whole export is downloaded {@link #RUNS} times at each
+ * size while a sampler forces a GC every {@link #SAMPLE_MILLIS} and records
+ * the heap still in use. What a download holds is that peak minus the heap
+ * in use before or after it, whichever is larger; the heap after includes
+ * the database pages the export brought into H2's cache. The export's
+ * buffers fill up within the first hundred thousand rows, so from there on
+ * a constant-memory export holds about the same at every size, and may
+ * hold at most {@link #MAX_GROWTH_BYTES} more at the larger size.
+ * <p>
+ * H2 runs from a file with lazy query execution, so results come from a
+ * cursor as they would from a database server; by default embedded H2
+ * buffers up to 40k result rows per GB of heap before spilling them to
+ * disk. Its page cache is capped at 16 MB so that it does not mask the
+ * export's own memory.
+ */
+@TestPropertySource(properties = "spring.datasource.url=jdbc:h2:file:./target/export-heap-test/db"
+        + ";LAZY_QUERY_EXECUTION=TRUE;CACHE_SIZE=16384")
+class ExportHeapTest extends ApiIntegrationTest {
+
+    private static final List<Long> SIZES = List.of(100_000L, 200_000L);
+    // An export that buffers its rows holds about 60 MB more for the extra hundred thousand
+    private static final long MAX_GROWTH_BYTES = 16L << 20;
+    private static final long SAMPLE_MILLIS = 250;
+    // The server finishes a request just after its last byte is read, and holds on to its memory until then
+    private static final long SETTLE_MILLIS = 1000;
+    // The sampled peak varies by several MB between downloads, so each size is measured twice and the smaller counts
+    private static final int RUNS = 2;
+
+    private static final String[] STATES = {"Karnataka", "Kerala", "Goa", "Maharashtra", "Tamil Nadu"};
+    private static final String[] DISEASES = {"Hypertension", "Diabetes", "Malaria", "Dengue", "Typhoid"};
+    private static final List<String> SYMPTOMS = List.of("fever", "cough", "headache");
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void exportHoldsAsMuchHeapAtEverySize() throws Exception {
+        String token = register("export");
+        long doctorId = jdbcTemplate.queryForObject("SELECT id FROM doctors WHERE email = ?", Long.class,
+                "export@clinic.example");
+
+        // One patient through the API puts the symptoms in the dictionary; the rest are inserted in SQL
+        PatientRequest first = patient("Patient 0", null);
+        first.setSymptoms(SYMPTOMS);
+        send(post("/api/patients", token, first));
+        List<Integer> symptomCodes = jdbcTemplate.queryForList(
+                "SELECT symptom_id FROM patient_symptoms ORDER BY list_order", Integer.class);
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Map<Long, Long> heldBySize = new LinkedHashMap<>();
+        long rows = 1;
+        for (long size : SIZES) {
+            insertPatients(doctorId, rows + 1, size, symptomCodes);
+            rows = size;
+            // Unmeasured, so the database pages the export reads are already cached
+            download(token);
+            long held = Long.MAX_VALUE;
+            for (int run = 0; run < RUNS; run++) {
+                held = Math.min(held, measureHeld(token, memory));
+            }
+            heldBySize.put(size, held);
+        }
+
+        long smallest = heldBySize.get(SIZES.get(0));
+        long most = heldBySize.values().stream().mapToLong(Long::longValue).max().orElseThrow();
+        assertTrue(most - smallest <= MAX_GROWTH_BYTES, () -> "bytes of heap held by the export, by rows: "
+                + heldBySize + "; at most " + MAX_GROWTH_BYTES + " more than at the smallest size");
+    }
+
+    // Heap held by one download: its sampled peak over the heap in use before or after it
+    private long measureHeld(String token, MemoryMXBean memory) throws IOException, InterruptedException {
+        Thread.sleep(SETTLE_MILLIS);
+        System.gc();
+        long idle = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong peak = new AtomicLong(idle);
+        Thread sampler = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                System.gc();
+                peak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max);
+                try {
+                    Thread.sleep(SAMPLE_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "export-heap-sampler");
+        sampler.setDaemon(true);
+        sampler.start();
+        try {
+            download(token);
+        } finally {
+            sampler.interrupt();
+            sampler.join();
+        }
+        Thread.sleep(SETTLE_MILLIS);
+        System.gc();
+        long baseline = Math.max(idle, memory.getHeapMemoryUsage().getUsed());
+        return Math.max(0, peak.get() - baseline);
+    }
+
+    /**
+     * Adds patients {@code first..last} (ids and names) for the doctor,
+     * spread over states, diseases and risk levels, each with the symptoms.
+     */
+    private void insertPatients(long doctorId, long first, long last, List<Integer> symptomCodes) {
+        // Ids far above the sequence, so they never meet ids the app assigns
+        long offset = 1_000_000_000L;
+        jdbcTemplate.update("INSERT INTO patients (id, doctor_id, name, age, gender, phone, state, city, "
+                        + "temperature, blood_pressure, oxygen, pulse, risk_level, disease, triggers, "
+                        + "recommendations, created_at, updated_at) "
+                        + "SELECT X + ?, ?, CONCAT('Patient ', X), MOD(X, 90), CASEWHEN(MOD(X, 2) = 0, 'male', 'female'), "
+                        + "CONCAT('98', LPAD(CAST(X AS VARCHAR), 8, '0')), ARRAY_GET(" + array(STATES) + ", MOD(X, 5) + 1), "
+                        + "CONCAT('City ', MOD(X, 7)), 97 + MOD(X, 50) / 10.0, '120/80', 88 + MOD(X, 12), "
+                        + "60 + MOD(X, 60), ARRAY_GET(ARRAY['high', 'medium', 'low'], MOD(X, 3) + 1), "
+                        + "ARRAY_GET(" + array(DISEASES) + ", MOD(X, 5) + 1), 'Elevated temperature', 'Order blood test', "
+                        + "DATEADD(MINUTE, X, TIMESTAMP '2020-01-01 00:00:00'), "
+                        + "DATEADD(MINUTE, X, TIMESTAMP '2020-01-01 00:00:00') FROM SYSTEM_RANGE(?, ?)",
+                offset, doctorId, first, last);
+        for (int i = 0; i < symptomCodes.size(); i++) {
+            jdbcTemplate.update("INSERT INTO patient_symptoms (patient_id, list_order, symptom_id) "
+                    + "SELECT X + ?, ?, ? FROM SYSTEM_RANGE(?, ?)", offset, i, symptomCodes.get(i), first, last);
+        }
+    }
+
+    private static String array(String[] values) {
+        return "ARRAY['" + String.join("', '", values) + "']";
+    }
+
+    // Reads the whole CSV export without keeping it
+    private void download(String token) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(get("/api/patients/export", token).build(),
+                HttpResponse.BodyHandlers.ofInputStream());
+        assertEquals(200, response.statusCode(), "export status");
+        byte[] buffer = new byte[65536];
+        try (InputStream in = response.body()) {
+            while (in.read(buffer) != -1) {
+                // Discarded
+            }
+        }
+    }
+}
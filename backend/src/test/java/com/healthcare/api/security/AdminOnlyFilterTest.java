@@ -0,0 +1,44 @@
+package com.healthcare.api.security;
+
+import com.healthcare.api.ApiIntegrationTest;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Only the doctors in {@code admin.doctor-ids} reach the admin and
+ * population endpoints. The first doctor registered on the class's own
+ * database gets id 1, the admin; the second does not.
+ */
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:admin_only",
+        "admin.doctor-ids=1"})
+class AdminOnlyFilterTest extends ApiIntegrationTest {
+
+    private String admin;
+    private String doctor;
+
+    @BeforeAll
+    void registerDoctors() throws Exception {
+        admin = register("admin");
+        assertEquals(1, send(get("/api/auth/me", admin)).get("id").asLong(), "the admin's id");
+        doctor = register("not admin");
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/admin/risk/rescore", "/api/population/rollups"})
+    void adminIsLetThrough(String path) throws Exception {
+        assertEquals(200, exchange(get(path, admin)).statusCode());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"/api/admin/risk/rescore", "/api/admin/shards", "/api/population/rollups"})
+    void otherDoctorsAreForbidden(String path) throws Exception {
+        assertEquals(403, exchange(get(path, doctor)).statusCode());
+    }
+}
@@ -0,0 +1,166 @@
+package com.healthcare.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Checks that the dashboard counters stay equal to a recount of the
+ * patients under concurrent writes. Each doctor starts without counters,
+ * and all of their writers create a first patient at the same moment,
+ * which races the first-time counter inserts. The writers then mix single
+ * creates, batch uploads, updates and deletes. Updates move patients
+ * between risk levels (through their oxygen reading) and diseases, and
+ * several writers update the same first patients at once.
+ * <p>
+ * Afterwards each doctor's dashboard must equal counts taken from their
+ * patient list, and {@code POST /api/analytics/rebuild}, which recounts
+ * with GROUP BY queries, must find no drifted counters.
+ */
+@TestPropertySource(properties = {
+        // H2 gives up on a locked row after 2 s, where a database server would keep waiting
+        "spring.datasource.url=jdbc:h2:mem:healthcare_db;LOCK_TIMEOUT=30000",
+        "spring.datasource.hikari.maximum-pool-size=" + AnalyticsConsistencyTest.POOL_SIZE})
+class AnalyticsConsistencyTest extends ApiIntegrationTest {
+
+    private static final int DOCTORS = 3;
+    private static final int WRITERS = 6;
+    private static final int OPERATIONS = 30;
+    // A connection per writer, so the writes contend on rows rather than on the pool
+    static final int POOL_SIZE = DOCTORS * WRITERS;
+
+    private static final List<String> DISEASES = List.of("Influenza", "Dengue", "Malaria", "Typhoid", "");
+    // Scored low, medium and high by the default risk rules
+    private static final List<Double> OXYGEN = List.of(98.0, 93.0, 85.0);
+
+    @Test
+    void countersMatchPatientsAfterConcurrentWrites() throws Exception {
+        List<String> tokens = new ArrayList<>();
+        for (int d = 0; d < DOCTORS; d++) {
+            tokens.add(register("counter " + d));
+        }
+
+        List<String> failures = Collections.synchronizedList(new ArrayList<>());
+        ExecutorService pool = Executors.newFixedThreadPool(DOCTORS * WRITERS);
+        try {
+            List<Future<?>> results = new ArrayList<>();
+            for (int d = 0; d < DOCTORS; d++) {
+                String token = tokens.get(d);
+                CountDownLatch firstCreate = new CountDownLatch(1);
+                CountDownLatch created = new CountDownLatch(WRITERS);
+                // The first patients, created together, which every writer of the doctor then updates
+                List<Long> shared = Collections.synchronizedList(new ArrayList<>());
+                for (int w = 0; w < WRITERS; w++) {
+                    Random random = new Random(d * 1000L + w);
+                    results.add(pool.submit(() -> write(token, random, firstCreate, created, shared, failures)));
+                }
+                firstCreate.countDown();
+            }
+            for (Future<?> result : results) {
+                result.get();
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(List.of(), failures, "every concurrent write succeeds");
+
+        for (String token : tokens) {
+            assertDashboardMatchesPatients(token);
+            assertTrue(send(post("/api/analytics/rebuild", token, null)).get("message").asText().endsWith("consistent"),
+                    "a GROUP BY recount finds no drifted counters");
+        }
+    }
+
+    private Void write(String token, Random random, CountDownLatch firstCreate, CountDownLatch created,
+                       List<Long> shared, List<String> failures) throws InterruptedException {
+        List<Long> own = new ArrayList<>();
+        try {
+            firstCreate.await();
+            shared.add(createPatient(token, random));
+        } catch (AssertionError | IOException e) {
+            failures.add("first create: " + e.getMessage());
+        } finally {
+            created.countDown();
+        }
+        created.await();
+        for (int i = 0; i < OPERATIONS; i++) {
+            try {
+                int op = random.nextInt(10);
+                if (op < 3) {
+                    own.add(createPatient(token, random));
+                } else if (op < 4) {
+                    createPatients(token, random, 5);
+                } else if (op < 6 && !shared.isEmpty()) {
+                    send(put("/api/patients/" + shared.get(random.nextInt(shared.size())), token, patient(random)));
+                } else if (op < 8 && !own.isEmpty()) {
+                    send(put("/api/patients/" + own.get(random.nextInt(own.size())), token, patient(random)));
+                } else if (!own.isEmpty()) {
+                    send(delete("/api/patients/" + own.remove(random.nextInt(own.size())), token));
+                } else {
+                    own.add(createPatient(token, random));
+                }
+            } catch (AssertionError | IOException e) {
+                failures.add(e.getMessage());
+            }
+        }
+        return null;
+    }
+
+    private void assertDashboardMatchesPatients(String token) throws IOException, InterruptedException {
+        Map<String, Integer> risks = new TreeMap<>();
+        Map<String, Integer> diseases = new TreeMap<>();
+        JsonNode patients = send(get("/api/patients", token));
+        for (JsonNode patient : patients) {
+            risks.merge(patient.get("riskLevel").asText(), 1, Integer::sum);
+            String disease = patient.path("disease").asText("");
+            if (!disease.isEmpty()) {
+                diseases.merge(disease, 1, Integer::sum);
+            }
+        }
+        JsonNode dashboard = send(get("/api/analytics/dashboard", token));
+        Map<String, Integer> distribution = new TreeMap<>();
+        dashboard.get("diseaseDistribution").fields()
+                .forEachRemaining(entry -> distribution.put(entry.getKey(), entry.getValue().asInt()));
+        assertEquals(patients.size(), dashboard.get("totalPatients").asInt(), "total patients");
+        assertEquals(risks.getOrDefault("high", 0), dashboard.get("highRiskPatients").asInt(), "high risk");
+        assertEquals(risks.getOrDefault("medium", 0), dashboard.get("mediumRiskPatients").asInt(), "medium risk");
+        assertEquals(risks.getOrDefault("low", 0), dashboard.get("lowRiskPatients").asInt(), "low risk");
+        assertEquals(diseases, distribution, "disease distribution");
+    }
+
+    private static PatientRequest patient(Random random) {
+        PatientRequest patient = patient("Patient " + Long.toHexString(random.nextLong()), "Kerala");
+        patient.setOxygen(OXYGEN.get(random.nextInt(OXYGEN.size())));
+        patient.setDisease(DISEASES.get(random.nextInt(DISEASES.size())));
+        return patient;
+    }
+
+    private long createPatient(String token, Random random) throws IOException, InterruptedException {
+        return send(post("/api/patients", token, patient(random))).get("id").asLong();
+    }
+
+    private void createPatients(String token, Random random, int count) throws IOException, InterruptedException {
+        List<PatientRequest> batch = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            batch.add(patient(random));
+        }
+        assertEquals(count, send(post("/api/patients/batch", token, batch)).get("created").asInt(),
+                "patients created by a batch upload");
+    }
+}
@@ -0,0 +1,71 @@
+package com.healthcare.api.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.LoginRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import java.sql.Timestamp;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Last-login timestamps of doctors created on their first login, which
+ * have no committed row until the login's transaction commits. The
+ * scheduled flush is pushed out of the way; the tests flush themselves.
+ */
+@TestPropertySource(properties = "auth.last-login.flush-interval=PT1H")
+class LastLoginRecorderTest extends ApiIntegrationTest {
+
+    @Autowired
+    private AuthService authService;
+
+    @Autowired
+    private LastLoginRecorder lastLoginRecorder;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void firstLoginIsWrittenByTheFlush() throws Exception {
+        LoginRequest login = new LoginRequest();
+        login.setIdentifier("first.login@clinic.example");
+        login.setPassword("any");
+        String token = send(post("/api/auth/login", null, login)).get("token").asText();
+
+        lastLoginRecorder.flush();
+
+        assertNotNull(storedLastLogin("first.login@clinic.example"), "last login stored");
+        JsonNode me = send(get("/api/auth/me", token));
+        assertFalse(me.path("lastLogin").isNull(), "last login returned by /api/auth/me");
+    }
+
+    @Test
+    void firstLoginSurvivesAFlushBeforeItsTransactionCommits() {
+        LoginRequest login = new LoginRequest();
+        login.setIdentifier("FLUSHED-BEFORE-COMMIT");
+        login.setPassword("any");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            authService.login(login);
+            // Another thread, as the scheduler would be, which cannot see the new doctor yet
+            CompletableFuture.runAsync(lastLoginRecorder::flush).join();
+        });
+        lastLoginRecorder.flush();
+
+        assertNotNull(storedLastLogin("FLUSHED-BEFORE-COMMIT@temp.com"), "last login stored once the doctor is committed");
+    }
+
+    private Timestamp storedLastLogin(String email) {
+        return jdbcTemplate.queryForObject("SELECT last_login FROM doctors WHERE email = ?", Timestamp.class, email);
+    }
+}
@@ -0,0 +1,195 @@
+package com.healthcare.api.sharding;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Patient sharding against three embedded H2 databases: the home database
+ * (shard 0) and two more shards, with the hash strategy. Hibernate's caches
+ * are off, so every read reaches a shard, and the test reads the shards'
+ * tables directly to see where rows went.
+ * <p>
+ * It registers doctors (the first is the admin) and gives each patients in
+ * several states, then checks that every doctor lists exactly their own
+ * patients, that each doctor's rows are on the shard the directory assigns
+ * and only there, that more than one shard is used, that patient ids are
+ * unique across shards and that population totals per state, gathered from
+ * every shard, match what was written. It then moves one doctor to another
+ * shard and checks the same again, plus the dashboard and a write after
+ * the move, and finally rebalances, which moves that doctor back.
+ */
+@TestPropertySource(properties = {
+        "spring.datasource.url=jdbc:h2:mem:shard_test_0",
+        "sharding.enabled=true",
+        "sharding.urls=jdbc:h2:mem:shard_test_1,jdbc:h2:mem:shard_test_2",
+        "sharding.strategy=hash",
+        "admin.doctor-ids=1",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"})
+class ShardingTest extends ApiIntegrationTest {
+
+    private static final int SHARDS = 3;
+    private static final int DOCTORS = 12;
+    private static final int PATIENTS_PER_DOCTOR = 20;
+    private static final List<String> STATES = List.of("Kerala", "Karnataka", "Tamil Nadu", "Maharashtra", "Goa");
+
+    private final List<String> tokens = new ArrayList<>();
+    private final List<Long> doctorIds = new ArrayList<>();
+    private final Map<Long, Set<String>> names = new HashMap<>();
+    private final Map<String, Long> patientsByState = new TreeMap<>();
+
+    @Test
+    void patientsFollowTheirDoctorsShard() throws Exception {
+        for (int d = 0; d < DOCTORS; d++) {
+            String token = register("shard " + d);
+            tokens.add(token);
+            doctorIds.add(send(get("/api/auth/me", token)).get("id").asLong());
+        }
+        assertEquals(1L, doctorIds.get(0), "the admin's id");
+        for (int d = 0; d < DOCTORS; d++) {
+            Set<String> written = new HashSet<>();
+            for (int p = 0; p < PATIENTS_PER_DOCTOR; p++) {
+                String state = STATES.get((d + p) % STATES.size());
+                written.add(createPatient(tokens.get(d), "Patient " + d + "-" + p, state));
+            }
+            names.put(doctorIds.get(d), written);
+        }
+
+        Map<Long, Integer> placements = placements();
+        assertPlacement("after writing", placements);
+        assertTrue(new HashSet<>(placements.values()).size() > 1, "patients are spread over more than one shard");
+        assertTrue(uniqueIds(), "patient ids are unique across shards");
+
+        // Move a doctor with patients off the shard the hash chose
+        int mover = 1;
+        Long moverId = doctorIds.get(mover);
+        int from = placements.get(moverId);
+        int to = (from + 1) % SHARDS;
+        send(post("/api/admin/shards/move?doctorId=" + moverId + "&shard=" + to, tokens.get(0), null));
+        placements = placements();
+        assertEquals(to, placements.get(moverId), "the directory places the moved doctor on the new shard");
+        assertPlacement("after the move", placements);
+        JsonNode dashboard = send(get("/api/analytics/dashboard", tokens.get(mover)));
+        assertEquals(PATIENTS_PER_DOCTOR, dashboard.get("totalPatients").asInt(),
+                "the moved doctor's dashboard counters moved with them");
+        names.get(moverId).add(createPatient(tokens.get(mover), "Patient after move", STATES.get(0)));
+        assertEquals(PATIENTS_PER_DOCTOR + 1, patientCounts(to).getOrDefault(moverId, 0L),
+                "a patient written after the move lands on the new shard");
+        assertEquals(patientsByState, populationTotals(), "population totals are unchanged by the move");
+
+        send(post("/api/admin/shards/rebalance", tokens.get(0), null));
+        placements = placements();
+        assertEquals(from, placements.get(moverId), "rebalancing moves the doctor back to their hash shard");
+        assertPlacement("after rebalancing", placements);
+        long misplaced = 0;
+        for (JsonNode shard : send(get("/api/admin/shards", tokens.get(0)))) {
+            misplaced += shard.get("misplacedDoctors").asLong();
+        }
+        assertEquals(0, misplaced, "doctors misplaced after rebalancing");
+    }
+
+    // Each doctor lists only their own patients, all of them on their shard and none elsewhere
+    private void assertPlacement(String when, Map<Long, Integer> placements) throws Exception {
+        for (int d = 0; d < DOCTORS; d++) {
+            Set<String> seen = new HashSet<>();
+            for (JsonNode patient : send(get("/api/patients", tokens.get(d)))) {
+                seen.add(patient.get("name").asText());
+            }
+            assertEquals(names.get(doctorIds.get(d)), seen, "patients listed by doctor " + d + " " + when);
+        }
+
+        List<Map<Long, Long>> counts = new ArrayList<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            counts.add(patientCounts(shard));
+        }
+        for (Long doctorId : doctorIds) {
+            int home = placements.getOrDefault(doctorId, 0);
+            for (int shard = 0; shard < SHARDS; shard++) {
+                long expected = shard == home ? names.get(doctorId).size() : 0;
+                assertEquals(expected, counts.get(shard).getOrDefault(doctorId, 0L),
+                        "patients of doctor " + doctorId + " on shard " + shard + " " + when);
+            }
+        }
+
+        assertEquals(patientsByState, populationTotals(), "population totals gathered from every shard " + when);
+    }
+
+    private Map<String, Long> populationTotals() throws IOException, InterruptedException {
+        Map<String, Long> totals = new TreeMap<>();
+        for (JsonNode row : send(get("/api/population/rollups?groupBy=state", tokens.get(0)))) {
+            totals.put(row.get("state").asText(), row.get("patients").asLong());
+        }
+        return totals;
+    }
+
+    private static String shardUrl(int shard) {
+        return "jdbc:h2:mem:shard_test_" + shard;
+    }
+
+    private static Map<Long, Integer> placements() throws SQLException {
+        Map<Long, Integer> placements = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection(shardUrl(0), "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT doctor_id, shard FROM doctor_shards")) {
+            while (rs.next()) {
+                placements.put(rs.getLong(1), rs.getInt(2));
+            }
+        }
+        return placements;
+    }
+
+    private static Map<Long, Long> patientCounts(int shard) throws SQLException {
+        Map<Long, Long> counts = new HashMap<>();
+        try (Connection connection = DriverManager.getConnection(shardUrl(shard), "sa", "");
+             Statement statement = connection.createStatement();
+             ResultSet rs = statement.executeQuery("SELECT doctor_id, COUNT(*) FROM patients GROUP BY doctor_id")) {
+            while (rs.next()) {
+                counts.put(rs.getLong(1), rs.getLong(2));
+            }
+        }
+        return counts;
+    }
+
+    private static boolean uniqueIds() throws SQLException {
+        Set<Long> ids = new HashSet<>();
+        for (int shard = 0; shard < SHARDS; shard++) {
+            try (Connection connection = DriverManager.getConnection(shardUrl(shard), "sa", "");
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery("SELECT id FROM patients")) {
+                while (rs.next()) {
+                    if (!ids.add(rs.getLong(1))) {
+                        return false;
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private String createPatient(String token, String name, String state) throws IOException, InterruptedException {
+        PatientRequest patient = patient(name, state);
+        patient.setDisease("Influenza");
+        send(post("/api/patients", token, patient));
+        patientsByState.merge(state, 1L, Long::sum);
+        return name;
+    }
+}
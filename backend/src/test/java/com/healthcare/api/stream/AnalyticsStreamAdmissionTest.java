@@ -0,0 +1,75 @@
+package com.healthcare.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@code GET /api/analytics/stream} under admission control. One doctor
+ * opens {@link #STREAMS} streams one after another, each once the one
+ * before has its dashboard, which is more than the analytics in-flight
+ * limit. Each open stream must give its slot back, so every stream opens
+ * and dashboard requests are still admitted. The doctor's first write then
+ * has to reach every stream exactly once, though none of them started from
+ * a counter row.
+ */
+@TestPropertySource(properties = {
+        "admission.enabled=true",
+        // Generous rates, so that only the in-flight limit stands in the way
+        "admission.analytics.rate=1000",
+        "admission.analytics.burst=1000",
+        "admission.writes.rate=1000",
+        "admission.writes.burst=1000",
+        "analytics.stream.max-subscribers-per-doctor=" + (AnalyticsStreamAdmissionTest.STREAMS + 1)})
+class AnalyticsStreamAdmissionTest extends ApiIntegrationTest {
+
+    static final int STREAMS = 12;
+
+    @Test
+    void openStreamsHoldNoAdmissionSlot() throws Exception {
+        String token = register("admitted streams");
+        List<DashboardStreamReader> readers = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        try {
+            for (int s = 0; s < STREAMS; s++) {
+                DashboardStreamReader reader = new DashboardStreamReader(objectMapper, 0, false, Map.of(),
+                        new ConcurrentLinkedQueue<>());
+                readers.add(reader);
+                responses.add(reader.open(client, uri("/api/analytics/stream"), token));
+                assertTrue(reader.started.await(10, TimeUnit.SECONDS), "stream " + s + " opens");
+                assertFalse(reader.failed, "stream " + s + " opens");
+            }
+
+            for (int i = 0; i < 3; i++) {
+                assertEquals(200, exchange(get("/api/analytics/dashboard", token)).statusCode(),
+                        "a dashboard request is admitted while the streams stay open");
+            }
+
+            // The doctor has no counter row yet, so every stream started from zero counts at version 0
+            PatientRequest patient = patient("Patient 0", "Kerala");
+            patient.setTemperature(103.5);
+            patient.setDisease("Malaria");
+            send(post("/api/patients", token, patient));
+            TimeUnit.SECONDS.sleep(1);
+            JsonNode dashboard = send(get("/api/analytics/dashboard", token));
+            for (DashboardStreamReader reader : readers) {
+                assertTrue(reader.matches(dashboard), "a stream opened before the doctor's first write counts it once");
+            }
+        } finally {
+            responses.forEach(response -> response.cancel(true));
+        }
+    }
+}
@@ -0,0 +1,148 @@
+package com.healthcare.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.healthcare.api.ApiIntegrationTest;
+import com.healthcare.api.dto.PatientRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+import java.io.IOException;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * {@code GET /api/analytics/stream} with many concurrent subscribers spread
+ * over several doctors, without admission control. Patients are written at
+ * a fixed rate: high-risk patients, which alert, low-risk ones, which only
+ * change the dashboard, and disease changes, which alert. After a quiet
+ * period longer than the heartbeat interval, every subscriber that keeps
+ * reading must have a heartbeat and every alert for its doctor, and its
+ * dashboard plus deltas must equal the dashboard the API returns. Delivery
+ * latency runs from sending the write to receiving the alert, so it
+ * includes the write itself. Slow subscribers read one line and then stop,
+ * so the server drops or folds their events.
+ */
+@TestPropertySource(properties = {
+        "analytics.stream.max-subscribers-per-doctor="
+                + ((AnalyticsStreamFanoutTest.SUBSCRIBERS + AnalyticsStreamFanoutTest.SLOW)
+                / AnalyticsStreamFanoutTest.DOCTORS + 1),
+        // Heartbeats are checked within the quiet period
+        "analytics.stream.heartbeat-interval=PT1S"})
+class AnalyticsStreamFanoutTest extends ApiIntegrationTest {
+
+    static final int SUBSCRIBERS = 200;
+    static final int SLOW = 10;
+    static final int DOCTORS = 10;
+    private static final int WRITES = 60;
+    private static final double WRITES_PER_SECOND = 30;
+    private static final long QUIET_SECONDS = 3;
+    private static final long MAX_P99_MILLIS = 250;
+    private static final String[] DISEASES = {"Malaria", "Dengue", "Typhoid", "Influenza"};
+
+    private final List<String> tokens = new ArrayList<>();
+    private final Map<String, Long> sentNanos = new ConcurrentHashMap<>();
+    private final Queue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    @Test
+    void everyReadingSubscriberGetsEveryEvent() throws Exception {
+        for (int d = 0; d < DOCTORS; d++) {
+            tokens.add(register("stream " + d));
+        }
+
+        List<DashboardStreamReader> readers = new ArrayList<>();
+        List<CompletableFuture<HttpResponse<Void>>> responses = new ArrayList<>();
+        try {
+            for (int s = 0; s < SUBSCRIBERS + SLOW; s++) {
+                DashboardStreamReader reader = new DashboardStreamReader(objectMapper, s % DOCTORS,
+                        s >= SUBSCRIBERS, sentNanos, latencies);
+                readers.add(reader);
+                responses.add(reader.open(client, uri("/api/analytics/stream"), tokens.get(reader.doctor)));
+            }
+            for (DashboardStreamReader reader : readers) {
+                assertTrue(reader.started.await(60, TimeUnit.SECONDS), "every subscriber connects");
+                assertFalse(reader.failed, "every subscriber connects");
+            }
+
+            long[] alerts = write();
+            TimeUnit.SECONDS.sleep(QUIET_SECONDS);
+
+            List<JsonNode> dashboards = new ArrayList<>();
+            for (String token : tokens) {
+                dashboards.add(send(get("/api/analytics/dashboard", token)));
+            }
+            for (DashboardStreamReader reader : readers) {
+                if (reader.slow) {
+                    continue;
+                }
+                assertTrue(reader.heartbeats.get() > 0, "a reading subscriber receives a heartbeat while idle");
+                assertEquals(alerts[reader.doctor], reader.alerts.get(),
+                        "alerts received by a subscriber of doctor " + reader.doctor);
+                assertTrue(reader.ordered(), "dashboard deltas arrive in version order");
+                assertTrue(reader.matches(dashboards.get(reader.doctor)),
+                        "the dashboard plus its deltas matches the dashboard API");
+            }
+
+            List<Long> sorted = latencies.stream().sorted().toList();
+            long p99 = sorted.get((int) Math.ceil(sorted.size() * 0.99) - 1);
+            assertTrue(p99 <= TimeUnit.MILLISECONDS.toNanos(MAX_P99_MILLIS),
+                    () -> "p99 delivery latency " + p99 / 1_000_000 + " ms, over " + MAX_P99_MILLIS + " ms");
+        } finally {
+            responses.forEach(response -> response.cancel(true));
+        }
+    }
+
+    /**
+     * Writes on schedule: a high-risk patient, a low-risk patient, then the
+     * first's disease changed. Returns the alerts sent per doctor.
+     */
+    private long[] write() throws IOException, InterruptedException {
+        long[] alerts = new long[DOCTORS];
+        Map<Integer, Long> lastHighRisk = new HashMap<>();
+        long intervalNanos = (long) (1e9 / WRITES_PER_SECOND);
+        long start = System.nanoTime();
+        for (int w = 0; w < WRITES; w++) {
+            long wait = start + w * intervalNanos - System.nanoTime();
+            if (wait > 0) {
+                TimeUnit.NANOSECONDS.sleep(wait);
+            }
+            int doctor = w % DOCTORS;
+            String name = "Patient " + w;
+            switch ((w / DOCTORS) % 3) {
+                case 0 -> {
+                    lastHighRisk.put(doctor, writePatient(null, doctor, name, 103.5, DISEASES[w % 4]));
+                    alerts[doctor]++;
+                }
+                case 1 -> writePatient(null, doctor, name, 98.6, DISEASES[w % 4]);
+                default -> {
+                    writePatient(lastHighRisk.get(doctor), doctor, name, 103.5, DISEASES[(w + 1) % 4] + " (revised)");
+                    alerts[doctor]++;
+                }
+            }
+        }
+        return alerts;
+    }
+
+    // Creates the patient, or updates it when an id is given; returns its id
+    private Long writePatient(Long id, int doctor, String name, double temperature, String disease)
+            throws IOException, InterruptedException {
+        PatientRequest patient = patient(name, "Kerala");
+        patient.setTemperature(temperature);
+        patient.setDisease(disease);
+        sentNanos.put(name, System.nanoTime());
+        String token = tokens.get(doctor);
+        JsonNode written = id == null ? send(post("/api/patients", token, patient))
+                : send(put("/api/patients/" + id, token, patient));
+        return written.get("id").asLong();
+    }
+}
@@ -0,0 +1,162 @@
+package com.healthcare.api.stream;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * One {@code GET /api/analytics/stream} response, parsed line by line as
+ * the client receives it. It keeps the dashboard from the first event plus
+ * the deltas after it, and for each alert records the time since its
+ * patient was written, if the write is in {@code sentNanos}. A slow reader
+ * asks for one line and never for more.
+ */
+final class DashboardStreamReader implements Flow.Subscriber<String> {
+
+    final int doctor;
+    final boolean slow;
+    final CountDownLatch started = new CountDownLatch(1);
+    final AtomicLong alerts = new AtomicLong();
+    final AtomicLong heartbeats = new AtomicLong();
+    volatile boolean failed;
+
+    private final ObjectMapper objectMapper;
+    private final Map<String, Long> sentNanos;
+    private final Collection<Long> latencies;
+    private final long[] counts = new long[4];
+    private final Map<String, Long> diseases = new HashMap<>();
+    private long version = -1;
+    private boolean ordered = true;
+    private String event;
+    private String id;
+    private final StringBuilder data = new StringBuilder();
+
+    DashboardStreamReader(ObjectMapper objectMapper, int doctor, boolean slow, Map<String, Long> sentNanos,
+                          Collection<Long> latencies) {
+        this.objectMapper = objectMapper;
+        this.doctor = doctor;
+        this.slow = slow;
+        this.sentNanos = sentNanos;
+        this.latencies = latencies;
+    }
+
+    CompletableFuture<HttpResponse<Void>> open(HttpClient client, URI uri, String token) {
+        return client.sendAsync(HttpRequest.newBuilder(uri)
+                .header("Authorization", "Bearer " + token)
+                .header("Accept", "text/event-stream").GET().build(),
+                HttpResponse.BodyHandlers.fromLineSubscriber(this));
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        subscription.request(slow ? 1 : Long.MAX_VALUE);
+    }
+
+    @Override
+    public synchronized void onNext(String line) {
+        long received = System.nanoTime();
+        if (slow) {
+            started.countDown();
+            return;
+        }
+        if (line.isEmpty()) {
+            dispatch(received);
+            return;
+        }
+        if (line.startsWith(":")) {
+            heartbeats.incrementAndGet();
+            return;
+        }
+        int colon = line.indexOf(':');
+        String field = colon < 0 ? line : line.substring(0, colon);
+        String value = colon < 0 ? "" : line.substring(colon + 1).stripLeading();
+        switch (field) {
+            case "event" -> event = value;
+            case "id" -> id = value;
+            case "data" -> data.append(value);
+            default -> {
+            }
+        }
+    }
+
+    private void dispatch(long received) {
+        try {
+            JsonNode payload = data.length() == 0 ? null : objectMapper.readTree(data.toString());
+            if ("dashboard".equals(event)) {
+                version = Long.parseLong(id);
+                counts[0] = payload.get("totalPatients").asLong();
+                counts[1] = payload.get("highRiskPatients").asLong();
+                counts[2] = payload.get("mediumRiskPatients").asLong();
+                counts[3] = payload.get("lowRiskPatients").asLong();
+                payload.get("diseaseDistribution").fields()
+                        .forEachRemaining(entry -> diseases.put(entry.getKey(), entry.getValue().asLong()));
+                started.countDown();
+            } else if ("dashboard-delta".equals(event)) {
+                long deltaVersion = Long.parseLong(id);
+                ordered &= deltaVersion > version;
+                version = deltaVersion;
+                counts[0] += payload.get("totalPatients").asLong();
+                counts[1] += payload.get("highRiskPatients").asLong();
+                counts[2] += payload.get("mediumRiskPatients").asLong();
+                counts[3] += payload.get("lowRiskPatients").asLong();
+                for (Iterator<Map.Entry<String, JsonNode>> it = payload.get("diseaseDistribution").fields();
+                     it.hasNext(); ) {
+                    Map.Entry<String, JsonNode> entry = it.next();
+                    if (diseases.merge(entry.getKey(), entry.getValue().asLong(), Long::sum) == 0) {
+                        diseases.remove(entry.getKey());
+                    }
+                }
+            } else if ("alert".equals(event)) {
+                alerts.incrementAndGet();
+                Long sent = sentNanos.get(payload.get("name").asText());
+                if (sent != null) {
+                    latencies.add(received - sent);
+                }
+            }
+        } catch (IOException e) {
+            ordered = false;
+        } finally {
+            event = null;
+            id = null;
+            data.setLength(0);
+        }
+    }
+
+    // Deltas arrive in version order
+    synchronized boolean ordered() {
+        return ordered;
+    }
+
+    synchronized boolean matches(JsonNode dashboard) {
+        Map<String, Long> expected = new HashMap<>();
+        dashboard.get("diseaseDistribution").fields()
+                .forEachRemaining(entry -> expected.put(entry.getKey(), entry.getValue().asLong()));
+        return counts[0] == dashboard.get("totalPatients").asLong()
+                && counts[1] == dashboard.get("highRiskPatients").asLong()
+                && counts[2] == dashboard.get("mediumRiskPatients").asLong()
+                && counts[3] == dashboard.get("lowRiskPatients").asLong()
+                && diseases.equals(expected);
+    }
+
+    @Override
+    public void onError(Throwable throwable) {
+        failed = true;
+        started.countDown();
+    }
+
+    @Override
+    public void onComplete() {
+    }
+}
@@ -0,0 +1,124 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.dto.AnalyticsResponse;
+import com.healthcare.api.model.DiseaseCount;
+import com.healthcare.api.model.DoctorAnalytics;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.repository.DiseaseCountRepository;
+import com.healthcare.api.repository.DoctorAnalyticsRepository;
+import com.healthcare.api.service.AnalyticsCounterService;
+import com.healthcare.api.service.AnalyticsService;
+import com.healthcare.api.stream.AnalyticsStream;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Dashboard aggregation for one doctor with N synthetic patients.
+ * <ul>
+ *   <li>{@code fullScan}: the per-request aggregation over every patient
+ *   entity that the dashboard ran before counters were materialized; kept
+ *   here as the baseline.</li>
+ *   <li>{@code counterAggregation}: {@link AnalyticsCounterService#onPatientsCreated}
+ *   summing a batch of N patients into per-doctor and per-disease deltas,
+ *   which are also recorded for the analytics stream.</li>
+ *   <li>{@code dashboardFromCounters}: {@link AnalyticsService#getDashboardAnalytics}
+ *   reading the materialized counters, which should not depend on N.</li>
+ * </ul>
+ * Repositories are in-memory stubs, so database time is excluded throughout.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AnalyticsBenchmark {
+
+    private static final Long DOCTOR_ID = 1L;
+
+    @Param({"1000", "10000", "100000"})
+    public int patientCount;
+
+    private List<Patient> patients;
+    private AnalyticsStream analyticsStream;
+    private AnalyticsCounterService analyticsCounterService;
+    private AnalyticsService analyticsService;
+
+    @Setup
+    public void setUp() {
+        patients = Fixtures.patients(patientCount, DOCTOR_ID);
+
+        DoctorAnalytics analytics = new DoctorAnalytics(DOCTOR_ID);
+        Map<String, DiseaseCount> diseaseCounts = new HashMap<>();
+        for (Patient patient : patients) {
+            analytics.setTotalPatients(analytics.getTotalPatients() + 1);
+            switch (patient.getRiskLevel()) {
+                case "high" -> analytics.setHighRiskPatients(analytics.getHighRiskPatients() + 1);
+                case "medium" -> analytics.setMediumRiskPatients(analytics.getMediumRiskPatients() + 1);
+                default -> analytics.setLowRiskPatients(analytics.getLowRiskPatients() + 1);
+            }
+            DiseaseCount count = diseaseCounts.computeIfAbsent(patient.getDisease(),
+                    disease -> new DiseaseCount(new DiseaseCount.Key(DOCTOR_ID, disease), 0));
+            count.setPatientCount(count.getPatientCount() + 1);
+        }
+        List<DiseaseCount> activeDiseases = List.copyOf(diseaseCounts.values());
+
+        // Every counter row already exists, so applyDelta always reports one updated row
+        DoctorAnalyticsRepository doctorAnalyticsRepository = Fixtures.repository(DoctorAnalyticsRepository.class,
+                Map.of("findById", args -> Optional.of(analytics),
+                        "applyDelta", args -> 1));
+        DiseaseCountRepository diseaseCountRepository = Fixtures.repository(DiseaseCountRepository.class,
+                Map.of("findActiveByDoctorId", args -> activeDiseases,
+                        "applyDelta", args -> 1));
+
+        analyticsStream = new AnalyticsStream(doctorAnalyticsRepository, new SimpleMeterRegistry());
+        analyticsCounterService = new AnalyticsCounterService(
+                doctorAnalyticsRepository, diseaseCountRepository, null, null, null, null, null, analyticsStream);
+        analyticsService = new AnalyticsService(
+                doctorAnalyticsRepository, diseaseCountRepository, analyticsCounterService, null, null);
+    }
+
+    @Benchmark
+    public AnalyticsResponse fullScan() {
+        int totalPatients = patients.size();
+        int highRiskPatients = (int) patients.stream().filter(p -> "high".equalsIgnoreCase(p.getRiskLevel())).count();
+        int mediumRiskPatients = (int) patients.stream().filter(p -> "medium".equalsIgnoreCase(p.getRiskLevel())).count();
+        int lowRiskPatients = (int) patients.stream().filter(p -> "low".equalsIgnoreCase(p.getRiskLevel())).count();
+
+        Map<String, Integer> diseaseDistribution = patients.stream()
+                .filter(p -> p.getDisease() != null && !p.getDisease().isEmpty())
+                .collect(Collectors.groupingBy(Patient::getDisease, Collectors.summingInt(p -> 1)));
+
+        Map<String, Integer> riskTrends = new HashMap<>();
+        riskTrends.put("high", highRiskPatients);
+        riskTrends.put("medium", mediumRiskPatients);
+        riskTrends.put("low", lowRiskPatients);
+
+        return new AnalyticsResponse(totalPatients, highRiskPatients, mediumRiskPatients, lowRiskPatients,
+                diseaseDistribution, riskTrends);
+    }
+
+    @Benchmark
+    public void counterAggregation() {
+        // The counter hooks record deltas for the analytics stream, which needs transaction synchronization
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            analyticsCounterService.onPatientsCreated(patients);
+        } finally {
+            TransactionSynchronizationManager.unbindResourceIfPossible(analyticsStream);
+            TransactionSynchronizationManager.clear();
+        }
+    }
+
+    @Benchmark
+    public AnalyticsResponse dashboardFromCounters() {
+        return analyticsService.getDashboardAnalytics(DOCTOR_ID);
+    }
+}
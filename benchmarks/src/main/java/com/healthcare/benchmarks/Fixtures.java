@@ -0,0 +1,159 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.dto.PatientResponse;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.SymptomCode;
+import org.springframework.util.ReflectionUtils;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+/**
+ * Synthetic data and wiring helpers. The services are built by hand rather
+ * than through a Spring context, with repositories replaced by in-memory
+ * stubs, so the benchmarks measure the Java code path and not the database.
+ */
+final class Fixtures {
+
+    static final String[] RISK_LEVELS = {"high", "medium", "low"};
+    static final String[] DISEASES = {
+            "Hypertension", "Diabetes", "Malaria", "Dengue", "Typhoid", "Tuberculosis",
+            "Asthma", "Anemia", "Pneumonia", "Gastroenteritis", "Jaundice", "Influenza"
+    };
+    static final String[] SYMPTOMS = {
+            "fever", "cough", "headache", "fatigue", "nausea", "vomiting", "diarrhea", "chest pain",
+            "shortness of breath", "dizziness", "joint pain", "rash", "chills", "sore throat",
+            "abdominal pain", "loss of appetite", "body ache", "blurred vision", "swelling", "weight loss"
+    };
+    static final String[] TRIGGERS = {
+            "Elevated temperature", "Low oxygen saturation", "High blood pressure", "Rapid pulse",
+            "Reported chest pain", "Age above 60"
+    };
+    static final String[] RECOMMENDATIONS = {
+            "Refer to district hospital", "Start oral rehydration", "Recheck vitals in 24 hours",
+            "Prescribe antipyretics", "Order blood test", "Schedule follow-up visit"
+    };
+
+    private Fixtures() {
+    }
+
+    static List<SymptomCode> symptomCodes() {
+        List<SymptomCode> codes = new ArrayList<>();
+        for (int i = 0; i < SYMPTOMS.length; i++) {
+            SymptomCode code = new SymptomCode(SYMPTOMS[i]);
+            code.setId(i + 1);
+            codes.add(code);
+        }
+        return codes;
+    }
+
+    /**
+     * Deterministic patients with the field shapes the clinic app submits.
+     */
+    static List<Patient> patients(int count, Long doctorId) {
+        Random random = new Random(42);
+        LocalDateTime start = LocalDateTime.of(2024, 1, 1, 8, 0);
+        List<Patient> patients = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            Patient patient = new Patient();
+            patient.setId((long) i + 1);
+            patient.setDoctorId(doctorId);
+            patient.setName("Patient " + i);
+            patient.setAge(5 + random.nextInt(85));
+            patient.setGender(random.nextBoolean() ? "male" : "female");
+            patient.setPhone(String.format("98%08d", i));
+            patient.setFamilyPhone(String.format("97%08d", i));
+            patient.setState("Karnataka");
+            patient.setCity("Mysuru");
+            patient.setWeight(40 + random.nextInt(50) + 0.5);
+            patient.setHeight(140 + random.nextInt(50) + 0.5);
+            patient.setTemperature(97 + random.nextInt(50) / 10.0);
+            patient.setBloodPressure((100 + random.nextInt(60)) + "/" + (60 + random.nextInt(40)));
+            patient.setOxygen(88 + random.nextInt(12) + 0.0);
+            patient.setPulse(60 + random.nextInt(60));
+            List<Integer> symptomCodes = new ArrayList<>();
+            for (int s = 0; s < 3; s++) {
+                symptomCodes.add(1 + random.nextInt(SYMPTOMS.length));
+            }
+            patient.setSymptomCodes(symptomCodes);
+            patient.setVoiceSymptoms("Patient reports " + SYMPTOMS[random.nextInt(SYMPTOMS.length)]);
+            patient.setRiskLevel(RISK_LEVELS[random.nextInt(RISK_LEVELS.length)]);
+            patient.setDisease(DISEASES[random.nextInt(DISEASES.length)]);
+            patient.setTriggers(pick(random, TRIGGERS, 2));
+            patient.setRecommendations(pick(random, RECOMMENDATIONS, 3));
+            patient.setCreatedAt(start.plusMinutes(i));
+            patient.setUpdatedAt(start.plusMinutes(i));
+            patients.add(patient);
+        }
+        return patients;
+    }
+
+    /**
+     * {@link #patients} as the API returns them, symptoms decoded to names.
+     */
+    static List<PatientResponse> responses(int count, Long doctorId) {
+        List<PatientResponse> responses = new ArrayList<>(count);
+        for (Patient patient : patients(count, doctorId)) {
+            List<String> symptoms = new ArrayList<>();
+            for (Integer code : patient.getSymptomCodes()) {
+                symptoms.add(SYMPTOMS[code - 1]);
+            }
+            responses.add(new PatientResponse(patient.getId(), patient.getDoctorId(), patient.getName(),
+                    patient.getAge(), patient.getGender(), patient.getPhone(), patient.getFamilyPhone(),
+                    patient.getState(), patient.getCity(), patient.getWeight(), patient.getHeight(),
+                    patient.getTemperature(), patient.getBloodPressure(), patient.getOxygen(), patient.getPulse(),
+                    symptoms, patient.getVoiceSymptoms(), patient.getRiskLevel(), patient.getDisease(),
+                    patient.getTriggers(), patient.getRecommendations(), patient.getCreatedAt(),
+                    patient.getUpdatedAt()));
+        }
+        return responses;
+    }
+
+    /**
+     * A repository implementation that answers the named methods and fails on
+     * anything else, so a benchmark cannot silently hit an unstubbed query.
+     */
+    @SuppressWarnings("unchecked")
+    static <T> T repository(Class<T> type, Map<String, Function<Object[], Object>> methods) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            Function<Object[], Object> handler = methods.get(method.getName());
+            if (handler == null) {
+                throw new UnsupportedOperationException(type.getSimpleName() + "." + method.getName());
+            }
+            return handler.apply(args);
+        });
+    }
+
+    /**
+     * Sets a field that Spring would normally inject with {@code @Value}.
+     */
+    static void setField(Object target, String name, Object value) {
+        Field field = ReflectionUtils.findField(target.getClass(), name);
+        ReflectionUtils.makeAccessible(field);
+        ReflectionUtils.setField(field, target, value);
+    }
+
+    /**
+     * Calls a lifecycle method that Spring would normally call, such as a
+     * package-private {@code @PostConstruct}.
+     */
+    static void invoke(Object target, String name) {
+        Method method = ReflectionUtils.findMethod(target.getClass(), name);
+        ReflectionUtils.makeAccessible(method);
+        ReflectionUtils.invokeMethod(method, target);
+    }
+
+    private static List<String> pick(Random random, String[] values, int count) {
+        List<String> picked = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            picked.add(values[random.nextInt(values.length)]);
+        }
+        return picked;
+    }
+}
@@ -0,0 +1,69 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Token issue and verification. {@code verifyCached} is the steady state of a
+ * client reusing its token; {@code verifyUncached} rotates through more tokens
+ * than a zero-sized cache can hold, so every call pays for the HMAC check.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final int TOKEN_POOL_SIZE = 4096;
+
+    private JwtUtil cachingJwtUtil;
+    private JwtUtil nonCachingJwtUtil;
+    private String cachedToken;
+    private String[] tokens;
+
+    @Setup
+    public void setUp() {
+        cachingJwtUtil = jwtUtil(10_000);
+        nonCachingJwtUtil = jwtUtil(0);
+        cachedToken = cachingJwtUtil.generateToken(1L, "doctor1@clinic.example");
+        cachingJwtUtil.getUserIdFromToken(cachedToken);
+        tokens = new String[TOKEN_POOL_SIZE];
+        for (int i = 0; i < tokens.length; i++) {
+            tokens[i] = nonCachingJwtUtil.generateToken((long) i + 1, "doctor" + i + "@clinic.example");
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return cachingJwtUtil.generateToken(42L, "doctor42@clinic.example");
+    }
+
+    @Benchmark
+    public Long verifyCached() {
+        return cachingJwtUtil.getUserIdFromToken(cachedToken);
+    }
+
+    @Benchmark
+    public Long verifyUncached(Cursor cursor) {
+        String token = tokens[cursor.next++ & (TOKEN_POOL_SIZE - 1)];
+        return nonCachingJwtUtil.getUserIdFromToken(token);
+    }
+
+    private static JwtUtil jwtUtil(long cacheMaxSize) {
+        JwtUtil jwtUtil = new JwtUtil(new SimpleMeterRegistry());
+        Fixtures.setField(jwtUtil, "secret", "your-256-bit-secret-key-change-in-production-make-it-very-long-and-secure");
+        Fixtures.setField(jwtUtil, "expiration", 604800000L);
+        Fixtures.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        Fixtures.invoke(jwtUtil, "init");
+        return jwtUtil;
+    }
+}
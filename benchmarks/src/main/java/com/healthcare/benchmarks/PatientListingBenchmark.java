@@ -0,0 +1,209 @@
+package com.healthcare.benchmarks;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.HealthcareApplication;
+import com.healthcare.api.dto.PatientRequest;
+import com.healthcare.api.dto.RegisterRequest;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The three ways to list one doctor's N patients over HTTP: the whole list
+ * as one array ({@code GET /api/patients}), the same array written from a
+ * cursor ({@code GET /api/patients/stream}), and keyset pages
+ * ({@code GET /api/patients?limit=..&cursor=..}).
+ * <ul>
+ *   <li>{@code ...Total}: until the last byte of the response (or of the
+ *       last page) is read.</li>
+ *   <li>{@code ...FirstByte}: until the first byte arrives; the rest is not
+ *       read, and the connection is dropped.</li>
+ * </ul>
+ * The app runs in-process on an in-memory H2 database with Hibernate's
+ * caches off, so every request reads the database; the patients are
+ * inserted with SQL, each with three symptoms. Like
+ * {@link PopulationRollupBenchmark} this one includes database time, and
+ * it also includes HTTP and JSON. Run it with
+ * {@code -prof gc} to compare the allocation per list, which for the
+ * full list includes holding every row at once.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class PatientListingBenchmark {
+
+    private static final int PAGE_SIZE = 500;
+    private static final int FIRST_PAGE_SIZE = 100;
+
+    @Param({"100000"})
+    public int patientCount;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private ConfigurableApplicationContext context;
+    private String baseUrl;
+    private String token;
+
+    @Setup
+    public void setUp() throws Exception {
+        context = new SpringApplicationBuilder(HealthcareApplication.class).run(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:listing;DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+                "--spring.jpa.properties.hibernate.cache.use_query_cache=false",
+                "--admission.enabled=false",
+                "--risk.rescore-on-startup=false",
+                "--population.rollups.build-if-empty=false",
+                "--spring.h2.console.enabled=false",
+                "--spring.main.banner-mode=off",
+                // The first-byte runs drop connections mid-response
+                "--logging.level.root=ERROR");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        RegisterRequest register = new RegisterRequest();
+        register.setName("Dr. Listing");
+        register.setEmail("listing@clinic.example");
+        register.setPassword("listing-benchmark-password");
+        register.setMedicalId("LISTING-1");
+        register.setHospital("District Hospital");
+        register.setHospitalPhone("08000000");
+        register.setSpecialization("General Medicine");
+        token = objectMapper.readTree(post("/api/auth/register", register)).get("token").asText();
+
+        // One patient through the API puts the symptoms in the dictionary; the rest are inserted in SQL
+        PatientRequest first = new PatientRequest();
+        first.setName("Patient 0");
+        first.setSymptoms(List.of(Fixtures.SYMPTOMS[0], Fixtures.SYMPTOMS[1], Fixtures.SYMPTOMS[2]));
+        long firstId = objectMapper.readTree(post("/api/patients", first)).get("id").asLong();
+        insertPatients(context.getBean(JdbcTemplate.class), firstId);
+    }
+
+    @TearDown
+    public void tearDown() {
+        context.getBean(JdbcTemplate.class).execute("DROP ALL OBJECTS");
+        context.close();
+    }
+
+    @Benchmark
+    public long fullListTotal() throws IOException, InterruptedException {
+        return drain(get("/api/patients"), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long fullListFirstByte() throws IOException, InterruptedException {
+        return drain(get("/api/patients"), 1);
+    }
+
+    @Benchmark
+    public long streamTotal() throws IOException, InterruptedException {
+        return drain(get("/api/patients/stream"), Long.MAX_VALUE);
+    }
+
+    @Benchmark
+    public long streamFirstByte() throws IOException, InterruptedException {
+        return drain(get("/api/patients/stream"), 1);
+    }
+
+    @Benchmark
+    public long keysetFirstPage() throws IOException, InterruptedException {
+        return drain(get("/api/patients?limit=" + FIRST_PAGE_SIZE), Long.MAX_VALUE);
+    }
+
+    // Every page, each asked for with the cursor of the one before
+    @Benchmark
+    public long keysetAllPagesTotal() throws IOException, InterruptedException {
+        long rows = 0;
+        String cursor = null;
+        do {
+            String path = "/api/patients?limit=" + PAGE_SIZE
+                    + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+            JsonNode page;
+            try (InputStream body = get(path).body()) {
+                page = objectMapper.readTree(body);
+            }
+            rows += page.get("patients").size();
+            cursor = page.path("nextCursor").isTextual() ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+        if (rows != patientCount) {
+            throw new IllegalStateException("Walked " + rows + " of " + patientCount + " patients");
+        }
+        return rows;
+    }
+
+    /**
+     * Adds patients 2..N for the doctor of the first, spread over states,
+     * diseases and risk levels, each with the first patient's symptoms.
+     */
+    private void insertPatients(JdbcTemplate jdbcTemplate, long firstId) {
+        long doctorId = jdbcTemplate.queryForObject("SELECT doctor_id FROM patients WHERE id = ?", Long.class,
+                firstId);
+        // Ids far above the sequence, so they never meet ids the app assigns
+        long offset = 1_000_000_000L;
+        jdbcTemplate.update("INSERT INTO patients (id, doctor_id, name, age, gender, phone, state, city, "
+                        + "temperature, blood_pressure, oxygen, pulse, risk_level, disease, triggers, "
+                        + "recommendations, created_at, updated_at) "
+                        + "SELECT X + ?, ?, CONCAT('Patient ', X), MOD(X, 90), CASEWHEN(MOD(X, 2) = 0, 'male', 'female'), "
+                        + "CONCAT('98', LPAD(CAST(X AS VARCHAR), 8, '0')), CONCAT('State ', MOD(X, 10)), "
+                        + "CONCAT('City ', MOD(X, 7)), 97 + MOD(X, 50) / 10.0, '120/80', 88 + MOD(X, 12), "
+                        + "60 + MOD(X, 60), ARRAY_GET(ARRAY['high', 'medium', 'low'], MOD(X, 3) + 1), "
+                        + "CONCAT('Disease ', MOD(X, 12)), 'Elevated temperature', 'Order blood test', "
+                        + "DATEADD(MINUTE, X, TIMESTAMP '2020-01-01 00:00:00'), "
+                        + "DATEADD(MINUTE, X, TIMESTAMP '2020-01-01 00:00:00') FROM SYSTEM_RANGE(2, ?)",
+                offset, doctorId, patientCount);
+        jdbcTemplate.update("INSERT INTO patient_symptoms (patient_id, list_order, symptom_id) "
+                + "SELECT X + ?, s.list_order, s.symptom_id FROM SYSTEM_RANGE(2, ?) "
+                + "CROSS JOIN patient_symptoms s WHERE s.patient_id = ?", offset, patientCount, firstId);
+    }
+
+    private HttpResponse<InputStream> get(String path) throws IOException, InterruptedException {
+        HttpResponse<InputStream> response = client.send(HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Authorization", "Bearer " + token).GET().build(), HttpResponse.BodyHandlers.ofInputStream());
+        if (response.statusCode() != 200) {
+            response.body().close();
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response;
+    }
+
+    private String post(String path, Object body) throws IOException, InterruptedException {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create(baseUrl + path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(path + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    // Reads up to limit bytes of the body, then closes it
+    private static long drain(HttpResponse<InputStream> response, long limit) throws IOException {
+        byte[] buffer = new byte[65536];
+        long bytes = 0;
+        try (InputStream in = response.body()) {
+            for (int read; bytes < limit && (read = in.read(buffer, 0, (int) Math.min(buffer.length, limit - bytes))) != -1; ) {
+                bytes += read;
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.healthcare.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.dto.PatientResponse;
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.StringListConverter;
+import com.healthcare.api.repository.SymptomCodeRepository;
+import com.healthcare.api.service.PatientService;
+import com.healthcare.api.service.SymptomDictionary;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping for one page of patients. {@code map} covers
+ * {@code PatientService.mapToPatientResponse} alone (symptom codes decoded
+ * through the dictionary); {@code decodeAndMap} also decodes the stored
+ * triggers and recommendations columns, in the compact format written today
+ * or in the legacy JSON format still found in older rows.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+@OperationsPerInvocation(PatientMappingBenchmark.PAGE_SIZE)
+public class PatientMappingBenchmark {
+
+    static final int PAGE_SIZE = 100;
+
+    @Param({"compact", "legacy-json"})
+    public String storageFormat;
+
+    private final StringListConverter converter = new StringListConverter();
+    private MethodHandle mapToPatientResponse;
+    private PatientService patientService;
+    private List<Patient> patients;
+    private String[] triggerColumns;
+    private String[] recommendationColumns;
+
+    @Setup
+    public void setUp() throws Exception {
+        SymptomCodeRepository symptomCodes = Fixtures.repository(SymptomCodeRepository.class,
+                Map.of("findAll", args -> Fixtures.symptomCodes()));
+        SymptomDictionary symptomDictionary = new SymptomDictionary(symptomCodes, null, null);
+        Fixtures.invoke(symptomDictionary, "load");
+        patientService = new PatientService(null, null, symptomDictionary, null, null, null, null, null, null, null, null,
+                null, null);
+        mapToPatientResponse = MethodHandles.privateLookupIn(PatientService.class, MethodHandles.lookup())
+                .findVirtual(PatientService.class, "mapToPatientResponse",
+                        MethodType.methodType(PatientResponse.class, Patient.class));
+
+        patients = Fixtures.patients(PAGE_SIZE, 1L);
+        ObjectMapper objectMapper = new ObjectMapper();
+        triggerColumns = new String[PAGE_SIZE];
+        recommendationColumns = new String[PAGE_SIZE];
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Patient patient = patients.get(i);
+            if ("legacy-json".equals(storageFormat)) {
+                triggerColumns[i] = objectMapper.writeValueAsString(patient.getTriggers());
+                recommendationColumns[i] = objectMapper.writeValueAsString(patient.getRecommendations());
+            } else {
+                triggerColumns[i] = converter.convertToDatabaseColumn(patient.getTriggers());
+                recommendationColumns[i] = converter.convertToDatabaseColumn(patient.getRecommendations());
+            }
+        }
+    }
+
+    @Benchmark
+    public void map(Blackhole blackhole) throws Throwable {
+        for (Patient patient : patients) {
+            blackhole.consume((PatientResponse) mapToPatientResponse.invoke(patientService, patient));
+        }
+    }
+
+    @Benchmark
+    public void decodeAndMap(Blackhole blackhole) throws Throwable {
+        for (int i = 0; i < PAGE_SIZE; i++) {
+            Patient patient = patients.get(i);
+            patient.setTriggers(converter.convertToEntityAttribute(triggerColumns[i]));
+            patient.setRecommendations(converter.convertToEntityAttribute(recommendationColumns[i]));
+            blackhole.consume((PatientResponse) mapToPatientResponse.invoke(patientService, patient));
+        }
+    }
+}
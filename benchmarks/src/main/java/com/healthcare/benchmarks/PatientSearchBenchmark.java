@@ -0,0 +1,90 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.dto.PatientSearchResult;
+import com.healthcare.api.search.PatientSearchIndex;
+import org.openjdk.jmh.annotations.*;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Search over one doctor's patients in the in-memory index. Names are drawn
+ * from common first and last names with the spelling variants seen in
+ * romanized Indian names, so words repeat the way they do in a real clinic.
+ * Setup prints the build time and the heap retained per indexed patient.
+ * {@code r} is the worst case: a one-letter prefix matching a large share
+ * of all patients.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@State(Scope.Benchmark)
+public class PatientSearchBenchmark {
+
+    private static final String[] FIRST_NAMES = {
+            "Lakshmi", "Laxmi", "Ramesh", "Suresh", "Mahesh", "Ganesh", "Priya", "Preeya", "Anil", "Sunil",
+            "Kavitha", "Kavita", "Shree", "Sri", "Mohammed", "Muhammad", "Fatima", "Ayesha", "Rajesh", "Rakesh",
+            "Sita", "Geetha", "Gita", "Radha", "Krishna", "Manjunath", "Basavaraj", "Nagaraj", "Shivakumar",
+            "Shivkumar", "Venkatesh", "Srinivas", "Shrinivas", "Anitha", "Anita", "Sunitha", "Sunita", "Deepa",
+            "Divya", "Pooja", "Puja", "Arjun", "Vijay", "Ajay", "Sanjay", "Ravi", "Ravindra", "Prakash", "Santosh",
+            "Santhosh", "Savitri", "Savithri", "Parvathi", "Parvati", "Yallappa", "Hanumanthappa", "Mallikarjun",
+            "Chandrashekar", "Chandrasekhar", "Jyothi", "Jyoti", "Rekha", "Usha", "Asha", "Meena", "Kamala",
+            "Padma", "Shanthi", "Shanti", "Girish", "Harish", "Naveen", "Praveen", "Kiran", "Kumar", "Abdul",
+            "Rahim", "Salim", "Imran", "Shabana", "Nasreen", "Joseph", "Mary", "Thomas", "Anthony"
+    };
+    private static final String[] LAST_NAMES = {
+            "Kumar", "Sharma", "Gowda", "Reddy", "Naik", "Patil", "Hegde", "Shetty", "Rao", "Bhat", "Nayak",
+            "Devi", "Singh", "Khan", "Shaikh", "Pasha", "Kulkarni", "Joshi", "Desai", "Pujari", "Hiremath",
+            "Angadi", "Kamble", "Madar", "Nadaf", "Biradar", "Chavan", "Pawar", "Jadhav", "Mudhol", "Talawar",
+            "Doddamani", "Lamani", "Rathod", "Menon", "Nair", "Pillai", "Iyer", "Iyengar", "D'Souza", "Fernandes"
+    };
+    private static final String[] CITIES = {
+            "Mysuru", "Mysore", "Mandya", "Hassan", "Tumakuru", "Tumkur", "Chitradurga", "Davanagere", "Shivamogga",
+            "Shimoga", "Hubballi", "Hubli", "Dharwad", "Belagavi", "Belgaum", "Vijayapura", "Bijapur", "Kalaburagi",
+            "Gulbarga", "Raichur", "Ballari", "Bellary", "Koppal", "Gadag", "Haveri", "Udupi", "Mangaluru", "Kolar",
+            "Chikkaballapur", "Ramanagara", "Chamarajanagar", "Kodagu", "Karwar", "Bidar", "Yadgir", "Bagalkot"
+    };
+
+    @Param({"100000"})
+    public int patients;
+
+    @Param({"lakshmi", "lak", "r", "ramseh", "shrinivas gowda", "kumar mysore", "43210", "+91 98000 43210"})
+    public String query;
+
+    private PatientSearchIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        System.gc();
+        long heapBefore = usedHeap();
+        long start = System.nanoTime();
+        index = new PatientSearchIndex(null, null);
+        for (int i = 0; i < patients; i++) {
+            String name = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " "
+                    + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+            // Some names carry an initial or a father's name, as on ration cards
+            if (random.nextInt(4) == 0) {
+                name = (char) ('A' + random.nextInt(26)) + ". " + name;
+            }
+            index.put(1L, (long) i + 1, name, String.format("9%09d", random.nextInt(1_000_000_000)),
+                    CITIES[random.nextInt(CITIES.length)]);
+        }
+        long buildMillis = (System.nanoTime() - start) / 1_000_000;
+        System.gc();
+        System.out.printf("%n%d patients indexed in %d ms, %d bytes retained per patient%n", patients, buildMillis,
+                (usedHeap() - heapBefore) / patients);
+    }
+
+    @Benchmark
+    public List<PatientSearchResult> search() {
+        return index.search(1L, query, 20);
+    }
+
+    private static long usedHeap() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
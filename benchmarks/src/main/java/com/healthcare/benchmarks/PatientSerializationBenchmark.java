@@ -0,0 +1,54 @@
+package com.healthcare.benchmarks;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.dto.PatientResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON serialization of patient lists with the ObjectMapper configuration
+ * Spring Boot uses for response bodies. {@code writeList} matches the list
+ * and page endpoints; {@code writeStreamed} matches /api/patients/stream,
+ * which writes one element at a time to the response stream.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PatientSerializationBenchmark {
+
+    @Param({"50", "500", "5000"})
+    public int listSize;
+
+    private ObjectMapper objectMapper;
+    private List<PatientResponse> responses;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        responses = Fixtures.responses(listSize, 1L);
+    }
+
+    @Benchmark
+    public byte[] writeList() throws IOException {
+        return objectMapper.writeValueAsBytes(responses);
+    }
+
+    @Benchmark
+    public void writeStreamed() throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(OutputStream.nullOutputStream())) {
+            generator.writeStartArray();
+            for (PatientResponse response : responses) {
+                generator.writeObject(response);
+            }
+            generator.writeEndArray();
+        }
+    }
+}
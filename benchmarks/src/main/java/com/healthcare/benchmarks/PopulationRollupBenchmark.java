@@ -0,0 +1,194 @@
+package com.healthcare.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Population drill-downs answered from the cube ({@code population_rollups})
+ * versus the same GROUP BY over the patients table, on an in-memory H2
+ * database holding N patients registered over three years in 10 states of
+ * 10 cities each (a few states and cities hold most patients).
+ * <ul>
+ *   <li>{@code stateTrend}: one state's weekly patients by risk level over 52 weeks.</li>
+ *   <li>{@code cityHeatmap}: patients per city and disease over the last 12 weeks.</li>
+ *   <li>{@code stateTotals}: patients per state over all three years.</li>
+ * </ul>
+ * The raw queries get indexes on (state, created_at) and (created_at), as
+ * the fairest baseline without the cube. Unlike the other benchmarks this
+ * one includes database time, since that is what the cube removes.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PopulationRollupBenchmark {
+
+    private static final int STATES = 10;
+    private static final int CITIES_PER_STATE = 10;
+    private static final LocalDate FIRST_DAY = LocalDate.of(2022, 1, 3);
+    private static final LocalDate LAST_WEEK = FIRST_DAY.plusWeeks(155);
+    private static final String WEEK_OF_CREATED_AT =
+            "DATEADD(DAY, 1 - ISO_DAY_OF_WEEK(created_at), CAST(created_at AS DATE))";
+
+    @Param({"1000000"})
+    public int patientCount;
+
+    private Connection connection;
+    private PreparedStatement cubeStateTrend;
+    private PreparedStatement rawStateTrend;
+    private PreparedStatement cubeCityHeatmap;
+    private PreparedStatement rawCityHeatmap;
+    private PreparedStatement cubeStateTotals;
+    private PreparedStatement rawStateTotals;
+
+    @Setup
+    public void setUp() throws SQLException {
+        // Without OPTIMIZE_REUSE_RESULTS=FALSE H2 returns a repeated query's last result unread
+        connection = DriverManager.getConnection(
+                "jdbc:h2:mem:population;DB_CLOSE_DELAY=-1;OPTIMIZE_REUSE_RESULTS=FALSE", "sa", "");
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE TABLE patients (id BIGINT PRIMARY KEY, state VARCHAR(255), "
+                    + "city VARCHAR(255), disease VARCHAR(255), risk_level VARCHAR(32), created_at TIMESTAMP)");
+            statement.execute("CREATE TABLE population_rollups (week_start DATE, state VARCHAR(255), "
+                    + "city VARCHAR(255), disease VARCHAR(255), risk_level VARCHAR(32), patients BIGINT NOT NULL, "
+                    + "PRIMARY KEY (city, disease, risk_level, state, week_start))");
+        }
+        insertPatients();
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("CREATE INDEX idx_patients_state ON patients (state, created_at)");
+            statement.execute("CREATE INDEX idx_patients_created ON patients (created_at)");
+            // What the rebuild computes, as one statement
+            statement.execute("INSERT INTO population_rollups SELECT " + WEEK_OF_CREATED_AT
+                    + ", state, city, disease, risk_level, COUNT(*) FROM patients GROUP BY "
+                    + WEEK_OF_CREATED_AT + ", state, city, disease, risk_level");
+            statement.execute("CREATE INDEX idx_population_rollups_week ON population_rollups (week_start, state, city)");
+            statement.execute("CREATE INDEX idx_population_rollups_region ON population_rollups (state, city, week_start)");
+            statement.execute("ANALYZE");
+        }
+
+        LocalDate yearAgo = LAST_WEEK.minusWeeks(51);
+        LocalDate quarterAgo = LAST_WEEK.minusWeeks(11);
+        cubeStateTrend = prepare("SELECT week_start, risk_level, SUM(patients) FROM population_rollups "
+                + "WHERE state = 'State 0' AND week_start BETWEEN ? AND ? GROUP BY week_start, risk_level",
+                yearAgo, LAST_WEEK);
+        rawStateTrend = prepare("SELECT " + WEEK_OF_CREATED_AT + ", risk_level, COUNT(*) FROM patients "
+                + "WHERE state = 'State 0' AND created_at >= ? AND created_at < ? GROUP BY "
+                + WEEK_OF_CREATED_AT + ", risk_level", yearAgo, LAST_WEEK.plusWeeks(1));
+        cubeCityHeatmap = prepare("SELECT city, disease, SUM(patients) FROM population_rollups "
+                + "WHERE week_start BETWEEN ? AND ? GROUP BY city, disease", quarterAgo, LAST_WEEK);
+        rawCityHeatmap = prepare("SELECT city, disease, COUNT(*) FROM patients "
+                + "WHERE created_at >= ? AND created_at < ? GROUP BY city, disease", quarterAgo, LAST_WEEK.plusWeeks(1));
+        cubeStateTotals = prepare("SELECT state, SUM(patients) FROM population_rollups "
+                + "WHERE week_start BETWEEN ? AND ? GROUP BY state", FIRST_DAY, LAST_WEEK);
+        rawStateTotals = prepare("SELECT state, COUNT(*) FROM patients "
+                + "WHERE created_at >= ? AND created_at < ? GROUP BY state", FIRST_DAY, LAST_WEEK.plusWeeks(1));
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        try (Statement statement = connection.createStatement()) {
+            statement.execute("DROP ALL OBJECTS");
+        }
+        connection.close();
+    }
+
+    @Benchmark
+    public void stateTrendFromCube(Blackhole blackhole) throws SQLException {
+        consume(cubeStateTrend, blackhole);
+    }
+
+    @Benchmark
+    public void stateTrendFromPatients(Blackhole blackhole) throws SQLException {
+        consume(rawStateTrend, blackhole);
+    }
+
+    @Benchmark
+    public void cityHeatmapFromCube(Blackhole blackhole) throws SQLException {
+        consume(cubeCityHeatmap, blackhole);
+    }
+
+    @Benchmark
+    public void cityHeatmapFromPatients(Blackhole blackhole) throws SQLException {
+        consume(rawCityHeatmap, blackhole);
+    }
+
+    @Benchmark
+    public void stateTotalsFromCube(Blackhole blackhole) throws SQLException {
+        consume(cubeStateTotals, blackhole);
+    }
+
+    @Benchmark
+    public void stateTotalsFromPatients(Blackhole blackhole) throws SQLException {
+        consume(rawStateTotals, blackhole);
+    }
+
+    private void insertPatients() throws SQLException {
+        Random random = new Random(42);
+        long seconds = (LAST_WEEK.plusWeeks(1).toEpochDay() - FIRST_DAY.toEpochDay()) * 86_400;
+        LocalDateTime start = FIRST_DAY.atStartOfDay();
+        connection.setAutoCommit(false);
+        try (PreparedStatement insert = connection.prepareStatement(
+                "INSERT INTO patients (id, state, city, disease, risk_level, created_at) VALUES (?, ?, ?, ?, ?, ?)")) {
+            for (int i = 0; i < patientCount; i++) {
+                int state = skewed(random, STATES);
+                insert.setLong(1, i + 1);
+                insert.setString(2, "State " + state);
+                insert.setString(3, "City " + state + "-" + skewed(random, CITIES_PER_STATE));
+                insert.setString(4, Fixtures.DISEASES[random.nextInt(Fixtures.DISEASES.length)]);
+                insert.setString(5, Fixtures.RISK_LEVELS[random.nextInt(Fixtures.RISK_LEVELS.length)]);
+                insert.setTimestamp(6, Timestamp.valueOf(start.plusSeconds((long) (random.nextDouble() * seconds))));
+                insert.addBatch();
+                if (i % 10_000 == 9_999) {
+                    insert.executeBatch();
+                }
+            }
+            insert.executeBatch();
+        }
+        connection.commit();
+        connection.setAutoCommit(true);
+    }
+
+    // Index i with probability proportional to 1 / (i + 1)
+    private static int skewed(Random random, int count) {
+        double total = 0;
+        for (int i = 1; i <= count; i++) {
+            total += 1.0 / i;
+        }
+        double point = random.nextDouble() * total;
+        for (int i = 0; i < count; i++) {
+            point -= 1.0 / (i + 1);
+            if (point <= 0) {
+                return i;
+            }
+        }
+        return count - 1;
+    }
+
+    private PreparedStatement prepare(String sql, LocalDate from, LocalDate to) throws SQLException {
+        PreparedStatement statement = connection.prepareStatement(sql);
+        statement.setObject(1, from);
+        statement.setObject(2, to);
+        return statement;
+    }
+
+    private static void consume(PreparedStatement query, Blackhole blackhole) throws SQLException {
+        try (ResultSet rs = query.executeQuery()) {
+            while (rs.next()) {
+                blackhole.consume(rs.getLong(rs.getMetaData().getColumnCount()));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.model.Patient;
+import com.healthcare.api.model.SymptomCode;
+import com.healthcare.api.risk.RiskRules;
+import com.healthcare.api.service.VitalsService;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Risk scoring of one patient, as on create and update and per row of the
+ * re-score job: reading the vitals off the patient, then the compiled rules.
+ * {@code shipped} is the default {@code risk-rules.txt}; {@code extended}
+ * adds blood pressure, age and symptom rules.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+@OperationsPerInvocation(RiskScoringBenchmark.PATIENT_COUNT)
+public class RiskScoringBenchmark {
+
+    static final int PATIENT_COUNT = 1000;
+
+    private static final String EXTENDED_RULES = """
+            level high 10
+            level medium 3
+            10 oxygen < 90
+            10 temperature > 103
+            3 temperature > 100.4
+            3 pulse > 110
+            3 systolic >= 160
+            2 diastolic >= 100
+            2 systolic < 90
+            1 age >= 65
+            1 age < 5
+            2 symptoms >= 5
+            4 symptom chest pain
+            4 symptom shortness of breath
+            2 symptom blurred vision
+            1 symptom dizziness
+            """;
+
+    @Param({"shipped", "extended"})
+    public String ruleSet;
+
+    private RiskRules rules;
+    private List<Patient> patients;
+
+    @Setup
+    public void setUp() throws IOException {
+        Map<Integer, String> symptomNames = Fixtures.symptomCodes().stream()
+                .collect(Collectors.toMap(SymptomCode::getId, SymptomCode::getName));
+        String text;
+        if ("shipped".equals(ruleSet)) {
+            try (InputStream in = RiskRules.class.getResourceAsStream("/risk-rules.txt")) {
+                text = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+        } else {
+            text = EXTENDED_RULES;
+        }
+        rules = RiskRules.parse(text, symptomNames::get);
+        patients = Fixtures.patients(PATIENT_COUNT, 1L);
+    }
+
+    @Benchmark
+    public void score(Blackhole blackhole) {
+        LocalDateTime now = LocalDateTime.now();
+        for (Patient patient : patients) {
+            int score = rules.score(VitalsService.vitalsOf(patient, now), patient.getAge(), patient.getSymptomCodes());
+            blackhole.consume(rules.level(score));
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.healthcare.benchmarks;
+
+import com.healthcare.api.model.VitalObservation;
+import com.healthcare.api.model.VitalSegmentCodec;
+import org.openjdk.jmh.annotations.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encoding and decoding one patient's daily vitals segment, the Java side of
+ * compaction and of range queries over past days. Readings drift slowly
+ * around normal values at a fixed interval, as from a bedside monitor
+ * ({@code 1440}: every minute) or ward rounds ({@code 96}: every 15 minutes).
+ * Setup prints the encoded size per reading.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class VitalSegmentBenchmark {
+
+    private static final Long PATIENT_ID = 1L;
+
+    @Param({"96", "1440"})
+    public int readingsPerDay;
+
+    private final LocalDate day = LocalDate.of(2024, 3, 1);
+    private List<VitalObservation> readings;
+    private byte[] segment;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        readings = new ArrayList<>(readingsPerDay);
+        LocalDateTime start = day.atStartOfDay();
+        long intervalSeconds = 86_400L / readingsPerDay;
+        double temperature = 98.6;
+        double oxygen = 97;
+        int pulse = 75;
+        int systolic = 120;
+        int diastolic = 80;
+        for (int i = 0; i < readingsPerDay; i++) {
+            temperature = Math.max(96, Math.min(104, temperature + (random.nextInt(5) - 2) / 10.0));
+            oxygen = Math.max(85, Math.min(100, oxygen + random.nextInt(3) - 1));
+            pulse = Math.max(50, Math.min(140, pulse + random.nextInt(5) - 2));
+            systolic = Math.max(90, Math.min(180, systolic + random.nextInt(5) - 2));
+            diastolic = Math.max(55, Math.min(110, diastolic + random.nextInt(3) - 1));
+            VitalObservation reading = new VitalObservation(PATIENT_ID, start.plusSeconds(i * intervalSeconds));
+            reading.setTemperature(temperature);
+            reading.setOxygen(oxygen);
+            reading.setPulse(pulse);
+            reading.setSystolic(systolic);
+            reading.setDiastolic(diastolic);
+            readings.add(reading);
+        }
+        segment = VitalSegmentCodec.encode(day, readings);
+        System.out.printf("%n%d readings encode to %d bytes, %.1f bytes per reading%n",
+                readingsPerDay, segment.length, (double) segment.length / readingsPerDay);
+    }
+
+    @Benchmark
+    public byte[] encodeDay() {
+        return VitalSegmentCodec.encode(day, readings);
+    }
+
+    @Benchmark
+    public List<VitalObservation> decodeDay() {
+        return VitalSegmentCodec.decode(PATIENT_ID, day, segment);
+    }
+}
@@ -0,0 +1,98 @@
+package com.healthcare.benchmarks;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.healthcare.api.dto.PatientResponse;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * A 1k-patient list in each wire format the API negotiates (JSON, Smile,
+ * CBOR), plain or with each HTTP compression, as the server encodes it and
+ * as a client decodes it. Payload sizes are printed once per trial. Time
+ * per list, since that is what one response costs.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<PatientResponse>> PATIENT_LIST = new TypeReference<>() {
+    };
+
+    @Param({"1000"})
+    public int listSize;
+
+    @Param({"json", "smile", "cbor"})
+    public String format;
+
+    @Param({"none", "gzip", "deflate"})
+    public String compression;
+
+    private ObjectMapper objectMapper;
+    private List<PatientResponse> responses;
+    private byte[] encoded;
+
+    @Setup
+    public void setUp() throws IOException {
+        // Dates as ISO strings, as Spring Boot configures the converters' mappers
+        Jackson2ObjectMapperBuilder builder = switch (format) {
+            case "json" -> Jackson2ObjectMapperBuilder.json();
+            case "smile" -> Jackson2ObjectMapperBuilder.smile();
+            case "cbor" -> Jackson2ObjectMapperBuilder.cbor();
+            default -> throw new IllegalArgumentException("Unknown format " + format);
+        };
+        objectMapper = builder.featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build();
+        responses = Fixtures.responses(listSize, 1L);
+        encoded = encode();
+        System.out.printf("%n%s/%s: %d bytes for %d patients%n", format, compression, encoded.length, listSize);
+    }
+
+    @Benchmark
+    public byte[] encode() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (OutputStream out = compress(bytes)) {
+            objectMapper.writeValue(out, responses);
+        }
+        return bytes.toByteArray();
+    }
+
+    @Benchmark
+    public List<PatientResponse> decode() throws IOException {
+        try (InputStream in = decompress(new ByteArrayInputStream(encoded))) {
+            return objectMapper.readValue(in, PATIENT_LIST);
+        }
+    }
+
+    private OutputStream compress(OutputStream out) throws IOException {
+        return switch (compression) {
+            case "gzip" -> new GZIPOutputStream(out);
+            // HTTP deflate is the zlib format, which DeflaterOutputStream writes by default
+            case "deflate" -> new DeflaterOutputStream(out);
+            default -> out;
+        };
+    }
+
+    private InputStream decompress(InputStream in) throws IOException {
+        return switch (compression) {
+            case "gzip" -> new GZIPInputStream(in);
+            case "deflate" -> new InflaterInputStream(in);
+            default -> in;
+        };
+    }
+}
@@ -0,0 +1,366 @@
+package com.healthcare.loadtest;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.healthcare.api.dto.LoginRequest;
+import com.healthcare.api.dto.PatientRequest;
+import com.healthcare.api.dto.RegisterRequest;
+import com.healthcare.api.dto.VitalsRequest;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds the clinic workload: registers doctors with seeded patient lists,
+ * then describes the traffic they generate during a shift. When revalidating,
+ * each doctor's device sends If-None-Match with the ETag it last received
+ * for a URL, the way a client with an HTTP cache does. List fetches ask for
+ * full rows or for the summary view. Vitals traffic goes to the first
+ * {@link #VITALS_PATIENTS} patients of each doctor, as if they were on
+ * bedside monitors.
+ */
+final class ClinicTraffic {
+
+    static final String LOGIN = "POST /api/auth/login";
+    static final String DASHBOARD = "GET /api/analytics/dashboard";
+    static final String LIST = "GET /api/patients?limit=50";
+    static final String DETAIL = "GET /api/patients/{id}";
+    static final String CREATE = "POST /api/patients";
+    static final String UPDATE = "PUT /api/patients/{id}";
+    static final String VITALS_INGEST = "POST /api/patients/{id}/vitals";
+    static final String VITALS_RANGE = "GET /api/patients/{id}/vitals (7 days)";
+    static final String VITALS_ROLLUPS = "GET /api/patients/{id}/vitals/rollups (30 days of hours)";
+    static final int LIST_LIMIT = 50;
+    static final int VITALS_PATIENTS = 5;
+    static final int VITALS_SEED_INTERVAL_MINUTES = 15;
+
+    private static final String PASSWORD = "load-test-password";
+    private static final String[] RISK_LEVELS = {"high", "medium", "low"};
+    private static final String[] DISEASES = {
+            "Hypertension", "Diabetes", "Malaria", "Dengue", "Typhoid", "Tuberculosis",
+            "Asthma", "Anemia", "Pneumonia", "Gastroenteritis"
+    };
+    private static final String[] SYMPTOMS = {
+            "fever", "cough", "headache", "fatigue", "nausea", "vomiting", "chest pain",
+            "shortness of breath", "dizziness", "joint pain", "rash", "chills"
+    };
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final boolean revalidate;
+    private final String listPath;
+    private final ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final List<DoctorSession> doctors = new ArrayList<>();
+    private final Map<String, DoctorSession> doctorsByToken = new ConcurrentHashMap<>();
+
+    ClinicTraffic(HttpClient client, String baseUrl, boolean revalidate, String listView) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.revalidate = revalidate;
+        this.listPath = "/api/patients?limit=" + LIST_LIMIT + ("summary".equals(listView) ? "&view=summary" : "");
+    }
+
+    /**
+     * Registers the doctors and uploads their starting patient lists through
+     * the batch endpoint.
+     */
+    void seed(int doctorCount, int patientsPerDoctor) {
+        String run = Long.toString(System.currentTimeMillis(), 36);
+        for (int i = 0; i < doctorCount; i++) {
+            RegisterRequest register = new RegisterRequest();
+            register.setName("Dr. Load " + i);
+            register.setEmail("load" + i + "-" + run + "@clinic.example");
+            register.setPassword(PASSWORD);
+            register.setMedicalId("LOAD-" + run + "-" + i);
+            register.setHospital("District Hospital " + (i % 5));
+            register.setHospitalPhone("0800000" + i);
+            register.setSpecialization("General Medicine");
+            JsonNode auth = post("/api/auth/register", null, register);
+            DoctorSession doctor = new DoctorSession(register.getEmail(), auth.get("token").asText());
+
+            List<PatientRequest> patients = new ArrayList<>(patientsPerDoctor);
+            for (int p = 0; p < patientsPerDoctor; p++) {
+                patients.add(randomPatient());
+            }
+            if (!patients.isEmpty()) {
+                for (JsonNode result : post("/api/patients/batch", doctor.token, patients).get("results")) {
+                    if (result.hasNonNull("id")) {
+                        doctor.addPatient(result.get("id").asLong());
+                    }
+                }
+            }
+            doctors.add(doctor);
+            doctorsByToken.put(doctor.token, doctor);
+        }
+    }
+
+    /**
+     * Uploads {@code days} of readings, one every
+     * {@value #VITALS_SEED_INTERVAL_MINUTES} minutes, for each doctor's
+     * monitored patients, one day per request, ending at the current hour.
+     */
+    void seedVitals(int days) {
+        LocalDateTime end = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS);
+        int perDay = 24 * 60 / VITALS_SEED_INTERVAL_MINUTES;
+        for (DoctorSession doctor : doctors) {
+            for (Long patientId : doctor.monitoredPatients()) {
+                for (int day = days; day > 0; day--) {
+                    LocalDateTime start = end.minusDays(day);
+                    List<VitalsRequest> readings = new ArrayList<>(perDay);
+                    for (int i = 0; i < perDay; i++) {
+                        readings.add(randomVitals(start.plusMinutes((long) i * VITALS_SEED_INTERVAL_MINUTES)));
+                    }
+                    post("/api/patients/" + patientId + "/vitals", doctor.token, readings);
+                }
+            }
+        }
+    }
+
+    /**
+     * The shift: a burst of about one login per doctor in the first
+     * {@code shiftSeconds}, then the steady mix of logins, dashboard polls,
+     * list fetches, creates and updates for the rest of the duration.
+     */
+    List<OpenLoadDriver.TrafficStream> shift(LoadTestOptions options, boolean includeShiftStart) {
+        List<OpenLoadDriver.TrafficStream> streams = new ArrayList<>();
+        if (includeShiftStart && options.shiftSeconds() > 0) {
+            streams.add(new OpenLoadDriver.TrafficStream(LOGIN,
+                    (double) doctors.size() / options.shiftSeconds(), options.shiftSeconds(),
+                    () -> login(randomDoctor())));
+        }
+        streams.add(new OpenLoadDriver.TrafficStream(LOGIN, options.loginRate(), 0,
+                () -> login(randomDoctor())));
+        streams.add(new OpenLoadDriver.TrafficStream(DASHBOARD, options.dashboardRate(), 0,
+                () -> get("/api/analytics/dashboard", randomDoctor())));
+        streams.add(new OpenLoadDriver.TrafficStream(LIST, options.listRate(), 0,
+                () -> get(listPath, randomDoctor())));
+        streams.add(new OpenLoadDriver.TrafficStream(DETAIL, options.detailRate(), 0,
+                this::detail));
+        streams.add(new OpenLoadDriver.TrafficStream(CREATE, options.createRate(), 0,
+                this::create));
+        streams.add(new OpenLoadDriver.TrafficStream(UPDATE, options.updateRate(), 0,
+                this::update));
+        streams.add(new OpenLoadDriver.TrafficStream(VITALS_INGEST, options.vitalsIngestRate(), 0,
+                () -> vitalsUpload(options.vitalsBatch())));
+        streams.add(new OpenLoadDriver.TrafficStream(VITALS_RANGE, options.vitalsRangeRate(), 0,
+                () -> vitalsQuery("/vitals?limit=10000&from=", 7)));
+        streams.add(new OpenLoadDriver.TrafficStream(VITALS_ROLLUPS, options.vitalsRollupRate(), 0,
+                () -> vitalsQuery("/vitals/rollups?resolution=hour&from=", 30)));
+        return streams;
+    }
+
+    private HttpRequest.Builder login(DoctorSession doctor) {
+        LoginRequest login = new LoginRequest();
+        login.setIdentifier(doctor.email);
+        login.setPassword(PASSWORD);
+        return json(HttpRequest.newBuilder(uri("/api/auth/login")), login, "POST");
+    }
+
+    private HttpRequest.Builder get(String path, DoctorSession doctor) {
+        HttpRequest.Builder builder = authorized(path, doctor).GET();
+        String etag = revalidate ? doctor.etags.get(path) : null;
+        if (etag != null) {
+            builder.header("If-None-Match", etag);
+        }
+        return builder;
+    }
+
+    private HttpRequest.Builder detail() {
+        DoctorSession doctor = randomDoctor();
+        Long patientId = doctor.randomPatient();
+        return patientId == null ? create() : get("/api/patients/" + patientId, doctor);
+    }
+
+    /**
+     * Keeps the ETag of a successful GET for the doctor's next request to
+     * the same URL.
+     */
+    void remember(HttpResponse<?> response) {
+        HttpRequest request = response.request();
+        if (!revalidate || !request.method().equals("GET") || response.statusCode() != 200) {
+            return;
+        }
+        String token = request.headers().firstValue("Authorization").orElse("").substring("Bearer ".length());
+        String path = request.uri().getRawPath()
+                + (request.uri().getRawQuery() != null ? "?" + request.uri().getRawQuery() : "");
+        DoctorSession doctor = doctorsByToken.get(token);
+        response.headers().firstValue("ETag").ifPresent(etag -> {
+            if (doctor != null) {
+                doctor.etags.put(path, etag);
+            }
+        });
+    }
+
+    private HttpRequest.Builder create() {
+        DoctorSession doctor = randomDoctor();
+        return json(authorized("/api/patients", doctor), randomPatient(), "POST");
+    }
+
+    private HttpRequest.Builder update() {
+        DoctorSession doctor = randomDoctor();
+        Long patientId = doctor.randomPatient();
+        if (patientId == null) {
+            return create();
+        }
+        return json(authorized("/api/patients/" + patientId, doctor), randomPatient(), "PUT");
+    }
+
+    /**
+     * A monitor upload: {@code batch} readings one minute apart, continuing
+     * from the patient's previous upload so that no reading repeats.
+     */
+    private HttpRequest.Builder vitalsUpload(int batch) {
+        DoctorSession doctor = randomDoctor();
+        Long patientId = doctor.randomMonitoredPatient();
+        if (patientId == null) {
+            return create();
+        }
+        LocalDateTime start = doctor.nextVitalsTime(patientId, batch);
+        List<VitalsRequest> readings = new ArrayList<>(batch);
+        for (int i = 0; i < batch; i++) {
+            readings.add(randomVitals(start.plusMinutes(i)));
+        }
+        return json(authorized("/api/patients/" + patientId + "/vitals", doctor), readings, "POST");
+    }
+
+    private HttpRequest.Builder vitalsQuery(String pathAndParameters, int days) {
+        DoctorSession doctor = randomDoctor();
+        Long patientId = doctor.randomMonitoredPatient();
+        if (patientId == null) {
+            return create();
+        }
+        LocalDateTime from = LocalDateTime.now().minusDays(days).truncatedTo(ChronoUnit.SECONDS);
+        return authorized("/api/patients/" + patientId + pathAndParameters + from, doctor).GET();
+    }
+
+    private HttpRequest.Builder authorized(String path, DoctorSession doctor) {
+        return HttpRequest.newBuilder(uri(path)).header("Authorization", "Bearer " + doctor.token);
+    }
+
+    private HttpRequest.Builder json(HttpRequest.Builder builder, Object body, String method) {
+        try {
+            return builder.header("Content-Type", "application/json")
+                    .method(method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private JsonNode post(String path, String token, Object body) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(uri(path));
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        try {
+            HttpResponse<String> response = client.send(json(builder, body, "POST").build(),
+                    HttpResponse.BodyHandlers.ofString());
+            if (response.statusCode() / 100 != 2) {
+                throw new IllegalStateException("Seeding " + path + " failed with " + response.statusCode()
+                        + ": " + response.body());
+            }
+            return objectMapper.readTree(response.body());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while seeding", e);
+        }
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private DoctorSession randomDoctor() {
+        return doctors.get(ThreadLocalRandom.current().nextInt(doctors.size()));
+    }
+
+    private static PatientRequest randomPatient() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        PatientRequest patient = new PatientRequest();
+        patient.setName("Patient " + random.nextInt(1_000_000));
+        patient.setAge(1 + random.nextInt(90));
+        patient.setGender(random.nextBoolean() ? "male" : "female");
+        patient.setPhone("98" + (10_000_000 + random.nextInt(90_000_000)));
+        patient.setState("Karnataka");
+        patient.setCity("Mysuru");
+        patient.setWeight(40 + random.nextInt(50) + 0.5);
+        patient.setHeight(140 + random.nextInt(50) + 0.5);
+        patient.setTemperature(97 + random.nextInt(50) / 10.0);
+        patient.setBloodPressure((100 + random.nextInt(60)) + "/" + (60 + random.nextInt(40)));
+        patient.setOxygen(88.0 + random.nextInt(12));
+        patient.setPulse(60 + random.nextInt(60));
+        patient.setSymptoms(List.of(SYMPTOMS[random.nextInt(SYMPTOMS.length)],
+                SYMPTOMS[random.nextInt(SYMPTOMS.length)]));
+        patient.setRiskLevel(RISK_LEVELS[random.nextInt(RISK_LEVELS.length)]);
+        patient.setDisease(DISEASES[random.nextInt(DISEASES.length)]);
+        patient.setTriggers(List.of("Elevated temperature"));
+        patient.setRecommendations(List.of("Recheck vitals in 24 hours", "Refer to district hospital"));
+        return patient;
+    }
+
+    private static VitalsRequest randomVitals(LocalDateTime observedAt) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        VitalsRequest vitals = new VitalsRequest();
+        vitals.setObservedAt(observedAt);
+        vitals.setTemperature(97.5 + random.nextInt(20) / 10.0);
+        vitals.setOxygen(94.0 + random.nextInt(6));
+        vitals.setPulse(65 + random.nextInt(20));
+        vitals.setBloodPressure((115 + random.nextInt(15)) + "/" + (75 + random.nextInt(10)));
+        return vitals;
+    }
+
+    private static final class DoctorSession {
+        private final String email;
+        private final String token;
+        private final List<Long> patientIds = new ArrayList<>();
+        private final Map<String, String> etags = new ConcurrentHashMap<>();
+        private final Map<Long, LocalDateTime> nextVitals = new ConcurrentHashMap<>();
+
+        DoctorSession(String email, String token) {
+            this.email = email;
+            this.token = token;
+        }
+
+        synchronized void addPatient(Long id) {
+            patientIds.add(id);
+        }
+
+        synchronized Long randomPatient() {
+            return patientIds.isEmpty() ? null : patientIds.get(ThreadLocalRandom.current().nextInt(patientIds.size()));
+        }
+
+        synchronized List<Long> monitoredPatients() {
+            return List.copyOf(patientIds.subList(0, Math.min(VITALS_PATIENTS, patientIds.size())));
+        }
+
+        synchronized Long randomMonitoredPatient() {
+            int monitored = Math.min(VITALS_PATIENTS, patientIds.size());
+            return monitored == 0 ? null : patientIds.get(ThreadLocalRandom.current().nextInt(monitored));
+        }
+
+        // Start of the patient's next upload; uploads continue minute by minute from now
+        LocalDateTime nextVitalsTime(Long patientId, int readings) {
+            LocalDateTime[] start = new LocalDateTime[1];
+            nextVitals.compute(patientId, (id, next) -> {
+                start[0] = next != null ? next : LocalDateTime.now().truncatedTo(ChronoUnit.MINUTES);
+                return start[0].plusMinutes(readings);
+            });
+            return start[0];
+        }
+    }
+}
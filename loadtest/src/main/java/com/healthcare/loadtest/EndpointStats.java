@@ -0,0 +1,93 @@
+package com.healthcare.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes for one endpoint. Latency runs from the request's
+ * scheduled send time, not the actual one, so a stalled server or client
+ * shows up in the percentiles instead of silently lowering the offered load
+ * (coordinated omission).
+ */
+final class EndpointStats {
+
+    private static final long MAX_TRACKABLE_NANOS = TimeUnit.MINUTES.toNanos(2);
+
+    private final String endpoint;
+    private final Histogram latencies = new ConcurrentHistogram(MAX_TRACKABLE_NANOS, 3);
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder bodyBytes = new LongAdder();
+
+    EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    void record(long latencyNanos, int status, long responseBytes) {
+        latencies.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        if (status == 304) {
+            notModified.increment();
+        } else if (status / 100 != 2) {
+            errors.increment();
+        }
+        bodyBytes.add(responseBytes);
+    }
+
+    /**
+     * A request that failed without a response (connect error, timeout).
+     */
+    void recordFailed(long latencyNanos) {
+        latencies.recordValue(Math.min(latencyNanos, MAX_TRACKABLE_NANOS));
+        errors.increment();
+    }
+
+    /**
+     * A request that was due but not sent because too many were outstanding.
+     */
+    void recordDropped() {
+        dropped.increment();
+    }
+
+    String endpoint() {
+        return endpoint;
+    }
+
+    Histogram latencies() {
+        return latencies;
+    }
+
+    long completed() {
+        return latencies.getTotalCount();
+    }
+
+    long errors() {
+        return errors.sum();
+    }
+
+    long dropped() {
+        return dropped.sum();
+    }
+
+    long notModified() {
+        return notModified.sum();
+    }
+
+    /**
+     * Mean response body size, before any transfer encoding.
+     */
+    double bytesPerResponse() {
+        long completed = completed();
+        return completed == 0 ? 0 : (double) bodyBytes.sum() / completed;
+    }
+
+    /**
+     * Failed and dropped requests as a share of all requests that were due.
+     */
+    double errorRate() {
+        long due = completed() + dropped();
+        return due == 0 ? 0 : (double) (errors() + dropped()) / due;
+    }
+}
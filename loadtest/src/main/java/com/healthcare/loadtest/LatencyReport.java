@@ -0,0 +1,109 @@
+package com.healthcare.loadtest;
+
+import org.HdrHistogram.Histogram;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Prints per-endpoint percentiles and writes each endpoint's full latency
+ * distribution as an HdrHistogram .hgrm file (plottable with the
+ * HdrHistogram plotter).
+ */
+final class LatencyReport {
+
+    private static final double NANOS_PER_MILLI = 1_000_000.0;
+    private static final double[] PERCENTILES = {50, 95, 99, 99.9};
+
+    private LatencyReport() {
+    }
+
+    /**
+     * @param cpuNanos JVM CPU time over the measured run (server and generator), or negative if unknown
+     */
+    record Run(String label, int durationSeconds, int peakThreads, long cpuNanos,
+               Map<String, EndpointStats> stats) {
+
+        long requests() {
+            return stats.values().stream().mapToLong(EndpointStats::completed).sum();
+        }
+
+        double cpuMillisPerRequest() {
+            long requests = requests();
+            return cpuNanos < 0 || requests == 0 ? Double.NaN : cpuNanos / NANOS_PER_MILLI / requests;
+        }
+    }
+
+    static void print(PrintStream out, Run run) {
+        out.printf("%n== %s: %d s measured, peak JVM threads %d, CPU %.3f ms/request ==%n", run.label(),
+                run.durationSeconds(), run.peakThreads(), run.cpuMillisPerRequest());
+        out.printf("%-30s %8s %8s %7s %8s %9s %9s %9s %9s %9s %9s %6s%n", "endpoint", "count", "errors", "err%",
+                "rate/s", "p50 ms", "p95 ms", "p99 ms", "p99.9 ms", "max ms", "KB/resp", "304%");
+        for (EndpointStats stats : run.stats().values()) {
+            Histogram latencies = stats.latencies();
+            out.printf("%-30s %8d %8d %6.2f%% %8.1f", stats.endpoint(), stats.completed(),
+                    stats.errors() + stats.dropped(), stats.errorRate() * 100,
+                    (double) stats.completed() / run.durationSeconds());
+            for (double percentile : PERCENTILES) {
+                out.printf(" %9.2f", latencies.getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+            }
+            out.printf(" %9.2f %9.2f %5.1f%%%n", latencies.getMaxValue() / NANOS_PER_MILLI,
+                    stats.bytesPerResponse() / 1024, percent(stats.notModified(), stats.completed()));
+        }
+    }
+
+    /**
+     * Side-by-side p50/p99/p99.9 and response size of two runs, e.g. platform
+     * vs virtual threads or without vs with revalidation.
+     */
+    static void compare(PrintStream out, Run baseline, Run candidate) {
+        out.printf("%n== %s vs %s (ms) ==%n", baseline.label(), candidate.label());
+        out.printf("%-30s %19s %19s %19s %15s %19s%n", "endpoint", "p50", "p99", "p99.9", "err%", "KB/resp");
+        for (EndpointStats before : baseline.stats().values()) {
+            EndpointStats after = candidate.stats().get(before.endpoint());
+            if (after == null) {
+                continue;
+            }
+            out.printf("%-30s", before.endpoint());
+            for (double percentile : new double[]{50, 99, 99.9}) {
+                out.printf(" %9.2f/%-9.2f", before.latencies().getValueAtPercentile(percentile) / NANOS_PER_MILLI,
+                        after.latencies().getValueAtPercentile(percentile) / NANOS_PER_MILLI);
+            }
+            out.printf(" %6.2f/%-6.2f", before.errorRate() * 100, after.errorRate() * 100);
+            out.printf(" %9.2f/%-9.2f%n", before.bytesPerResponse() / 1024, after.bytesPerResponse() / 1024);
+        }
+        out.printf("peak JVM threads %d/%d, CPU ms/request %.3f/%.3f%n", baseline.peakThreads(),
+                candidate.peakThreads(), baseline.cpuMillisPerRequest(), candidate.cpuMillisPerRequest());
+    }
+
+    /**
+     * Writes {@code <dir>/<label>/<endpoint>.hgrm} for every endpoint.
+     *
+     * @return the files written
+     */
+    static List<Path> writeHistograms(Path directory, Run run) throws IOException {
+        Path runDirectory = directory.resolve(slug(run.label()));
+        Files.createDirectories(runDirectory);
+        List<Path> files = new ArrayList<>();
+        for (EndpointStats stats : run.stats().values()) {
+            Path file = runDirectory.resolve(slug(stats.endpoint()) + ".hgrm");
+            try (PrintStream out = new PrintStream(Files.newOutputStream(file))) {
+                stats.latencies().outputPercentileDistribution(out, NANOS_PER_MILLI);
+            }
+            files.add(file);
+        }
+        return files;
+    }
+
+    private static double percent(long part, long whole) {
+        return whole == 0 ? 0 : 100.0 * part / whole;
+    }
+
+    private static String slug(String name) {
+        return name.toLowerCase().replaceAll("[^a-z0-9]+", "-").replaceAll("(^-|-$)", "");
+    }
+}
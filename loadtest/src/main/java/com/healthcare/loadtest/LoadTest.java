@@ -0,0 +1,167 @@
+package com.healthcare.loadtest;
+
+import com.healthcare.api.HealthcareApplication;
+import com.healthcare.api.service.VitalsService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.net.http.HttpClient;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Starts {@link HealthcareApplication} in-process on a fresh in-memory H2
+ * database, seeds doctors and patients, and replays a clinic shift against
+ * it. With {@code --threads=both} the same traffic runs once on platform and
+ * once on virtual request threads and the two are compared; with
+ * {@code --revalidate=both} it runs once without and once with conditional
+ * GETs, and with {@code --list-view=both} once with full and once with
+ * summary list rows.
+ * <p>
+ * The generator shares the machine (and JVM) with the server, so absolute
+ * numbers are only comparable between runs on the same box.
+ */
+public final class LoadTest {
+
+    private LoadTest() {
+    }
+
+    public static void main(String[] args) throws IOException {
+        LoadTestOptions options;
+        try {
+            options = LoadTestOptions.parse(args);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        List<LatencyReport.Run> runs = new ArrayList<>();
+        for (LoadTestOptions.ThreadMode mode : options.threadModes()) {
+            if (mode == LoadTestOptions.ThreadMode.VIRTUAL && Runtime.version().feature() < 21) {
+                System.out.printf("Skipping the virtual-thread run: it needs JDK 21+, this is JDK %d%n",
+                        Runtime.version().feature());
+                continue;
+            }
+            for (boolean revalidate : options.revalidateModes()) {
+                for (String listView : options.listViews()) {
+                    LatencyReport.Run run = run(options, mode, revalidate, listView);
+                    LatencyReport.print(System.out, run);
+                    printListRows(run);
+                    printVitalsReadings(run, options.vitalsBatch());
+                    for (Path file : LatencyReport.writeHistograms(options.outputDirectory(), run)) {
+                        System.out.println("  wrote " + file);
+                    }
+                    runs.add(run);
+                }
+            }
+        }
+        if (runs.size() == 2) {
+            LatencyReport.compare(System.out, runs.get(0), runs.get(1));
+        }
+    }
+
+    private static LatencyReport.Run run(LoadTestOptions options, LoadTestOptions.ThreadMode mode,
+                                         boolean revalidate, String listView) {
+        String label = mode.name().toLowerCase(Locale.ROOT) + " threads" + (revalidate ? ", revalidating" : "")
+                + ("summary".equals(listView) ? ", summary lists" : "");
+        System.out.printf("%nStarting the API on %s%n", label);
+        // Command line arguments outrank application.properties
+        List<String> appArguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + (mode == LoadTestOptions.ThreadMode.VIRTUAL),
+                "--spring.datasource.url=jdbc:h2:mem:loadtest-" + mode.name().toLowerCase(Locale.ROOT),
+                "--spring.h2.console.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--logging.level.root=WARN",
+                "--logging.level.org.springframework=WARN",
+                "--logging.level.com.healthcare=WARN"));
+        appArguments.addAll(options.appArguments());
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HealthcareApplication.class)
+                .run(appArguments.toArray(String[]::new));
+        try {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .connectTimeout(Duration.ofSeconds(10))
+                    .build();
+            ClinicTraffic traffic = new ClinicTraffic(client, "http://localhost:" + port, revalidate, listView);
+
+            System.out.printf("Seeding %d doctors with %d patients each%n", options.doctors(),
+                    options.patientsPerDoctor());
+            traffic.seed(options.doctors(), options.patientsPerDoctor());
+            if (options.vitalsDays() > 0) {
+                System.out.printf("Seeding %d days of vitals for %d patients per doctor%n", options.vitalsDays(),
+                        ClinicTraffic.VITALS_PATIENTS);
+                traffic.seedVitals(options.vitalsDays());
+                // Past days go into segments now rather than at the next scheduled compaction
+                context.getBean(VitalsService.class).compactSegments();
+            }
+
+            if (options.warmupSeconds() > 0) {
+                System.out.printf("Warming up for %d s%n", options.warmupSeconds());
+                new OpenLoadDriver(client, options.maxInFlight(), traffic::remember)
+                        .run(traffic.shift(options, false), options.warmupSeconds());
+            }
+
+            System.out.printf("Measuring for %d s%n", options.durationSeconds());
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            threads.resetPeakThreadCount();
+            long cpuBefore = processCpuNanos();
+            Map<String, EndpointStats> stats = new OpenLoadDriver(client, options.maxInFlight(), traffic::remember)
+                    .run(traffic.shift(options, true), options.durationSeconds());
+            return new LatencyReport.Run(label, options.durationSeconds(), threads.getPeakThreadCount(),
+                    processCpuNanos() - cpuBefore, stats);
+        } finally {
+            context.close();
+        }
+    }
+
+    /**
+     * Rows delivered by the list fetches, assuming full pages (seed at least
+     * {@link ClinicTraffic#LIST_LIMIT} patients per doctor). With the other
+     * rates at 0 and the list rate raised until latency climbs, rows/s is
+     * the list endpoint's capacity on this machine.
+     */
+    private static void printListRows(LatencyReport.Run run) {
+        EndpointStats list = run.stats().get(ClinicTraffic.LIST);
+        if (list == null || list.completed() == 0) {
+            return;
+        }
+        double bytesPerRow = list.bytesPerResponse() / ClinicTraffic.LIST_LIMIT;
+        double rowsPerSecond = (double) list.completed() * ClinicTraffic.LIST_LIMIT / run.durationSeconds();
+        System.out.printf("list rows: %.0f/s, %.0f bytes/row, CPU %.1f us/row (whole JVM)%n", rowsPerSecond,
+                bytesPerRow, run.cpuNanos() < 0 ? Double.NaN : run.cpuNanos() / 1000.0
+                        / (list.completed() * (double) ClinicTraffic.LIST_LIMIT));
+    }
+
+    /**
+     * Readings stored per second by the vitals uploads that succeeded.
+     */
+    private static void printVitalsReadings(LatencyReport.Run run, int batch) {
+        EndpointStats ingest = run.stats().get(ClinicTraffic.VITALS_INGEST);
+        if (ingest == null || ingest.completed() == 0) {
+            return;
+        }
+        System.out.printf("vitals ingest: %.0f readings/s in batches of %d%n",
+                (double) (ingest.completed() - ingest.errors()) * batch / run.durationSeconds(), batch);
+    }
+
+    /**
+     * CPU time of the whole JVM, server and load generator together; -1 if
+     * the platform does not report it.
+     */
+    private static long processCpuNanos() {
+        if (ManagementFactory.getOperatingSystemMXBean() instanceof com.sun.management.OperatingSystemMXBean os) {
+            return os.getProcessCpuTime();
+        }
+        return -1;
+    }
+}
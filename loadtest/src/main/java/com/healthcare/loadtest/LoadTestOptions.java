@@ -0,0 +1,158 @@
+package com.healthcare.loadtest;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command line options, given as {@code --name=value}. Rates are requests per
+ * second offered to the server regardless of how fast it answers.
+ */
+record LoadTestOptions(
+        List<ThreadMode> threadModes,
+        List<Boolean> revalidateModes,
+        List<String> listViews,
+        int durationSeconds,
+        int warmupSeconds,
+        int doctors,
+        int patientsPerDoctor,
+        int shiftSeconds,
+        double loginRate,
+        double dashboardRate,
+        double listRate,
+        double detailRate,
+        double createRate,
+        double updateRate,
+        int vitalsDays,
+        int vitalsBatch,
+        double vitalsIngestRate,
+        double vitalsRangeRate,
+        double vitalsRollupRate,
+        int maxInFlight,
+        Path outputDirectory,
+        List<String> appArguments) {
+
+    enum ThreadMode { PLATFORM, VIRTUAL }
+
+    static final String USAGE = """
+            Options (defaults in brackets):
+              --threads=platform|virtual|both   server request threads [both]
+              --revalidate=off|on|both          GETs send If-None-Match with the last ETag [off]
+              --list-view=full|summary|both     list fetches ask for full rows or ?view=summary [full]
+              --duration=SECONDS                measured run length [60]
+              --warmup=SECONDS                  unmeasured run before it [15]
+              --doctors=N                       registered doctors [20]
+              --patients=N                      patients seeded per doctor [200]
+              --shift=SECONDS                   every doctor logs in within this window at the start [10]
+              --login-rate=RPS                  logins after the shift start [0.5]
+              --dashboard-rate=RPS              GET /api/analytics/dashboard [20]
+              --list-rate=RPS                   GET /api/patients?limit=50 [20]
+              --detail-rate=RPS                 GET /api/patients/{id} [10]
+              --create-rate=RPS                 POST /api/patients [5]
+              --update-rate=RPS                 PUT /api/patients/{id} [5]
+              --vitals-days=N                   days of readings every 15 min seeded for 5 patients per doctor [0]
+              --vitals-batch=N                  readings per vitals upload, one minute apart [60]
+              --vitals-ingest-rate=RPS          POST /api/patients/{id}/vitals [0]
+              --vitals-range-rate=RPS           GET /api/patients/{id}/vitals, the last 7 days [0]
+              --vitals-rollup-rate=RPS          GET /api/patients/{id}/vitals/rollups, 30 days of hours [0]
+              --max-in-flight=N                 requests beyond this are counted as dropped [5000]
+              --out=DIR                         .hgrm histogram files [target/loadtest]
+              --app.PROPERTY=VALUE              passed to the app as --PROPERTY=VALUE
+            """;
+
+    static LoadTestOptions parse(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        List<String> appArguments = new ArrayList<>();
+        for (String arg : args) {
+            if (arg.equals("--help")) {
+                throw new IllegalArgumentException(USAGE);
+            }
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Unrecognized argument " + arg + "\n" + USAGE);
+            }
+            if (arg.startsWith("--app.")) {
+                appArguments.add("--" + arg.substring("--app.".length()));
+                continue;
+            }
+            int separator = arg.indexOf('=');
+            values.put(arg.substring(2, separator), arg.substring(separator + 1));
+        }
+
+        LoadTestOptions options = new LoadTestOptions(
+                threadModes(values.getOrDefault("threads", "both")),
+                revalidateModes(values.getOrDefault("revalidate", "off")),
+                listViews(values.getOrDefault("list-view", "full")),
+                Integer.parseInt(values.getOrDefault("duration", "60")),
+                Integer.parseInt(values.getOrDefault("warmup", "15")),
+                Integer.parseInt(values.getOrDefault("doctors", "20")),
+                Integer.parseInt(values.getOrDefault("patients", "200")),
+                Integer.parseInt(values.getOrDefault("shift", "10")),
+                Double.parseDouble(values.getOrDefault("login-rate", "0.5")),
+                Double.parseDouble(values.getOrDefault("dashboard-rate", "20")),
+                Double.parseDouble(values.getOrDefault("list-rate", "20")),
+                Double.parseDouble(values.getOrDefault("detail-rate", "10")),
+                Double.parseDouble(values.getOrDefault("create-rate", "5")),
+                Double.parseDouble(values.getOrDefault("update-rate", "5")),
+                Integer.parseInt(values.getOrDefault("vitals-days", "0")),
+                Integer.parseInt(values.getOrDefault("vitals-batch", "60")),
+                Double.parseDouble(values.getOrDefault("vitals-ingest-rate", "0")),
+                Double.parseDouble(values.getOrDefault("vitals-range-rate", "0")),
+                Double.parseDouble(values.getOrDefault("vitals-rollup-rate", "0")),
+                Integer.parseInt(values.getOrDefault("max-in-flight", "5000")),
+                Path.of(values.getOrDefault("out", "target/loadtest")),
+                List.copyOf(appArguments));
+
+        List<String> known = List.of("threads", "revalidate", "list-view", "duration", "warmup", "doctors", "patients", "shift",
+                "login-rate", "dashboard-rate", "list-rate", "detail-rate", "create-rate", "update-rate",
+                "vitals-days", "vitals-batch", "vitals-ingest-rate", "vitals-range-rate", "vitals-rollup-rate",
+                "max-in-flight", "out");
+        for (String name : values.keySet()) {
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown option --" + name + "\n" + USAGE);
+            }
+        }
+        if (options.doctors() < 1 || options.durationSeconds() < 1) {
+            throw new IllegalArgumentException("--doctors and --duration must be at least 1");
+        }
+        if (options.vitalsBatch() < 1) {
+            throw new IllegalArgumentException("--vitals-batch must be at least 1");
+        }
+        if (options.threadModes().size() * options.revalidateModes().size() * options.listViews().size() > 2) {
+            throw new IllegalArgumentException("Only one of --threads, --revalidate and --list-view can be both");
+        }
+        return options;
+    }
+
+    private static List<Boolean> revalidateModes(String value) {
+        return switch (value) {
+            case "off" -> List.of(false);
+            case "on" -> List.of(true);
+            case "both" -> List.of(false, true);
+            default -> throw new IllegalArgumentException("--revalidate must be off, on or both");
+        };
+    }
+
+    private static List<String> listViews(String value) {
+        return switch (value) {
+            case "full", "summary" -> List.of(value);
+            case "both" -> List.of("full", "summary");
+            default -> throw new IllegalArgumentException("--list-view must be full, summary or both");
+        };
+    }
+
+    private static List<ThreadMode> threadModes(String value) {
+        List<ThreadMode> modes = new ArrayList<>();
+        switch (value) {
+            case "platform" -> modes.add(ThreadMode.PLATFORM);
+            case "virtual" -> modes.add(ThreadMode.VIRTUAL);
+            case "both" -> {
+                modes.add(ThreadMode.PLATFORM);
+                modes.add(ThreadMode.VIRTUAL);
+            }
+            default -> throw new IllegalArgumentException("--threads must be platform, virtual or both");
+        }
+        return modes;
+    }
+}
@@ -0,0 +1,127 @@
+package com.healthcare.loadtest;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Open-model load: each stream sends requests at Poisson-distributed arrival
+ * times for its rate, whether or not earlier requests have completed, the way
+ * independent clinic devices do. A single dispatcher thread fires the sends
+ * asynchronously, so slow responses never delay later arrivals.
+ */
+final class OpenLoadDriver {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final HttpClient client;
+    private final int maxInFlight;
+    private final Consumer<HttpResponse<byte[]>> responseListener;
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    /**
+     * @param responseListener sees every response, e.g. to remember ETags for later requests
+     */
+    OpenLoadDriver(HttpClient client, int maxInFlight, Consumer<HttpResponse<byte[]>> responseListener) {
+        this.client = client;
+        this.maxInFlight = maxInFlight;
+        this.responseListener = responseListener;
+    }
+
+    /**
+     * One source of arrivals. Streams that share an endpoint name are
+     * reported together.
+     *
+     * @param activeSeconds how long after the start the stream sends, or 0 for the whole run
+     */
+    record TrafficStream(String endpoint, double ratePerSecond, int activeSeconds,
+                         Supplier<HttpRequest.Builder> request) {
+    }
+
+    /**
+     * Runs the streams for the given duration, then waits for outstanding
+     * requests to finish.
+     *
+     * @return statistics per endpoint, in stream order
+     */
+    Map<String, EndpointStats> run(List<TrafficStream> streams, int durationSeconds) {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (TrafficStream stream : streams) {
+            stats.computeIfAbsent(stream.endpoint(), EndpointStats::new);
+        }
+
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(durationSeconds);
+        PriorityQueue<Arrival> arrivals = new PriorityQueue<>(Comparator.comparingLong(Arrival::dueNanos));
+        for (TrafficStream stream : streams) {
+            if (stream.ratePerSecond() > 0) {
+                long until = stream.activeSeconds() > 0
+                        ? Math.min(end, start + TimeUnit.SECONDS.toNanos(stream.activeSeconds())) : end;
+                arrivals.add(new Arrival(stream, nextArrival(start, stream), until));
+            }
+        }
+
+        while (!arrivals.isEmpty()) {
+            Arrival arrival = arrivals.poll();
+            if (arrival.dueNanos() >= arrival.untilNanos()) {
+                continue;
+            }
+            parkUntil(arrival.dueNanos());
+            send(arrival.stream(), arrival.dueNanos(), stats.get(arrival.stream().endpoint()));
+            arrivals.add(new Arrival(arrival.stream(), nextArrival(arrival.dueNanos(), arrival.stream()),
+                    arrival.untilNanos()));
+        }
+
+        long drainDeadline = System.nanoTime() + REQUEST_TIMEOUT.toNanos();
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            LockSupport.parkNanos(TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        return stats;
+    }
+
+    private void send(TrafficStream stream, long dueNanos, EndpointStats stats) {
+        if (inFlight.incrementAndGet() > maxInFlight) {
+            inFlight.decrementAndGet();
+            stats.recordDropped();
+            return;
+        }
+        HttpRequest request = stream.request().get().timeout(REQUEST_TIMEOUT).build();
+        client.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray()).whenComplete((response, error) -> {
+            long latency = System.nanoTime() - dueNanos;
+            if (error == null) {
+                stats.record(latency, response.statusCode(), response.body().length);
+                responseListener.accept(response);
+            } else {
+                stats.recordFailed(latency);
+            }
+            inFlight.decrementAndGet();
+        });
+    }
+
+    private static long nextArrival(long previousNanos, TrafficStream stream) {
+        double gapSeconds = -Math.log(1 - ThreadLocalRandom.current().nextDouble()) / stream.ratePerSecond();
+        return previousNanos + (long) (gapSeconds * TimeUnit.SECONDS.toNanos(1));
+    }
+
+    private static void parkUntil(long deadlineNanos) {
+        long remaining;
+        while ((remaining = deadlineNanos - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+        }
+    }
+
+    private record Arrival(TrafficStream stream, long dueNanos, long untilNanos) {
+    }
+}
@@ -0,0 +1,366 @@
+package com.healthcare.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.healthcare.api.dto.RegisterRequest;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Measures how quickly the packaged app becomes ready and answers its first
+ * requests. Each run starts the app in a new JVM and times it until Spring
+ * logs that it has started, then sends the first register, patient list and
+ * dashboard requests, and a second patient list for comparison, and reads
+ * the process's resident memory (current and peak) from {@code /proc}.
+ * <p>
+ * Modes, compared in one table of medians:
+ * <ul>
+ *   <li>{@code default} - the executable jar on its in-memory database</li>
+ *   <li>{@code lazy} - the faststart profile: a validated file database and lazy beans</li>
+ *   <li>{@code aot} - as {@code lazy}, running the Spring AOT initializers</li>
+ *   <li>{@code faststart} - as {@code aot}, with the class-data-sharing archive</li>
+ * </ul>
+ * All but {@code default} need the backend built with {@code -Pfaststart};
+ * {@code faststart} is skipped if the archive is missing. Each file-database
+ * mode gets its own database, whose schema is created by an untimed start.
+ * <p>
+ * Options: {@code --runs=5}, {@code --modes=default,lazy,aot,faststart},
+ * {@code --backend-target=../backend/target}, {@code --timeout-seconds=120},
+ * and {@code --history=<file>}, which appends the medians to a CSV file kept
+ * across builds. Every run is written to {@code target/startup}.
+ */
+public final class StartupBenchmark {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\S+ in ([0-9.]+) seconds");
+    private static final String[] METRICS = {"ready ms", "spring s", "register ms", "list ms", "dashboard ms",
+            "list again ms", "RSS MB", "peak RSS MB"};
+
+    private record Mode(String name, boolean faststart, List<String> jvmArguments) {
+    }
+
+    private StartupBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int runs = 5;
+        List<String> modeNames = List.of("default", "lazy", "aot", "faststart");
+        Path backendTarget = Path.of("..", "backend", "target");
+        long timeoutSeconds = 120;
+        Path history = null;
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !option[0].startsWith("--")) {
+                System.err.println("Expected --name=value, got " + arg);
+                System.exit(2);
+            }
+            switch (option[0]) {
+                case "--runs" -> runs = Integer.parseInt(option[1]);
+                case "--modes" -> modeNames = Arrays.asList(option[1].split(","));
+                case "--backend-target" -> backendTarget = Path.of(option[1]);
+                case "--timeout-seconds" -> timeoutSeconds = Long.parseLong(option[1]);
+                case "--history" -> history = Path.of(option[1]);
+                default -> {
+                    System.err.println("Unknown option " + option[0]);
+                    System.exit(2);
+                }
+            }
+        }
+
+        backendTarget = backendTarget.toAbsolutePath().normalize();
+        Path archive = backendTarget.resolve("healthcare.jsa");
+        List<Mode> modes = new ArrayList<>();
+        for (String name : modeNames) {
+            switch (name) {
+                case "default" -> modes.add(new Mode(name, false, List.of()));
+                case "lazy" -> modes.add(new Mode(name, true, List.of()));
+                case "aot" -> modes.add(new Mode(name, true, List.of("-Dspring.aot.enabled=true")));
+                case "faststart" -> {
+                    if (Files.exists(archive)) {
+                        modes.add(new Mode(name, true, List.of("-Dspring.aot.enabled=true",
+                                "-XX:SharedArchiveFile=" + archive)));
+                    } else {
+                        System.err.println("Skipping faststart: no " + archive + " (build with -Pfaststart)");
+                    }
+                }
+                default -> {
+                    System.err.println("Unknown mode " + name);
+                    System.exit(2);
+                }
+            }
+        }
+        Path execJar = backendTarget.resolve("healthcare-api-1.0.0-exec.jar");
+        Path plainJar = backendTarget.resolve("healthcare-api-1.0.0.jar");
+        if (modes.stream().anyMatch(Mode::faststart) && !Files.isDirectory(backendTarget.resolve("lib"))) {
+            System.err.println("No " + backendTarget.resolve("lib") + ": build the backend with -Pfaststart");
+            System.exit(2);
+        }
+
+        Path directory = Path.of("target", "startup").toAbsolutePath();
+        Files.createDirectories(directory);
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        Map<String, double[][]> results = new LinkedHashMap<>();
+        List<String> rows = new ArrayList<>();
+        rows.add("mode,run," + String.join(",", METRICS));
+        for (Mode mode : modes) {
+            Path jar = mode.faststart() ? plainJar : execJar;
+            Path dataDirectory = directory.resolve("data-" + mode.name());
+            if (mode.faststart()) {
+                deleteRecursively(dataDirectory);
+                createSchema(mode, jar, dataDirectory, timeoutSeconds);
+            }
+            double[][] samples = new double[runs][];
+            for (int run = 0; run < runs; run++) {
+                samples[run] = measure(client, mode, jar, dataDirectory, run, timeoutSeconds);
+                rows.add(mode.name() + "," + run + "," + join(samples[run]));
+                System.out.printf("%-10s run %d: ready in %.0f ms, first list in %.1f ms, RSS %.0f MB%n",
+                        mode.name(), run + 1, samples[run][0], samples[run][3], samples[run][6]);
+            }
+            results.put(mode.name(), samples);
+        }
+
+        System.out.printf("%nMedians of %d runs%n%-10s", runs, "mode");
+        for (String metric : METRICS) {
+            System.out.printf(" %14s", metric);
+        }
+        System.out.println();
+        String timestamp = Instant.now().toString();
+        List<String> historyRows = new ArrayList<>();
+        for (Map.Entry<String, double[][]> entry : results.entrySet()) {
+            double[] medians = medians(entry.getValue());
+            System.out.printf("%-10s", entry.getKey());
+            for (double median : medians) {
+                System.out.printf(" %14.1f", median);
+            }
+            System.out.println();
+            historyRows.add(timestamp + "," + entry.getKey() + "," + runs + "," + join(medians));
+        }
+
+        Path runsFile = directory.resolve("startup-" + timestamp.replace(':', '-') + ".csv");
+        Files.write(runsFile, rows);
+        System.out.println("\nRuns written to " + runsFile);
+        if (history != null) {
+            if (!Files.exists(history)) {
+                historyRows.add(0, "timestamp,mode,runs," + String.join(",", METRICS));
+            }
+            Files.write(history, historyRows, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            System.out.println("Medians appended to " + history);
+        }
+    }
+
+    /**
+     * Starts the app once with {@code ddl-auto=update}, exiting as soon as
+     * the context is refreshed, so the validating runs find the schema.
+     */
+    private static void createSchema(Mode mode, Path jar, Path dataDirectory, long timeoutSeconds) throws Exception {
+        List<String> command = command(mode, jar, dataDirectory, freePort());
+        command.add(command.indexOf("-jar"), "-Dspring.context.exit=onRefresh");
+        command.add("--spring.jpa.hibernate.ddl-auto=update");
+        Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        Deque<String> tail = drain(process, new CompletableFuture<>());
+        if (!process.waitFor(timeoutSeconds, TimeUnit.SECONDS) || process.exitValue() != 0) {
+            process.destroyForcibly();
+            throw new IllegalStateException("Creating the " + mode.name() + " schema failed:\n" + tailOf(tail));
+        }
+    }
+
+    private static double[] measure(HttpClient client, Mode mode, Path jar, Path dataDirectory, int run,
+                                     long timeoutSeconds) throws Exception {
+        int port = freePort();
+        String baseUrl = "http://localhost:" + port;
+        CompletableFuture<String> started = new CompletableFuture<>();
+        long launched = System.nanoTime();
+        Process process = new ProcessBuilder(command(mode, jar, dataDirectory, port)).redirectErrorStream(true).start();
+        Deque<String> tail = drain(process, started);
+        try {
+            String line;
+            try {
+                line = started.get(timeoutSeconds, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                throw new IllegalStateException(mode.name() + " did not start in " + timeoutSeconds + " s:\n"
+                        + tailOf(tail));
+            }
+            double readyMillis = (System.nanoTime() - launched) / 1e6;
+            Matcher matcher = STARTED.matcher(line);
+            double springSeconds = matcher.find() ? Double.parseDouble(matcher.group(1)) : Double.NaN;
+
+            ObjectMapper objectMapper = new ObjectMapper();
+            RegisterRequest register = new RegisterRequest();
+            register.setName("Dr. Startup");
+            register.setEmail("startup-" + mode.name() + "-" + run + "@clinic.example");
+            register.setPassword("startup-benchmark-password");
+            register.setMedicalId("STARTUP-" + mode.name() + "-" + run);
+            register.setHospital("District Hospital");
+            register.setHospitalPhone("08000000");
+            register.setSpecialization("General Medicine");
+            long start = System.nanoTime();
+            String body = send(client, HttpRequest.newBuilder(URI.create(baseUrl + "/api/auth/register"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(objectMapper.writeValueAsString(register))));
+            double registerMillis = (System.nanoTime() - start) / 1e6;
+            String token = objectMapper.readTree(body).get("token").asText();
+            double listMillis = timeGet(client, baseUrl + "/api/patients", token);
+            double dashboardMillis = timeGet(client, baseUrl + "/api/analytics/dashboard", token);
+            double listAgainMillis = timeGet(client, baseUrl + "/api/patients", token);
+
+            Map<String, Long> status = procStatus(process.pid());
+            return new double[]{readyMillis, springSeconds, registerMillis, listMillis, dashboardMillis,
+                    listAgainMillis, status.getOrDefault("VmRSS", 0L) / 1024.0,
+                    status.getOrDefault("VmHWM", 0L) / 1024.0};
+        } finally {
+            // SIGTERM, so the file database is closed cleanly before the next run opens it
+            process.destroy();
+            if (!process.waitFor(30, TimeUnit.SECONDS)) {
+                process.destroyForcibly().waitFor();
+            }
+        }
+    }
+
+    private static List<String> command(Mode mode, Path jar, Path dataDirectory, int port) {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        command.addAll(mode.jvmArguments());
+        command.add("-jar");
+        command.add(jar.toString());
+        command.add("--server.port=" + port);
+        command.add("--spring.main.banner-mode=off");
+        command.add("--logging.level.com.healthcare=WARN");
+        // Spring logs "Started ..." through the main class's logger, which is how readiness is detected
+        command.add("--logging.level.com.healthcare.api.HealthcareApplication=INFO");
+        if (mode.faststart()) {
+            command.add("--spring.profiles.active=faststart");
+            command.add("--faststart.data-dir=" + dataDirectory);
+        }
+        return command;
+    }
+
+    /**
+     * Reads the child's output on a daemon thread, so it never blocks on a
+     * full pipe, completing {@code started} at Spring's startup line and
+     * keeping the last lines for error messages.
+     */
+    private static Deque<String> drain(Process process, CompletableFuture<String> started) {
+        Deque<String> tail = new ArrayDeque<>();
+        Thread reader = new Thread(() -> {
+            try (BufferedReader in = new BufferedReader(
+                    new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+                for (String line; (line = in.readLine()) != null; ) {
+                    if (!started.isDone() && STARTED.matcher(line).find()) {
+                        started.complete(line);
+                    }
+                    synchronized (tail) {
+                        tail.addLast(line);
+                        if (tail.size() > 40) {
+                            tail.removeFirst();
+                        }
+                    }
+                }
+            } catch (IOException e) {
+                // The process was stopped
+            }
+            started.completeExceptionally(new IllegalStateException("The app exited before it started:\n"
+                    + tailOf(tail)));
+        }, "startup-output-" + process.pid());
+        reader.setDaemon(true);
+        reader.start();
+        return tail;
+    }
+
+    private static String tailOf(Deque<String> tail) {
+        synchronized (tail) {
+            return String.join("\n", tail);
+        }
+    }
+
+    private static double timeGet(HttpClient client, String url, String token) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        send(client, HttpRequest.newBuilder(URI.create(url)).header("Authorization", "Bearer " + token).GET());
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    private static String send(HttpClient client, HttpRequest.Builder request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException(response.request().uri() + " returned " + response.statusCode());
+        }
+        return response.body();
+    }
+
+    // Sizes in kB, e.g. VmRSS (resident now) and VmHWM (peak resident)
+    private static Map<String, Long> procStatus(long pid) throws IOException {
+        Path status = Path.of("/proc", Long.toString(pid), "status");
+        Map<String, Long> sizes = new LinkedHashMap<>();
+        if (!Files.exists(status)) {
+            return sizes;
+        }
+        for (String line : Files.readAllLines(status)) {
+            String[] field = line.split(":\\s+", 2);
+            if (field.length == 2 && field[1].endsWith(" kB")) {
+                sizes.put(field[0], Long.parseLong(field[1].substring(0, field[1].length() - 3).trim()));
+            }
+        }
+        return sizes;
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private static double[] medians(double[][] samples) {
+        double[] medians = new double[METRICS.length];
+        for (int metric = 0; metric < medians.length; metric++) {
+            int column = metric;
+            double[] values = Arrays.stream(samples).mapToDouble(sample -> sample[column]).sorted().toArray();
+            int middle = values.length / 2;
+            medians[metric] = values.length % 2 == 1 ? values[middle] : (values[middle - 1] + values[middle]) / 2;
+        }
+        return medians;
+    }
+
+    private static String join(double[] values) {
+        return String.join(",", Arrays.stream(values)
+                .mapToObj(value -> String.format(Locale.ROOT, "%.1f", value)).toList());
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                try {
+                    Files.delete(path);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+    }
+}